@@ -0,0 +1,121 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.streams.benchmarks;
+
+import org.apache.streams.converter.ActivityConverterUtil;
+import org.apache.streams.converter.LineReadWriteConfiguration;
+import org.apache.streams.converter.LineReadWriteUtil;
+import org.apache.streams.core.StreamsDatum;
+import org.apache.streams.jackson.StreamsJacksonMapper;
+import org.apache.streams.pojo.json.Activity;
+import org.apache.streams.twitter.converter.TwitterDateTimeFormat;
+import org.apache.streams.twitter.pojo.Tweet;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.base.Charsets;
+import com.google.common.io.Resources;
+import org.joda.time.DateTime;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the conversions applied to each document: reading and writing lines with
+ * {@link org.apache.streams.converter.LineReadWriteUtil}, converting Twitter json to activities with
+ * {@link org.apache.streams.converter.ActivityConverterUtil}, and json round trips through
+ * {@link org.apache.streams.jackson.StreamsJacksonMapper}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ConverterBenchmark {
+
+  private LineReadWriteUtil lineReadWriteUtil;
+  private StreamsDatum datum;
+  private String line;
+
+  private ActivityConverterUtil activityConverterUtil;
+  private ObjectMapper mapper;
+  private String tweetJson;
+  private Tweet tweet;
+  private Activity activity;
+
+  @Setup
+  public void setup() throws IOException {
+    this.tweetJson = Resources.toString(Resources.getResource("tweet.json"), Charsets.UTF_8).trim();
+    this.mapper = StreamsJacksonMapper.getInstance(Collections.singletonList(TwitterDateTimeFormat.TWITTER_FORMAT));
+    this.tweet = mapper.readValue(tweetJson, Tweet.class);
+    this.activityConverterUtil = ActivityConverterUtil.getInstance();
+    this.activity = activityConverterUtil.convert(tweet).get(0);
+
+    this.lineReadWriteUtil = LineReadWriteUtil.getInstance(new LineReadWriteConfiguration()
+        .withFields(Arrays.asList("ID", "SEQ", "TS", "META", "DOC")));
+    this.datum = new StreamsDatum(tweetJson, tweet.getIdStr(), DateTime.now(), BigInteger.ONE);
+    this.datum.getMetadata().put("id", tweet.getIdStr());
+    this.line = lineReadWriteUtil.convertResultToString(datum);
+  }
+
+  @Benchmark
+  public StreamsDatum processLine() {
+    return lineReadWriteUtil.processLine(line);
+  }
+
+  @Benchmark
+  public String convertResultToString() {
+    return lineReadWriteUtil.convertResultToString(datum);
+  }
+
+  @Benchmark
+  public List<Activity> convertTweetJson() {
+    return activityConverterUtil.convert(tweetJson);
+  }
+
+  @Benchmark
+  public List<Activity> convertTweet() {
+    return activityConverterUtil.convert(tweet);
+  }
+
+  @Benchmark
+  public Tweet tweetRoundTrip() throws IOException {
+    return mapper.readValue(mapper.writeValueAsString(tweet), Tweet.class);
+  }
+
+  @Benchmark
+  public Activity activityRoundTrip() throws IOException {
+    return mapper.readValue(mapper.writeValueAsString(activity), Activity.class);
+  }
+
+}
@@ -0,0 +1,154 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.streams.benchmarks;
+
+import org.apache.streams.config.StreamsConfiguration;
+import org.apache.streams.core.StreamsDatum;
+import org.apache.streams.jackson.StreamsJacksonMapper;
+import org.apache.streams.local.LocalRuntimeConfiguration;
+import org.apache.streams.local.counters.StreamsTaskCounter;
+import org.apache.streams.local.tasks.BaseStreamsTask;
+import org.apache.streams.pojo.json.Activity;
+import org.apache.streams.pojo.json.ActivityObject;
+import org.apache.streams.pojo.json.Provider;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashMap;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of passing one datum to several downstream components, comparing the default deep clone with the
+ * 'share' fanOutMode of the local runtime.  With 'clone', this covers each path of cloneStreamsDatum: ObjectNode
+ * deep copy, Activity round trip through json, and java serialization.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class FanOutBenchmark {
+
+  @Param({"clone", "share"})
+  public String fanOutMode;
+
+  @Param({"objectnode", "activity", "serializable"})
+  public String documentType;
+
+  @Param({"2", "4"})
+  public int branches;
+
+  private FanOutTask task;
+  private StreamsDatum datum;
+
+  @Setup
+  public void setup() {
+    LocalRuntimeConfiguration config = new LocalRuntimeConfiguration();
+    config.setFanOutMode(LocalRuntimeConfiguration.FanOutMode.fromValue(fanOutMode));
+    this.task = new FanOutTask(config);
+    for (int i = 0; i < branches; ++i) {
+      this.task.addOutputQueue(new LinkedBlockingQueue<StreamsDatum>());
+    }
+
+    Activity activity = new Activity();
+    activity.setId("id:benchmark:activity:1");
+    activity.setVerb("post");
+    activity.setContent("The quick brown fox jumps over the lazy dog");
+    ActivityObject actor = new ActivityObject();
+    actor.setId("id:benchmark:actor:1");
+    actor.setDisplayName("benchmark");
+    activity.setActor(actor);
+    Provider provider = new Provider();
+    provider.setId("id:providers:benchmark");
+    activity.setProvider(provider);
+
+    Object document;
+    if ("activity".equals(documentType)) {
+      document = activity;
+    } else if ("serializable".equals(documentType)) {
+      document = StreamsJacksonMapper.getInstance().convertValue(activity, HashMap.class);
+    } else {
+      document = StreamsJacksonMapper.getInstance().convertValue(activity, ObjectNode.class);
+    }
+    this.datum = new StreamsDatum(document, activity.getId());
+    this.datum.getMetadata().put("id", activity.getId());
+  }
+
+  @Benchmark
+  public int fanOut() throws InterruptedException {
+    return this.task.fanOut(this.datum);
+  }
+
+  /**
+   * Minimal task exposing the fan-out of BaseStreamsTask.
+   */
+  private static class FanOutTask extends BaseStreamsTask {
+
+    FanOutTask(StreamsConfiguration config) {
+      super(config);
+    }
+
+    int fanOut(StreamsDatum datum) throws InterruptedException {
+      addToOutgoingQueue(datum);
+      int received = 0;
+      for (BlockingQueue<StreamsDatum> queue : getOutputQueues()) {
+        if (queue.poll() != null) {
+          ++received;
+        }
+      }
+      return received;
+    }
+
+    @Override
+    public void stopTask() {
+    }
+
+    @Override
+    public void setStreamConfig(StreamsConfiguration config) {
+    }
+
+    @Override
+    public boolean isRunning() {
+      return false;
+    }
+
+    @Override
+    public void run() {
+    }
+
+    @Override
+    public void setStreamsTaskCounter(StreamsTaskCounter counter) {
+    }
+  }
+
+}
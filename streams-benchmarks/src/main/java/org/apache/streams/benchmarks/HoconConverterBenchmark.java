@@ -0,0 +1,97 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.apache.streams.benchmarks;
+
+import org.apache.streams.converter.CompiledHoconConverter;
+import org.apache.streams.converter.HoconConverterUtil;
+import org.apache.streams.jackson.StreamsJacksonMapper;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.google.common.base.Charsets;
+import com.google.common.io.Resources;
+import com.typesafe.config.Config;
+import com.typesafe.config.ConfigFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures converting a tweet to an activity with a hocon script: parsing the script for every document as
+ * {@link org.apache.streams.converter.HoconConverterUtil} did, with the script parsed once, and with
+ * {@link org.apache.streams.converter.CompiledHoconConverter}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class HoconConverterBenchmark {
+
+  private static final String HOCON_RESOURCE = "tweet-activity.conf";
+  private static final String OUT_PATH = "activity";
+
+  private HoconConverterUtil hoconConverterUtil;
+  private CompiledHoconConverter compiledHoconConverter;
+  private Config hocon;
+  private String tweetJson;
+  private ObjectNode tweetNode;
+
+  @Setup
+  public void setup() throws IOException {
+    this.tweetJson = Resources.toString(Resources.getResource("tweet.json"), Charsets.UTF_8).trim();
+    this.tweetNode = StreamsJacksonMapper.getInstance().readValue(tweetJson, ObjectNode.class);
+    this.hoconConverterUtil = HoconConverterUtil.getInstance();
+    this.hocon = hoconConverterUtil.parseResource(HOCON_RESOURCE);
+    this.compiledHoconConverter = CompiledHoconConverter.compile(HOCON_RESOURCE);
+  }
+
+  @Benchmark
+  public Object parsePerDocument() {
+    return hoconConverterUtil.convert(tweetJson, ObjectNode.class, ConfigFactory.parseResources(HOCON_RESOURCE),
+        null, OUT_PATH);
+  }
+
+  @Benchmark
+  public Object parsedOnce() {
+    return hoconConverterUtil.convert(tweetJson, ObjectNode.class, hocon, null, OUT_PATH);
+  }
+
+  @Benchmark
+  public Object compiledJson() {
+    return compiledHoconConverter.convert(tweetJson, ObjectNode.class, null, OUT_PATH);
+  }
+
+  @Benchmark
+  public Object compiledObjectNode() {
+    return compiledHoconConverter.convert(tweetNode, ObjectNode.class, null, OUT_PATH);
+  }
+
+}
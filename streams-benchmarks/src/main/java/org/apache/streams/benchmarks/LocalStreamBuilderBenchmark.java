@@ -0,0 +1,201 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.streams.benchmarks;
+
+import org.apache.streams.core.StreamsDatum;
+import org.apache.streams.core.StreamsPersistWriter;
+import org.apache.streams.core.StreamsProcessor;
+import org.apache.streams.core.StreamsProvider;
+import org.apache.streams.core.StreamsResultSet;
+import org.apache.streams.local.builders.LocalStreamBuilder;
+import org.apache.streams.util.ComponentUtils;
+
+import org.joda.time.DateTime;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.Serializable;
+import java.math.BigInteger;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs a bounded stream end to end through {@link org.apache.streams.local.builders.LocalStreamBuilder}: a generator
+ * provider, a pass-through processor and a counting writer.  Each invocation builds, runs and shuts down the stream,
+ * so the score includes start up and shut down.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+@State(Scope.Thread)
+public class LocalStreamBuilderBenchmark {
+
+  @Param({"100000"})
+  public int numDatums;
+
+  @Param({"1", "4"})
+  public int parallelism;
+
+  /**
+   * Stream components are cloned per task when parallelism is above one, so writers count into a shared counter.
+   */
+  @Setup(Level.Invocation)
+  public void resetCount() {
+    CountingWriter.COUNT.set(0);
+  }
+
+  @Benchmark
+  public long pipeline() throws Exception {
+    CountingWriter writer = new CountingWriter();
+    LocalStreamBuilder builder = new LocalStreamBuilder();
+    builder.newReadCurrentStream("generator", new GeneratorProvider(numDatums))
+        .addStreamsProcessor("passthrough", new PassthroughProcessor(), parallelism, "generator")
+        .addStreamsPersistWriter("counter", writer, parallelism, "passthrough");
+    builder.start();
+    // queues and counters register MBeans per run
+    ComponentUtils.removeAllMBeansOfDomain("org.apache.streams.local");
+    long count = CountingWriter.COUNT.get();
+    if (count != numDatums) {
+      throw new IllegalStateException("Expected " + numDatums + " datums, wrote " + count);
+    }
+    return count;
+  }
+
+  /**
+   * Provider generating numbered datums.
+   */
+  private static class GeneratorProvider implements StreamsProvider, Serializable {
+
+    private final int numDatums;
+    private volatile boolean running = true;
+
+    GeneratorProvider(int numDatums) {
+      this.numDatums = numDatums;
+    }
+
+    @Override
+    public String getId() {
+      return "GeneratorProvider";
+    }
+
+    @Override
+    public void prepare(Object configurationObject) {
+    }
+
+    @Override
+    public void cleanUp() {
+    }
+
+    @Override
+    public void startStream() {
+    }
+
+    @Override
+    public StreamsResultSet readCurrent() {
+      Queue<StreamsDatum> datums = new ConcurrentLinkedQueue<>();
+      for (int i = 0; i < numDatums; ++i) {
+        datums.add(new StreamsDatum(i));
+      }
+      this.running = false;
+      return new StreamsResultSet(datums);
+    }
+
+    @Override
+    public StreamsResultSet readNew(BigInteger sequence) {
+      return readCurrent();
+    }
+
+    @Override
+    public StreamsResultSet readRange(DateTime start, DateTime end) {
+      return readCurrent();
+    }
+
+    @Override
+    public boolean isRunning() {
+      return running;
+    }
+  }
+
+  /**
+   * Processor passing each datum through unchanged.
+   */
+  private static class PassthroughProcessor implements StreamsProcessor, Serializable {
+
+    @Override
+    public String getId() {
+      return "PassthroughProcessor";
+    }
+
+    @Override
+    public void prepare(Object configurationObject) {
+    }
+
+    @Override
+    public void cleanUp() {
+    }
+
+    @Override
+    public List<StreamsDatum> process(StreamsDatum entry) {
+      return Collections.singletonList(entry);
+    }
+  }
+
+  /**
+   * Writer counting the datums every copy of it receives.
+   */
+  private static class CountingWriter implements StreamsPersistWriter, Serializable {
+
+    private static final AtomicLong COUNT = new AtomicLong();
+
+    @Override
+    public String getId() {
+      return "CountingWriter";
+    }
+
+    @Override
+    public void prepare(Object configurationObject) {
+    }
+
+    @Override
+    public void cleanUp() {
+    }
+
+    @Override
+    public void write(StreamsDatum entry) {
+      COUNT.incrementAndGet();
+    }
+  }
+
+}
@@ -0,0 +1,102 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.streams.benchmarks;
+
+import org.apache.streams.converter.LineReadWriteConfiguration;
+import org.apache.streams.converter.LineReadWriteUtil;
+import org.apache.streams.core.CompactStreamsDatum;
+import org.apache.streams.core.StreamsDatum;
+import org.apache.streams.core.util.DatumUtils;
+
+import org.joda.time.DateTime;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the allocations made per datum by {@link org.apache.streams.core.StreamsDatum} and
+ * {@link org.apache.streams.core.CompactStreamsDatum}.  Run with the gc profiler to see bytes allocated per operation:
+ * <p/>
+ *   java -jar streams-benchmarks/target/benchmarks.jar StreamsDatumBenchmark -prof gc
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class StreamsDatumBenchmark {
+
+  private static final String DOCUMENT = "{\"id\":\"id\",\"verb\":\"post\"}";
+
+  private long timestamp;
+  private long sequence;
+  private StreamsDatum datum;
+  private StreamsDatum compactDatum;
+  private LineReadWriteUtil lineReadWriteUtil;
+  private String line;
+
+  @Setup
+  public void setup() {
+    this.timestamp = System.currentTimeMillis();
+    this.sequence = 42;
+    this.datum = new StreamsDatum(DOCUMENT, "id", new DateTime(timestamp), BigInteger.valueOf(sequence));
+    this.compactDatum = new CompactStreamsDatum(DOCUMENT, "id", timestamp, sequence);
+    this.lineReadWriteUtil = LineReadWriteUtil.getInstance(new LineReadWriteConfiguration()
+        .withFields(Arrays.asList("ID", "SEQ", "TS", "DOC")));
+    this.line = "id\t" + sequence + "\t" + timestamp + "\t" + DOCUMENT;
+  }
+
+  @Benchmark
+  public StreamsDatum create() {
+    return new StreamsDatum(DOCUMENT, "id", new DateTime(timestamp), BigInteger.valueOf(sequence));
+  }
+
+  @Benchmark
+  public StreamsDatum createCompact() {
+    return new CompactStreamsDatum(DOCUMENT, "id", timestamp, sequence);
+  }
+
+  @Benchmark
+  public StreamsDatum branch() {
+    return DatumUtils.branchDatum(datum);
+  }
+
+  @Benchmark
+  public StreamsDatum branchCompact() {
+    return DatumUtils.branchDatum(compactDatum);
+  }
+
+  @Benchmark
+  public StreamsDatum processLine() {
+    return lineReadWriteUtil.processLine(line);
+  }
+
+}
@@ -0,0 +1,115 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.streams.benchmarks;
+
+import org.apache.streams.core.StreamsDatum;
+import org.apache.streams.local.queues.ThroughputQueue;
+import org.apache.streams.local.queues.WaitStrategy;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares {@link org.apache.streams.local.queues.ThroughputQueue} backed by a LinkedBlockingQueue with the
+ * ring buffer implementation and each of its wait strategies.
+ * <p/>
+ * The contended group uses non-blocking offer/poll so that producers and consumers can be stopped independently
+ * at the end of each iteration.  The blocking group goes through the same waits as put/take, but with a short
+ * timeout for the same reason.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Group)
+public class ThroughputQueueBenchmark {
+
+  private static final long BLOCKING_TIMEOUT_MS = 10;
+
+  @Param({"linked", "ring-spin", "ring-yield", "ring-park"})
+  public String queueType;
+
+  @Param({"1000"})
+  public int queueSize;
+
+  private ThroughputQueue<StreamsDatum> queue;
+  private StreamsDatum datum;
+
+  @Setup
+  public void setup() {
+    WaitStrategy waitStrategy = null;
+    if (queueType.startsWith("ring-")) {
+      waitStrategy = WaitStrategy.valueOf(queueType.substring("ring-".length()).toUpperCase());
+    }
+    this.queue = new ThroughputQueue<>(queueSize, null, "benchmark", -1, waitStrategy);
+    this.datum = new StreamsDatum("benchmark");
+  }
+
+  @Benchmark
+  @Group("uncontended")
+  @GroupThreads(1)
+  public StreamsDatum offerThenPoll() {
+    queue.offer(datum);
+    return queue.poll();
+  }
+
+  @Benchmark
+  @Group("contended")
+  @GroupThreads(2)
+  public boolean offer() {
+    return queue.offer(datum);
+  }
+
+  @Benchmark
+  @Group("contended")
+  @GroupThreads(2)
+  public void poll(Blackhole blackhole) {
+    blackhole.consume(queue.poll());
+  }
+
+  @Benchmark
+  @Group("blocking")
+  @GroupThreads(2)
+  public boolean put() throws InterruptedException {
+    return queue.offer(datum, BLOCKING_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+  }
+
+  @Benchmark
+  @Group("blocking")
+  @GroupThreads(2)
+  public void take(Blackhole blackhole) throws InterruptedException {
+    blackhole.consume(queue.poll(BLOCKING_TIMEOUT_MS, TimeUnit.MILLISECONDS));
+  }
+
+}
@@ -0,0 +1,221 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.apache.streams.converter;
+
+import org.apache.streams.jackson.StreamsJacksonMapper;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.typesafe.config.Config;
+import com.typesafe.config.ConfigRenderOptions;
+import com.typesafe.config.ConfigUtil;
+import com.typesafe.config.ConfigValueFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * CompiledHoconConverter applies one hocon (https://github.com/typesafehub/config/blob/master/HOCON.md) script
+ * to documents held as Jackson trees.
+ *
+ * <p/>
+ * The script is parsed once, and the document paths its substitutions refer to are found when it is compiled.
+ * Each conversion copies only the values at those paths out of the document, resolves the script against them,
+ * and merges the result over the document tree; HoconConverterUtil instead renders the whole document to hocon,
+ * resolves it and parses the result back.  A document that can't be converted this way is handed to
+ * HoconConverterUtil, so results match it either way.
+ */
+public class CompiledHoconConverter {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(CompiledHoconConverter.class);
+
+  private static final ObjectMapper mapper = StreamsJacksonMapper.getInstance();
+
+  private static final Pattern SUBSTITUTION = Pattern.compile("\\$\\{\\??([^}]+)}");
+
+  private final Config hocon;
+  private final List<List<String>> substitutionPaths;
+
+  private CompiledHoconConverter(Config hocon, List<List<String>> substitutionPaths) {
+    this.hocon = hocon;
+    this.substitutionPaths = substitutionPaths;
+  }
+
+  /**
+   * Compile a hocon script from the classpath.
+   * @param hoconResource hoconResource
+   * @return converter
+   */
+  public static CompiledHoconConverter compile(String hoconResource) {
+    return compile(HoconConverterUtil.getInstance().parseResource(hoconResource));
+  }
+
+  /**
+   * Compile a parsed, unresolved hocon script.
+   * @param hocon hocon
+   * @return converter
+   */
+  public static CompiledHoconConverter compile(Config hocon) {
+    List<List<String>> paths = null;
+    try {
+      Set<List<String>> found = new LinkedHashSet<>();
+      Matcher matcher = SUBSTITUTION.matcher(hocon.root().render(ConfigRenderOptions.concise()));
+      while (matcher.find()) {
+        found.add(ConfigUtil.splitPath(matcher.group(1).trim()));
+      }
+      paths = Collections.unmodifiableList(new ArrayList<>(found));
+    } catch (Exception ex) {
+      LOGGER.warn("Could not compile {}, converting with HoconConverterUtil", hocon.origin().description(), ex);
+    }
+    return new CompiledHoconConverter(hocon, paths);
+  }
+
+  /**
+   * Whether documents are converted as trees, rather than always through HoconConverterUtil.
+   * @return true if the script compiled
+   */
+  public boolean isCompiled() {
+    return substitutionPaths != null;
+  }
+
+  /**
+   * Paths, relative to the document or to inPath, that the script's substitutions read.
+   * @return paths as lists of keys
+   */
+  public List<List<String>> getSubstitutionPaths() {
+    return substitutionPaths;
+  }
+
+  public Config getHocon() {
+    return hocon;
+  }
+
+  /**
+   * convert.
+   * @param object object
+   * @param outClass outClass
+   * @param inPath inPath
+   * @param outPath outPath
+   * @return result
+   */
+  public Object convert(Object object, Class outClass, String inPath, String outPath) {
+    if (isCompiled()) {
+      try {
+        return convertTree(object, outClass, inPath, outPath);
+      } catch (Exception ex) {
+        LOGGER.debug("Converting with HoconConverterUtil: {}", ex.getMessage());
+      }
+    }
+    return HoconConverterUtil.getInstance().convert(object, outClass, hocon, inPath, outPath);
+  }
+
+  private Object convertTree(Object object, Class outClass, String inPath, String outPath) throws Exception {
+    ObjectNode document;
+    if (object instanceof String) {
+      document = mapper.readValue((String) object, ObjectNode.class);
+    } else if (object instanceof ObjectNode) {
+      document = ((ObjectNode) object).deepCopy();
+    } else {
+      document = mapper.valueToTree(object);
+    }
+
+    ObjectNode root = document;
+    if (inPath != null) {
+      root = mapper.createObjectNode();
+      root.set(inPath, document);
+    }
+
+    Map<String, Object> values = new HashMap<>();
+    for (List<String> path : substitutionPaths) {
+      JsonNode value = get(root, path);
+      if (value != null) {
+        put(values, path, mapper.convertValue(value, Object.class));
+      }
+    }
+
+    Config resolved = hocon.withFallback(ConfigValueFactory.fromMap(values)).resolve();
+    merge(root, mapper.valueToTree(resolved.root().unwrapped()));
+
+    JsonNode out = outPath == null ? root : get(root, ConfigUtil.splitPath(outPath));
+    if (out == null) {
+      throw new IllegalStateException("Nothing at " + outPath);
+    }
+
+    if (outClass == String.class) {
+      return mapper.writeValueAsString(out);
+    } else if (outClass.isInstance(out)) {
+      return out;
+    } else {
+      return mapper.treeToValue(out, outClass);
+    }
+  }
+
+  private static JsonNode get(JsonNode node, List<String> path) {
+    for (String key : path) {
+      if (node == null || !node.isObject()) {
+        return null;
+      }
+      node = node.get(key);
+    }
+    return node;
+  }
+
+  @SuppressWarnings("unchecked")
+  private static void put(Map<String, Object> values, List<String> path, Object value) {
+    Map<String, Object> parent = values;
+    for (String key : path.subList(0, path.size() - 1)) {
+      Object child = parent.get(key);
+      if (!(child instanceof Map)) {
+        child = new HashMap<String, Object>();
+        parent.put(key, child);
+      }
+      parent = (Map<String, Object>) child;
+    }
+    parent.put(path.get(path.size() - 1), value);
+  }
+
+  /*
+   * Overlay the resolved script on the document: objects merge key by key, anything else replaces.
+   */
+  private static void merge(ObjectNode target, JsonNode overlay) {
+    Iterator<Map.Entry<String, JsonNode>> fields = overlay.fields();
+    while (fields.hasNext()) {
+      Map.Entry<String, JsonNode> field = fields.next();
+      JsonNode existing = target.get(field.getKey());
+      if (existing != null && existing.isObject() && field.getValue().isObject()) {
+        merge((ObjectNode) existing, field.getValue());
+      } else {
+        target.set(field.getKey(), field.getValue());
+      }
+    }
+  }
+
+}
@@ -28,12 +28,18 @@ import org.slf4j.LoggerFactory;
 
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * HoconConverterProcessor is a utility processor for converting any datum document
  * with translation rules expressed as HOCON in the classpath or at a URL.
  *
  * <p/>
+ * By default each hocon resource is compiled once into a {@link CompiledHoconConverter}, shared by every
+ * processor converting with it, which applies the script to the document tree directly.
+ *
+ * <p/>
  * To use this capability without a dedicated stream processor, just use HoconConverterUtil.
  */
 public class HoconConverterProcessor implements StreamsProcessor {
@@ -42,10 +48,15 @@ public class HoconConverterProcessor implements StreamsProcessor {
 
   private static final Logger LOGGER = LoggerFactory.getLogger(HoconConverterProcessor.class);
 
+  private static final Map<String, CompiledHoconConverter> compiledConverters = new ConcurrentHashMap<>();
+
   protected Class outClass;
   protected String hocon;
   protected String inPath;
   protected String outPath;
+  protected boolean compiled;
+
+  private transient CompiledHoconConverter converter;
 
   /**
    * HoconConverterProcessor.
@@ -56,10 +67,24 @@ public class HoconConverterProcessor implements StreamsProcessor {
    * @param outPath outPath
    */
   public HoconConverterProcessor(Class outClass, String hocon, String inPath, String outPath) {
+    this(outClass, hocon, inPath, outPath, true);
+  }
+
+  /**
+   * HoconConverterProcessor.
+   *
+   * @param outClass outClass
+   * @param hocon hocon
+   * @param inPath inPath
+   * @param outPath outPath
+   * @param compiled whether to convert with the compiled script rather than HoconConverterUtil
+   */
+  public HoconConverterProcessor(Class outClass, String hocon, String inPath, String outPath, boolean compiled) {
     this.outClass = outClass;
     this.hocon = hocon;
     this.inPath = inPath;
     this.outPath = outPath;
+    this.compiled = compiled;
   }
 
   @Override
@@ -73,7 +98,12 @@ public class HoconConverterProcessor implements StreamsProcessor {
     List<StreamsDatum> result = new LinkedList<>();
     Object document = entry.getDocument();
 
-    Object outDoc = HoconConverterUtil.getInstance().convert(document, outClass, hocon, inPath, outPath);
+    Object outDoc;
+    if (compiled) {
+      outDoc = getConverter().convert(document, outClass, inPath, outPath);
+    } else {
+      outDoc = HoconConverterUtil.getInstance().convert(document, outClass, hocon, inPath, outPath);
+    }
 
     StreamsDatum datum = DatumUtils.cloneDatum(entry);
     datum.setDocument(outDoc);
@@ -82,9 +112,18 @@ public class HoconConverterProcessor implements StreamsProcessor {
     return result;
   }
 
+  private CompiledHoconConverter getConverter() {
+    if (converter == null) {
+      converter = compiledConverters.computeIfAbsent(hocon, CompiledHoconConverter::compile);
+    }
+    return converter;
+  }
+
   @Override
   public void prepare(Object configurationObject) {
-
+    if (compiled) {
+      LOGGER.debug("{} substitutions in {}", getConverter().getSubstitutionPaths(), hocon);
+    }
   }
 
   @Override
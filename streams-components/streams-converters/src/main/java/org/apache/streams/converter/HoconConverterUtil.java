@@ -32,6 +32,8 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * HoconConverterUtil supports HoconConverterProcessor in converting types via application
@@ -45,22 +47,33 @@ public class HoconConverterUtil {
 
   private static final HoconConverterUtil INSTANCE = new HoconConverterUtil();
 
+  private static final Map<String, Config> resources = new ConcurrentHashMap<>();
+
   public static HoconConverterUtil getInstance() {
     return INSTANCE;
   }
 
+  /**
+   * Parse a hocon script from the classpath, once per resource.
+   * @param hoconResource hoconResource
+   * @return unresolved hocon
+   */
+  public Config parseResource(String hoconResource) {
+    return resources.computeIfAbsent(hoconResource, ConfigFactory::parseResources);
+  }
+
   public Object convert(Object object, Class outClass, String hoconResource) {
-    Config hocon = ConfigFactory.parseResources(hoconResource);
+    Config hocon = parseResource(hoconResource);
     return convert(object, outClass, hocon, null);
   }
 
   public Object convert(Object object, Class outClass, String hoconResource, String outPath) {
-    Config hocon = ConfigFactory.parseResources(hoconResource);
+    Config hocon = parseResource(hoconResource);
     return convert(object, outClass, hocon, outPath);
   }
 
   public Object convert(Object object, Class outClass, String hoconResource, String inPath, String outPath) {
-    Config hocon = ConfigFactory.parseResources(hoconResource);
+    Config hocon = parseResource(hoconResource);
     return convert(object, outClass, hocon, inPath, outPath);
   }
 
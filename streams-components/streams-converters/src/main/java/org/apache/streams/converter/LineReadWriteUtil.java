@@ -18,7 +18,9 @@
 
 package org.apache.streams.converter;
 
+import org.apache.streams.core.CompactStreamsDatum;
 import org.apache.streams.core.StreamsDatum;
+import org.apache.streams.core.util.DatumUtils;
 import org.apache.streams.jackson.StreamsJacksonMapper;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
@@ -99,8 +101,6 @@ public class LineReadWriteUtil {
     }
 
     String id = null;
-    DateTime ts = null;
-    BigInteger seq = null;
     Map<String, Object> metadata = null;
     String json = null;
 
@@ -113,28 +113,35 @@ public class LineReadWriteUtil {
         && parsedFields.length > expectedFields.indexOf(FieldConstants.ID)) {
       id = parsedFields[expectedFields.indexOf(FieldConstants.ID)];
     }
+    if ( expectedFields.contains( FieldConstants.META )
+        && parsedFields.length > expectedFields.indexOf(FieldConstants.META)) {
+      metadata = parseMap(parsedFields[expectedFields.indexOf(FieldConstants.META)]);
+    }
+
+    CompactStreamsDatum datum = new CompactStreamsDatum(json, id);
     if ( expectedFields.contains( FieldConstants.SEQ )
         && parsedFields.length > expectedFields.indexOf(FieldConstants.SEQ)) {
+      String seq = parsedFields[expectedFields.indexOf(FieldConstants.SEQ)];
       try {
-        seq = new BigInteger(parsedFields[expectedFields.indexOf(FieldConstants.SEQ)]);
+        datum.setSequence(Long.parseLong(seq));
       } catch ( NumberFormatException nfe ) {
-        LOGGER.warn("invalid sequence number {}", nfe);
+        try {
+          datum.setSequenceid(new BigInteger(seq));
+        } catch ( NumberFormatException nfe2 ) {
+          LOGGER.warn("invalid sequence number {}", nfe2);
+        }
       }
     }
     if ( expectedFields.contains( FieldConstants.TS )
         && parsedFields.length > expectedFields.indexOf(FieldConstants.TS)) {
-      ts = parseTs(parsedFields[expectedFields.indexOf(FieldConstants.TS)]);
-    }
-    if ( expectedFields.contains( FieldConstants.META )
-        && parsedFields.length > expectedFields.indexOf(FieldConstants.META)) {
-      metadata = parseMap(parsedFields[expectedFields.indexOf(FieldConstants.META)]);
+      String ts = parsedFields[expectedFields.indexOf(FieldConstants.TS)];
+      try {
+        datum.setTimestampMillis(Long.parseLong(ts));
+      } catch ( NumberFormatException nfe ) {
+        datum.setTimestamp(parseTs(ts));
+      }
     }
-
-    StreamsDatum datum = new StreamsDatum(json);
-    datum.setId(id);
-    datum.setTimestamp(ts);
     datum.setMetadata(metadata);
-    datum.setSequenceid(seq);
     return datum;
 
   }
@@ -147,7 +154,7 @@ public class LineReadWriteUtil {
   public String convertResultToString(StreamsDatum entry) {
     String metadataJson = null;
     try {
-      metadataJson = MAPPER.writeValueAsString(entry.getMetadata());
+      metadataJson = MAPPER.writeValueAsString(DatumUtils.getStorableMetadata(entry));
     } catch (JsonProcessingException ex) {
       LOGGER.warn("Error converting metadata to a string", ex);
     }
@@ -0,0 +1,92 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.apache.streams.converter.test;
+
+import org.apache.streams.converter.CompiledHoconConverter;
+import org.apache.streams.converter.HoconConverterUtil;
+import org.apache.streams.jackson.StreamsJacksonMapper;
+import org.apache.streams.pojo.json.Activity;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for {@link CompiledHoconConverter}
+ */
+public class CompiledHoconConverterTest {
+
+    private static final ObjectMapper MAPPER = StreamsJacksonMapper.getInstance();
+
+    private static final String TEST_JSON_2 = "{\"race\":\"klingon\",\"gender\":\"male\",\"age\":18}";
+    private static final String TEST_JSON_3 = "{\"id\":\"123\",\"text\":\"buncha stuff\",\"user\":{\"name\":\"guy\"}}";
+    private static final String TEST_JSON_4 = "{\"id\":\"123\",\"name\":\"nahme\",\"screenName\":\"screeny\",\"summary\":\"sumar\"}";
+
+    /**
+     * Tests that substitution paths are found relative to the document
+     */
+    @Test
+    public void testSubstitutionPaths() {
+        assertTrue(CompiledHoconConverter.compile("test1.conf").getSubstitutionPaths().isEmpty());
+        assertTrue(CompiledHoconConverter.compile("test2.conf").getSubstitutionPaths()
+            .containsAll(Arrays.asList(Collections.singletonList("age"), Collections.singletonList("race"))));
+        assertTrue(CompiledHoconConverter.compile("test4.conf").getSubstitutionPaths()
+            .contains(Arrays.asList("actor", "screenName")));
+    }
+
+    /**
+     * Tests that compiled conversions match HoconConverterUtil
+     */
+    @Test
+    public void testMatchesHoconConverterUtil() throws Exception {
+        assertSameConversion("{\"race\":\"klingon\",\"gender\":\"male\"}", "test1.conf", null, null);
+        assertSameConversion(TEST_JSON_2, "test2.conf", null, "demographics");
+        assertSameConversion("{\"race\":\"klingon\",\"gender\":\"male\"}", "test2.conf", null, "demographics");
+        assertSameConversion(TEST_JSON_3, "test3a.conf", null, "activity");
+        assertSameConversion(TEST_JSON_4, "test4.conf", "actor", "profile");
+        assertSameConversion(TEST_JSON_4, "test4.conf", "actor", null);
+    }
+
+    /**
+     * Tests conversion from ObjectNode to Activity, leaving the input untouched
+     */
+    @Test
+    public void testObjectNodeToActivity() throws Exception {
+        ObjectNode input = MAPPER.readValue(TEST_JSON_3, ObjectNode.class);
+        Activity result = (Activity) CompiledHoconConverter.compile("test3a.conf")
+            .convert(input, Activity.class, null, "activity");
+        assertEquals("id:123", result.getId());
+        assertEquals("Jorge", result.getActor().getDisplayName());
+        assertEquals(MAPPER.readTree(TEST_JSON_3), input);
+    }
+
+    private void assertSameConversion(String json, String resource, String inPath, String outPath) throws Exception {
+        String expected = (String) HoconConverterUtil.getInstance().convert(json, String.class, resource, inPath, outPath);
+        String actual = (String) CompiledHoconConverter.compile(resource).convert(json, String.class, inPath, outPath);
+        assertEquals(MAPPER.readTree(expected), MAPPER.readTree(actual));
+    }
+
+}
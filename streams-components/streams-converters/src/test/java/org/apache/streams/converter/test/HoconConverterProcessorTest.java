@@ -109,4 +109,20 @@ public class HoconConverterProcessorTest {
 
     }
 
+    /**
+     * Tests that conversion without the compiled script gives the same result
+     */
+    @Test
+    public void testHoconConverterNotCompiled() {
+
+        final String TEST_JSON_2 = "{\"race\":\"klingon\",\"gender\":\"male\",\"age\":18}";
+
+        StreamsProcessor compiled = new HoconConverterProcessor(ObjectNode.class, "test2.conf", null, "demographics", true);
+        StreamsProcessor notCompiled = new HoconConverterProcessor(ObjectNode.class, "test2.conf", null, "demographics", false);
+        compiled.prepare(null);
+        notCompiled.prepare(null);
+        StreamsDatum datum = new StreamsDatum(TEST_JSON_2, "2");
+        assertEquals(notCompiled.process(datum).get(0).getDocument(), compiled.process(datum).get(0).getDocument());
+    }
+
 }
@@ -0,0 +1,303 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.streams.components.http.processor;
+
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpStatus;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.util.EntityUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * HttpEnrichmentEngine sends the GET requests of an enrichment processor, consulting an optional response cache first.
+ * <p/>
+ * {@link #fetch(HttpGet)} runs a request on the calling thread.  {@link #submit(HttpGet)} runs it on the engine's
+ * pool of maxInFlight threads, so a processor can have a whole batch of requests in flight and still bound the load
+ * it puts on the remote service.  Submitting a url that is already in flight joins the pending request rather than
+ * sending another.
+ * <p/>
+ * Only 200 responses yield a body.  404 responses are cached as not found; other statuses and io errors yield null
+ * and are not cached.
+ * <p/>
+ * The engine registers itself as an MXBean whenever it is constructed with a non-null id.
+ */
+public class HttpEnrichmentEngine implements HttpEnrichmentEngineMXBean {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(HttpEnrichmentEngine.class);
+
+  public static final String NAME_TEMPLATE =
+      "org.apache.streams.components.http:type=HttpEnrichmentEngine,name=%s,identifier=%s";
+
+  private static final AtomicInteger IDENTIFIERS = new AtomicInteger(0);
+
+  private final CloseableHttpClient httpclient;
+  private final HttpResponseCache cache;
+  private final int maxInFlight;
+  private final ExecutorService executor;
+  private final ConcurrentHashMap<String, CompletableFuture<String>> pending = new ConcurrentHashMap<>();
+
+  private final AtomicLong cacheHits = new AtomicLong(0);
+  private final AtomicLong negativeCacheHits = new AtomicLong(0);
+  private final AtomicLong cacheMisses = new AtomicLong(0);
+  private final AtomicLong coalesced = new AtomicLong(0);
+  private final AtomicLong requests = new AtomicLong(0);
+  private final AtomicLong failures = new AtomicLong(0);
+  private final AtomicInteger inFlight = new AtomicInteger(0);
+  private final AtomicLong totalLatencyMs = new AtomicLong(0);
+  private final AtomicLong lastLatencyMs = new AtomicLong(0);
+  private final AtomicLong maxLatencyMs = new AtomicLong(0);
+
+  private ObjectName name;
+
+  /**
+   * HttpEnrichmentEngine constructor.
+   * @param id id to register the MXBean under, or null
+   * @param httpclient client the requests are sent with, which the caller closes
+   * @param maxInFlight maximum number of submitted requests in flight
+   * @param cache response cache, or null
+   */
+  public HttpEnrichmentEngine(String id, CloseableHttpClient httpclient, int maxInFlight, HttpResponseCache cache) {
+    this.httpclient = httpclient;
+    this.cache = cache;
+    this.maxInFlight = Math.max(1, maxInFlight);
+    this.executor = Executors.newFixedThreadPool(this.maxInFlight, runnable -> {
+      Thread thread = new Thread(runnable, "http-enrichment-" + id);
+      thread.setDaemon(true);
+      return thread;
+    });
+    if (id != null) {
+      try {
+        this.name = new ObjectName(String.format(NAME_TEMPLATE, id, IDENTIFIERS.incrementAndGet()));
+        MBeanServer mbs = ManagementFactory.getPlatformMBeanServer();
+        mbs.registerMBean(this, this.name);
+      } catch (Exception ex) {
+        LOGGER.warn("Failed to register MXBean : {}", ex.getMessage());
+        this.name = null;
+      }
+    }
+  }
+
+  /**
+   * Client with a connection pool sized for concurrent requests.
+   * @param maxConnections maximum number of pooled connections
+   * @param maxConnectionsPerRoute maximum number of pooled connections to one host
+   * @return CloseableHttpClient
+   */
+  public static CloseableHttpClient createPooledClient(int maxConnections, int maxConnectionsPerRoute) {
+    PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager();
+    connectionManager.setMaxTotal(maxConnections);
+    connectionManager.setDefaultMaxPerRoute(maxConnectionsPerRoute);
+    return HttpClients.custom()
+        .setConnectionManager(connectionManager)
+        .build();
+  }
+
+  /**
+   * Response body for a request, from the cache or sent on the calling thread.
+   * @param request request
+   * @return body of a 200 response, or null
+   */
+  public String fetch(HttpGet request) {
+    String url = request.getURI() != null ? request.getURI().toString() : null;
+    HttpResponseCache.CachedResponse cached = lookup(url);
+    if (cached != null) {
+      return cached.getBody();
+    }
+    return execute(request, url);
+  }
+
+  /**
+   * Response body for a request, from the cache or sent on the engine's pool.
+   * @param request request
+   * @return future body of a 200 response, or null
+   */
+  public CompletableFuture<String> submit(HttpGet request) {
+    String url = request.getURI() != null ? request.getURI().toString() : null;
+    HttpResponseCache.CachedResponse cached = lookup(url);
+    if (cached != null) {
+      return CompletableFuture.completedFuture(cached.getBody());
+    }
+    CompletableFuture<String> future = new CompletableFuture<>();
+    if (url != null) {
+      CompletableFuture<String> existing = pending.putIfAbsent(url, future);
+      if (existing != null) {
+        coalesced.incrementAndGet();
+        return existing;
+      }
+    }
+    executor.execute(() -> {
+      try {
+        future.complete(execute(request, url));
+      } catch (RuntimeException ex) {
+        future.completeExceptionally(ex);
+      } finally {
+        if (url != null) {
+          pending.remove(url, future);
+        }
+      }
+    });
+    return future;
+  }
+
+  /**
+   * Stop the engine's pool and unregister the MXBean.  Requests already submitted are abandoned.
+   */
+  public void close() {
+    this.executor.shutdownNow();
+    if (this.name != null) {
+      try {
+        ManagementFactory.getPlatformMBeanServer().unregisterMBean(this.name);
+      } catch (Exception ex) {
+        LOGGER.debug("Failed to unregister MXBean : {}", ex.getMessage());
+      }
+      this.name = null;
+    }
+  }
+
+  private HttpResponseCache.CachedResponse lookup(String url) {
+    if (cache == null || url == null) {
+      return null;
+    }
+    HttpResponseCache.CachedResponse cached = cache.get(url);
+    if (cached == null) {
+      cacheMisses.incrementAndGet();
+    } else if (cached.isNotFound()) {
+      negativeCacheHits.incrementAndGet();
+    } else {
+      cacheHits.incrementAndGet();
+    }
+    return cached;
+  }
+
+  private String execute(HttpGet request, String url) {
+    requests.incrementAndGet();
+    inFlight.incrementAndGet();
+    long start = System.currentTimeMillis();
+    try (CloseableHttpResponse response = httpclient.execute(request)) {
+      int status = response.getStatusLine().getStatusCode();
+      HttpEntity entity = response.getEntity();
+      if (status == HttpStatus.SC_OK && entity != null) {
+        String body = EntityUtils.toString(entity);
+        if (cache != null && url != null) {
+          cache.put(url, body);
+        }
+        return body;
+      }
+      // consume the entity so the connection goes back to the pool
+      EntityUtils.consume(entity);
+      if (status == HttpStatus.SC_NOT_FOUND) {
+        if (cache != null && url != null) {
+          cache.putNotFound(url);
+        }
+      } else if (status != HttpStatus.SC_OK) {
+        failures.incrementAndGet();
+        LOGGER.warn("{} returned {}", url, response.getStatusLine());
+      }
+      return null;
+    } catch (IOException ex) {
+      failures.incrementAndGet();
+      LOGGER.error("IO error:\n{}\n{}", url, ex.getMessage());
+      return null;
+    } finally {
+      long latency = System.currentTimeMillis() - start;
+      totalLatencyMs.addAndGet(latency);
+      lastLatencyMs.set(latency);
+      maxLatencyMs.accumulateAndGet(latency, Math::max);
+      inFlight.decrementAndGet();
+    }
+  }
+
+  @Override
+  public long getCacheHits() {
+    return cacheHits.get();
+  }
+
+  @Override
+  public long getNegativeCacheHits() {
+    return negativeCacheHits.get();
+  }
+
+  @Override
+  public long getCacheMisses() {
+    return cacheMisses.get();
+  }
+
+  @Override
+  public int getCacheSize() {
+    return cache != null ? cache.size() : 0;
+  }
+
+  @Override
+  public long getCoalesced() {
+    return coalesced.get();
+  }
+
+  @Override
+  public long getRequests() {
+    return requests.get();
+  }
+
+  @Override
+  public long getFailures() {
+    return failures.get();
+  }
+
+  @Override
+  public int getInFlight() {
+    return inFlight.get();
+  }
+
+  @Override
+  public int getMaxInFlight() {
+    return maxInFlight;
+  }
+
+  @Override
+  public long getLastLatencyMs() {
+    return lastLatencyMs.get();
+  }
+
+  @Override
+  public long getMeanLatencyMs() {
+    long count = requests.get() - inFlight.get();
+    return count > 0 ? totalLatencyMs.get() / count : 0;
+  }
+
+  @Override
+  public long getMaxLatencyMs() {
+    return maxLatencyMs.get();
+  }
+
+}
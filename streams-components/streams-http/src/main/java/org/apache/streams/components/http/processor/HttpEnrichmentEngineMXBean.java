@@ -0,0 +1,98 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.streams.components.http.processor;
+
+/**
+ * MXBean exposing the state of an {@link org.apache.streams.components.http.processor.HttpEnrichmentEngine}.
+ */
+public interface HttpEnrichmentEngineMXBean {
+
+  /**
+   * Number of lookups answered from the response cache.
+   * @return cache hits
+   */
+  long getCacheHits();
+
+  /**
+   * Number of lookups answered from a cached not found response.
+   * @return negative cache hits
+   */
+  long getNegativeCacheHits();
+
+  /**
+   * Number of lookups the response cache could not answer.
+   * @return cache misses
+   */
+  long getCacheMisses();
+
+  /**
+   * Number of responses held by the response cache.
+   * @return cache size
+   */
+  int getCacheSize();
+
+  /**
+   * Number of lookups that joined a request already in flight for the same url.
+   * @return coalesced lookups
+   */
+  long getCoalesced();
+
+  /**
+   * Number of http requests sent.
+   * @return requests sent
+   */
+  long getRequests();
+
+  /**
+   * Number of http requests that failed or returned a status other than 200 or 404.
+   * @return failed requests
+   */
+  long getFailures();
+
+  /**
+   * Number of http requests sent and not yet responded to.
+   * @return requests in flight
+   */
+  int getInFlight();
+
+  /**
+   * Maximum number of http requests allowed in flight at once.
+   * @return in flight limit
+   */
+  int getMaxInFlight();
+
+  /**
+   * Latency of the most recent http request.
+   * @return latency in milliseconds
+   */
+  long getLastLatencyMs();
+
+  /**
+   * Mean latency of http requests.
+   * @return latency in milliseconds
+   */
+  long getMeanLatencyMs();
+
+  /**
+   * Highest latency of any http request.
+   * @return latency in milliseconds
+   */
+  long getMaxLatencyMs();
+
+}
@@ -0,0 +1,132 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.streams.components.http.processor;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * In-process cache of http response bodies keyed by request url, bounded by entry count and time to live.
+ *
+ * <p></p>
+ * Not found responses are cached too, as negative entries with their own time to live, so ids that do not
+ * resolve are not requested again and again.
+ */
+public class HttpResponseCache {
+
+  private static final Map<String, HttpResponseCache> SHARED = new ConcurrentHashMap<>();
+
+  private final int maxEntries;
+  private final long ttlMs;
+  private final long negativeTtlMs;
+  private final LongSupplier clock;
+
+  private final AtomicLong evictions = new AtomicLong(0);
+
+  private final LinkedHashMap<String, CachedResponse> entries;
+
+  public HttpResponseCache(int maxEntries, long ttlMs, long negativeTtlMs) {
+    this(maxEntries, ttlMs, negativeTtlMs, System::currentTimeMillis);
+  }
+
+  HttpResponseCache(int maxEntries, long ttlMs, long negativeTtlMs, LongSupplier clock) {
+    this.maxEntries = maxEntries;
+    this.ttlMs = ttlMs;
+    this.negativeTtlMs = negativeTtlMs;
+    this.clock = clock;
+    this.entries = new LinkedHashMap<String, CachedResponse>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, CachedResponse> eldest) {
+        if (size() > HttpResponseCache.this.maxEntries) {
+          evictions.incrementAndGet();
+          return true;
+        }
+        return false;
+      }
+    };
+  }
+
+  /**
+   * Cache shared by every processor instance with the same name, created with these settings on first use.
+   * @param name name, usually the processor id
+   * @param maxEntries maximum number of cached responses
+   * @param ttlMs time to live of a response
+   * @param negativeTtlMs time to live of a not found response
+   * @return HttpResponseCache
+   */
+  public static HttpResponseCache shared(String name, int maxEntries, long ttlMs, long negativeTtlMs) {
+    return SHARED.computeIfAbsent(name, key -> new HttpResponseCache(maxEntries, ttlMs, negativeTtlMs));
+  }
+
+  /**
+   * Cached response for this url, or null when there is none or it expired.
+   * @param url url
+   * @return CachedResponse
+   */
+  public synchronized CachedResponse get(String url) {
+    CachedResponse cached = entries.get(url);
+    if (cached != null && cached.expiresAt <= clock.getAsLong()) {
+      entries.remove(url);
+      return null;
+    }
+    return cached;
+  }
+
+  public synchronized void put(String url, String body) {
+    entries.put(url, new CachedResponse(body, clock.getAsLong() + ttlMs));
+  }
+
+  public synchronized void putNotFound(String url) {
+    entries.put(url, new CachedResponse(null, clock.getAsLong() + negativeTtlMs));
+  }
+
+  public synchronized int size() {
+    return entries.size();
+  }
+
+  public long getEvictions() {
+    return evictions.get();
+  }
+
+  /**
+   * A cached response body, or a not found marker when the body is null.
+   */
+  public static class CachedResponse {
+
+    private final String body;
+    private final long expiresAt;
+
+    private CachedResponse(String body, long expiresAt) {
+      this.body = body;
+      this.expiresAt = expiresAt;
+    }
+
+    public String getBody() {
+      return body;
+    }
+
+    public boolean isNotFound() {
+      return body == null;
+    }
+  }
+
+}
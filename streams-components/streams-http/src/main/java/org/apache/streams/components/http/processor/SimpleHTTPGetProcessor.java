@@ -21,8 +21,8 @@ package org.apache.streams.components.http.processor;
 import org.apache.streams.components.http.HttpProcessorConfiguration;
 import org.apache.streams.config.ComponentConfigurator;
 import org.apache.streams.config.StreamsConfigurator;
+import org.apache.streams.core.StreamsBatchProcessor;
 import org.apache.streams.core.StreamsDatum;
-import org.apache.streams.core.StreamsProcessor;
 import org.apache.streams.jackson.StreamsJacksonMapper;
 import org.apache.streams.pojo.extensions.ExtensionUtil;
 import org.apache.streams.pojo.json.ActivityObject;
@@ -31,13 +31,10 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import org.apache.commons.codec.binary.Base64;
 import org.apache.commons.lang3.StringUtils;
-import org.apache.http.HttpEntity;
-import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpGet;
 import org.apache.http.client.utils.URIBuilder;
 import org.apache.http.impl.client.CloseableHttpClient;
 import org.apache.http.impl.client.HttpClients;
-import org.apache.http.util.EntityUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -48,11 +45,17 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Processor retrieves contents from an known url and stores the resulting object in an extension field.
+ *
+ * <p></p>
+ * When async, the requests for a batch of datums are sent concurrently on a pooled client, at most maxInFlight at a
+ * time, and each response is matched back to its datum.  When cacheSize is positive, responses (and not found
+ * responses) are cached by request url.
  */
-public class SimpleHTTPGetProcessor implements StreamsProcessor {
+public class SimpleHTTPGetProcessor implements StreamsBatchProcessor {
 
   private static final String STREAMS_ID = "SimpleHTTPGetProcessor";
 
@@ -71,6 +74,8 @@ public class SimpleHTTPGetProcessor implements StreamsProcessor {
 
   protected String authHeader;
 
+  protected transient HttpEnrichmentEngine engine;
+
   /**
    * SimpleHTTPGetProcessor constructor - resolves HttpProcessorConfiguration from JVM 'http'.
    */
@@ -153,7 +158,11 @@ public class SimpleHTTPGetProcessor implements StreamsProcessor {
   @Override
   public List<StreamsDatum> process(StreamsDatum entry) {
 
-    List<StreamsDatum> result = new ArrayList<>();
+    if (!shouldEnrich(entry)) {
+      List<StreamsDatum> result = new ArrayList<>();
+      result.add(entry);
+      return result;
+    }
 
     ObjectNode rootDocument = getRootDocument(entry);
 
@@ -163,30 +172,63 @@ public class SimpleHTTPGetProcessor implements StreamsProcessor {
 
     HttpGet httpget = prepareHttpGet(uri);
 
-    CloseableHttpResponse response = null;
+    String entityString = engine.fetch(httpget);
 
-    String entityString = null;
-    try {
-      response = httpclient.execute(httpget);
-      HttpEntity entity = response.getEntity();
-      // TODO: handle retry
-      if (response.getStatusLine().getStatusCode() == 200 && entity != null) {
-        entityString = EntityUtils.toString(entity);
+    return enrich(entry, rootDocument, entityString);
+
+  }
+
+  @Override
+  public List<StreamsDatum> process(List<StreamsDatum> entries) {
+
+    List<StreamsDatum> result = new ArrayList<>();
+
+    if (!this.configuration.getAsync()) {
+      for (StreamsDatum entry : entries) {
+        result.addAll(process(entry));
       }
-    } catch (IOException ex) {
-      LOGGER.error("IO error:\n{}\n{}\n{}", uri.toString(), response, ex.getMessage());
       return result;
-    } finally {
-      try {
-        if (response != null) {
-          response.close();
-        }
-      } catch (IOException ignored) {
-        LOGGER.trace("IOException", ignored);
+    }
+
+    // requests are prepared on this thread, since uriBuilder and subclass hooks are not thread safe
+    List<ObjectNode> rootDocuments = new ArrayList<>(entries.size());
+    List<CompletableFuture<String>> responses = new ArrayList<>(entries.size());
+    for (StreamsDatum entry : entries) {
+      if (shouldEnrich(entry)) {
+        rootDocuments.add(getRootDocument(entry));
+        responses.add(engine.submit(prepareHttpGet(prepareURI(prepareParams(entry)))));
+      } else {
+        rootDocuments.add(null);
+        responses.add(null);
+      }
+    }
+
+    for (int i = 0; i < entries.size(); i++) {
+      StreamsDatum entry = entries.get(i);
+      CompletableFuture<String> response = responses.get(i);
+      if (response == null) {
+        result.add(entry);
+      } else {
+        result.addAll(enrich(entry, rootDocuments.get(i), await(response)));
       }
     }
 
-    if( entityString == null ) {
+    return result;
+
+  }
+
+  /**
+   Override this to pass some datums through without a request.
+   */
+  protected boolean shouldEnrich(StreamsDatum entry) {
+    return true;
+  }
+
+  private List<StreamsDatum> enrich(StreamsDatum entry, ObjectNode rootDocument, String entityString) {
+
+    List<StreamsDatum> result = new ArrayList<>();
+
+    if ( entityString == null ) {
       return result;
     }
 
@@ -208,6 +250,15 @@ public class SimpleHTTPGetProcessor implements StreamsProcessor {
 
   }
 
+  private String await(CompletableFuture<String> response) {
+    try {
+      return response.join();
+    } catch (RuntimeException ex) {
+      LOGGER.warn("Request failed: {}", ex.getMessage());
+      return null;
+    }
+  }
+
   /**
    Override this to alter request URI.
    */
@@ -272,12 +323,32 @@ public class SimpleHTTPGetProcessor implements StreamsProcessor {
       String string = configuration.getUsername() + ":" + configuration.getPassword();
       authHeader = Base64.encodeBase64String(string.getBytes());
     }
-    httpclient = HttpClients.createDefault();
+    if (this.configuration.getAsync()) {
+      httpclient = HttpEnrichmentEngine.createPooledClient(
+          configuration.getMaxConnections().intValue(),
+          configuration.getMaxConnectionsPerRoute().intValue());
+    } else {
+      httpclient = HttpClients.createDefault();
+    }
+    HttpResponseCache cache = null;
+    if (configuration.getCacheSize() > 0) {
+      cache = HttpResponseCache.shared(
+          getId() + ":" + configuration.getHostname() + configuration.getResourcePath(),
+          configuration.getCacheSize().intValue(),
+          configuration.getCacheTtlMs(),
+          configuration.getNegativeCacheTtlMs());
+    }
+    engine = new HttpEnrichmentEngine(getId(), httpclient,
+        this.configuration.getAsync() ? configuration.getMaxInFlight().intValue() : 1, cache);
   }
 
   @Override
   public void cleanUp() {
     LOGGER.info("shutting down SimpleHTTPGetProcessor");
+    if (engine != null) {
+      engine.close();
+      engine = null;
+    }
     try {
       httpclient.close();
     } catch (IOException ex) {
@@ -0,0 +1,230 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.streams.components.http.processor;
+
+import org.apache.streams.components.http.HttpProcessorConfiguration;
+import org.apache.streams.core.StreamsDatum;
+import org.apache.streams.jackson.StreamsJacksonMapper;
+import org.apache.streams.pojo.extensions.ExtensionUtil;
+import org.apache.streams.pojo.json.ActivityObject;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit Test for
+ * @see org.apache.streams.components.http.processor.HttpEnrichmentEngine
+ * against a local http stub.
+ */
+public class HttpEnrichmentEngineTest {
+
+  private static final long LATENCY_MS = 20;
+
+  private final ObjectMapper mapper = StreamsJacksonMapper.getInstance();
+
+  private HttpServer server;
+  private CloseableHttpClient httpclient;
+  private final Map<String, AtomicInteger> requestsByPath = new ConcurrentHashMap<>();
+  private final AtomicInteger inFlight = new AtomicInteger();
+  private final AtomicInteger maxInFlight = new AtomicInteger();
+
+  /**
+   * Serves {"id":"..."} for /ids/..., and 404 for anything else, after a short delay.
+   */
+  @Before
+  public void startServer() throws Exception {
+    server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+    server.createContext("/", exchange -> {
+      String path = exchange.getRequestURI().getPath();
+      requestsByPath.computeIfAbsent(path, key -> new AtomicInteger()).incrementAndGet();
+      maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+      try {
+        Thread.sleep(LATENCY_MS);
+      } catch (InterruptedException ex) {
+        Thread.currentThread().interrupt();
+      }
+      inFlight.decrementAndGet();
+      if (path.startsWith("/ids/")) {
+        byte[] body = ("{\"id\":\"" + path.substring("/ids/".length()) + "\"}").getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+          out.write(body);
+        }
+      } else {
+        exchange.sendResponseHeaders(404, -1);
+        exchange.close();
+      }
+    });
+    server.setExecutor(Executors.newCachedThreadPool());
+    server.start();
+    httpclient = HttpEnrichmentEngine.createPooledClient(20, 20);
+  }
+
+  @After
+  public void stopServer() throws Exception {
+    httpclient.close();
+    server.stop(0);
+  }
+
+  @Test
+  public void testCachedAndNegativeCached() throws Exception {
+    HttpEnrichmentEngine engine = new HttpEnrichmentEngine(null, httpclient, 1, new HttpResponseCache(100, 60000, 60000));
+    for (int i = 0; i < 3; i++) {
+      assertEquals("{\"id\":\"1\"}", engine.fetch(get("/ids/1")));
+      assertNull(engine.fetch(get("/missing/1")));
+    }
+    engine.close();
+
+    assertEquals(1, requestsByPath.get("/ids/1").get());
+    assertEquals(1, requestsByPath.get("/missing/1").get());
+    assertEquals(2, engine.getCacheMisses());
+    assertEquals(2, engine.getCacheHits());
+    assertEquals(2, engine.getNegativeCacheHits());
+    assertEquals(2, engine.getRequests());
+    assertEquals(0, engine.getFailures());
+    assertEquals(2, engine.getCacheSize());
+    assertTrue(engine.getMaxLatencyMs() >= LATENCY_MS);
+  }
+
+  @Test
+  public void testSubmitBoundsInFlightAndCoalesces() throws Exception {
+    HttpEnrichmentEngine engine = new HttpEnrichmentEngine(null, httpclient, 4, null);
+    List<CompletableFuture<String>> responses = new ArrayList<>();
+    for (int i = 0; i < 40; i++) {
+      responses.add(engine.submit(get("/ids/" + i % 20)));
+    }
+    for (int i = 0; i < 40; i++) {
+      assertEquals("{\"id\":\"" + i % 20 + "\"}", responses.get(i).get());
+    }
+    engine.close();
+
+    assertTrue(maxInFlight.get() <= 4);
+    assertTrue(maxInFlight.get() > 1);
+    long sent = requestsByPath.values().stream().mapToInt(AtomicInteger::get).sum();
+    assertEquals(sent, engine.getRequests());
+    assertEquals(40, engine.getRequests() + engine.getCoalesced());
+    assertTrue(engine.getCoalesced() > 0);
+  }
+
+  @Test
+  public void testCacheExpiry() {
+    AtomicLong now = new AtomicLong(0);
+    HttpResponseCache cache = new HttpResponseCache(2, 100, 10, now::get);
+    cache.put("a", "A");
+    cache.putNotFound("b");
+    assertEquals("A", cache.get("a").getBody());
+    assertTrue(cache.get("b").isNotFound());
+    now.set(10);
+    assertEquals("A", cache.get("a").getBody());
+    assertNull(cache.get("b"));
+    now.set(100);
+    assertNull(cache.get("a"));
+    cache.put("c", "C");
+    cache.put("d", "D");
+    cache.get("c");
+    cache.put("e", "E");
+    assertEquals(2, cache.size());
+    assertNull(cache.get("d"));
+    assertEquals(1, cache.getEvictions());
+  }
+
+  @Test
+  public void testProcessBatchAsync() throws Exception {
+    HttpProcessorConfiguration configuration = new HttpProcessorConfiguration();
+    configuration.setHostname("localhost");
+    configuration.setResourcePath("/ids/");
+    configuration.setExtension("stub");
+    configuration.setAsync(true);
+    configuration.setMaxInFlight(4L);
+    configuration.setCacheSize(100L);
+    StubProcessor processor = new StubProcessor(configuration);
+    processor.prepare(null);
+
+    List<StreamsDatum> entries = new ArrayList<>();
+    for (int i = 0; i < 20; i++) {
+      ObjectNode document = mapper.createObjectNode();
+      document.put("id", i % 2 == 0 ? Integer.toString(i % 10) : "missing");
+      entries.add(new StreamsDatum(document, Integer.toString(i)));
+    }
+    List<StreamsDatum> result = processor.process(entries);
+    processor.cleanUp();
+
+    assertEquals(10, result.size());
+    for (int i = 0; i < result.size(); i++) {
+      StreamsDatum datum = result.get(i);
+      assertEquals(Integer.toString(i * 2), datum.getId());
+      ActivityObject activityObject = mapper.convertValue(datum.getDocument(), ActivityObject.class);
+      Map<?, ?> extension = (Map<?, ?>) ExtensionUtil.getInstance().getExtension(activityObject, "stub");
+      assertEquals(activityObject.getId(), extension.get("id"));
+    }
+    assertTrue(maxInFlight.get() <= 4);
+    assertEquals(1, requestsByPath.get("/missing/missing").get());
+  }
+
+  private HttpGet get(String path) {
+    return new HttpGet(URI.create("http://localhost:" + server.getAddress().getPort() + path));
+  }
+
+  /**
+   * Requests /ids/{id} from the stub, or /missing/missing when the document has no usable id.
+   */
+  private class StubProcessor extends SimpleHTTPGetProcessor {
+
+    StubProcessor(HttpProcessorConfiguration configuration) {
+      super(configuration);
+    }
+
+    @Override
+    protected Map<String, String> prepareParams(StreamsDatum entry) {
+      Map<String, String> params = super.prepareParams(entry);
+      params.put("id", ((ObjectNode) entry.getDocument()).get("id").asText());
+      return params;
+    }
+
+    @Override
+    protected URI prepareURI(Map<String, String> params) {
+      String id = params.get("id");
+      return get(id.equals("missing") ? "/missing/missing" : "/ids/" + id).getURI();
+    }
+  }
+
+}
@@ -0,0 +1,117 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.streams.amazon.kinesis;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps checkpoints in a local directory, as one properties file per stream mapping shard id to sequence number.
+ *
+ * <p></p>
+ * Each checkpoint rewrites its stream's file through a temporary file and a rename, so a crash leaves either the
+ * previous or the new checkpoints, never a partial file.
+ */
+public class FileKinesisCheckpointStore implements KinesisCheckpointStore {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(FileKinesisCheckpointStore.class);
+
+  private static final String SUFFIX = ".checkpoints";
+
+  private final Path directory;
+  private final Map<String, Properties> streams = new ConcurrentHashMap<>();
+
+  /**
+   * Create a store.
+   * @param directory directory holding the checkpoint files; created if missing
+   */
+  public FileKinesisCheckpointStore(Path directory) {
+    this.directory = directory;
+    try {
+      Files.createDirectories(directory);
+    } catch (IOException ex) {
+      throw new UncheckedIOException("Can't create checkpoint directory " + directory, ex);
+    }
+  }
+
+  @Override
+  public String getCheckpoint(String streamName, String shardId) {
+    return load(streamName).getProperty(shardId);
+  }
+
+  @Override
+  public void checkpoint(String streamName, String shardId, String sequenceNumber) {
+    Properties checkpoints = load(streamName);
+    synchronized (checkpoints) {
+      checkpoints.setProperty(shardId, sequenceNumber);
+      write(streamName, checkpoints);
+    }
+  }
+
+  @Override
+  public void close() {
+    // every checkpoint is written through
+  }
+
+  private Properties load(String streamName) {
+    return streams.computeIfAbsent(streamName, name -> {
+      Properties checkpoints = new Properties();
+      Path file = directory.resolve(name + SUFFIX);
+      if (Files.exists(file)) {
+        try (InputStream inputStream = Files.newInputStream(file)) {
+          checkpoints.load(inputStream);
+        } catch (IOException ex) {
+          LOGGER.warn("Can't read checkpoints from {}, starting without them", file, ex);
+        }
+      }
+      return checkpoints;
+    });
+  }
+
+  private void write(String streamName, Properties checkpoints) {
+    Path file = directory.resolve(streamName + SUFFIX);
+    Path temp = directory.resolve(streamName + SUFFIX + ".tmp");
+    try {
+      try (OutputStream outputStream = Files.newOutputStream(temp)) {
+        checkpoints.store(outputStream, "Kinesis checkpoints for " + streamName);
+      }
+      try {
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+      } catch (AtomicMoveNotSupportedException ex) {
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+      }
+    } catch (IOException ex) {
+      LOGGER.warn("Can't write checkpoints to {}", file, ex);
+    }
+  }
+
+}
@@ -0,0 +1,659 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.streams.amazon.kinesis;
+
+import org.apache.streams.util.api.requests.backoff.AbstractBackOffStrategy;
+import org.apache.streams.util.api.requests.backoff.BackOffException;
+import org.apache.streams.util.api.requests.backoff.BackOffStrategy;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.services.kinesis.model.PutRecordsRequest;
+import com.amazonaws.services.kinesis.model.PutRecordsRequestEntry;
+import com.amazonaws.services.kinesis.model.PutRecordsResult;
+import com.amazonaws.services.kinesis.model.PutRecordsResultEntry;
+import com.amazonaws.services.kinesis.model.Shard;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Sends records to a Kinesis stream with PutRecords, several requests at a time.
+ *
+ * <p></p>
+ * Records are buffered until a request is full, by count or by bytes, or the oldest has waited lingerMs.  At most
+ * maxOutstandingRequests requests are in flight; {@link #add(String, byte[])} blocks beyond that.  Entries the
+ * service rejects are re-sent on their own, pausing between attempts with a {@link BackOffStrategy}, until they
+ * succeed or the strategy gives up.
+ *
+ * <p></p>
+ * With aggregation enabled, documents are packed into records by {@link KinesisRecordAggregator}, which cuts
+ * per-record overhead for small documents.  Kinesis places a record by the MD5 hash of its partition key, so each
+ * document is bucketed by that hash into the open shard whose hash key range holds it, and an aggregated record is
+ * sent with an ExplicitHashKey inside that range.  Every document of an aggregate therefore lands in the shard its own
+ * partition key maps to, and documents sharing a key stay in order.  The shard map is listed with a
+ * {@link ShardLister} and listed again when a record is stored in another shard than expected, after resharding.
+ * Without a lister, or while listing fails, the hash key space is split into aggregatePartitions equal ranges instead.
+ */
+public class KinesisBatchWriter {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(KinesisBatchWriter.class);
+
+  // PutRecords service limits
+  public static final int MAX_RECORDS_PER_REQUEST = 500;
+  public static final int MAX_BYTES_PER_REQUEST = 5 * 1024 * 1024;
+  public static final int MAX_BYTES_PER_RECORD = 1024 * 1024;
+
+  public static final int DEFAULT_AGGREGATE_PARTITIONS = 16;
+
+  // partition keys hash to unsigned 128 bit integers
+  private static final BigInteger HASH_KEY_SPACE = BigInteger.ONE.shiftLeft(128);
+
+  public static final long DEFAULT_CLOSE_TIMEOUT_MS = TimeUnit.MINUTES.toMillis(1);
+
+  /**
+   * Sends one PutRecords request; normally {@code client::putRecords}.
+   */
+  public interface PutRecordsExecutor {
+    PutRecordsResult putRecords(PutRecordsRequest request);
+  }
+
+  /**
+   * Lists the shards of a stream; normally with DescribeStream.
+   */
+  public interface ShardLister {
+    List<Shard> listShards(String streamName);
+  }
+
+  private final String streamName;
+  private final PutRecordsExecutor putRecordsExecutor;
+  private final ShardLister shardLister;
+  private final int maxRecords;
+  private final int maxOutstandingRequests;
+  private final int aggregateMaxBytes;
+  private final int aggregatePartitions;
+  private final long lingerMs;
+  private final Supplier<BackOffStrategy> backOffStrategies;
+
+  private final Semaphore outstanding;
+  private final ExecutorService senders;
+  private final ScheduledExecutorService lingerer;
+
+  private volatile List<HashKeyRange> hashKeyRanges;
+  private final AtomicBoolean hashKeyRangesStale = new AtomicBoolean(false);
+
+  // guarded by this
+  private final Map<HashKeyRange, Aggregate> aggregates = new LinkedHashMap<>();
+  private List<Entry> pending = new ArrayList<>();
+  private int pendingBytes = 0;
+  private long oldestMillis = 0;
+
+  private final AtomicLong totalAdded = new AtomicLong();
+  private final AtomicLong totalOk = new AtomicLong();
+  private final AtomicLong totalFailed = new AtomicLong();
+  private final AtomicLong totalRetried = new AtomicLong();
+  private final AtomicLong requestsSent = new AtomicLong();
+  private final AtomicLong recordsSent = new AtomicLong();
+
+  /**
+   * Create a batch writer aggregating into {@link #DEFAULT_AGGREGATE_PARTITIONS} partitions.
+   * @param streamName stream to write to
+   * @param putRecordsExecutor sends each request
+   * @param maxRecords records per request, capped at {@link #MAX_RECORDS_PER_REQUEST}
+   * @param maxOutstandingRequests requests allowed in flight at once
+   * @param lingerMs longest a buffered record waits before its request is sent
+   * @param aggregateMaxBytes largest aggregated record, or 0 to send every document as its own record
+   * @param backOffStrategies supplies a fresh strategy for each request's retries
+   */
+  public KinesisBatchWriter(String streamName, PutRecordsExecutor putRecordsExecutor, int maxRecords,
+                            int maxOutstandingRequests, long lingerMs, int aggregateMaxBytes,
+                            Supplier<BackOffStrategy> backOffStrategies) {
+    this(streamName, putRecordsExecutor, maxRecords, maxOutstandingRequests, lingerMs, aggregateMaxBytes,
+        DEFAULT_AGGREGATE_PARTITIONS, backOffStrategies);
+  }
+
+  /**
+   * Create a batch writer.
+   * @param streamName stream to write to
+   * @param putRecordsExecutor sends each request
+   * @param maxRecords records per request, capped at {@link #MAX_RECORDS_PER_REQUEST}
+   * @param maxOutstandingRequests requests allowed in flight at once
+   * @param lingerMs longest a buffered record waits before its request is sent
+   * @param aggregateMaxBytes largest aggregated record, or 0 to send every document as its own record
+   * @param aggregatePartitions number of hash key ranges aggregated records are spread over without a shard map
+   * @param backOffStrategies supplies a fresh strategy for each request's retries
+   */
+  public KinesisBatchWriter(String streamName, PutRecordsExecutor putRecordsExecutor, int maxRecords,
+                            int maxOutstandingRequests, long lingerMs, int aggregateMaxBytes,
+                            int aggregatePartitions, Supplier<BackOffStrategy> backOffStrategies) {
+    this(streamName, putRecordsExecutor, null, maxRecords, maxOutstandingRequests, lingerMs, aggregateMaxBytes,
+        aggregatePartitions, backOffStrategies);
+  }
+
+  /**
+   * Create a batch writer that aggregates by shard.
+   * @param streamName stream to write to
+   * @param putRecordsExecutor sends each request
+   * @param shardLister lists the shards aggregates are bucketed by, or null to use equal hash key ranges
+   * @param maxRecords records per request, capped at {@link #MAX_RECORDS_PER_REQUEST}
+   * @param maxOutstandingRequests requests allowed in flight at once
+   * @param lingerMs longest a buffered record waits before its request is sent
+   * @param aggregateMaxBytes largest aggregated record, or 0 to send every document as its own record
+   * @param aggregatePartitions number of hash key ranges aggregated records are spread over without a shard map
+   * @param backOffStrategies supplies a fresh strategy for each request's retries
+   */
+  public KinesisBatchWriter(String streamName, PutRecordsExecutor putRecordsExecutor, ShardLister shardLister,
+                            int maxRecords, int maxOutstandingRequests, long lingerMs, int aggregateMaxBytes,
+                            int aggregatePartitions, Supplier<BackOffStrategy> backOffStrategies) {
+    this.streamName = streamName;
+    this.putRecordsExecutor = putRecordsExecutor;
+    this.shardLister = shardLister;
+    this.maxRecords = Math.max(1, Math.min(maxRecords, MAX_RECORDS_PER_REQUEST));
+    this.maxOutstandingRequests = Math.max(1, maxOutstandingRequests);
+    this.lingerMs = lingerMs;
+    this.aggregateMaxBytes = Math.min(aggregateMaxBytes, MAX_BYTES_PER_RECORD);
+    this.aggregatePartitions = Math.max(1, aggregatePartitions);
+    this.backOffStrategies = backOffStrategies;
+    this.hashKeyRanges = equalHashKeyRanges(this.aggregatePartitions);
+    if (this.aggregateMaxBytes > 0 && shardLister != null) {
+      listHashKeyRanges();
+    }
+
+    this.outstanding = new Semaphore(this.maxOutstandingRequests);
+    this.senders = Executors.newFixedThreadPool(this.maxOutstandingRequests,
+        new ThreadFactoryBuilder().setNameFormat("kinesis-put-records-%d").setDaemon(true).build());
+    this.lingerer = Executors.newSingleThreadScheduledExecutor(
+        new ThreadFactoryBuilder().setNameFormat("kinesis-linger-%d").setDaemon(true).build());
+    long period = Math.max(1, lingerMs / 2);
+    this.lingerer.scheduleWithFixedDelay(() -> flushOlderThan(this.lingerMs), period, period, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Buffer a document, sending any request it completes.
+   * @param partitionKey partition key of the record
+   * @param data document bytes
+   */
+  public void add(String partitionKey, byte[] data) {
+    totalAdded.incrementAndGet();
+    if (data.length + partitionKey.getBytes(StandardCharsets.UTF_8).length > MAX_BYTES_PER_RECORD) {
+      LOGGER.warn("Dropping {} byte record with partition key {}: larger than a Kinesis record", data.length, partitionKey);
+      totalFailed.incrementAndGet();
+      return;
+    }
+    if (aggregateMaxBytes > 0 && hashKeyRangesStale.compareAndSet(true, false)) {
+      listHashKeyRanges();
+    }
+    List<List<Entry>> ready = new ArrayList<>();
+    synchronized (this) {
+      if (oldestMillis == 0) {
+        oldestMillis = System.currentTimeMillis();
+      }
+      if (aggregateMaxBytes > 0) {
+        HashKeyRange range = hashKeyRange(partitionKey);
+        Aggregate aggregate = aggregates.get(range);
+        if (aggregate != null && !aggregate.records.fits(data)) {
+          aggregates.remove(range);
+          stage(new Entry(aggregate), ready);
+          aggregate = null;
+        }
+        if (aggregate == null) {
+          aggregate = new Aggregate(partitionKey, range, new KinesisRecordAggregator(aggregateMaxBytes));
+          aggregates.put(range, aggregate);
+        }
+        aggregate.records.add(data);
+        if (pending.size() + aggregates.size() >= maxRecords) {
+          stageAggregates(ready);
+        }
+      } else {
+        stage(new Entry(partitionKey, null, null, ByteBuffer.wrap(data), 1), ready);
+      }
+    }
+    dispatch(ready);
+  }
+
+  /**
+   * Send everything buffered, without waiting for responses.
+   */
+  public void flush() {
+    List<List<Entry>> ready = new ArrayList<>();
+    synchronized (this) {
+      stageAggregates(ready);
+      if (!pending.isEmpty()) {
+        ready.add(pending);
+        pending = new ArrayList<>();
+        pendingBytes = 0;
+      }
+      oldestMillis = 0;
+    }
+    dispatch(ready);
+  }
+
+  /**
+   * Send everything buffered if the oldest record has waited at least ageMs.
+   * @param ageMs age in milliseconds
+   */
+  public void flushOlderThan(long ageMs) {
+    long oldest;
+    synchronized (this) {
+      oldest = oldestMillis;
+    }
+    if (oldest != 0 && System.currentTimeMillis() - oldest >= ageMs) {
+      flush();
+    }
+  }
+
+  /**
+   * Wait for every request sent so far, including retries, to finish.
+   * @param timeoutMs longest time to wait
+   * @return true if all requests finished in time
+   * @throws InterruptedException if interrupted while waiting
+   */
+  public boolean awaitCompletion(long timeoutMs) throws InterruptedException {
+    if (outstanding.tryAcquire(maxOutstandingRequests, timeoutMs, TimeUnit.MILLISECONDS)) {
+      outstanding.release(maxOutstandingRequests);
+      return true;
+    }
+    return false;
+  }
+
+  /**
+   * Flush, wait up to {@link #DEFAULT_CLOSE_TIMEOUT_MS} for outstanding requests, and stop the sender threads.
+   */
+  public void close() {
+    close(DEFAULT_CLOSE_TIMEOUT_MS);
+  }
+
+  /**
+   * Flush, wait for outstanding requests, and stop the sender threads.  Records still waiting to be retried when
+   * the timeout expires are dropped and counted as failed.
+   * @param timeoutMs longest time to wait, which should cover the retries of the back off strategy
+   */
+  public void close(long timeoutMs) {
+    lingerer.shutdownNow();
+    flush();
+    try {
+      if (!awaitCompletion(timeoutMs)) {
+        LOGGER.warn("Timed out after {} ms waiting for {} outstanding PutRecords requests",
+            timeoutMs, maxOutstandingRequests - outstanding.availablePermits());
+      }
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+    }
+    senders.shutdownNow();
+    try {
+      // let interrupted senders count what they drop
+      senders.awaitTermination(5, TimeUnit.SECONDS);
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+    }
+    LOGGER.info("Closed: added {}, ok {}, failed {}, retried {}, requests {}",
+        totalAdded.get(), totalOk.get(), totalFailed.get(), totalRetried.get(), requestsSent.get());
+  }
+
+  /**
+   * ExplicitHashKey of the aggregated records a document with the given partition key is packed into.
+   * @param partitionKey partition key of the document
+   * @return explicit hash key, inside the hash key range of the shard the partition key maps to
+   */
+  public String explicitHashKey(String partitionKey) {
+    return hashKeyRange(partitionKey).explicitHashKey;
+  }
+
+  /**
+   * The hash key Kinesis places a record with the given partition key by.
+   * @param partitionKey partition key
+   * @return MD5 of the partition key as an unsigned integer
+   */
+  public static BigInteger hashKey(String partitionKey) {
+    try {
+      MessageDigest md5 = MessageDigest.getInstance("MD5");
+      return new BigInteger(1, md5.digest(partitionKey.getBytes(StandardCharsets.UTF_8)));
+    } catch (NoSuchAlgorithmException ex) {
+      throw new IllegalStateException("MD5 is not available", ex);
+    }
+  }
+
+  private HashKeyRange hashKeyRange(String partitionKey) {
+    BigInteger hashKey = hashKey(partitionKey);
+    List<HashKeyRange> ranges = hashKeyRanges;
+    // last range starting at or below the hash key
+    int low = 0;
+    int high = ranges.size() - 1;
+    while (low < high) {
+      int mid = (low + high + 1) >>> 1;
+      if (ranges.get(mid).start.compareTo(hashKey) <= 0) {
+        low = mid;
+      } else {
+        high = mid - 1;
+      }
+    }
+    return ranges.get(low);
+  }
+
+  private void listHashKeyRanges() {
+    List<HashKeyRange> ranges = new ArrayList<>();
+    try {
+      for (Shard shard : shardLister.listShards(streamName)) {
+        if (shard.getSequenceNumberRange() != null && shard.getSequenceNumberRange().getEndingSequenceNumber() != null) {
+          // closed by resharding, its range now belongs to its children
+          continue;
+        }
+        ranges.add(new HashKeyRange(shard.getShardId(), new BigInteger(shard.getHashKeyRange().getStartingHashKey())));
+      }
+    } catch (AmazonClientException ex) {
+      LOGGER.warn("Can't list shards of {}, aggregating by {} hash key ranges", streamName, hashKeyRanges.size(), ex);
+      return;
+    }
+    if (ranges.isEmpty()) {
+      LOGGER.warn("No open shards listed for {}, aggregating by {} hash key ranges", streamName, hashKeyRanges.size());
+      return;
+    }
+    ranges.sort(Comparator.comparing(range -> range.start));
+    LOGGER.info("Aggregating by the hash key ranges of {} shards of {}", ranges.size(), streamName);
+    hashKeyRanges = ranges;
+  }
+
+  private static List<HashKeyRange> equalHashKeyRanges(int count) {
+    List<HashKeyRange> ranges = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      BigInteger start = HASH_KEY_SPACE.multiply(BigInteger.valueOf(i)).divide(BigInteger.valueOf(count));
+      ranges.add(new HashKeyRange(null, start));
+    }
+    return ranges;
+  }
+
+  // caller holds this
+  private void stageAggregates(List<List<Entry>> ready) {
+    for (Aggregate aggregate : aggregates.values()) {
+      stage(new Entry(aggregate), ready);
+    }
+    aggregates.clear();
+  }
+
+  // caller holds this
+  private void stage(Entry entry, List<List<Entry>> ready) {
+    if (!pending.isEmpty() && pendingBytes + entry.bytes > MAX_BYTES_PER_REQUEST) {
+      ready.add(pending);
+      pending = new ArrayList<>();
+      pendingBytes = 0;
+    }
+    pending.add(entry);
+    pendingBytes += entry.bytes;
+    if (pending.size() >= maxRecords) {
+      ready.add(pending);
+      pending = new ArrayList<>();
+      pendingBytes = 0;
+    }
+  }
+
+  private void dispatch(List<List<Entry>> ready) {
+    for (List<Entry> batch : ready) {
+      try {
+        outstanding.acquire();
+      } catch (InterruptedException ex) {
+        Thread.currentThread().interrupt();
+        totalFailed.addAndGet(documents(batch));
+        LOGGER.warn("Interrupted, dropping {} records", batch.size());
+        continue;
+      }
+      senders.execute(() -> {
+        try {
+          send(batch);
+        } finally {
+          outstanding.release();
+        }
+      });
+    }
+  }
+
+  private void send(List<Entry> batch) {
+    BackOffStrategy backOffStrategy = backOffStrategies.get();
+    List<Entry> remaining = batch;
+    while (true) {
+      List<PutRecordsRequestEntry> records = new ArrayList<>(remaining.size());
+      for (Entry entry : remaining) {
+        records.add(new PutRecordsRequestEntry()
+            .withPartitionKey(entry.partitionKey)
+            .withExplicitHashKey(entry.explicitHashKey)
+            .withData(entry.data.duplicate()));
+      }
+      PutRecordsRequest request = new PutRecordsRequest()
+          .withStreamName(streamName)
+          .withRecords(records);
+
+      List<Entry> failed = new ArrayList<>();
+      requestsSent.incrementAndGet();
+      recordsSent.addAndGet(records.size());
+      try {
+        PutRecordsResult result = putRecordsExecutor.putRecords(request);
+        List<PutRecordsResultEntry> results = result.getRecords();
+        for (int i = 0; i < remaining.size(); i++) {
+          if (results.get(i).getErrorCode() != null) {
+            failed.add(remaining.get(i));
+          } else {
+            totalOk.addAndGet(remaining.get(i).documents);
+            String shardId = remaining.get(i).shardId;
+            if (shardId != null && !shardId.equals(results.get(i).getShardId())
+                && hashKeyRangesStale.compareAndSet(false, true)) {
+              LOGGER.info("Record for shard {} stored in {}, listing shards again", shardId, results.get(i).getShardId());
+            }
+          }
+        }
+        if (!failed.isEmpty()) {
+          LOGGER.debug("{} of {} records rejected: {}", failed.size(), remaining.size(), firstError(results));
+        }
+      } catch (AmazonClientException ex) {
+        LOGGER.warn("PutRecords request of {} records failed", remaining.size(), ex);
+        failed = remaining;
+      }
+
+      if (failed.isEmpty()) {
+        return;
+      }
+      try {
+        backOffStrategy.backOff();
+      } catch (BackOffException ex) {
+        long documents = documents(failed);
+        totalFailed.addAndGet(documents);
+        LOGGER.error("Giving up on {} documents after {} attempts", documents, ex.getNumberOfBackOffsAttempted());
+        return;
+      }
+      if (Thread.currentThread().isInterrupted()) {
+        long documents = documents(failed);
+        totalFailed.addAndGet(documents);
+        LOGGER.error("Shut down, dropping {} documents awaiting retry", documents);
+        return;
+      }
+      totalRetried.addAndGet(failed.size());
+      remaining = failed;
+    }
+  }
+
+  private static String firstError(List<PutRecordsResultEntry> results) {
+    for (PutRecordsResultEntry result : results) {
+      if (result.getErrorCode() != null) {
+        return result.getErrorCode() + " " + result.getErrorMessage();
+      }
+    }
+    return null;
+  }
+
+  private static long documents(List<Entry> entries) {
+    long documents = 0;
+    for (Entry entry : entries) {
+      documents += entry.documents;
+    }
+    return documents;
+  }
+
+  /**
+   * Number of documents added.
+   * @return documents added
+   */
+  public long getTotalAdded() {
+    return totalAdded.get();
+  }
+
+  /**
+   * Number of documents acknowledged by the stream.
+   * @return successful documents
+   */
+  public long getTotalOk() {
+    return totalOk.get();
+  }
+
+  /**
+   * Number of documents dropped, including those still rejected when the back off strategy gave up.
+   * @return failed documents
+   */
+  public long getTotalFailed() {
+    return totalFailed.get();
+  }
+
+  /**
+   * Number of records re-sent after being rejected.
+   * @return retried records
+   */
+  public long getTotalRetried() {
+    return totalRetried.get();
+  }
+
+  /**
+   * Number of PutRecords requests sent, including retries.
+   * @return requests sent
+   */
+  public long getRequestsSent() {
+    return requestsSent.get();
+  }
+
+  /**
+   * Number of records sent, including retries; lower than documents sent when aggregating.
+   * @return records sent
+   */
+  public long getRecordsSent() {
+    return recordsSent.get();
+  }
+
+  /**
+   * Exponential back off in milliseconds, doubling from {@link #BASE_MS} and capped at {@link #MAX_MS} per attempt,
+   * so the retries of a request take a predictable, bounded time.
+   */
+  public static class RetryBackOffStrategy extends AbstractBackOffStrategy {
+
+    public static final long BASE_MS = 100;
+    public static final long MAX_MS = 5000;
+
+    public RetryBackOffStrategy(int maxRetries) {
+      super(BASE_MS, maxRetries);
+    }
+
+    /**
+     * Longest total time a request's retries back off for.
+     * @param maxRetries retries allowed
+     * @return milliseconds
+     */
+    public static long maxTotalBackOffMs(int maxRetries) {
+      long total = 0;
+      for (int attempt = 0; attempt < maxRetries; attempt++) {
+        total += backOffMs(attempt);
+      }
+      return total;
+    }
+
+    @Override
+    protected long calculateBackOffTime(int attemptCount, long baseSleepTime) {
+      return backOffMs(attemptCount);
+    }
+
+    private static long backOffMs(int attempt) {
+      return attempt >= 16 ? MAX_MS : Math.min(BASE_MS << attempt, MAX_MS);
+    }
+  }
+
+  private static class HashKeyRange {
+
+    private final String shardId;
+    private final BigInteger start;
+    private final String explicitHashKey;
+
+    private HashKeyRange(String shardId, BigInteger start) {
+      this.shardId = shardId;
+      this.start = start;
+      this.explicitHashKey = start.toString();
+    }
+  }
+
+  private static class Aggregate {
+
+    // partition key of the first document, which the aggregated record is sent with
+    private final String partitionKey;
+    private final HashKeyRange range;
+    private final KinesisRecordAggregator records;
+
+    private Aggregate(String partitionKey, HashKeyRange range, KinesisRecordAggregator records) {
+      this.partitionKey = partitionKey;
+      this.range = range;
+      this.records = records;
+    }
+  }
+
+  private static class Entry {
+
+    private final String partitionKey;
+    private final String explicitHashKey;
+    // shard the record is expected to be stored in, if known
+    private final String shardId;
+    private final ByteBuffer data;
+    private final int documents;
+    private final int bytes;
+
+    private Entry(String partitionKey, String explicitHashKey, String shardId, ByteBuffer data, int documents) {
+      this.partitionKey = partitionKey;
+      this.explicitHashKey = explicitHashKey;
+      this.shardId = shardId;
+      this.data = data;
+      this.documents = documents;
+      this.bytes = data.remaining() + partitionKey.getBytes(StandardCharsets.UTF_8).length;
+    }
+
+    private Entry(Aggregate aggregate) {
+      this(aggregate.partitionKey, aggregate.range.explicitHashKey, aggregate.range.shardId,
+          aggregate.records.toPayload(), aggregate.records.getCount());
+    }
+  }
+
+}
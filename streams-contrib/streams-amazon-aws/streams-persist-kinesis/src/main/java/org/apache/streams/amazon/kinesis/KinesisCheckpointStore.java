@@ -0,0 +1,49 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.streams.amazon.kinesis;
+
+/**
+ * Remembers, per shard, the sequence number of the last record a {@link KinesisPersistReader} has taken, so a
+ * restarted reader can resume after it.
+ */
+public interface KinesisCheckpointStore {
+
+  /**
+   * The last checkpointed sequence number of a shard.
+   * @param streamName stream
+   * @param shardId shard
+   * @return sequence number, or null if the shard has no checkpoint
+   */
+  String getCheckpoint(String streamName, String shardId);
+
+  /**
+   * Record the last sequence number taken from a shard.
+   * @param streamName stream
+   * @param shardId shard
+   * @param sequenceNumber sequence number
+   */
+  void checkpoint(String streamName, String shardId, String sequenceNumber);
+
+  /**
+   * Persist anything outstanding and release resources.
+   */
+  void close();
+
+}
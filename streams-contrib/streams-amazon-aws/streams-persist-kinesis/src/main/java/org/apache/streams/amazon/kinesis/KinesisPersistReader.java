@@ -31,9 +31,12 @@ import com.amazonaws.auth.BasicAWSCredentials;
 import com.amazonaws.regions.Region;
 import com.amazonaws.regions.Regions;
 import com.amazonaws.services.kinesis.AmazonKinesisClient;
+import com.amazonaws.services.kinesis.model.DescribeStreamRequest;
 import com.amazonaws.services.kinesis.model.DescribeStreamResult;
 import com.amazonaws.services.kinesis.model.Shard;
+import com.amazonaws.services.kinesis.model.StreamDescription;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.typesafe.config.Config;
 import org.apache.commons.lang3.StringUtils;
 import org.joda.time.DateTime;
@@ -42,15 +45,30 @@ import org.slf4j.LoggerFactory;
 
 import java.io.Serializable;
 import java.math.BigInteger;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 
 /**
  * KinesisPersistReader reads documents from kinesis.
+ *
+ * <p></p>
+ * Each open shard of each stream is read by its own {@link KinesisPersistReaderTask}.  Shards are re-listed every
+ * shardDiscoveryIntervalMs, and whenever a shard closes, so the children created by resharding are picked up;
+ * a child is started only once its parents are finished, preserving order per partition key.  Positions are kept
+ * in a {@link KinesisCheckpointStore}, a {@link FileKinesisCheckpointStore} under checkpointDirectory unless
+ * another is set, and only cover records whose documents have been taken by {@link #readCurrent()}.
  */
 public class KinesisPersistReader implements StreamsPersistReader, Serializable {
 
@@ -72,6 +90,16 @@ public class KinesisPersistReader implements StreamsPersistReader, Serializable
 
   protected AmazonKinesisClient client;
 
+  private KinesisCheckpointStore checkpointStore;
+
+  private ScheduledExecutorService discoveryExecutor;
+
+  private final Map<String, KinesisPersistReaderTask> shardTasks = new ConcurrentHashMap<>();
+
+  private final Set<String> finishedShards = ConcurrentHashMap.newKeySet();
+
+  private volatile boolean running = false;
+
   /**
    * KinesisPersistReader constructor - resolves KinesisReaderConfiguration from JVM 'kinesis'.
    */
@@ -93,6 +121,21 @@ public class KinesisPersistReader implements StreamsPersistReader, Serializable
     this.config = config;
   }
 
+  public KinesisReaderConfiguration getConfig() {
+    return config;
+  }
+
+  public KinesisCheckpointStore getCheckpointStore() {
+    return checkpointStore;
+  }
+
+  /**
+   * Use a different checkpoint store; call before prepare.
+   */
+  public void setCheckpointStore(KinesisCheckpointStore checkpointStore) {
+    this.checkpointStore = checkpointStore;
+  }
+
   @Override
   public String getId() {
     return STREAMS_ID;
@@ -103,23 +146,118 @@ public class KinesisPersistReader implements StreamsPersistReader, Serializable
 
     this.streamNames = this.config.getStreams();
 
-    for (final String stream : streamNames) {
+    running = true;
+
+    discoverShards();
 
-      DescribeStreamResult describeStreamResult = client.describeStream(stream);
+    long interval = config.getShardDiscoveryIntervalMs();
+    discoveryExecutor.scheduleWithFixedDelay(this::discoverShards, interval, interval, TimeUnit.MILLISECONDS);
+
+  }
+
+  /**
+   * Start a task for every readable shard that doesn't have one, deferring children of unfinished parents.
+   */
+  protected synchronized void discoverShards() {
 
-      if( "ACTIVE".equals(describeStreamResult.getStreamDescription().getStreamStatus())) {
+    if (!running) {
+      return;
+    }
+
+    for (final String stream : streamNames) {
+
+      List<Shard> shardList;
+      try {
+        shardList = listShards(stream);
+      } catch (Exception ex) {
+        LOGGER.warn("Can't list shards of {}", stream, ex);
+        continue;
+      }
 
-        List<Shard> shardList = describeStreamResult.getStreamDescription().getShards();
+      Set<String> listed = new HashSet<>();
+      for( Shard shard : shardList ) {
+        listed.add(shard.getShardId());
+      }
 
-        for( Shard shard : shardList ) {
-          executor.submit(new KinesisPersistReaderTask(this, stream, shard.getShardId()));
+      for( Shard shard : shardList ) {
+        String key = shardKey(stream, shard.getShardId());
+        if (shardTasks.containsKey(key) || finishedShards.contains(key)) {
+          continue;
+        }
+        if (!parentFinished(stream, shard.getParentShardId(), listed)
+            || !parentFinished(stream, shard.getAdjacentParentShardId(), listed)) {
+          continue;
         }
+        LOGGER.info("Starting shard {}", key);
+        KinesisPersistReaderTask task = new KinesisPersistReaderTask(this, stream, shard.getShardId());
+        shardTasks.put(key, task);
+        executor.submit(task);
       }
 
     }
 
   }
 
+  /**
+   * Called by a task when its shard has been read to the end.
+   */
+  protected void shardFinished(String stream, String shardId) {
+    String key = shardKey(stream, shardId);
+    finishedShards.add(key);
+    shardTasks.remove(key);
+    if (running && !discoveryExecutor.isShutdown()) {
+      try {
+        discoveryExecutor.execute(this::discoverShards);
+      } catch (RejectedExecutionException ex) {
+        LOGGER.debug("Not discovering children of {}: reader is shutting down", key);
+      }
+    }
+  }
+
+  private boolean parentFinished(String stream, String parentShardId, Set<String> listed) {
+    // a parent that has aged out of the listing has been fully trimmed
+    return parentShardId == null
+        || !listed.contains(parentShardId)
+        || finishedShards.contains(shardKey(stream, parentShardId));
+  }
+
+  private List<Shard> listShards(String stream) {
+    return listShards(client, stream);
+  }
+
+  /**
+   * List every shard of a stream, open or closed, paging through DescribeStream.
+   * @param client Kinesis client
+   * @param stream stream name
+   * @return shards, or none if the stream is not active
+   */
+  static List<Shard> listShards(AmazonKinesisClient client, String stream) {
+    List<Shard> shards = new ArrayList<>();
+    String exclusiveStartShardId = null;
+    StreamDescription description;
+    do {
+      DescribeStreamResult describeStreamResult = client.describeStream(new DescribeStreamRequest()
+          .withStreamName(stream)
+          .withExclusiveStartShardId(exclusiveStartShardId));
+      description = describeStreamResult.getStreamDescription();
+      String status = description.getStreamStatus();
+      if (!"ACTIVE".equals(status) && !"UPDATING".equals(status)) {
+        LOGGER.warn("Stream {} is {}", stream, status);
+        return shards;
+      }
+      shards.addAll(description.getShards());
+      if (!description.getShards().isEmpty()) {
+        exclusiveStartShardId = description.getShards().get(description.getShards().size() - 1).getShardId();
+      }
+    }
+    while (description.getHasMoreShards() && !description.getShards().isEmpty());
+    return shards;
+  }
+
+  private static String shardKey(String stream, String shardId) {
+    return stream + ":" + shardId;
+  }
+
   @Override
   public StreamsResultSet readAll() {
     return readCurrent();
@@ -127,12 +265,18 @@ public class KinesisPersistReader implements StreamsPersistReader, Serializable
 
   public StreamsResultSet readCurrent() {
 
-    StreamsResultSet current;
-    synchronized( KinesisPersistReader.class ) {
-      current = new StreamsResultSet(new ConcurrentLinkedQueue<>(persistQueue));
-      persistQueue.clear();
+    // shard tasks keep adding while this drains, so take datums one at a time rather than copy and clear
+    Queue<StreamsDatum> current = new ConcurrentLinkedQueue<>();
+    StreamsDatum datum;
+    while ((datum = persistQueue.poll()) != null) {
+      current.add(datum);
+      KinesisPersistReaderTask task = shardTasks.get(shardKey(
+          (String) datum.getMetadata().get("streamName"), (String) datum.getMetadata().get("shardId")));
+      if (task != null) {
+        task.taken();
+      }
     }
-    return current;
+    return new StreamsResultSet(current);
   }
 
   @Override
@@ -147,7 +291,7 @@ public class KinesisPersistReader implements StreamsPersistReader, Serializable
 
   @Override
   public boolean isRunning() {
-    return !executor.isShutdown() && !executor.isTerminated();
+    return running && !executor.isShutdown() && !executor.isTerminated();
   }
 
   @Override
@@ -165,16 +309,32 @@ public class KinesisPersistReader implements StreamsPersistReader, Serializable
         this.client.setRegion(Region.getRegion(Regions.fromName(config.getRegion())));
     }
     streamNames = this.config.getStreams();
-    executor = Executors.newFixedThreadPool(streamNames.size());
+    // shards come and go with resharding, so the pool grows with them
+    executor = Executors.newCachedThreadPool(
+        new ThreadFactoryBuilder().setNameFormat("kinesis-shard-%d").setDaemon(true).build());
+    discoveryExecutor = Executors.newSingleThreadScheduledExecutor(
+        new ThreadFactoryBuilder().setNameFormat("kinesis-shard-discovery-%d").setDaemon(true).build());
+    if (checkpointStore == null) {
+      checkpointStore = new FileKinesisCheckpointStore(Paths.get(config.getCheckpointDirectory()));
+    }
   }
 
   @Override
   public void cleanUp() {
 
+    running = false;
+    discoveryExecutor.shutdownNow();
+    for (KinesisPersistReaderTask task : shardTasks.values()) {
+      task.stop();
+    }
+    executor.shutdown();
+
     while( !executor.isTerminated()) {
       try {
         executor.awaitTermination(5, TimeUnit.SECONDS);
       } catch (InterruptedException ignored) {}
     }
+
+    checkpointStore.close();
   }
 }
@@ -21,29 +21,46 @@ package org.apache.streams.amazon.kinesis;
 import org.apache.streams.config.StreamsConfigurator;
 import org.apache.streams.core.StreamsDatum;
 
+import com.amazonaws.services.kinesis.model.ExpiredIteratorException;
 import com.amazonaws.services.kinesis.model.GetRecordsRequest;
 import com.amazonaws.services.kinesis.model.GetRecordsResult;
 import com.amazonaws.services.kinesis.model.GetShardIteratorRequest;
 import com.amazonaws.services.kinesis.model.GetShardIteratorResult;
+import com.amazonaws.services.kinesis.model.InvalidArgumentException;
+import com.amazonaws.services.kinesis.model.ProvisionedThroughputExceededException;
 import com.amazonaws.services.kinesis.model.Record;
+import com.amazonaws.services.kinesis.model.ShardIteratorType;
 import org.joda.time.DateTime;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.math.BigInteger;
 import java.nio.charset.Charset;
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
- * KinesisPersistReaderTask reads documents from kinesis on behalf of
+ * KinesisPersistReaderTask reads documents from one shard of kinesis on behalf of
  * @see {@link KinesisPersistReader}.
+ *
+ * <p></p>
+ * The task polls again immediately while GetRecords reports it is behind the tip of the shard, and backs off
+ * exponentially from the batch frequency up to maxPollIntervalMs once caught up.  It resumes after the shard's
+ * checkpoint when there is one, and every checkpointIntervalMs checkpoints the last record whose documents the
+ * runtime has taken from the reader, so documents still queued in the reader are read again after a restart.  When
+ * the shard is closed by resharding, the task ends once the runtime has taken all of its documents.
  */
 public class KinesisPersistReaderTask implements Runnable {
 
   private static final Logger LOGGER = LoggerFactory.getLogger(KinesisPersistReaderTask.class);
 
+  // GetRecords allows five calls per second per shard
+  private static final long MIN_POLL_INTERVAL_MS = 200;
+
   private KinesisPersistReader reader;
   private String streamName;
   private String shardId;
@@ -52,6 +69,15 @@ public class KinesisPersistReaderTask implements Runnable {
 
   private Long pollInterval = StreamsConfigurator.detectConfiguration().getBatchFrequencyMs();
 
+  private volatile boolean running = true;
+  private String lastSequenceNumber;
+  private long lastCheckpointMillis = System.currentTimeMillis();
+
+  // records read, in order, with the number of datums queued up to and including each
+  private final Deque<PendingRecord> pending = new ArrayDeque<>();
+  private long queued = 0;
+  private final AtomicLong taken = new AtomicLong();
+
   /**
    * KinesisPersistReaderTask constructor.
    */
@@ -64,55 +90,175 @@ public class KinesisPersistReaderTask implements Runnable {
   @Override
   public void run() {
 
-    GetShardIteratorRequest shardIteratorRequest = new GetShardIteratorRequest()
-        .withStreamName(this.streamName)
-        .withShardId(shardId)
-        .withShardIteratorType("TRIM_HORIZON");
-
-    GetShardIteratorResult shardIteratorResult = reader.client.getShardIterator(shardIteratorRequest);
+    KinesisReaderConfiguration config = reader.getConfig();
+    KinesisCheckpointStore checkpointStore = reader.getCheckpointStore();
 
-    shardIteratorId = shardIteratorResult.getShardIterator();
+    lastSequenceNumber = checkpointStore.getCheckpoint(streamName, shardId);
+    shardIteratorId = initialShardIterator(config);
 
-    Map<String,Object> metadata = new HashMap<>();
-    metadata.put("streamName", streamName);
-    metadata.put("shardId", shardId);
+    long delay = 0;
 
-    while (true) {
+    while (running && shardIteratorId != null) {
 
       GetRecordsRequest recordsRequest = new GetRecordsRequest()
-          .withShardIterator(shardIteratorId);
+          .withShardIterator(shardIteratorId)
+          .withLimit(config.getMaxRecordsPerGet().intValue());
+
+      GetRecordsResult recordsResult;
+      try {
+        recordsResult = reader.client.getRecords(recordsRequest);
+      } catch (ProvisionedThroughputExceededException ex) {
+        delay = nextDelay(delay, config);
+        LOGGER.debug("Throttled on {}:{}, backing off {} ms", streamName, shardId, delay);
+        pause(delay);
+        continue;
+      } catch (ExpiredIteratorException ex) {
+        LOGGER.info("Iterator expired on {}:{}, resuming after {}", streamName, shardId, lastSequenceNumber);
+        shardIteratorId = initialShardIterator(config);
+        continue;
+      }
 
-      GetRecordsResult recordsResult = reader.client.getRecords(recordsRequest);
+      List<Record> recordList = recordsResult.getRecords();
+      Long millisBehindLatest = recordsResult.getMillisBehindLatest();
 
-      LOGGER.info("{} records {} millis behind {}:{}:{} ", recordsResult.getRecords().size(), recordsResult.getMillisBehindLatest(), streamName, shardId, shardIteratorId);
+      LOGGER.debug("{} records {} millis behind {}:{}", recordList.size(), millisBehindLatest, streamName, shardId);
 
       shardIteratorId = recordsResult.getNextShardIterator();
 
-      List<Record> recordList = recordsResult.getRecords();
-
       for (Record record : recordList) {
         try {
-          byte[] byteArray = record.getData().array();
-          //byte[] decoded = Base64.decode(byteArray);
-          String message = new String(byteArray, Charset.forName("UTF-8"));
-          reader.persistQueue.add(
-              new StreamsDatum(
-                  message,
-                  record.getPartitionKey(),
-                  new DateTime(),
-                  new BigInteger(record.getSequenceNumber()),
-                  metadata));
+          // records written with aggregation enabled carry several documents
+          for (byte[] byteArray : KinesisRecordAggregator.deaggregate(record.getData())) {
+            String message = new String(byteArray, Charset.forName("UTF-8"));
+            Map<String,Object> metadata = new HashMap<>();
+            metadata.put("streamName", streamName);
+            metadata.put("shardId", shardId);
+            reader.persistQueue.add(
+                new StreamsDatum(
+                    message,
+                    record.getPartitionKey(),
+                    new DateTime(),
+                    new BigInteger(record.getSequenceNumber()),
+                    metadata));
+            queued++;
+          }
         } catch ( Exception ex ) {
           LOGGER.warn("Exception processing record {}: {}", record, ex);
         }
+        lastSequenceNumber = record.getSequenceNumber();
+        pending.add(new PendingRecord(lastSequenceNumber, queued));
+      }
+
+      if (System.currentTimeMillis() - lastCheckpointMillis >= config.getCheckpointIntervalMs()) {
+        checkpoint(checkpointStore);
       }
+
+      if (millisBehindLatest != null && millisBehindLatest > 0) {
+        delay = 0;
+      } else if (!recordList.isEmpty()) {
+        // at the tip but still receiving, keep polling at the base interval
+        delay = nextDelay(0, config);
+        pause(delay);
+      } else {
+        delay = nextDelay(delay, config);
+        pause(delay);
+      }
+    }
+
+    if (shardIteratorId == null) {
+      // children are started once this finishes, so hold them back until every datum has been taken
+      while (running && taken.get() < queued) {
+        pause(Math.max(MIN_POLL_INTERVAL_MS, pollInterval));
+      }
+    }
+
+    checkpoint(checkpointStore);
+
+    if (shardIteratorId == null && running) {
+      LOGGER.info("Shard {}:{} is closed", streamName, shardId);
+      reader.shardFinished(streamName, shardId);
+    }
+
+  }
+
+  /**
+   * Ask the task to checkpoint and return after its current poll.
+   */
+  public void stop() {
+    running = false;
+  }
+
+  /**
+   * Called by the reader for each datum of this shard it hands to the runtime.  Datums are taken in the order they
+   * were queued.
+   */
+  void taken() {
+    taken.incrementAndGet();
+  }
+
+  private String initialShardIterator(KinesisReaderConfiguration config) {
+
+    if (lastSequenceNumber != null) {
       try {
-        Thread.sleep(reader.pollInterval);
-      } catch (InterruptedException ex) {
-        LOGGER.trace("InterruptedException", ex);
+        return getShardIterator(new GetShardIteratorRequest()
+            .withStreamName(streamName)
+            .withShardId(shardId)
+            .withShardIteratorType(ShardIteratorType.AFTER_SEQUENCE_NUMBER)
+            .withStartingSequenceNumber(lastSequenceNumber));
+      } catch (InvalidArgumentException ex) {
+        LOGGER.warn("Checkpoint {} on {}:{} is no longer readable, starting from {}",
+            lastSequenceNumber, streamName, shardId, config.getIteratorType(), ex);
       }
     }
 
+    return getShardIterator(new GetShardIteratorRequest()
+        .withStreamName(streamName)
+        .withShardId(shardId)
+        .withShardIteratorType(config.getIteratorType().toString()));
+  }
+
+  private String getShardIterator(GetShardIteratorRequest request) {
+    GetShardIteratorResult shardIteratorResult = reader.client.getShardIterator(request);
+    return shardIteratorResult.getShardIterator();
+  }
+
+  private void checkpoint(KinesisCheckpointStore checkpointStore) {
+    lastCheckpointMillis = System.currentTimeMillis();
+    long takenCount = taken.get();
+    String sequenceNumber = null;
+    while (!pending.isEmpty() && pending.peek().queued <= takenCount) {
+      sequenceNumber = pending.poll().sequenceNumber;
+    }
+    if (sequenceNumber != null) {
+      checkpointStore.checkpoint(streamName, shardId, sequenceNumber);
+    }
+  }
+
+  private long nextDelay(long delay, KinesisReaderConfiguration config) {
+    if (delay == 0) {
+      return Math.max(MIN_POLL_INTERVAL_MS, pollInterval);
+    }
+    return Math.min(delay * 2, config.getMaxPollIntervalMs());
+  }
+
+  private void pause(long delay) {
+    try {
+      Thread.sleep(delay);
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      running = false;
+    }
+  }
+
+  private static class PendingRecord {
+
+    private final String sequenceNumber;
+    private final long queued;
+
+    private PendingRecord(String sequenceNumber, long queued) {
+      this.sequenceNumber = sequenceNumber;
+      this.queued = queued;
+    }
   }
 
 }
@@ -44,6 +44,7 @@ import java.math.BigInteger;
 import java.nio.ByteBuffer;
 import java.util.List;
 import java.util.Queue;
+import java.util.UUID;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -70,6 +71,8 @@ public class KinesisPersistWriter implements StreamsPersistWriter {
 
   protected AmazonKinesisClient client;
 
+  private KinesisBatchWriter batchWriter;
+
   /**
    * KinesisPersistWriter constructor - resolves KinesisWriterConfiguration from JVM 'kinesis'.
    */
@@ -101,6 +104,13 @@ public class KinesisPersistWriter implements StreamsPersistWriter {
 
     String document = (String) TypeConverterUtil.getInstance().convert(entry.getDocument(), String.class);
 
+    if (batchWriter != null) {
+      // without an id, spread records across shards rather than fail the request
+      String partitionKey = StringUtils.isNotBlank(entry.getId()) ? entry.getId() : UUID.randomUUID().toString();
+      batchWriter.add(partitionKey, document.getBytes());
+      return;
+    }
+
     PutRecordRequest putRecordRequest = new PutRecordRequest()
         .withStreamName(config.getStream())
         .withPartitionKey(entry.getId())
@@ -130,10 +140,29 @@ public class KinesisPersistWriter implements StreamsPersistWriter {
     }
     executor = Executors.newSingleThreadExecutor();
 
+    if (config.getBatchRecords() > 1) {
+      int maxRetries = config.getMaxRetries().intValue();
+      batchWriter = new KinesisBatchWriter(
+          config.getStream(),
+          client::putRecords,
+          stream -> KinesisPersistReader.listShards(client, stream),
+          config.getBatchRecords().intValue(),
+          config.getMaxOutstandingRequests().intValue(),
+          config.getLingerMs(),
+          config.getAggregate() ? config.getAggregateMaxBytes().intValue() : 0,
+          config.getAggregatePartitions().intValue(),
+          () -> new KinesisBatchWriter.RetryBackOffStrategy(Math.max(1, maxRetries)));
+    }
+
   }
 
   @Override
   public void cleanUp() {
+    if (batchWriter != null) {
+      // outstanding requests may still be retrying, so wait out the longest back off on top of the usual timeout
+      batchWriter.close(KinesisBatchWriter.DEFAULT_CLOSE_TIMEOUT_MS
+          + KinesisBatchWriter.RetryBackOffStrategy.maxTotalBackOffMs(Math.max(1, config.getMaxRetries().intValue())));
+    }
     try {
       executor.awaitTermination(5, TimeUnit.SECONDS);
     } catch (InterruptedException ex) {
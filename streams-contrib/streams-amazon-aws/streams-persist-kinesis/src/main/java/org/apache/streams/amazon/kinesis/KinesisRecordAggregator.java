@@ -0,0 +1,137 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.streams.amazon.kinesis;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Packs many small documents into the payload of a single Kinesis record, and unpacks them again.
+ *
+ * <p></p>
+ * An aggregated payload starts with {@link #MAGIC} followed by each document as a four byte length and its bytes.
+ * Payloads without the magic prefix are plain, single-document records.
+ */
+public class KinesisRecordAggregator {
+
+  public static final byte[] MAGIC = new byte[] { 0x00, 'S', 'A', 0x01 };
+
+  private static final int LENGTH_BYTES = 4;
+
+  private final int maxBytes;
+  private final List<byte[]> documents = new ArrayList<>();
+  private int size = MAGIC.length;
+
+  /**
+   * Create an empty aggregate.
+   * @param maxBytes largest payload this aggregate may grow to
+   */
+  public KinesisRecordAggregator(int maxBytes) {
+    this.maxBytes = maxBytes;
+  }
+
+  /**
+   * Whether a document fits without the payload exceeding maxBytes. An empty aggregate accepts any document.
+   * @param document document bytes
+   * @return true if {@link #add(byte[])} may be called
+   */
+  public boolean fits(byte[] document) {
+    return documents.isEmpty() || size + LENGTH_BYTES + document.length <= maxBytes;
+  }
+
+  public void add(byte[] document) {
+    documents.add(document);
+    size += LENGTH_BYTES + document.length;
+  }
+
+  public int getCount() {
+    return documents.size();
+  }
+
+  public boolean isEmpty() {
+    return documents.isEmpty();
+  }
+
+  /**
+   * Size of the payload {@link #toPayload()} will return.
+   * @return bytes
+   */
+  public int getSize() {
+    return documents.size() == 1 ? documents.get(0).length : size;
+  }
+
+  /**
+   * Render the payload. A single document is sent as-is so consumers that don't aggregate can still read it.
+   * @return record data
+   */
+  public ByteBuffer toPayload() {
+    if (documents.size() == 1) {
+      return ByteBuffer.wrap(documents.get(0));
+    }
+    ByteBuffer payload = ByteBuffer.allocate(size);
+    payload.put(MAGIC);
+    for (byte[] document : documents) {
+      payload.putInt(document.length);
+      payload.put(document);
+    }
+    payload.flip();
+    return payload;
+  }
+
+  /**
+   * Split record data into the documents it carries.
+   * @param data record data, aggregated or not
+   * @return documents, in the order they were aggregated
+   */
+  public static List<byte[]> deaggregate(ByteBuffer data) {
+    ByteBuffer buffer = data.duplicate();
+    if (!isAggregated(buffer)) {
+      byte[] document = new byte[buffer.remaining()];
+      buffer.get(document);
+      return Collections.singletonList(document);
+    }
+    buffer.position(buffer.position() + MAGIC.length);
+    List<byte[]> documents = new ArrayList<>();
+    while (buffer.remaining() >= LENGTH_BYTES) {
+      int length = buffer.getInt();
+      if (length < 0 || length > buffer.remaining()) {
+        throw new IllegalArgumentException("Truncated aggregated record");
+      }
+      byte[] document = new byte[length];
+      buffer.get(document);
+      documents.add(document);
+    }
+    return documents;
+  }
+
+  private static boolean isAggregated(ByteBuffer buffer) {
+    if (buffer.remaining() < MAGIC.length) {
+      return false;
+    }
+    for (int i = 0; i < MAGIC.length; i++) {
+      if (buffer.get(buffer.position() + i) != MAGIC[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+}
@@ -0,0 +1,55 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.streams.amazon.kinesis;
+
+import org.junit.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Unit Test for
+ * @see org.apache.streams.amazon.kinesis.FileKinesisCheckpointStore
+ */
+public class FileKinesisCheckpointStoreTest {
+
+  @Test
+  public void testCheckpointsSurviveRestart() throws Exception {
+    Path directory = Files.createTempDirectory("kinesis-checkpoints");
+
+    FileKinesisCheckpointStore store = new FileKinesisCheckpointStore(directory);
+    assertNull(store.getCheckpoint("stream", "shardId-000000000000"));
+    store.checkpoint("stream", "shardId-000000000000", "100");
+    store.checkpoint("stream", "shardId-000000000001", "200");
+    store.checkpoint("stream", "shardId-000000000000", "150");
+    store.checkpoint("other", "shardId-000000000000", "300");
+    store.close();
+
+    FileKinesisCheckpointStore restarted = new FileKinesisCheckpointStore(directory);
+    assertEquals("150", restarted.getCheckpoint("stream", "shardId-000000000000"));
+    assertEquals("200", restarted.getCheckpoint("stream", "shardId-000000000001"));
+    assertEquals("300", restarted.getCheckpoint("other", "shardId-000000000000"));
+    assertNull(restarted.getCheckpoint("other", "shardId-000000000001"));
+    restarted.close();
+  }
+
+}
@@ -0,0 +1,305 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.streams.amazon.kinesis;
+
+import org.apache.streams.util.api.requests.backoff.impl.ConstantTimeBackOffStrategy;
+
+import com.amazonaws.services.kinesis.model.HashKeyRange;
+import com.amazonaws.services.kinesis.model.PutRecordsRequest;
+import com.amazonaws.services.kinesis.model.PutRecordsRequestEntry;
+import com.amazonaws.services.kinesis.model.PutRecordsResult;
+import com.amazonaws.services.kinesis.model.PutRecordsResultEntry;
+import com.amazonaws.services.kinesis.model.SequenceNumberRange;
+import com.amazonaws.services.kinesis.model.Shard;
+import org.junit.Test;
+
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit Test for
+ * @see org.apache.streams.amazon.kinesis.KinesisBatchWriter
+ */
+public class KinesisBatchWriterTest {
+
+  @Test
+  public void testAllRecordsDelivered() throws Exception {
+    StubStream stream = new StubStream();
+    KinesisBatchWriter writer = new KinesisBatchWriter("stream", stream, 100, 4, 60000, 0,
+        () -> new ConstantTimeBackOffStrategy(1, 5));
+    for (int i = 0; i < 1050; i++) {
+      writer.add("key" + i, document(i));
+    }
+    writer.close();
+
+    assertEquals(1050, writer.getTotalOk());
+    assertEquals(0, writer.getTotalFailed());
+    assertEquals(1050, stream.documents().size());
+    assertEquals(11, writer.getRequestsSent());
+    assertTrue(stream.maxRecordsPerRequest.get() <= 100);
+    assertTrue(stream.maxInFlight.get() <= 4);
+  }
+
+  @Test
+  public void testOnlyRejectedRecordsRetried() throws Exception {
+    StubStream stream = new StubStream();
+    stream.rejectEvery = 3;
+    KinesisBatchWriter writer = new KinesisBatchWriter("stream", stream, 30, 2, 50, 0,
+        () -> new ConstantTimeBackOffStrategy(1, 5));
+    for (int i = 0; i < 300; i++) {
+      writer.add("key" + i, document(i));
+    }
+    writer.close();
+
+    assertEquals(300, writer.getTotalOk());
+    assertEquals(0, writer.getTotalFailed());
+    assertTrue(writer.getTotalRetried() > 0);
+    // every document is stored exactly once
+    assertEquals(300, stream.documents().size());
+    assertEquals(300, new HashSet<>(stream.documents()).size());
+    assertEquals(300 + writer.getTotalRetried(), writer.getRecordsSent());
+  }
+
+  @Test
+  public void testRecordsFailWhenBackOffGivesUp() throws Exception {
+    StubStream stream = new StubStream();
+    stream.rejectEvery = 1;
+    KinesisBatchWriter writer = new KinesisBatchWriter("stream", stream, 10, 1, 50, 0,
+        () -> new ConstantTimeBackOffStrategy(1, 2));
+    for (int i = 0; i < 10; i++) {
+      writer.add("key", document(i));
+    }
+    writer.close();
+
+    assertEquals(0, writer.getTotalOk());
+    assertEquals(10, writer.getTotalFailed());
+    assertEquals(3, writer.getRequestsSent());
+  }
+
+  @Test
+  public void testCloseCountsRecordsDroppedAwaitingRetry() throws Exception {
+    StubStream stream = new StubStream();
+    stream.rejectEvery = 1;
+    KinesisBatchWriter writer = new KinesisBatchWriter("stream", stream, 10, 1, 50, 0,
+        () -> new ConstantTimeBackOffStrategy(60000, 5));
+    for (int i = 0; i < 10; i++) {
+      writer.add("key" + i, document(i));
+    }
+    writer.close(100);
+
+    assertEquals(0, writer.getTotalOk());
+    assertEquals(10, writer.getTotalFailed());
+    assertEquals(1, writer.getRequestsSent());
+  }
+
+  @Test
+  public void testRetryBackOffIsCapped() {
+    assertEquals(100 + 200 + 400 + 800 + 1600, KinesisBatchWriter.RetryBackOffStrategy.maxTotalBackOffMs(5));
+    assertEquals(100 + 200 + 400 + 800 + 1600 + 3200 + 5000 * 24, KinesisBatchWriter.RetryBackOffStrategy.maxTotalBackOffMs(30));
+  }
+
+  @Test
+  public void testAggregatesByPartitionKey() throws Exception {
+    StubStream stream = new StubStream();
+    KinesisBatchWriter writer = new KinesisBatchWriter("stream", stream, 500, 2, 50, 1024,
+        () -> new ConstantTimeBackOffStrategy(1, 5));
+    for (int i = 0; i < 400; i++) {
+      writer.add("key" + (i % 4), document(i));
+    }
+    writer.close();
+
+    assertEquals(400, writer.getTotalOk());
+    assertTrue(writer.getRecordsSent() < 100);
+    List<String> documents = stream.documents();
+    assertEquals(400, documents.size());
+    assertEquals(400, new HashSet<>(documents).size());
+  }
+
+  @Test
+  public void testAggregatesAcrossDistinctPartitionKeys() throws Exception {
+    StubStream stream = new StubStream();
+    KinesisBatchWriter writer = new KinesisBatchWriter("stream", stream, 500, 2, 60000, 1024, 4,
+        () -> new ConstantTimeBackOffStrategy(1, 5));
+    for (int i = 0; i < 400; i++) {
+      writer.add("id" + i, document(i));
+    }
+    writer.close();
+
+    assertEquals(400, writer.getTotalOk());
+    assertTrue(writer.getRecordsSent() < 100);
+    Set<String> explicitHashKeys = new HashSet<>();
+    for (PutRecordsRequestEntry entry : stream.stored) {
+      explicitHashKeys.add(entry.getExplicitHashKey());
+    }
+    assertTrue(explicitHashKeys.size() <= 4);
+    assertEquals(writer.explicitHashKey("id7"), writer.explicitHashKey("id7"));
+    assertEquals(400, new HashSet<>(stream.documents()).size());
+  }
+
+  @Test
+  public void testAggregatesByShard() throws Exception {
+    StubStream stream = new StubStream();
+    stream.shards = shards(2);
+    AtomicInteger listed = new AtomicInteger();
+    KinesisBatchWriter writer = new KinesisBatchWriter("stream", stream, name -> {
+      listed.incrementAndGet();
+      return stream.shards;
+    }, 500, 2, 60000, 1024, 16, () -> new ConstantTimeBackOffStrategy(1, 5));
+    for (int i = 0; i < 400; i++) {
+      writer.add("id" + i, document(i));
+    }
+    writer.flush();
+    assertTrue(writer.awaitCompletion(5000));
+
+    assertEquals(400, writer.getTotalOk());
+    assertEquals(1, listed.get());
+    // every document is stored in the shard its own partition key maps to
+    for (PutRecordsRequestEntry entry : stream.stored) {
+      String shardId = shardOf(stream.shards, new BigInteger(entry.getExplicitHashKey()));
+      for (byte[] document : KinesisRecordAggregator.deaggregate(entry.getData())) {
+        String id = new String(document, StandardCharsets.UTF_8).replaceAll("\\D", "");
+        assertEquals(shardId, shardOf(stream.shards, KinesisBatchWriter.hashKey("id" + id)));
+      }
+    }
+
+    // a record stored in another shard than expected means the stream was resharded
+    stream.shards = shards(4);
+    for (int i = 400; i < 800; i++) {
+      writer.add("id" + i, document(i));
+      if (i == 500) {
+        writer.flush();
+        assertTrue(writer.awaitCompletion(5000));
+      }
+    }
+    writer.close();
+    assertEquals(800, writer.getTotalOk());
+    assertEquals(2, listed.get());
+    assertEquals(800, new HashSet<>(stream.documents()).size());
+  }
+
+  @Test
+  public void testLingerSendsPartialRequest() throws Exception {
+    StubStream stream = new StubStream();
+    KinesisBatchWriter writer = new KinesisBatchWriter("stream", stream, 500, 1, 20, 0,
+        () -> new ConstantTimeBackOffStrategy(1, 5));
+    writer.add("key", document(1));
+    long deadline = System.currentTimeMillis() + 5000;
+    while (writer.getTotalOk() == 0 && System.currentTimeMillis() < deadline) {
+      Thread.sleep(5);
+    }
+    assertEquals(1, writer.getTotalOk());
+    writer.close();
+  }
+
+  private static List<Shard> shards(int count) {
+    BigInteger space = BigInteger.ONE.shiftLeft(128);
+    List<Shard> shards = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      BigInteger start = space.multiply(BigInteger.valueOf(i)).divide(BigInteger.valueOf(count));
+      BigInteger end = space.multiply(BigInteger.valueOf(i + 1)).divide(BigInteger.valueOf(count)).subtract(BigInteger.ONE);
+      shards.add(new Shard()
+          .withShardId("shardId-" + count + "-" + i)
+          .withHashKeyRange(new HashKeyRange()
+              .withStartingHashKey(start.toString())
+              .withEndingHashKey(end.toString()))
+          .withSequenceNumberRange(new SequenceNumberRange().withStartingSequenceNumber("0")));
+    }
+    return shards;
+  }
+
+  private static String shardOf(List<Shard> shards, BigInteger hashKey) {
+    for (Shard shard : shards) {
+      if (new BigInteger(shard.getHashKeyRange().getStartingHashKey()).compareTo(hashKey) <= 0
+          && new BigInteger(shard.getHashKeyRange().getEndingHashKey()).compareTo(hashKey) >= 0) {
+        return shard.getShardId();
+      }
+    }
+    return null;
+  }
+
+  private static byte[] document(int id) {
+    return ("{\"id\":" + id + "}").getBytes(StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Accepts PutRecords requests in memory, rejecting every nth entry it sees.
+   */
+  private static class StubStream implements KinesisBatchWriter.PutRecordsExecutor {
+
+    private final ConcurrentLinkedQueue<PutRecordsRequestEntry> stored = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger seen = new AtomicInteger();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+    private final AtomicInteger maxRecordsPerRequest = new AtomicInteger();
+    private volatile int rejectEvery = 0;
+    private volatile List<Shard> shards;
+
+    @Override
+    public PutRecordsResult putRecords(PutRecordsRequest request) {
+      maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+      maxRecordsPerRequest.accumulateAndGet(request.getRecords().size(), Math::max);
+      try {
+        Thread.sleep(1);
+        List<PutRecordsResultEntry> results = new ArrayList<>();
+        int failed = 0;
+        for (PutRecordsRequestEntry entry : request.getRecords()) {
+          int sequence = seen.incrementAndGet();
+          if (rejectEvery > 0 && sequence % rejectEvery == 0) {
+            results.add(new PutRecordsResultEntry()
+                .withErrorCode("ProvisionedThroughputExceededException")
+                .withErrorMessage("Rate exceeded for shard"));
+            failed++;
+          } else {
+            stored.add(entry);
+            String hashKey = entry.getExplicitHashKey();
+            results.add(new PutRecordsResultEntry()
+                .withShardId(shards == null ? "shardId-000000000000" : shardOf(shards, hashKey != null
+                    ? new BigInteger(hashKey) : KinesisBatchWriter.hashKey(entry.getPartitionKey())))
+                .withSequenceNumber(Integer.toString(sequence)));
+          }
+        }
+        return new PutRecordsResult().withRecords(results).withFailedRecordCount(failed);
+      } catch (InterruptedException ex) {
+        throw new IllegalStateException(ex);
+      } finally {
+        inFlight.decrementAndGet();
+      }
+    }
+
+    private List<String> documents() {
+      List<String> documents = new ArrayList<>();
+      for (PutRecordsRequestEntry entry : stored) {
+        for (byte[] document : KinesisRecordAggregator.deaggregate(entry.getData())) {
+          documents.add(new String(document, StandardCharsets.UTF_8));
+        }
+      }
+      return documents;
+    }
+  }
+
+}
@@ -0,0 +1,359 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.streams.s3;
+
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.AbortMultipartUploadRequest;
+import com.amazonaws.services.s3.model.CompleteMultipartUploadRequest;
+import com.amazonaws.services.s3.model.InitiateMultipartUploadRequest;
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.PartETag;
+import com.amazonaws.services.s3.model.PutObjectRequest;
+import com.amazonaws.services.s3.model.UploadPartRequest;
+import org.joda.time.DateTime;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * OutputStream which streams an object to S3 as a multipart upload, sending each part as soon as it fills instead of
+ * holding the whole file in memory.
+ *
+ * <p></p>
+ * Parts are staged in buffers from a shared {@link org.apache.streams.s3.S3PartBufferPool} and uploaded on the
+ * supplied executor, so the number of parts in flight is bounded by the pool size.  An object smaller than one part is
+ * sent with a single PutObject request.  If any part fails the upload is aborted and the failure surfaces as an
+ * IOException from write or close.
+ */
+public class S3MultipartOutputStream extends OutputStream {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(S3MultipartOutputStream.class);
+
+  private final AmazonS3 amazonS3;
+  private final String bucketName;
+  private final String key;
+  private final ObjectMetadata objectMetadata;
+  private final S3PartBufferPool bufferPool;
+  private final ExecutorService uploadExecutor;
+
+  private final List<Future<PartETag>> parts = new ArrayList<>();
+  private ByteBuffer currentPart;
+  private String uploadId;
+  private long bytesWritten = 0;
+  private boolean isClosed = false;
+  private volatile boolean isAborted = false;
+
+  /**
+   * Create a multipart OutputStream.
+   * @param amazonS3
+   * The Amazon S3 Client which will be handling the object
+   * @param bucketName
+   * The Bucket Name you are wishing to write to.
+   * @param key
+   * The key of the object, including its path
+   * @param metaData
+   * Any meta data that is to be written along with the object
+   * @param bufferPool
+   * Pool supplying the part buffers; its buffer size is the part size
+   * @param uploadExecutor
+   * Executor on which parts are uploaded
+   */
+  public S3MultipartOutputStream(AmazonS3 amazonS3, String bucketName, String key, Map<String, String> metaData,
+                                 S3PartBufferPool bufferPool, ExecutorService uploadExecutor) {
+    this.amazonS3 = amazonS3;
+    this.bucketName = bucketName;
+    this.key = key;
+    this.bufferPool = bufferPool;
+    this.uploadExecutor = uploadExecutor;
+
+    this.objectMetadata = new ObjectMetadata();
+    this.objectMetadata.setExpirationTime(DateTime.now().plusDays(365 * 3).toDate());
+    this.objectMetadata.addUserMetadata("writer", "org.apache.streams");
+    for (Map.Entry<String, String> entry : metaData.entrySet()) {
+      this.objectMetadata.addUserMetadata(entry.getKey(), entry.getValue());
+    }
+  }
+
+  @Override
+  public void write(int byt) throws IOException {
+    ensureOpen();
+    ensurePart();
+    currentPart.put((byte) byt);
+    bytesWritten++;
+    if (!currentPart.hasRemaining()) {
+      uploadCurrentPart();
+    }
+  }
+
+  @Override
+  public void write(byte[] byt, int off, int len) throws IOException {
+    ensureOpen();
+    while (len > 0) {
+      ensurePart();
+      int count = Math.min(len, currentPart.remaining());
+      currentPart.put(byt, off, count);
+      off += count;
+      len -= count;
+      bytesWritten += count;
+      if (!currentPart.hasRemaining()) {
+        uploadCurrentPart();
+      }
+    }
+  }
+
+  /**
+   * Parts are only sent once full, so flushing is a no-op; data is durable once close returns.
+   */
+  @Override
+  public void flush() throws IOException {
+    ensureOpen();
+  }
+
+  /**
+   * Upload whatever remains and complete the upload, waiting for every outstanding part.
+   * @throws IOException
+   * If any part, or the completion request, fails; the upload is aborted first.
+   */
+  @Override
+  public void close() throws IOException {
+    if (isClosed) {
+      return;
+    }
+    isClosed = true;
+
+    if (uploadId == null) {
+      putSingleObject();
+      return;
+    }
+
+    try {
+      if (currentPart != null && currentPart.position() > 0) {
+        uploadCurrentPart();
+      } else if (currentPart != null) {
+        bufferPool.release(currentPart);
+        currentPart = null;
+      }
+      List<PartETag> partETags = new ArrayList<>(parts.size());
+      for (Future<PartETag> part : parts) {
+        partETags.add(part.get());
+      }
+      amazonS3.completeMultipartUpload(new CompleteMultipartUploadRequest(bucketName, key, uploadId, partETags));
+      LOGGER.info("S3 File Close[{} kb, {} parts] - {}", bytesWritten / 1024, partETags.size(), key);
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      abort();
+      throw new InterruptedIOException("Interrupted completing upload of " + key);
+    } catch (ExecutionException ex) {
+      abort();
+      throw new IOException("Failed uploading part of " + key, ex.getCause());
+    } catch (RuntimeException ex) {
+      abort();
+      throw new IOException("Failed completing upload of " + key, ex);
+    }
+  }
+
+  public String getKey() {
+    return key;
+  }
+
+  public long getBytesWritten() {
+    return bytesWritten;
+  }
+
+  /**
+   * Number of parts handed to the executor so far.
+   * @return parts submitted
+   */
+  public int getPartCount() {
+    return parts.size();
+  }
+
+  private void ensureOpen() throws IOException {
+    if (isClosed) {
+      throw new IOException("Stream closed: " + key);
+    }
+  }
+
+  private void ensurePart() throws IOException {
+    if (currentPart == null) {
+      try {
+        currentPart = bufferPool.acquire();
+      } catch (InterruptedException ex) {
+        Thread.currentThread().interrupt();
+        throw new InterruptedIOException("Interrupted waiting for a part buffer for " + key);
+      }
+    }
+  }
+
+  private void uploadCurrentPart() throws IOException {
+    checkCompletedParts();
+    if (uploadId == null) {
+      try {
+        uploadId = amazonS3.initiateMultipartUpload(
+            new InitiateMultipartUploadRequest(bucketName, key, objectMetadata)).getUploadId();
+      } catch (RuntimeException ex) {
+        isClosed = true;
+        bufferPool.release(currentPart);
+        currentPart = null;
+        throw new IOException("Failed initiating upload of " + key, ex);
+      }
+    }
+
+    final ByteBuffer part = currentPart;
+    final int partNumber = parts.size() + 1;
+    currentPart = null;
+    part.flip();
+
+    parts.add(uploadExecutor.submit(() -> {
+      try {
+        if (isAborted) {
+          throw new IOException("Upload aborted: " + key);
+        }
+        UploadPartRequest request = new UploadPartRequest()
+            .withBucketName(bucketName)
+            .withKey(key)
+            .withUploadId(uploadId)
+            .withPartNumber(partNumber)
+            .withPartSize(part.remaining())
+            .withInputStream(new ByteBufferInputStream(part));
+        return amazonS3.uploadPart(request).getPartETag();
+      } finally {
+        bufferPool.release(part);
+      }
+    }));
+  }
+
+  /**
+   * Fail fast if a part already sent has failed, rather than streaming the rest of the object first.
+   */
+  private void checkCompletedParts() throws IOException {
+    for (Future<PartETag> part : parts) {
+      if (!part.isDone()) {
+        continue;
+      }
+      try {
+        part.get();
+      } catch (ExecutionException ex) {
+        isClosed = true;
+        abort();
+        throw new IOException("Failed uploading part of " + key, ex.getCause());
+      } catch (InterruptedException ex) {
+        Thread.currentThread().interrupt();
+        throw new InterruptedIOException("Interrupted uploading " + key);
+      }
+    }
+  }
+
+  private void putSingleObject() throws IOException {
+    boolean pooled = currentPart != null;
+    ByteBuffer buffer = pooled ? currentPart : ByteBuffer.allocate(0);
+    currentPart = null;
+    try {
+      buffer.flip();
+      objectMetadata.setContentLength(buffer.remaining());
+      amazonS3.putObject(new PutObjectRequest(bucketName, key, new ByteBufferInputStream(buffer), objectMetadata));
+      LOGGER.info("S3 File Close[{} kb] - {}", bytesWritten / 1024, key);
+    } catch (RuntimeException ex) {
+      throw new IOException("Failed uploading " + key, ex);
+    } finally {
+      if (pooled) {
+        bufferPool.release(buffer);
+      }
+    }
+  }
+
+  private void abort() {
+    if (currentPart != null) {
+      bufferPool.release(currentPart);
+      currentPart = null;
+    }
+    // parts not yet started see the flag and return their buffers without uploading
+    isAborted = true;
+    try {
+      amazonS3.abortMultipartUpload(new AbortMultipartUploadRequest(bucketName, key, uploadId));
+      LOGGER.warn("S3 upload aborted - {}", key);
+    } catch (RuntimeException ex) {
+      LOGGER.warn("Failed aborting upload of {}, parts may need to be cleaned up by a lifecycle rule", key, ex);
+    }
+  }
+
+  /**
+   * Reads the remaining bytes of a buffer without copying them, supporting mark and reset so the client can retry.
+   */
+  private static class ByteBufferInputStream extends InputStream {
+
+    private final ByteBuffer buffer;
+
+    private ByteBufferInputStream(ByteBuffer buffer) {
+      this.buffer = buffer;
+      this.buffer.mark();
+    }
+
+    @Override
+    public int read() {
+      return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+    }
+
+    @Override
+    public int read(byte[] bytes, int off, int len) {
+      if (len == 0) {
+        return 0;
+      }
+      if (!buffer.hasRemaining()) {
+        return -1;
+      }
+      int count = Math.min(len, buffer.remaining());
+      buffer.get(bytes, off, count);
+      return count;
+    }
+
+    @Override
+    public int available() {
+      return buffer.remaining();
+    }
+
+    @Override
+    public boolean markSupported() {
+      return true;
+    }
+
+    @Override
+    public synchronized void mark(int readLimit) {
+      buffer.mark();
+    }
+
+    @Override
+    public synchronized void reset() {
+      buffer.reset();
+    }
+
+  }
+
+}
@@ -93,7 +93,7 @@ public class S3OutputStreamWrapper extends OutputStream {
   /**
    * Whenever the output stream is closed we are going to kick the ByteArrayOutputStream off to Amazon S3.
    * @throws IOException
-   * Exception thrown from the FileOutputStream
+   * If the upload failed
    */
   public void close() throws IOException {
     if (!isClosed) {
@@ -102,8 +102,7 @@ public class S3OutputStreamWrapper extends OutputStream {
         this.outputStream.close();
         this.outputStream = null;
       } catch (Exception ex) {
-        ex.printStackTrace();
-        LOGGER.warn("There was an error adding the temporaryFile to S3");
+        throw new IOException("Failed uploading " + path + fileName, ex);
       } finally {
         // we are done here.
         this.isClosed = true;
@@ -128,15 +127,13 @@ public class S3OutputStreamWrapper extends OutputStream {
     }
 
     String fileNameToWrite = path + fileName;
-    Upload upload = transferManager.upload(bucketName, fileNameToWrite, is, metadata);
     try {
+      Upload upload = transferManager.upload(bucketName, fileNameToWrite, is, metadata);
       upload.waitForUploadResult();
-
+      LOGGER.info("S3 File Close[{} kb] - {}", contentLength / 1024, path + fileName);
+    } finally {
       is.close();
       transferManager.shutdownNow(false);
-      LOGGER.info("S3 File Close[{} kb] - {}", contentLength / 1024, path + fileName);
-    } catch (Exception ignored) {
-      LOGGER.trace("Ignoring", ignored);
     }
 
 
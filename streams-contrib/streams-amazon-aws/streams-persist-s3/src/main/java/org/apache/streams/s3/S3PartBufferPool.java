@@ -0,0 +1,95 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.streams.s3;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A bounded pool of direct buffers, each holding one part of a multipart upload.
+ *
+ * <p></p>
+ * Buffers are allocated lazily up to the configured limit; once that many are in use, {@link #acquire()} blocks until
+ * an upload returns one, which throttles the writer to the rate S3 accepts parts.
+ */
+public class S3PartBufferPool {
+
+  private final int bufferSize;
+  private final int maxBuffers;
+  private final BlockingQueue<ByteBuffer> available = new LinkedBlockingQueue<>();
+  private final AtomicInteger allocated = new AtomicInteger();
+
+  /**
+   * Create a pool.
+   * @param bufferSize capacity of each buffer in bytes
+   * @param maxBuffers maximum number of buffers the pool will allocate
+   */
+  public S3PartBufferPool(int bufferSize, int maxBuffers) {
+    if (bufferSize <= 0 || maxBuffers <= 0) {
+      throw new IllegalArgumentException("bufferSize and maxBuffers must be positive");
+    }
+    this.bufferSize = bufferSize;
+    this.maxBuffers = maxBuffers;
+  }
+
+  /**
+   * Take an empty buffer from the pool, blocking while every buffer is in use.
+   * @return a cleared buffer of {@link #getBufferSize()} bytes
+   * @throws InterruptedException if interrupted while waiting for a buffer
+   */
+  public ByteBuffer acquire() throws InterruptedException {
+    ByteBuffer buffer = available.poll();
+    if (buffer != null) {
+      return buffer;
+    }
+    if (allocated.incrementAndGet() <= maxBuffers) {
+      return ByteBuffer.allocateDirect(bufferSize);
+    }
+    allocated.decrementAndGet();
+    return available.take();
+  }
+
+  /**
+   * Return a buffer to the pool.
+   * @param buffer a buffer previously obtained from {@link #acquire()}
+   */
+  public void release(ByteBuffer buffer) {
+    buffer.clear();
+    available.offer(buffer);
+  }
+
+  public int getBufferSize() {
+    return bufferSize;
+  }
+
+  public int getMaxBuffers() {
+    return maxBuffers;
+  }
+
+  /**
+   * Number of buffers allocated so far, whether in use or idle.
+   * @return allocated buffers
+   */
+  public int getAllocated() {
+    return Math.min(allocated.get(), maxBuffers);
+  }
+
+}
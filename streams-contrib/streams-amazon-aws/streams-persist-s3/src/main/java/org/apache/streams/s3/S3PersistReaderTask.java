@@ -28,7 +28,9 @@ import org.slf4j.LoggerFactory;
 
 import java.io.BufferedReader;
 import java.io.Closeable;
+import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.util.zip.GZIPInputStream;
 
 /**
  * S3PersistReaderTask reads documents from s3 on behalf of
@@ -38,6 +40,10 @@ public class S3PersistReaderTask implements Runnable {
 
   private static final Logger LOGGER = LoggerFactory.getLogger(S3PersistReaderTask.class);
 
+  private static final String GZIP_SUFFIX = ".gz";
+
+  private static final int GZIP_BUFFER_SIZE = 64 * 1024;
+
   private S3PersistReader reader;
 
   public S3PersistReaderTask(S3PersistReader reader) {
@@ -50,12 +56,16 @@ public class S3PersistReaderTask implements Runnable {
     for (String file : reader.getFiles()) {
 
       // Create our buffered reader
-      S3ObjectInputStreamWrapper is = new S3ObjectInputStreamWrapper(reader.getAmazonS3Client().getObject(reader.getBucketName(), file));
-      BufferedReader bufferedReader = new BufferedReader(new InputStreamReader(is));
+      InputStream is = new S3ObjectInputStreamWrapper(reader.getAmazonS3Client().getObject(reader.getBucketName(), file));
       LOGGER.info("Reading: {} ", file);
 
       String line;
       try {
+        // S3PersistWriter names the files it compresses with gzip .tsv.gz
+        if (file.endsWith(GZIP_SUFFIX)) {
+          is = new GZIPInputStream(is, GZIP_BUFFER_SIZE);
+        }
+        BufferedReader bufferedReader = new BufferedReader(new InputStreamReader(is));
         while ((line = bufferedReader.readLine()) != null) {
           if (StringUtils.isNotEmpty(line) ) {
             reader.countersCurrent.incrementAttempt();
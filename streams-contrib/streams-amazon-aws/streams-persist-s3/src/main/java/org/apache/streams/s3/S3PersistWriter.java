@@ -21,11 +21,13 @@ package org.apache.streams.s3;
 import org.apache.streams.config.ComponentConfigurator;
 import org.apache.streams.config.StreamsConfigurator;
 import org.apache.streams.converter.LineReadWriteUtil;
+import org.apache.streams.core.DatumAcknowledgement;
 import org.apache.streams.core.DatumStatus;
 import org.apache.streams.core.DatumStatusCountable;
 import org.apache.streams.core.DatumStatusCounter;
 import org.apache.streams.core.StreamsDatum;
 import org.apache.streams.core.StreamsPersistWriter;
+import org.apache.streams.core.util.DatumUtils;
 import org.apache.streams.jackson.StreamsJacksonMapper;
 
 import com.amazonaws.ClientConfiguration;
@@ -38,6 +40,7 @@ import com.amazonaws.services.s3.AmazonS3Client;
 import com.amazonaws.services.s3.S3ClientOptions;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.base.Preconditions;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -52,11 +55,20 @@ import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
 
 /**
  * S3PersistWriter writes documents to s3.
+ *
+ * <p/>
+ * A record is only stored once the file it was written to has been uploaded, when the file is rolled over or on
+ * cleanUp.  Records of a file whose upload fails are counted as failed, and datums carrying a
+ * {@link DatumAcknowledgement} are acknowledged once the upload of their file has finished.
  */
 public class S3PersistWriter implements StreamsPersistWriter, DatumStatusCountable {
 
@@ -66,6 +78,11 @@ public class S3PersistWriter implements StreamsPersistWriter, DatumStatusCountab
 
   private static final char DELIMITER = '\t';
 
+  // S3 rejects any part but the last that is smaller than this
+  private static final long MIN_PART_SIZE_MB = 5;
+
+  private static final int GZIP_BUFFER_SIZE = 64 * 1024;
+
   private ObjectMapper objectMapper;
   private AmazonS3Client amazonS3Client;
   private S3WriterConfiguration s3WriterConfiguration;
@@ -76,7 +93,9 @@ public class S3PersistWriter implements StreamsPersistWriter, DatumStatusCountab
   private AtomicLong bytesWrittenThisFile = new AtomicLong();
 
   private final AtomicInteger totalRecordsWritten = new AtomicInteger();
+  private final AtomicInteger totalRecordsFailed = new AtomicInteger();
   private AtomicInteger fileLineCounter = new AtomicInteger();
+  private final List<DatumAcknowledgement> fileAcknowledgements = new ArrayList<>();
 
   private static Map<String, String> objectMetaData = new HashMap<>();
 
@@ -89,6 +108,9 @@ public class S3PersistWriter implements StreamsPersistWriter, DatumStatusCountab
 
   private OutputStreamWriter currentWriter = null;
 
+  private S3PartBufferPool partBufferPool;
+  private ExecutorService partUploadExecutor;
+
   public AmazonS3Client getAmazonS3Client() {
     return this.amazonS3Client;
   }
@@ -161,7 +183,9 @@ public class S3PersistWriter implements StreamsPersistWriter, DatumStatusCountab
       try {
         this.currentWriter.write(line);
       } catch (IOException ex) {
-        ex.printStackTrace();
+        LOGGER.error("Failed writing record to {}", currentFile(), ex);
+        this.totalRecordsFailed.incrementAndGet();
+        return;
       }
 
       // add the bytes we've written
@@ -172,6 +196,12 @@ public class S3PersistWriter implements StreamsPersistWriter, DatumStatusCountab
       // increment the record count
       this.totalRecordsWritten.incrementAndGet();
       this.fileLineCounter.incrementAndGet();
+
+      // the record is only stored once its file has been uploaded, so acknowledge it then
+      DatumAcknowledgement acknowledgement = DatumUtils.takeAcknowledgement(streamsDatum);
+      if (acknowledgement != null) {
+        this.fileAcknowledgements.add(acknowledgement);
+      }
     }
 
   }
@@ -191,18 +221,33 @@ public class S3PersistWriter implements StreamsPersistWriter, DatumStatusCountab
 
     // Create the path for where the file is going to live.
     try {
+      boolean gzip = this.s3WriterConfiguration.getCompression() == S3WriterConfiguration.Compression.GZIP;
+
       // generate a file name
       String fileName = this.s3WriterConfiguration.getWriterFilePrefix()
           + (this.s3WriterConfiguration.getChunk() ? "/" : "-")
           + new Date().getTime()
-          + ".tsv";
+          + (gzip ? ".tsv.gz" : ".tsv");
 
       // create the output stream
-      OutputStream outputStream = new S3OutputStreamWrapper(this.amazonS3Client,
-          this.s3WriterConfiguration.getBucket(),
-          this.s3WriterConfiguration.getWriterPath(),
-          fileName,
-          objectMetaData);
+      OutputStream outputStream;
+      if (this.s3WriterConfiguration.getStreaming()) {
+        outputStream = new S3MultipartOutputStream(this.amazonS3Client,
+            this.s3WriterConfiguration.getBucket(),
+            this.s3WriterConfiguration.getWriterPath() + fileName,
+            objectMetaData,
+            this.partBufferPool,
+            this.partUploadExecutor);
+      } else {
+        outputStream = new S3OutputStreamWrapper(this.amazonS3Client,
+            this.s3WriterConfiguration.getBucket(),
+            this.s3WriterConfiguration.getWriterPath(),
+            fileName,
+            objectMetaData);
+      }
+      if (gzip) {
+        outputStream = new GZIPOutputStream(outputStream, GZIP_BUFFER_SIZE);
+      }
 
       // reset the counter
       this.fileLineCounter = new AtomicInteger();
@@ -226,24 +271,49 @@ public class S3PersistWriter implements StreamsPersistWriter, DatumStatusCountab
     // if there is a current writer, we must close it first.
     if (this.currentWriter != null) {
       this.safeFlush(this.currentWriter);
-      this.closeSafely(this.currentWriter);
+      boolean closed = this.closeSafely(this.currentWriter);
       this.currentWriter = null;
 
+      // failed records are acknowledged too, after being counted, like other writers do
+      for (DatumAcknowledgement acknowledgement : this.fileAcknowledgements) {
+        acknowledgement.acknowledge();
+      }
+      this.fileAcknowledgements.clear();
+
+      if (!closed) {
+        // the file never reached S3, so the records counted as written to it failed after all
+        int lost = this.fileLineCounter.getAndSet(0);
+        this.totalRecordsWritten.addAndGet(-lost);
+        this.totalRecordsFailed.addAndGet(lost);
+        LOGGER.error("Failed uploading {}, marked its {} records failed", currentFile(), lost);
+        return;
+      }
+
       // Logging of information to alert the user to the activities of this class
-      LOGGER.debug("File Closed: Records[{}] Bytes[{}] {} ", this.fileLineCounter.get(), this.bytesWrittenThisFile.get(), this.writtenFiles.get(this.writtenFiles.size() - 1));
+      LOGGER.debug("File Closed: Records[{}] Bytes[{}] {} ", this.fileLineCounter.get(), this.bytesWrittenThisFile.get(), currentFile());
     }
   }
 
-  private synchronized void closeSafely(Writer writer)  {
+  /**
+   * Close a file, which uploads it or completes its multipart upload.
+   * @return false if the upload failed
+   */
+  private synchronized boolean closeSafely(Writer writer)  {
     if (writer != null) {
       try {
-        writer.flush();
         writer.close();
       } catch (Exception ex) {
-        LOGGER.trace("closeSafely", ex);
+        // a streamed upload only reports failed parts here
+        LOGGER.error("Failed closing file", ex);
+        return false;
       }
       LOGGER.debug("File Closed");
     }
+    return true;
+  }
+
+  private String currentFile() {
+    return this.writtenFiles.isEmpty() ? null : this.writtenFiles.get(this.writtenFiles.size() - 1);
   }
 
   private void safeFlush(Flushable flushable) {
@@ -293,18 +363,38 @@ public class S3PersistWriter implements StreamsPersistWriter, DatumStatusCountab
       }
 
       Preconditions.checkArgument(this.amazonS3Client != null);
+
+      if (s3WriterConfiguration.getStreaming() && this.partUploadExecutor == null) {
+        int partSize = Math.toIntExact(Math.max(MIN_PART_SIZE_MB, s3WriterConfiguration.getPartSize()) * 1024 * 1024);
+        int maxConcurrentParts = Math.toIntExact(Math.max(1, s3WriterConfiguration.getMaxConcurrentParts()));
+        // one buffer beyond those uploading lets the writer fill the next part meanwhile
+        this.partBufferPool = new S3PartBufferPool(partSize, maxConcurrentParts + 1);
+        this.partUploadExecutor = Executors.newFixedThreadPool(maxConcurrentParts,
+            new ThreadFactoryBuilder().setNameFormat("s3-part-upload-%d").setDaemon(true).build());
+      }
     }
   }
 
   public void cleanUp() {
     closeAndDestroyWriter();
+    if (this.partUploadExecutor != null) {
+      this.partUploadExecutor.shutdown();
+      try {
+        this.partUploadExecutor.awaitTermination(60, TimeUnit.SECONDS);
+      } catch (InterruptedException ex) {
+        Thread.currentThread().interrupt();
+      }
+      this.partUploadExecutor = null;
+      this.partBufferPool = null;
+    }
   }
 
   @Override
   public DatumStatusCounter getDatumStatusCounter() {
     DatumStatusCounter counters = new DatumStatusCounter();
-    counters.incrementAttempt(this.totalRecordsWritten.get());
+    counters.incrementAttempt(this.totalRecordsWritten.get() + this.totalRecordsFailed.get());
     counters.incrementStatus(DatumStatus.SUCCESS, this.totalRecordsWritten.get());
+    counters.incrementStatus(DatumStatus.FAIL, this.totalRecordsFailed.get());
     return counters;
   }
 }
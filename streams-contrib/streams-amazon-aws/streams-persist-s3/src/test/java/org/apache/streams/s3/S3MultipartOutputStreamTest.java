@@ -0,0 +1,250 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.streams.s3;
+
+import com.amazonaws.AmazonServiceException;
+import com.amazonaws.services.s3.AbstractAmazonS3;
+import com.amazonaws.services.s3.model.AbortMultipartUploadRequest;
+import com.amazonaws.services.s3.model.CompleteMultipartUploadRequest;
+import com.amazonaws.services.s3.model.CompleteMultipartUploadResult;
+import com.amazonaws.services.s3.model.InitiateMultipartUploadRequest;
+import com.amazonaws.services.s3.model.InitiateMultipartUploadResult;
+import com.amazonaws.services.s3.model.PartETag;
+import com.amazonaws.services.s3.model.PutObjectRequest;
+import com.amazonaws.services.s3.model.PutObjectResult;
+import com.amazonaws.services.s3.model.UploadPartRequest;
+import com.amazonaws.services.s3.model.UploadPartResult;
+import com.amazonaws.util.IOUtils;
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Unit Test for
+ * @see org.apache.streams.s3.S3MultipartOutputStream
+ */
+public class S3MultipartOutputStreamTest {
+
+  private static final String BUCKET = "bucket";
+  private static final int PART_SIZE = 1024;
+  private static final int CONCURRENT_PARTS = 2;
+
+  private final StubS3 s3 = new StubS3();
+  private final S3PartBufferPool bufferPool = new S3PartBufferPool(PART_SIZE, CONCURRENT_PARTS + 1);
+  private final ExecutorService uploadExecutor = Executors.newFixedThreadPool(CONCURRENT_PARTS);
+
+  @After
+  public void shutdownExecutor() {
+    uploadExecutor.shutdownNow();
+  }
+
+  @Test
+  public void testPartsReassembleInOrder() throws Exception {
+    byte[] data = new byte[PART_SIZE * 10 + 17];
+    Random random = new Random(42);
+    random.nextBytes(data);
+
+    S3MultipartOutputStream outputStream = newStream("path/file.tsv");
+    int off = 0;
+    while (off < data.length) {
+      int len = Math.min(data.length - off, random.nextInt(PART_SIZE * 2));
+      outputStream.write(data, off, len);
+      off += len;
+    }
+    outputStream.close();
+
+    assertArrayEquals(data, s3.objects.get("path/file.tsv"));
+    assertEquals(11, outputStream.getPartCount());
+    assertEquals(data.length, outputStream.getBytesWritten());
+    assertEquals(1, s3.completed.get());
+    assertEquals(0, s3.puts.get());
+    assertTrue(s3.maxInFlight.get() <= CONCURRENT_PARTS);
+    assertTrue(bufferPool.getAllocated() <= CONCURRENT_PARTS + 1);
+  }
+
+  @Test
+  public void testSmallObjectIsPutWhole() throws Exception {
+    byte[] data = "id\tts\t{}\t{\"a\":1}\n".getBytes(StandardCharsets.UTF_8);
+
+    S3MultipartOutputStream outputStream = newStream("small.tsv");
+    outputStream.write(data);
+    outputStream.close();
+
+    assertArrayEquals(data, s3.objects.get("small.tsv"));
+    assertEquals(1, s3.puts.get());
+    assertEquals(0, s3.initiated.get());
+    assertEquals(0, outputStream.getPartCount());
+  }
+
+  @Test
+  public void testGzipRoundTrip() throws Exception {
+    StringBuilder lines = new StringBuilder();
+    Random random = new Random(7);
+    for (int i = 0; i < 2000; ++i) {
+      lines.append(i).append('\t').append(random.nextLong()).append('\t').append("{}\n");
+    }
+    byte[] data = lines.toString().getBytes(StandardCharsets.UTF_8);
+
+    try (OutputStream outputStream = new GZIPOutputStream(newStream("file.tsv.gz"))) {
+      outputStream.write(data);
+    }
+
+    assertTrue(s3.completed.get() == 1 || s3.puts.get() == 1);
+    try (InputStream inputStream = new GZIPInputStream(new ByteArrayInputStream(s3.objects.get("file.tsv.gz")))) {
+      assertArrayEquals(data, IOUtils.toByteArray(inputStream));
+    }
+  }
+
+  @Test
+  public void testFailedPartAbortsUpload() throws Exception {
+    s3.failPart = 3;
+    byte[] data = new byte[PART_SIZE * 8];
+
+    S3MultipartOutputStream outputStream = newStream("failed.tsv");
+    try {
+      for (byte byt : data) {
+        outputStream.write(byt);
+      }
+      outputStream.close();
+      fail("expected the failed part to surface");
+    } catch (IOException expected) {
+      // the failure is reported by whichever write or close first sees it
+    }
+
+    assertEquals(1, s3.aborted.get());
+    assertEquals(0, s3.completed.get());
+    assertFalse(s3.objects.containsKey("failed.tsv"));
+  }
+
+  private S3MultipartOutputStream newStream(String key) {
+    return new S3MultipartOutputStream(s3, BUCKET, key, Collections.singletonMap("line[0]", "id"),
+        bufferPool, uploadExecutor);
+  }
+
+  /**
+   * In-memory stand-in for the S3 multipart API, slowing each part slightly so uploads overlap.
+   */
+  private static class StubS3 extends AbstractAmazonS3 {
+
+    private final Map<String, byte[]> objects = new ConcurrentHashMap<>();
+    private final Map<String, Map<Integer, byte[]>> uploads = new ConcurrentHashMap<>();
+    private final AtomicInteger uploadIds = new AtomicInteger();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+    private final AtomicInteger initiated = new AtomicInteger();
+    private final AtomicInteger completed = new AtomicInteger();
+    private final AtomicInteger aborted = new AtomicInteger();
+    private final AtomicInteger puts = new AtomicInteger();
+    private volatile int failPart = -1;
+
+    @Override
+    public InitiateMultipartUploadResult initiateMultipartUpload(InitiateMultipartUploadRequest request) {
+      initiated.incrementAndGet();
+      String uploadId = Integer.toString(uploadIds.incrementAndGet());
+      uploads.put(uploadId, new ConcurrentHashMap<>());
+      InitiateMultipartUploadResult result = new InitiateMultipartUploadResult();
+      result.setBucketName(request.getBucketName());
+      result.setKey(request.getKey());
+      result.setUploadId(uploadId);
+      return result;
+    }
+
+    @Override
+    public UploadPartResult uploadPart(UploadPartRequest request) {
+      int current = inFlight.incrementAndGet();
+      maxInFlight.accumulateAndGet(current, Math::max);
+      try {
+        Thread.sleep(2);
+        if (request.getPartNumber() == failPart) {
+          throw new AmazonServiceException("part rejected");
+        }
+        byte[] bytes = IOUtils.toByteArray(request.getInputStream());
+        assertEquals(request.getPartSize(), bytes.length);
+        uploads.get(request.getUploadId()).put(request.getPartNumber(), bytes);
+        UploadPartResult result = new UploadPartResult();
+        result.setPartNumber(request.getPartNumber());
+        result.setETag("etag-" + request.getPartNumber());
+        return result;
+      } catch (IOException | InterruptedException ex) {
+        throw new AmazonServiceException("part unreadable", ex);
+      } finally {
+        inFlight.decrementAndGet();
+      }
+    }
+
+    @Override
+    public CompleteMultipartUploadResult completeMultipartUpload(CompleteMultipartUploadRequest request) {
+      Map<Integer, byte[]> parts = uploads.remove(request.getUploadId());
+      ByteArrayOutputStream object = new ByteArrayOutputStream();
+      int expected = 1;
+      for (PartETag partETag : request.getPartETags()) {
+        assertEquals(expected++, partETag.getPartNumber());
+        byte[] part = parts.get(partETag.getPartNumber());
+        object.write(part, 0, part.length);
+      }
+      objects.put(request.getKey(), object.toByteArray());
+      completed.incrementAndGet();
+      CompleteMultipartUploadResult result = new CompleteMultipartUploadResult();
+      result.setKey(request.getKey());
+      return result;
+    }
+
+    @Override
+    public void abortMultipartUpload(AbortMultipartUploadRequest request) {
+      uploads.remove(request.getUploadId());
+      aborted.incrementAndGet();
+    }
+
+    @Override
+    public PutObjectResult putObject(PutObjectRequest request) {
+      try {
+        byte[] bytes = IOUtils.toByteArray(request.getInputStream());
+        assertEquals(request.getMetadata().getContentLength(), bytes.length);
+        objects.put(request.getKey(), bytes);
+        puts.incrementAndGet();
+        return new PutObjectResult();
+      } catch (IOException ex) {
+        throw new AmazonServiceException("object unreadable", ex);
+      }
+    }
+
+  }
+
+}
@@ -18,9 +18,21 @@
 
 package org.apache.streams.s3;
 
+import org.apache.streams.core.DatumStatusCounter;
+import org.apache.streams.core.StreamsDatum;
+import org.apache.streams.core.util.DatumUtils;
+
+import com.amazonaws.AmazonServiceException;
+import com.amazonaws.auth.BasicAWSCredentials;
+import com.amazonaws.services.s3.AmazonS3Client;
+import com.amazonaws.services.s3.model.PutObjectRequest;
+import com.amazonaws.services.s3.model.PutObjectResult;
 import org.junit.After;
 import org.junit.Test;
 
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 
 public class S3PersistWriterTest {
@@ -56,6 +68,36 @@ public class S3PersistWriterTest {
         s3PersistWriter.cleanUp();
     }
 
+    @Test
+    public void testFailedUploadMarksRecordsFailed() {
+        AmazonS3Client failingClient = new AmazonS3Client(new BasicAWSCredentials("key", "secret!")) {
+            @Override
+            public PutObjectResult putObject(PutObjectRequest putObjectRequest) {
+                throw new AmazonServiceException("Service Unavailable");
+            }
+        };
+        S3WriterConfiguration s3WriterConfiguration = getGoodConfig();
+        s3WriterConfiguration.setStreaming(true);
+        s3PersistWriter = new S3PersistWriter(failingClient, s3WriterConfiguration);
+        s3PersistWriter.prepare(null);
+
+        AtomicInteger acknowledged = new AtomicInteger();
+        for (int i = 0; i < 3; i++) {
+            StreamsDatum datum = new StreamsDatum("{\"id\":" + i + "}", Integer.toString(i));
+            DatumUtils.setAcknowledgement(datum, acknowledged::incrementAndGet);
+            s3PersistWriter.write(datum);
+        }
+        // nothing is stored until the file is uploaded
+        assertEquals(0, acknowledged.get());
+        s3PersistWriter.cleanUp();
+
+        assertEquals(3, acknowledged.get());
+        DatumStatusCounter counter = s3PersistWriter.getDatumStatusCounter();
+        assertEquals(3, counter.getAttempted());
+        assertEquals(0, counter.getSuccess());
+        assertEquals(3, counter.getFail());
+    }
+
     private S3WriterConfiguration getBadConfig() {
         S3WriterConfiguration s3WriterConfiguration = new S3WriterConfiguration();
 
@@ -26,19 +26,16 @@ import org.apache.streams.core.StreamsPersistReader;
 import org.apache.streams.core.StreamsResultSet;
 import org.apache.streams.jackson.StreamsJacksonMapper;
 
-import com.datastax.driver.core.Cluster;
-import com.datastax.driver.core.DataType;
-import com.datastax.driver.core.KeyspaceMetadata;
+import com.datastax.driver.core.BoundStatement;
 import com.datastax.driver.core.Metadata;
+import com.datastax.driver.core.PreparedStatement;
 import com.datastax.driver.core.ResultSet;
 import com.datastax.driver.core.Row;
-import com.datastax.driver.core.Session;
 import com.datastax.driver.core.TableMetadata;
-import com.datastax.driver.core.querybuilder.QueryBuilder;
-import com.datastax.driver.core.schemabuilder.SchemaBuilder;
+import com.datastax.driver.core.TokenRange;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ObjectNode;
-import com.google.common.collect.Queues;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import org.apache.commons.lang3.StringUtils;
 import org.joda.time.DateTime;
 import org.slf4j.Logger;
@@ -46,21 +43,27 @@ import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.math.BigInteger;
-import java.util.HashMap;
-import java.util.Iterator;
-import java.util.Map;
-import java.util.Objects;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Queue;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.LinkedBlockingQueue;
-import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
 /**
  * CassandraPersistReader reads documents from cassandra.
+ *
+ * <p></p>
+ * The table is scanned as a set of token range splits, scanThreads at a time, each paged fetchSize rows at a time
+ * with the next page requested while the current one is being read.
  */
 public class CassandraPersistReader implements StreamsPersistReader {
 
@@ -68,19 +71,24 @@ public class CassandraPersistReader implements StreamsPersistReader {
 
   public static final Logger LOGGER = LoggerFactory.getLogger(CassandraPersistReader.class);
 
+  private static final int MAX_QUEUE_SIZE = 10000;
+
   protected volatile Queue<StreamsDatum> persistQueue;
 
   private ObjectMapper mapper = StreamsJacksonMapper.getInstance();
 
   private ExecutorService executor;
-  private CompletableFuture<Boolean> readerTaskFuture = new CompletableFuture<>();
+  private CompletableFuture<Void> scanFuture;
 
   private CassandraConfiguration config;
   private CassandraClient client;
 
-  protected Iterator<Row> rowIterator;
+  private PreparedStatement splitStatement;
+  private PreparedStatement openSplitStatement;
 
-  protected final ReadWriteLock lock = new ReentrantReadWriteLock();
+  private final AtomicInteger splitsTotal = new AtomicInteger();
+  private final AtomicInteger splitsCompleted = new AtomicInteger();
+  private final AtomicLong rowsRead = new AtomicLong();
 
   /**
    * CassandraPersistReader constructor - resolves CassandraConfiguration from JVM 'cassandra'.
@@ -117,6 +125,9 @@ public class CassandraPersistReader implements StreamsPersistReader {
   }
 
   public void stop() {
+    if (executor != null) {
+      executor.shutdownNow();
+    }
   }
 
   @Override
@@ -134,17 +145,17 @@ public class CassandraPersistReader implements StreamsPersistReader {
       return;
     }
 
-    String selectStatement = getSelectStatement();
-    ResultSet rs = client.client().execute(selectStatement);
-    rowIterator = rs.iterator();
-
-    if (!rowIterator.hasNext()) {
-      throw new RuntimeException("Table" + config.getTable() + "is empty!");
-    }
+    String partitionKey = getPartitionKey();
+    String from = Metadata.quoteIfNecessary(config.getKeyspace()) + "." + Metadata.quoteIfNecessary(config.getTable());
+    splitStatement = client.client().prepare(
+        "SELECT * FROM " + from + " WHERE token(" + partitionKey + ") > ? AND token(" + partitionKey + ") <= ?");
+    openSplitStatement = client.client().prepare(
+        "SELECT * FROM " + from + " WHERE token(" + partitionKey + ") > ?");
 
     persistQueue = constructQueue();
 
-    executor = Executors.newSingleThreadExecutor();
+    executor = Executors.newFixedThreadPool(Math.max(1, config.getScanThreads().intValue()),
+        new ThreadFactoryBuilder().setNameFormat("cassandra-reader-%d").setDaemon(true).build());
   }
 
   @Override
@@ -174,65 +185,120 @@ public class CassandraPersistReader implements StreamsPersistReader {
 
   @Override
   public StreamsResultSet readAll() {
-    ResultSet rs = client.client().execute(getSelectStatement());
-    Iterator<Row> rowsIterator = rs.iterator();
-
-    while (rowsIterator.hasNext()) {
-      Row row = rowsIterator.next();
-      StreamsDatum datum = prepareDatum(row);
-      write(datum);
+    Queue<StreamsDatum> all = new ConcurrentLinkedQueue<>();
+    try {
+      scan(all::add).get();
+    } catch (InterruptedException ex) {
+      LOGGER.trace("Interrupt", ex);
+      Thread.currentThread().interrupt();
+    } catch (ExecutionException ex) {
+      LOGGER.error("Scan of {} failed", config.getTable(), ex.getCause());
     }
-
-    return readCurrent();
+    StreamsResultSet current = new StreamsResultSet(all);
+    current.setCounter(new DatumStatusCounter());
+    return current;
   }
 
   @Override
   public void startStream() {
     LOGGER.debug("startStream");
-    CassandraPersistReaderTask readerTask = new CassandraPersistReaderTask(this);
+    scanFuture = scan(this::write);
+    scanFuture.whenComplete((done, ex) -> {
+      if (ex != null) {
+        LOGGER.error("Scan of {} failed", config.getTable(), ex);
+      }
+      executor.shutdown();
+    });
+  }
 
-    CompletableFuture.runAsync(readerTask, executor);
+  /*
+   * Scan every split of the table on the executor, passing each document to the sink.
+   */
+  private CompletableFuture<Void> scan(Consumer<StreamsDatum> sink) {
+    List<TokenRange> splits = getSplits();
+    splitsTotal.set(splits.size());
+    splitsCompleted.set(0);
+    LOGGER.info("Scanning {}.{} in {} splits", config.getKeyspace(), config.getTable(), splits.size());
+
+    CompletableFuture<?>[] tasks = new CompletableFuture<?>[splits.size()];
+    for (int i = 0; i < splits.size(); i++) {
+      tasks[i] = CompletableFuture.runAsync(new CassandraPersistReaderTask(this, splits.get(i), sink), executor);
+    }
+    return CompletableFuture.allOf(tasks);
+  }
 
-    try {
-      if (readerTaskFuture.get()) {
-        executor.shutdown();
-      }
-    } catch (InterruptedException ex) {
-      LOGGER.trace("Interrupt", ex);
-    } catch (ExecutionException ex) {
-      LOGGER.trace("Execution exception", ex);
+  /*
+   * Token ranges owned by the cluster, unwrapped around the ring and split evenly to reach scanSplits.
+   */
+  private List<TokenRange> getSplits() {
+    List<TokenRange> ranges = new ArrayList<>();
+    for (TokenRange range : client.cluster().getMetadata().getTokenRanges()) {
+      ranges.addAll(range.unwrap());
+    }
+    int scanSplits = config.getScanSplits().intValue();
+    if (scanSplits <= ranges.size()) {
+      return ranges;
+    }
+    int splitsPerRange = (scanSplits + ranges.size() - 1) / ranges.size();
+    List<TokenRange> splits = new ArrayList<>();
+    for (TokenRange range : ranges) {
+      splits.addAll(range.splitEvenly(splitsPerRange));
     }
+    return splits;
+  }
+
+  /*
+   * Quoted partition key columns, from the configuration or the table metadata.
+   */
+  private String getPartitionKey() {
+    if (StringUtils.isNotBlank(config.getPartitionKeyColumn())) {
+      return Metadata.quoteIfNecessary(config.getPartitionKeyColumn());
+    }
+    TableMetadata table = client.cluster().getMetadata()
+        .getKeyspace(Metadata.quoteIfNecessary(config.getKeyspace()))
+        .getTable(Metadata.quoteIfNecessary(config.getTable()));
+    return table.getPartitionKey().stream()
+        .map(column -> Metadata.quoteIfNecessary(column.getName()))
+        .collect(Collectors.joining(","));
+  }
+
+  private BoundStatement bind(TokenRange split) {
+    BoundStatement statement;
+    // after unwrapping, only the range ending at the minimum token ends before it starts
+    if (split.getEnd().compareTo(split.getStart()) <= 0) {
+      statement = openSplitStatement.bind().setToken(0, split.getStart());
+    } else {
+      statement = splitStatement.bind().setToken(0, split.getStart()).setToken(1, split.getEnd());
+    }
+    statement.setFetchSize(config.getFetchSize().intValue());
+    return statement;
   }
 
   @Override
   public StreamsResultSet readCurrent() {
 
-    StreamsResultSet current;
-
-    try {
-      lock.writeLock().lock();
-      current = new StreamsResultSet(persistQueue);
-      current.setCounter(new DatumStatusCounter());
-      persistQueue = constructQueue();
-    } finally {
-      lock.writeLock().unlock();
+    Queue<StreamsDatum> current = new ConcurrentLinkedQueue<>();
+    StreamsDatum datum;
+    while (current.size() < MAX_QUEUE_SIZE && (datum = persistQueue.poll()) != null) {
+      current.add(datum);
     }
 
-    return current;
+    StreamsResultSet resultSet = new StreamsResultSet(current);
+    resultSet.setCounter(new DatumStatusCounter());
+    return resultSet;
   }
 
   protected void write(StreamsDatum entry) {
-    boolean success;
-    do {
-      try {
-        lock.readLock().lock();
-        success = persistQueue.offer(entry);
-        Thread.yield();
-      } finally {
-        lock.readLock().unlock();
+    try {
+      if (persistQueue instanceof BlockingQueue) {
+        ((BlockingQueue<StreamsDatum>) persistQueue).put(entry);
+      } else {
+        persistQueue.add(entry);
       }
+    } catch (InterruptedException ex) {
+      LOGGER.trace("Interrupt", ex);
+      Thread.currentThread().interrupt();
     }
-    while (!success);
   }
 
   @Override
@@ -247,38 +313,66 @@ public class CassandraPersistReader implements StreamsPersistReader {
 
   @Override
   public boolean isRunning() {
-    return !executor.isTerminated() || !executor.isShutdown();
+    return (scanFuture != null && !scanFuture.isDone()) || (persistQueue != null && !persistQueue.isEmpty());
   }
 
-  private Queue<StreamsDatum> constructQueue() {
-    return Queues.synchronizedQueue(new LinkedBlockingQueue<StreamsDatum>(10000));
+  public int getSplitsTotal() {
+    return splitsTotal.get();
+  }
+
+  public int getSplitsCompleted() {
+    return splitsCompleted.get();
+  }
+
+  public long getRowsRead() {
+    return rowsRead.get();
   }
 
-  private String getSelectStatement() {
-    return QueryBuilder.select().all()
-      .from(config.getKeyspace(), config.getTable())
-      .getQueryString();
+  private Queue<StreamsDatum> constructQueue() {
+    return new LinkedBlockingQueue<>(MAX_QUEUE_SIZE);
   }
 
-  public class CassandraPersistReaderTask implements Runnable {
+  /**
+   * Scans one token range split, fetching the next page in the background while the current one is read.
+   */
+  public static class CassandraPersistReaderTask implements Runnable {
 
-    private CassandraPersistReader reader;
+    private final CassandraPersistReader reader;
+    private final TokenRange split;
+    private final Consumer<StreamsDatum> sink;
 
-    public CassandraPersistReaderTask(CassandraPersistReader reader) {
+    public CassandraPersistReaderTask(CassandraPersistReader reader, TokenRange split, Consumer<StreamsDatum> sink) {
       this.reader = reader;
+      this.split = split;
+      this.sink = sink;
     }
 
     @Override
     public void run() {
-      try {
-        while (reader.rowIterator.hasNext()) {
-          Row row = reader.rowIterator.next();
-          StreamsDatum datum = reader.prepareDatum(row);
-          reader.write(datum);
+      long startMillis = System.currentTimeMillis();
+      long rows = 0;
+      int prefetchThreshold = Math.max(1, reader.config.getFetchSize().intValue() / 2);
+
+      ResultSet rs = reader.client.client().execute(reader.bind(split));
+      for (Row row : rs) {
+        if (rs.getAvailableWithoutFetching() == prefetchThreshold && !rs.isFullyFetched()) {
+          rs.fetchMoreResults();
         }
-      } finally {
-        readerTaskFuture.complete(true);
+        if (Thread.currentThread().isInterrupted()) {
+          return;
+        }
+        StreamsDatum datum = reader.prepareDatum(row);
+        if (datum != null) {
+          sink.accept(datum);
+        }
+        rows++;
       }
+
+      reader.rowsRead.addAndGet(rows);
+      int completed = reader.splitsCompleted.incrementAndGet();
+      LOGGER.info("Split {} of {} {}: {} rows in {} ms, {} rows read",
+          completed, reader.splitsTotal.get(), split, rows, System.currentTimeMillis() - startMillis,
+          reader.rowsRead.get());
     }
   }
-}
\ No newline at end of file
+}
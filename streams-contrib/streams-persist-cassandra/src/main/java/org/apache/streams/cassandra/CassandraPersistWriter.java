@@ -20,8 +20,8 @@ package org.apache.streams.cassandra;
 
 import org.apache.streams.config.ComponentConfigurator;
 import org.apache.streams.config.StreamsConfigurator;
+import org.apache.streams.core.StreamsBatchPersistWriter;
 import org.apache.streams.core.StreamsDatum;
-import org.apache.streams.core.StreamsPersistWriter;
 import org.apache.streams.jackson.StreamsJacksonMapper;
 import org.apache.streams.util.GuidUtils;
 
@@ -62,7 +62,7 @@ import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
-public class CassandraPersistWriter implements StreamsPersistWriter, Runnable, Flushable, Closeable {
+public class CassandraPersistWriter implements StreamsBatchPersistWriter, Runnable, Flushable, Closeable {
 
   public static final String STREAMS_ID = "CassandraPersistWriter";
 
@@ -112,6 +112,40 @@ public class CassandraPersistWriter implements StreamsPersistWriter, Runnable, F
   @Override
   public void write(StreamsDatum streamsDatum) {
 
+    BoundStatement statement = prepareStatement(streamsDatum);
+    if (statement == null) {
+      return;
+    }
+    insertBatch.add(statement);
+
+    flushIfNecessary();
+  }
+
+  @Override
+  public void write(List<StreamsDatum> streamsData) {
+
+    List<BoundStatement> statements = new ArrayList<>(streamsData.size());
+    for (StreamsDatum streamsDatum : streamsData) {
+      BoundStatement statement = prepareStatement(streamsDatum);
+      if (statement != null) {
+        statements.add(statement);
+      }
+    }
+    if (statements.isEmpty()) {
+      return;
+    }
+    try {
+      lock.readLock().lock();
+      insertBatch.addAll(statements);
+    } finally {
+      lock.readLock().unlock();
+    }
+
+    flushIfNecessary();
+  }
+
+  protected BoundStatement prepareStatement(StreamsDatum streamsDatum) {
+
     ObjectNode node;
 
     if (streamsDatum.getDocument() instanceof String) {
@@ -125,11 +159,10 @@ public class CassandraPersistWriter implements StreamsPersistWriter, Runnable, F
           key = streamsDatum.getMetadata().get("id").toString();
         }
 
-        BoundStatement statement = insertStatement.bind(key, ByteBuffer.wrap(value));
-        insertBatch.add(statement);
+        return insertStatement.bind(key, ByteBuffer.wrap(value));
       } catch (IOException ex) {
         LOGGER.warn("Failure adding object: {}", streamsDatum.getDocument().toString());
-        return;
+        return null;
       }
     } else {
       try {
@@ -142,15 +175,12 @@ public class CassandraPersistWriter implements StreamsPersistWriter, Runnable, F
           key = streamsDatum.getId();
         }
 
-        BoundStatement statement = insertStatement.bind(key, ByteBuffer.wrap(value));
-        insertBatch.add(statement);
+        return insertStatement.bind(key, ByteBuffer.wrap(value));
       } catch (Exception ex) {
         LOGGER.warn("Failure adding object: {}", streamsDatum.getDocument().toString());
-        return;
+        return null;
       }
     }
-
-    flushIfNecessary();
   }
 
   @Override
@@ -264,9 +294,9 @@ public class CassandraPersistWriter implements StreamsPersistWriter, Runnable, F
 
   protected void flushIfNecessary() {
     long lastLatency = System.currentTimeMillis() - lastWrite.get();
-    //Flush iff the size > 0 AND the size is divisible by 100 or the time between now and the last flush is greater
+    //Flush iff the size > 0 AND the size has reached 100 or the time between now and the last flush is greater
     //than the maximum desired latency
-    if (insertBatch.size() > 0 && (insertBatch.size() % 100 == 0 || lastLatency > MAX_WRITE_LATENCY)) {
+    if (insertBatch.size() > 0 && (insertBatch.size() >= 100 || lastLatency > MAX_WRITE_LATENCY)) {
       try {
         flush();
       } catch (IOException ex) {
@@ -0,0 +1,561 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.streams.elasticsearch;
+
+import org.elasticsearch.ExceptionsHelper;
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.ActionRequest;
+import org.elasticsearch.action.bulk.BulkItemResponse;
+import org.elasticsearch.action.bulk.BulkRequest;
+import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.rest.RestStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * ElasticsearchBulkEngine collects actions into bulk requests and sends them with a bounded number of requests in
+ * flight.
+ * <p/>
+ * Actions are collected by striped batch builders, so concurrent writer threads rarely contend for the same lock.
+ * A writer thread that fills a batch while the concurrency limit is reached waits until a response frees a slot,
+ * which is how back pressure reaches the stream.
+ * <p/>
+ * When adaptive, an AIMD controller adds to the batch size, and once per window of responses to the concurrency,
+ * while bulk latency stays under target.  It shrinks the batch size when latency exceeds the target, and halves both
+ * when the cluster rejects work (HTTP 429 / EsRejectedExecutionException).  Rejected actions are retried with
+ * exponential backoff.
+ * <p/>
+ * The engine registers itself as an MXBean whenever it is constructed with a non-null id.
+ */
+public class ElasticsearchBulkEngine implements ElasticsearchBulkEngineMXBean {
+
+  public static final String NAME_TEMPLATE = "org.apache.streams.elasticsearch:type=ElasticsearchBulkEngine,name=%s";
+
+  public static final int DEFAULT_MAX_CONCURRENT_REQUESTS = 4;
+  public static final long DEFAULT_TARGET_LATENCY_MS = 1000;
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(ElasticsearchBulkEngine.class);
+  private static final int MAX_STRIPES = 8;
+  private static final int MAX_RETRIES = 3;
+  private static final long RETRY_BACKOFF_MS = 100;
+
+  /**
+   * Sends a bulk request, typically {@code client::bulk}.
+   */
+  public interface BulkExecutor {
+
+    void execute(BulkRequest request, ActionListener<BulkResponse> listener);
+
+  }
+
+  private final BulkExecutor executor;
+  private final Stripe[] stripes;
+  private final int stripeMask;
+  private final Controller controller;
+  private final ScheduledExecutorService retryScheduler;
+
+  private final Lock lock = new ReentrantLock();
+  private final Condition permitReleased = lock.newCondition();
+  private final Condition batchesCompleted = lock.newCondition();
+  private int inFlight;
+  private int pending;
+
+  private volatile long maxBatchBytes;
+  private volatile long lastLatencyMs;
+  private ObjectName name;
+
+  private final AtomicLong batchesSent = new AtomicLong(0);
+  private final AtomicLong batchesResponded = new AtomicLong(0);
+  private final AtomicLong batchesRejected = new AtomicLong(0);
+  private final AtomicLong totalRetried = new AtomicLong(0);
+  private final AtomicLong totalSent = new AtomicLong(0);
+  private final AtomicLong totalOk = new AtomicLong(0);
+  private final AtomicLong totalFailed = new AtomicLong(0);
+  private final AtomicLong totalSizeInBytes = new AtomicLong(0);
+  private final AtomicLong totalTookMillis = new AtomicLong(0);
+
+  /**
+   * ElasticsearchBulkEngine constructor.
+   * @param id MXBean name, may be null
+   * @param executor sends bulk requests
+   * @param batchSize initial number of actions per bulk request, and the fixed size when not adaptive
+   * @param maxBatchBytes size in bytes at which a bulk request is sent regardless of batch size
+   * @param maxConcurrentRequests maximum number of bulk requests in flight
+   * @param targetLatencyMs bulk latency the controller tries to stay under
+   * @param adaptive whether batch size and concurrency adapt to observed latency and rejections
+   */
+  public ElasticsearchBulkEngine(String id, BulkExecutor executor, int batchSize, long maxBatchBytes,
+                                 int maxConcurrentRequests, long targetLatencyMs, boolean adaptive) {
+    this.executor = executor;
+    this.maxBatchBytes = maxBatchBytes;
+    this.controller = new Controller(batchSize, maxConcurrentRequests, targetLatencyMs, adaptive);
+    int stripeCount = 1;
+    while (stripeCount < Math.min(Runtime.getRuntime().availableProcessors(), MAX_STRIPES)) {
+      stripeCount <<= 1;
+    }
+    this.stripes = new Stripe[stripeCount];
+    for (int i = 0; i < stripeCount; ++i) {
+      this.stripes[i] = new Stripe();
+    }
+    this.stripeMask = stripeCount - 1;
+    this.retryScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "elasticsearch-bulk-retry");
+      thread.setDaemon(true);
+      return thread;
+    });
+    if (id != null) {
+      try {
+        this.name = new ObjectName(String.format(NAME_TEMPLATE, id));
+        MBeanServer mbs = ManagementFactory.getPlatformMBeanServer();
+        mbs.registerMBean(this, this.name);
+      } catch (Exception ex) {
+        LOGGER.warn("Failed to register MXBean : {}", ex.getMessage());
+        this.name = null;
+      }
+    }
+  }
+
+  /**
+   * Add an index, update or delete request.  Sends the calling thread's batch once it is full, waiting for a free
+   * slot if the concurrency limit has been reached.
+   * @param request request
+   */
+  public void add(ActionRequest<?> request) {
+    Stripe stripe = this.stripes[(int) Thread.currentThread().getId() & this.stripeMask];
+    BulkRequest full = null;
+    synchronized (stripe) {
+      if (stripe.request.numberOfActions() == 0) {
+        stripe.startedAt = System.currentTimeMillis();
+      }
+      stripe.request.add(request);
+      if (stripe.request.numberOfActions() >= this.controller.getBatchSize()
+          || stripe.request.estimatedSizeInBytes() >= this.maxBatchBytes) {
+        full = stripe.drain();
+      }
+    }
+    if (full != null) {
+      submit(full);
+    }
+  }
+
+  /**
+   * Send every batch that has actions in it.
+   */
+  public void flush() {
+    flushOlderThan(0);
+  }
+
+  /**
+   * Send every batch whose first action was added at least maxAgeMs ago.
+   * @param maxAgeMs maximum age in milliseconds
+   */
+  public void flushOlderThan(long maxAgeMs) {
+    long now = System.currentTimeMillis();
+    for (Stripe stripe : this.stripes) {
+      BulkRequest full = null;
+      synchronized (stripe) {
+        if (stripe.request.numberOfActions() > 0 && now - stripe.startedAt >= maxAgeMs) {
+          full = stripe.drain();
+        }
+      }
+      if (full != null) {
+        submit(full);
+      }
+    }
+  }
+
+  /**
+   * Wait for every sent batch, including its retries, to complete.
+   * @param timeoutMs maximum time to wait in milliseconds
+   * @return true if all batches completed, false on timeout or interruption
+   */
+  public boolean awaitCompletion(long timeoutMs) {
+    long remaining = TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+    this.lock.lock();
+    try {
+      while (this.pending > 0) {
+        if (remaining <= 0) {
+          return false;
+        }
+        remaining = this.batchesCompleted.awaitNanos(remaining);
+      }
+      return true;
+    } catch (InterruptedException ie) {
+      Thread.currentThread().interrupt();
+      return false;
+    } finally {
+      this.lock.unlock();
+    }
+  }
+
+  /**
+   * Stop the retry scheduler and unregister the MXBean.  Call after {@link #flush()} and
+   * {@link #awaitCompletion(long)}.
+   */
+  public void close() {
+    this.retryScheduler.shutdown();
+    if (this.name != null) {
+      try {
+        ManagementFactory.getPlatformMBeanServer().unregisterMBean(this.name);
+      } catch (Exception ex) {
+        LOGGER.debug("Failed to unregister MXBean : {}", ex.getMessage());
+      }
+      this.name = null;
+    }
+  }
+
+  /**
+   * Reset the batch size, which the controller adapts from when adaptive.
+   * @param batchSize number of actions per bulk request
+   */
+  public void setBatchSize(int batchSize) {
+    this.controller.reset(batchSize);
+  }
+
+  public void setMaxBatchBytes(long maxBatchBytes) {
+    this.maxBatchBytes = maxBatchBytes;
+  }
+
+  public long getMaxBatchBytes() {
+    return this.maxBatchBytes;
+  }
+
+  @Override
+  public int getBatchSize() {
+    return this.controller.getBatchSize();
+  }
+
+  @Override
+  public int getConcurrency() {
+    return this.controller.getConcurrency();
+  }
+
+  @Override
+  public int getInFlight() {
+    this.lock.lock();
+    try {
+      return this.inFlight;
+    } finally {
+      this.lock.unlock();
+    }
+  }
+
+  @Override
+  public long getLastLatencyMs() {
+    return this.lastLatencyMs;
+  }
+
+  @Override
+  public long getBatchesSent() {
+    return this.batchesSent.get();
+  }
+
+  @Override
+  public long getBatchesResponded() {
+    return this.batchesResponded.get();
+  }
+
+  @Override
+  public long getBatchesRejected() {
+    return this.batchesRejected.get();
+  }
+
+  @Override
+  public long getTotalRetried() {
+    return this.totalRetried.get();
+  }
+
+  @Override
+  public long getTotalSent() {
+    return this.totalSent.get();
+  }
+
+  @Override
+  public long getTotalOk() {
+    return this.totalOk.get();
+  }
+
+  @Override
+  public long getTotalFailed() {
+    return this.totalFailed.get();
+  }
+
+  public long getTotalOutstanding() {
+    return this.totalSent.get() - (this.totalOk.get() + this.totalFailed.get());
+  }
+
+  public long getTotalSizeInBytes() {
+    return this.totalSizeInBytes.get();
+  }
+
+  public long getTotalSeconds() {
+    return this.totalTookMillis.get() / 1000;
+  }
+
+  private void submit(BulkRequest request) {
+    this.totalSent.addAndGet(request.numberOfActions());
+    this.lock.lock();
+    try {
+      this.pending++;
+    } finally {
+      this.lock.unlock();
+    }
+    send(request, 0);
+  }
+
+  private void send(final BulkRequest request, final int attempt) {
+    try {
+      acquirePermit();
+    } catch (InterruptedException ie) {
+      Thread.currentThread().interrupt();
+      LOGGER.warn("Interrupted while waiting to send {} actions.  Data may be lost", request.numberOfActions());
+      this.totalFailed.addAndGet(request.numberOfActions());
+      completeBatch();
+      return;
+    }
+
+    LOGGER.debug("Sending bulk request: Items[{}] Size[{} bytes] Attempt[{}]",
+        request.numberOfActions(), request.estimatedSizeInBytes(), attempt);
+
+    this.batchesSent.incrementAndGet();
+    final long startedAt = System.nanoTime();
+    try {
+      this.executor.execute(request, new ActionListener<BulkResponse>() {
+        public void onResponse(BulkResponse response) {
+          onBulkResponse(request, attempt, response, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt));
+        }
+
+        public void onFailure(Throwable throwable) {
+          onBulkFailure(request, attempt, throwable, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt));
+        }
+      });
+    } catch (Throwable ex) {
+      LOGGER.error("There was an error sending the batch: {}", ex.getMessage());
+      releasePermit();
+      this.totalFailed.addAndGet(request.numberOfActions());
+      completeBatch();
+    }
+  }
+
+  private void onBulkResponse(BulkRequest request, int attempt, BulkResponse response, long latencyMs) {
+    this.lastLatencyMs = latencyMs;
+    this.batchesResponded.incrementAndGet();
+    this.totalTookMillis.addAndGet(response.getTookInMillis());
+    this.totalSizeInBytes.addAndGet(request.estimatedSizeInBytes());
+
+    List<ActionRequest> requests = request.requests();
+    BulkRequest retry = null;
+    boolean rejected = false;
+    long passed = 0;
+    long failed = 0;
+    for (BulkItemResponse item : response.getItems()) {
+      if (!item.isFailed()) {
+        passed++;
+      } else if (item.getFailure().getStatus() == RestStatus.TOO_MANY_REQUESTS) {
+        rejected = true;
+        if (attempt < MAX_RETRIES) {
+          if (retry == null) {
+            retry = new BulkRequest();
+          }
+          retry.add(requests.get(item.getItemId()));
+        } else {
+          failed++;
+        }
+      } else {
+        failed++;
+        LOGGER.debug("{} ({},{},{}) failed: {}", item.getOpType(), item.getIndex(), item.getType(), item.getId(), item.getFailureMessage());
+      }
+    }
+
+    if (failed > 0) {
+      LOGGER.warn("Bulk Uploading had {} failures of {}", failed, request.numberOfActions());
+    }
+    this.totalOk.addAndGet(passed);
+    this.totalFailed.addAndGet(failed);
+    if (rejected) {
+      this.batchesRejected.incrementAndGet();
+    }
+
+    this.controller.onResponse(latencyMs, rejected);
+    releasePermit();
+
+    if (retry != null) {
+      scheduleRetry(retry, attempt + 1);
+    } else {
+      completeBatch();
+    }
+  }
+
+  private void onBulkFailure(BulkRequest request, int attempt, Throwable throwable, long latencyMs) {
+    this.lastLatencyMs = latencyMs;
+    this.batchesResponded.incrementAndGet();
+
+    boolean rejected = ExceptionsHelper.status(throwable) == RestStatus.TOO_MANY_REQUESTS;
+    if (rejected) {
+      this.batchesRejected.incrementAndGet();
+    }
+
+    this.controller.onResponse(latencyMs, rejected);
+    releasePermit();
+
+    if (rejected && attempt < MAX_RETRIES) {
+      scheduleRetry(request, attempt + 1);
+    } else {
+      LOGGER.warn("Bulk request of {} actions failed: {}", request.numberOfActions(), throwable.getMessage());
+      this.totalFailed.addAndGet(request.numberOfActions());
+      completeBatch();
+    }
+  }
+
+  private void scheduleRetry(final BulkRequest request, final int attempt) {
+    LOGGER.debug("Retrying {} rejected actions, attempt {}", request.numberOfActions(), attempt);
+    this.totalRetried.addAndGet(request.numberOfActions());
+    try {
+      this.retryScheduler.schedule(() -> send(request, attempt), RETRY_BACKOFF_MS << (attempt - 1), TimeUnit.MILLISECONDS);
+    } catch (RejectedExecutionException ex) {
+      LOGGER.warn("Unable to retry {} rejected actions after close", request.numberOfActions());
+      this.totalFailed.addAndGet(request.numberOfActions());
+      completeBatch();
+    }
+  }
+
+  private void acquirePermit() throws InterruptedException {
+    this.lock.lockInterruptibly();
+    try {
+      while (this.inFlight >= this.controller.getConcurrency()) {
+        this.permitReleased.await();
+      }
+      this.inFlight++;
+    } finally {
+      this.lock.unlock();
+    }
+  }
+
+  private void releasePermit() {
+    this.lock.lock();
+    try {
+      this.inFlight--;
+      this.permitReleased.signalAll();
+    } finally {
+      this.lock.unlock();
+    }
+  }
+
+  private void completeBatch() {
+    this.lock.lock();
+    try {
+      if (--this.pending == 0) {
+        this.batchesCompleted.signalAll();
+      }
+    } finally {
+      this.lock.unlock();
+    }
+  }
+
+  /**
+   * Batch builder shared by the writer threads that hash to it.
+   */
+  private static class Stripe {
+
+    private BulkRequest request = new BulkRequest();
+    private long startedAt;
+
+    private BulkRequest drain() {
+      BulkRequest full = this.request;
+      this.request = new BulkRequest();
+      return full;
+    }
+  }
+
+  /**
+   * Additive-increase / multiplicative-decrease control of batch size and concurrency.
+   */
+  static class Controller {
+
+    private static final int MAX_BATCH_GROWTH = 10;
+
+    private final int maxConcurrency;
+    private final long targetLatencyMs;
+    private final boolean adaptive;
+
+    private volatile int batchSize;
+    private volatile int concurrency;
+    private int maxBatchSize;
+    private int step;
+    private int successes;
+
+    Controller(int batchSize, int maxConcurrency, long targetLatencyMs, boolean adaptive) {
+      this.maxConcurrency = Math.max(1, maxConcurrency);
+      this.targetLatencyMs = targetLatencyMs;
+      this.adaptive = adaptive;
+      this.concurrency = adaptive ? 1 : this.maxConcurrency;
+      reset(batchSize);
+    }
+
+    synchronized void reset(int batchSize) {
+      this.batchSize = Math.max(1, batchSize);
+      this.maxBatchSize = this.adaptive ? this.batchSize * MAX_BATCH_GROWTH : this.batchSize;
+      this.step = Math.max(1, this.batchSize / 10);
+    }
+
+    synchronized void onResponse(long latencyMs, boolean rejected) {
+      if (!this.adaptive) {
+        return;
+      }
+      if (rejected) {
+        this.batchSize = Math.max(1, this.batchSize / 2);
+        this.concurrency = Math.max(1, this.concurrency / 2);
+        this.successes = 0;
+      } else if (latencyMs > this.targetLatencyMs) {
+        this.batchSize = Math.max(1, this.batchSize - this.batchSize / 4);
+        this.successes = 0;
+      } else {
+        this.batchSize = Math.min(this.maxBatchSize, this.batchSize + this.step);
+        // grow concurrency by one per window of successful responses, as a congestion window grows per round trip
+        if (++this.successes >= this.concurrency) {
+          this.successes = 0;
+          this.concurrency = Math.min(this.maxConcurrency, this.concurrency + 1);
+        }
+      }
+    }
+
+    int getBatchSize() {
+      return this.batchSize;
+    }
+
+    int getConcurrency() {
+      return this.concurrency;
+    }
+  }
+
+}
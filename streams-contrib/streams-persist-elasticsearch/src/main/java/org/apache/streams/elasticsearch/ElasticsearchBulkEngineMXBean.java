@@ -0,0 +1,93 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.streams.elasticsearch;
+
+/**
+ * MXBean exposing the state of an {@link org.apache.streams.elasticsearch.ElasticsearchBulkEngine}.
+ */
+public interface ElasticsearchBulkEngineMXBean {
+
+  /**
+   * Number of actions a batch builder collects before its bulk request is sent.
+   * @return current batch size
+   */
+  int getBatchSize();
+
+  /**
+   * Maximum number of bulk requests allowed in flight at once.
+   * @return current concurrency limit
+   */
+  int getConcurrency();
+
+  /**
+   * Number of bulk requests sent and not yet responded to.
+   * @return bulk requests in flight
+   */
+  int getInFlight();
+
+  /**
+   * Latency of the most recent bulk request, from submission to response.
+   * @return latency in milliseconds
+   */
+  long getLastLatencyMs();
+
+  /**
+   * Number of bulk requests, including retries, that have been sent.
+   * @return bulk requests sent
+   */
+  long getBatchesSent();
+
+  /**
+   * Number of bulk requests, including retries, that have been responded to.
+   * @return bulk requests responded to
+   */
+  long getBatchesResponded();
+
+  /**
+   * Number of bulk requests the cluster rejected, in full or in part, because it was overloaded.
+   * @return rejected bulk requests
+   */
+  long getBatchesRejected();
+
+  /**
+   * Number of actions re-sent after being rejected.
+   * @return retried actions
+   */
+  long getTotalRetried();
+
+  /**
+   * Number of actions sent, counting each action once regardless of retries.
+   * @return actions sent
+   */
+  long getTotalSent();
+
+  /**
+   * Number of actions acknowledged by the cluster.
+   * @return successful actions
+   */
+  long getTotalOk();
+
+  /**
+   * Number of actions that failed, including those still rejected after the last retry.
+   * @return failed actions
+   */
+  long getTotalFailed();
+
+}
@@ -21,10 +21,12 @@ package org.apache.streams.elasticsearch;
 import org.apache.streams.core.StreamsDatum;
 import org.apache.streams.core.StreamsPersistWriter;
 
+import org.elasticsearch.action.ActionRequest;
 import org.elasticsearch.action.delete.DeleteRequest;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 
@@ -50,6 +52,17 @@ public class ElasticsearchPersistDeleter extends ElasticsearchPersistWriter impl
     return STREAMS_ID;
   }
 
+  /**
+   * Deletes each datum in the batch, rather than indexing them as the parent writer does.
+   * @param streamsData datums to write
+   */
+  @Override
+  public void write(List<StreamsDatum> streamsData) {
+    for (StreamsDatum streamsDatum : streamsData) {
+      write(streamsDatum);
+    }
+  }
+
   @Override
   public void write(StreamsDatum streamsDatum) {
 
@@ -106,16 +119,9 @@ public class ElasticsearchPersistDeleter extends ElasticsearchPersistWriter impl
     Objects.requireNonNull(request);
     Objects.requireNonNull(request.index());
 
-    // If our queue is larger than our flush threshold, then we should flush the queue.
-    synchronized (this) {
-      checkIndexImplications(request.index());
-
-      bulkRequest.add(request);
+    checkIndexImplications(request.index());
 
-      currentBatchItems.incrementAndGet();
-
-      checkForFlush();
-    }
+    add((ActionRequest<?>) request);
 
   }
 
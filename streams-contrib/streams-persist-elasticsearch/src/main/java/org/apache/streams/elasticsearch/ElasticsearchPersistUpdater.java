@@ -22,10 +22,12 @@ import org.apache.streams.core.StreamsDatum;
 import org.apache.streams.core.StreamsPersistWriter;
 
 import org.apache.commons.lang3.StringUtils;
+import org.elasticsearch.action.ActionRequest;
 import org.elasticsearch.action.update.UpdateRequest;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 
@@ -51,6 +53,17 @@ public class ElasticsearchPersistUpdater extends ElasticsearchPersistWriter impl
     return STREAMS_ID;
   }
 
+  /**
+   * Updates each datum in the batch, rather than indexing them as the parent writer does.
+   * @param streamsData datums to write
+   */
+  @Override
+  public void write(List<StreamsDatum> streamsData) {
+    for (StreamsDatum streamsDatum : streamsData) {
+      write(streamsDatum);
+    }
+  }
+
   @Override
   public void write(StreamsDatum streamsDatum) {
 
@@ -130,17 +143,9 @@ public class ElasticsearchPersistUpdater extends ElasticsearchPersistWriter impl
     Objects.requireNonNull(request);
     Objects.requireNonNull(request.index());
 
-    // If our queue is larger than our flush threshold, then we should flush the queue.
-    synchronized (this) {
-      checkIndexImplications(request.index());
-
-      bulkRequest.add(request);
+    checkIndexImplications(request.index());
 
-      currentBatchBytes.addAndGet(request.doc().source().length());
-      currentBatchItems.incrementAndGet();
-
-      checkForFlush();
-    }
+    add((ActionRequest<?>) request);
 
   }
 
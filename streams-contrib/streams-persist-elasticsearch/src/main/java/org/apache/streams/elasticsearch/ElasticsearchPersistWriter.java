@@ -21,20 +21,18 @@ package org.apache.streams.elasticsearch;
 
 import org.apache.streams.config.ComponentConfigurator;
 import org.apache.streams.config.StreamsConfigurator;
+import org.apache.streams.core.StreamsBatchPersistWriter;
 import org.apache.streams.core.StreamsDatum;
-import org.apache.streams.core.StreamsPersistWriter;
+import org.apache.streams.core.util.DatumUtils;
 import org.apache.streams.jackson.StreamsJacksonMapper;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ObjectNode;
-import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.ActionRequest;
 import org.elasticsearch.action.admin.indices.create.CreateIndexRequest;
 import org.elasticsearch.action.admin.indices.create.CreateIndexResponse;
 import org.elasticsearch.action.admin.indices.exists.indices.IndicesExistsRequest;
 import org.elasticsearch.action.admin.indices.settings.put.UpdateSettingsRequest;
-import org.elasticsearch.action.bulk.BulkItemResponse;
-import org.elasticsearch.action.bulk.BulkRequestBuilder;
-import org.elasticsearch.action.bulk.BulkResponse;
 import org.elasticsearch.action.index.IndexRequest;
 import org.elasticsearch.action.index.IndexRequestBuilder;
 import org.elasticsearch.common.settings.Settings;
@@ -44,66 +42,47 @@ import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.io.Serializable;
-import java.text.DecimalFormat;
-import java.text.NumberFormat;
 import java.util.ArrayList;
-import java.util.Date;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
 import java.util.Timer;
 import java.util.TimerTask;
-import java.util.concurrent.atomic.AtomicInteger;
-import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
- * ElasticsearchPersistUpdater updates documents to elasticsearch.
+ * ElasticsearchPersistWriter indexes documents to elasticsearch.
+ * <p/>
+ * Requests are batched and sent by an {@link org.apache.streams.elasticsearch.ElasticsearchBulkEngine}, which bounds
+ * the number of bulk requests in flight and, unless adaptiveBulk is false, adapts batch size and concurrency to the
+ * cluster's bulk latency and rejections.
  */
-public class ElasticsearchPersistWriter implements StreamsPersistWriter, Serializable {
+public class ElasticsearchPersistWriter implements StreamsBatchPersistWriter, Serializable {
 
   public static final String STREAMS_ID = ElasticsearchPersistWriter.class.getCanonicalName();
 
   private static final Logger LOGGER = LoggerFactory.getLogger(ElasticsearchPersistWriter.class);
-  private static final NumberFormat MEGABYTE_FORMAT = new DecimalFormat("#.##");
-  private static final NumberFormat NUMBER_FORMAT = new DecimalFormat("###,###,###,###");
   private static final Long DEFAULT_BULK_FLUSH_THRESHOLD = 5L * 1024L * 1024L;
   private static final int DEFAULT_BATCH_SIZE = 100;
-  //ES defaults its bulk index queue to 50 items.  We want to be under this on our backoff so set this to 1/2 ES default
-  //at a batch size as configured here.
-  private static final long WAITING_DOCS_LIMIT = DEFAULT_BATCH_SIZE * 25;
   //A document should have to wait no more than 10s to get flushed
   private static final long DEFAULT_MAX_WAIT = 10000;
 
   protected static final ObjectMapper OBJECT_MAPPER = StreamsJacksonMapper.getInstance();
 
   protected final List<String> affectedIndexes = new ArrayList<>();
+  private final Set<String> checkedIndexes = ConcurrentHashMap.newKeySet();
 
   protected final ElasticsearchClientManager manager;
   protected final ElasticsearchWriterConfiguration config;
 
-  protected BulkRequestBuilder bulkRequest;
+  protected final ElasticsearchBulkEngine bulkEngine;
 
   private boolean veryLargeBulk = false;  // by default this setting is set to false
-  private long flushThresholdsRecords = DEFAULT_BATCH_SIZE;
-  private long flushThresholdBytes = DEFAULT_BULK_FLUSH_THRESHOLD;
 
   private long flushThresholdTime = DEFAULT_MAX_WAIT;
-  private long lastFlush = new Date().getTime();
   private Timer timer = new Timer();
 
-
-  private final AtomicInteger batchesSent = new AtomicInteger(0);
-  private final AtomicInteger batchesResponded = new AtomicInteger(0);
-
-  protected final AtomicLong currentBatchItems = new AtomicLong(0);
-  protected final AtomicLong currentBatchBytes = new AtomicLong(0);
-
-  private final AtomicLong totalSent = new AtomicLong(0);
-  private final AtomicLong totalSeconds = new AtomicLong(0);
-  private final AtomicLong totalOk = new AtomicLong(0);
-  private final AtomicLong totalFailed = new AtomicLong(0);
-  private final AtomicLong totalSizeInBytes = new AtomicLong(0);
-
   public ElasticsearchPersistWriter() {
     this(new ComponentConfigurator<>(ElasticsearchWriterConfiguration.class)
         .detectConfiguration(StreamsConfigurator.getConfig().getConfig("elasticsearch")));
@@ -121,23 +100,34 @@ public class ElasticsearchPersistWriter implements StreamsPersistWriter, Seriali
   public ElasticsearchPersistWriter(ElasticsearchWriterConfiguration config, ElasticsearchClientManager manager) {
     this.config = config;
     this.manager = manager;
-    this.bulkRequest = this.manager.client().prepareBulk();
+    this.bulkEngine = new ElasticsearchBulkEngine(
+        getClass().getSimpleName() + "-" + Integer.toHexString(System.identityHashCode(this)),
+        this.manager.client()::bulk,
+        config.getBatchSize() == null ? DEFAULT_BATCH_SIZE : config.getBatchSize().intValue(),
+        config.getBatchBytes() == null ? DEFAULT_BULK_FLUSH_THRESHOLD : config.getBatchBytes(),
+        config.getMaxConcurrentRequests() == null
+            ? ElasticsearchBulkEngine.DEFAULT_MAX_CONCURRENT_REQUESTS
+            : config.getMaxConcurrentRequests().intValue(),
+        config.getTargetBulkLatencyMs() == null
+            ? ElasticsearchBulkEngine.DEFAULT_TARGET_LATENCY_MS
+            : config.getTargetBulkLatencyMs(),
+        config.getAdaptiveBulk() == null || config.getAdaptiveBulk());
   }
 
   public long getBatchesSent() {
-    return this.batchesSent.get();
+    return this.bulkEngine.getBatchesSent();
   }
 
   public long getBatchesResponded() {
-    return batchesResponded.get();
+    return this.bulkEngine.getBatchesResponded();
   }
 
   public long getFlushThresholdsRecords() {
-    return this.flushThresholdsRecords;
+    return this.bulkEngine.getBatchSize();
   }
 
   public long getFlushThresholdBytes() {
-    return this.flushThresholdBytes;
+    return this.bulkEngine.getMaxBatchBytes();
   }
 
   public long getFlushThreasholdMaxTime() {
@@ -145,11 +135,11 @@ public class ElasticsearchPersistWriter implements StreamsPersistWriter, Seriali
   }
 
   public void setFlushThresholdRecords(long val) {
-    this.flushThresholdsRecords = val;
+    this.bulkEngine.setBatchSize((int) val);
   }
 
   public void setFlushThresholdBytes(long val) {
-    this.flushThresholdBytes = val;
+    this.bulkEngine.setMaxBatchBytes(val);
   }
 
   public void setFlushThreasholdMaxTime(long val) {
@@ -160,32 +150,32 @@ public class ElasticsearchPersistWriter implements StreamsPersistWriter, Seriali
     this.veryLargeBulk = veryLargeBulk;
   }
 
-  private long getLastFlush() {
-    return this.lastFlush;
-  }
-
   public long getTotalOutstanding() {
-    return this.totalSent.get() - (this.totalFailed.get() + this.totalOk.get());
+    return this.bulkEngine.getTotalOutstanding();
   }
 
   public long getTotalSent() {
-    return this.totalSent.get();
+    return this.bulkEngine.getTotalSent();
   }
 
   public long getTotalOk() {
-    return this.totalOk.get();
+    return this.bulkEngine.getTotalOk();
   }
 
   public long getTotalFailed() {
-    return this.totalFailed.get();
+    return this.bulkEngine.getTotalFailed();
   }
 
   public long getTotalSizeInBytes() {
-    return this.totalSizeInBytes.get();
+    return this.bulkEngine.getTotalSizeInBytes();
   }
 
   public long getTotalSeconds() {
-    return this.totalSeconds.get();
+    return this.bulkEngine.getTotalSeconds();
+  }
+
+  public ElasticsearchBulkEngine getBulkEngine() {
+    return this.bulkEngine;
   }
 
   public List<String> getAffectedIndexes() {
@@ -208,7 +198,46 @@ public class ElasticsearchPersistWriter implements StreamsPersistWriter, Seriali
       return;
     }
 
-    checkForBackOff();
+    try {
+      add(prepareIndexRequest(streamsDatum));
+    } catch (Throwable ex) {
+      LOGGER.warn("Unable to Write Datum to ElasticSearch: {}", ex.getMessage());
+    }
+  }
+
+  /**
+   * Writes a batch of datums.  Index requests are built first, then handed to the bulk engine together.
+   * @param streamsData datums to write
+   */
+  @Override
+  public void write(List<StreamsDatum> streamsData) {
+
+    List<IndexRequest> requests = new ArrayList<>(streamsData.size());
+    for (StreamsDatum streamsDatum : streamsData) {
+      if (streamsDatum == null || streamsDatum.getDocument() == null) {
+        continue;
+      }
+      try {
+        requests.add(prepareIndexRequest(streamsDatum));
+      } catch (Throwable ex) {
+        LOGGER.warn("Unable to Write Datum to ElasticSearch: {}", ex.getMessage());
+      }
+    }
+
+    try {
+      add(requests);
+    } catch (Throwable ex) {
+      LOGGER.warn("Unable to Write Batch to ElasticSearch: {}", ex.getMessage());
+    }
+  }
+
+  /**
+   * build an IndexRequest for a datum, using index, type, id, parent and routing from its metadata.
+   * @param streamsDatum streamsDatum
+   * @return IndexRequest
+   * @throws IOException IOException
+   */
+  protected IndexRequest prepareIndexRequest(StreamsDatum streamsDatum) throws IOException {
 
     LOGGER.debug("Write Document: {}", streamsDatum.getDocument());
 
@@ -222,15 +251,11 @@ public class ElasticsearchPersistWriter implements StreamsPersistWriter, Seriali
     String parent = ElasticsearchMetadataUtil.getParent(streamsDatum);
     String routing = ElasticsearchMetadataUtil.getRouting(streamsDatum);
 
-    try {
-      streamsDatum = appendMetadata(streamsDatum);
-      String docAsJson = docAsJson(streamsDatum.getDocument());
-      add(index, type, id, parent, routing,
-          streamsDatum.getTimestamp() == null ? Long.toString(DateTime.now().getMillis()) : Long.toString(streamsDatum.getTimestamp().getMillis()),
-          docAsJson);
-    } catch (Throwable ex) {
-      LOGGER.warn("Unable to Write Datum to ElasticSearch: {}", ex.getMessage());
-    }
+    streamsDatum = appendMetadata(streamsDatum);
+    String docAsJson = docAsJson(streamsDatum.getDocument());
+    return prepareIndexRequest(index, type, id, parent, routing,
+        streamsDatum.getTimestamp() == null ? Long.toString(DateTime.now().getMillis()) : Long.toString(streamsDatum.getTimestamp().getMillis()),
+        docAsJson);
   }
 
   protected String docAsJson(Object streamsDocument) throws IOException {
@@ -241,11 +266,12 @@ public class ElasticsearchPersistWriter implements StreamsPersistWriter, Seriali
 
     String docAsJson = (streamsDatum.getDocument() instanceof String) ? streamsDatum.getDocument().toString() : OBJECT_MAPPER.writeValueAsString(streamsDatum.getDocument());
 
-    if (streamsDatum.getMetadata() == null || streamsDatum.getMetadata().size() == 0) {
+    Map<String, Object> metadata = DatumUtils.getStorableMetadata(streamsDatum);
+    if (metadata == null || metadata.size() == 0) {
       return streamsDatum;
     } else {
       ObjectNode node = (ObjectNode)OBJECT_MAPPER.readTree(docAsJson);
-      node.put("_metadata", OBJECT_MAPPER.readTree(OBJECT_MAPPER.writeValueAsBytes(streamsDatum.getMetadata())));
+      node.put("_metadata", OBJECT_MAPPER.readTree(OBJECT_MAPPER.writeValueAsBytes(metadata)));
       streamsDatum.setDocument(OBJECT_MAPPER.writeValueAsString(node));
       return streamsDatum;
     }
@@ -259,13 +285,15 @@ public class ElasticsearchPersistWriter implements StreamsPersistWriter, Seriali
       LOGGER.debug("cleanUp started");
 
       // before they close, check to ensure that
-      flushInternal();
+      this.bulkEngine.flush();
 
-      LOGGER.debug("flushInternal completed");
+      LOGGER.debug("flush completed");
 
-      waitToCatchUp(0, 5 * 60 * 1000);
+      if (!this.bulkEngine.awaitCompletion(5 * 60 * 1000)) {
+        LOGGER.warn("Timed out waiting for {} outstanding items", this.getTotalOutstanding());
+      }
 
-      LOGGER.debug("waitToCatchUp completed");
+      LOGGER.debug("awaitCompletion completed");
 
     } catch (Throwable ex) {
       // this line of code should be logically unreachable.
@@ -282,8 +310,9 @@ public class ElasticsearchPersistWriter implements StreamsPersistWriter, Seriali
       }
 
       LOGGER.debug("Closed ElasticSearch Writer: Ok[{}] Failed[{}] Orphaned[{}]",
-          this.totalOk.get(), this.totalFailed.get(), this.getTotalOutstanding());
+          this.getTotalOk(), this.getTotalFailed(), this.getTotalOutstanding());
       timer.cancel();
+      this.bulkEngine.close();
 
       LOGGER.debug("cleanUp completed");
     }
@@ -325,81 +354,6 @@ public class ElasticsearchPersistWriter implements StreamsPersistWriter, Seriali
     }
   }
 
-  private synchronized void flushInternal() {
-    // we do not have a working bulk request, we can just exit here.
-    if (this.bulkRequest == null || this.currentBatchItems.get() == 0) {
-      return;
-    }
-
-    // wait for one minute to catch up if it needs to
-    waitToCatchUp(5, 60 * 1000);
-
-    // call the flush command.
-    flush(this.bulkRequest, this.currentBatchItems.get(), this.currentBatchBytes.get());
-
-    // reset the current batch statistics
-    this.currentBatchItems.set(0);
-    this.currentBatchBytes.set(0);
-
-    // reset our bulk request builder
-    this.bulkRequest = this.manager.client().prepareBulk();
-  }
-
-  private synchronized void waitToCatchUp(int batchThreshold, int timeOutThresholdInMS) {
-    int counter = 0;
-    // If we still have 5 batches outstanding, we need to give it a minute to catch up
-    while (this.getBatchesSent() - this.getBatchesResponded() > batchThreshold && counter < timeOutThresholdInMS) {
-      try {
-        Thread.yield();
-        Thread.sleep(1);
-        counter++;
-      } catch (InterruptedException ie) {
-        LOGGER.warn("Catchup was interrupted.  Data may be lost");
-        return;
-      }
-    }
-  }
-
-  private void checkForBackOff() {
-    try {
-      if (this.getTotalOutstanding() > WAITING_DOCS_LIMIT) {
-        /*
-         * Author:
-         * Smashew
-         *
-         * Date:
-         * 2013-10-20
-         *
-         * Note:
-         * With the information that we have on hand. We need to develop a heuristic
-         * that will determine when the cluster is having a problem indexing records
-         * by telling it to pause and wait for it to catch back up. A
-         *
-         * There is an impact to us, the caller, whenever this happens as well. Items
-         * that are not yet fully indexed by the server sit in a queue, on the client
-         * that can cause the heap to overflow. This has been seen when re-indexing
-         * large amounts of data to a small cluster. The "deletes" + "indexes" can
-         * cause the server to have many 'outstandingItems" in queue. Running this
-         * software with large amounts of data, on a small cluster, can re-create
-         * this problem.
-         *
-         * DO NOT DELETE THESE LINES
-         ****************************************************************************/
-
-        // wait for the flush to catch up. We are going to cap this at
-        int count = 0;
-        while (this.getTotalOutstanding() > WAITING_DOCS_LIMIT && count++ < 500) {
-          Thread.sleep(10);
-        }
-        if (this.getTotalOutstanding() > WAITING_DOCS_LIMIT) {
-          LOGGER.warn("Even after back-off there are {} items still in queue.", this.getTotalOutstanding());
-        }
-      }
-    } catch (Exception ex) {
-      LOGGER.warn("We were broken from our loop: {}", ex.getMessage());
-    }
-  }
-
   /**
    * add based on supplied parameters.
    * @param indexName indexName
@@ -422,6 +376,21 @@ public class ElasticsearchPersistWriter implements StreamsPersistWriter, Seriali
    * @param json json
    */
   public void add(String indexName, String type, String id, String parent, String routing, String ts, String json) {
+    add(prepareIndexRequest(indexName, type, id, parent, routing, ts, json));
+  }
+
+  /**
+   * build an IndexRequest based on supplied parameters.
+   * @param indexName indexName
+   * @param type type
+   * @param id id
+   * @param parent parent
+   * @param routing routing
+   * @param ts ts
+   * @param json json
+   * @return IndexRequest
+   */
+  protected IndexRequest prepareIndexRequest(String indexName, String type, String id, String parent, String routing, String ts, String json) {
 
     // make sure that these are not null
     Objects.requireNonNull(indexName);
@@ -445,45 +414,57 @@ public class ElasticsearchPersistWriter implements StreamsPersistWriter, Seriali
     if (routing != null) {
       indexRequestBuilder.setRouting(routing);
     }
-    add(indexRequestBuilder.request());
+    return indexRequestBuilder.request();
   }
 
-  protected void add(IndexRequest request) {
+  /**
+   * add an index, update or delete request to the bulk engine.
+   * @param request request
+   */
+  protected void add(ActionRequest<?> request) {
 
     Objects.requireNonNull(request);
-    Objects.requireNonNull(request.index());
 
-    // If our queue is larger than our flush threshold, then we should flush the queue.
-    synchronized (this) {
-      checkIndexImplications(request.index());
+    this.bulkEngine.add(request);
+  }
 
-      bulkRequest.add(request);
+  protected void add(IndexRequest request) {
 
-      this.currentBatchBytes.addAndGet(request.source().length());
-      this.currentBatchItems.incrementAndGet();
+    Objects.requireNonNull(request);
+    Objects.requireNonNull(request.index());
 
-      checkForFlush();
-    }
+    checkIndexImplications(request.index());
+
+    add((ActionRequest<?>) request);
   }
 
-  protected void checkForFlush() {
-    synchronized (this) {
-      if (this.currentBatchBytes.get() >= this.flushThresholdBytes
-          ||
-          this.currentBatchItems.get() >= this.flushThresholdsRecords
-          ||
-          new Date().getTime() - this.lastFlush >= this.flushThresholdTime) {
-        // We should flush
-        flushInternal();
+  /**
+   * add a batch of IndexRequests.
+   * @param requests requests
+   */
+  protected void add(List<IndexRequest> requests) {
+
+    String lastIndex = null;
+    for (IndexRequest request : requests) {
+      Objects.requireNonNull(request.index());
+      if (!request.index().equals(lastIndex)) {
+        checkIndexImplications(request.index());
+        lastIndex = request.index();
       }
+
+      add((ActionRequest<?>) request);
     }
   }
 
   protected void checkIndexImplications(String indexName) {
+    // this will be common if we have already verified the index, so check without taking the lock.
+    if (this.checkedIndexes.contains(indexName)) {
+      return;
+    }
+
     // We need this to be safe across all writers that are currently being executed
     synchronized (ElasticsearchPersistWriter.class) {
 
-      // this will be common if we have already verified the index.
       if (this.affectedIndexes.contains(indexName)) {
         return;
       }
@@ -493,6 +474,7 @@ public class ElasticsearchPersistWriter implements StreamsPersistWriter, Seriali
 
       // we haven't log this index.
       this.affectedIndexes.add(indexName);
+      this.checkedIndexes.add(indexName);
 
     }
   }
@@ -547,21 +529,13 @@ public class ElasticsearchPersistWriter implements StreamsPersistWriter, Seriali
         ? Boolean.FALSE
         : config.getBulk();
 
-    this.flushThresholdsRecords = config.getBatchSize() == null
-        ? DEFAULT_BATCH_SIZE
-        : (int)(config.getBatchSize().longValue());
-
     this.flushThresholdTime = config.getMaxTimeBetweenFlushMs() != null && config.getMaxTimeBetweenFlushMs() > 0
         ? config.getMaxTimeBetweenFlushMs()
         : DEFAULT_MAX_WAIT;
 
-    this.flushThresholdBytes = config.getBatchBytes() == null
-        ? DEFAULT_BULK_FLUSH_THRESHOLD
-        : config.getBatchBytes();
-
     timer.scheduleAtFixedRate(new TimerTask() {
       public void run() {
-        checkForFlush();
+        bulkEngine.flushOlderThan(flushThresholdTime);
       }
     }, this.flushThresholdTime, this.flushThresholdTime);
 
@@ -570,67 +544,4 @@ public class ElasticsearchPersistWriter implements StreamsPersistWriter, Seriali
     }
   }
 
-  private void flush(final BulkRequestBuilder bulkRequest, final Long sent, final Long sizeInBytes) {
-    LOGGER.debug("Writing to ElasticSearch: Items[{}] Size[{} mb]", sent, MEGABYTE_FORMAT.format(sizeInBytes / (double) (1024 * 1024)));
-
-
-    // record the last time we flushed the index
-    this.lastFlush = new Date().getTime();
-
-    // add the totals
-    this.totalSent.addAndGet(sent);
-
-    // add the total number of batches sent
-    this.batchesSent.incrementAndGet();
-
-    try {
-      bulkRequest.execute().addListener(new ActionListener<BulkResponse>() {
-        public void onResponse(BulkResponse bulkItemResponses) {
-          batchesResponded.incrementAndGet();
-          updateTotals(bulkItemResponses, sent, sizeInBytes);
-        }
-
-        public void onFailure(Throwable throwable) {
-          batchesResponded.incrementAndGet();
-          throwable.printStackTrace();
-        }
-      });
-    } catch (Throwable ex) {
-      LOGGER.error("There was an error sending the batch: {}", ex.getMessage());
-    }
-  }
-
-  private void updateTotals(final BulkResponse bulkItemResponses, final Long sent, final Long sizeInBytes) {
-    long failed = 0;
-    long passed = 0;
-    long millis = bulkItemResponses.getTookInMillis();
-
-    // keep track of the number of totalFailed and items that we have totalOk.
-    for (BulkItemResponse resp : bulkItemResponses.getItems()) {
-      if (resp == null || resp.isFailed()) {
-        failed++;
-        LOGGER.debug("{} ({},{},{}) failed: {}", resp.getOpType(), resp.getIndex(), resp.getType(), resp.getId(), resp.getFailureMessage());
-      } else {
-        passed++;
-      }
-    }
-
-    if (failed > 0) {
-      LOGGER.warn("Bulk Uploading had {} failures of {}", failed, sent);
-    }
-
-    this.totalOk.addAndGet(passed);
-    this.totalFailed.addAndGet(failed);
-    this.totalSeconds.addAndGet(millis / 1000);
-    this.totalSizeInBytes.addAndGet(sizeInBytes);
-
-    if (sent != (passed + failed)) {
-      LOGGER.error("Count MisMatch: Sent[{}] Passed[{}] Failed[{}]", sent, passed, failed);
-    }
-
-    LOGGER.debug("Batch[{}mb {} items with {} failures in {}ms] - Total[{}mb {} items with {} failures in {}seconds] {} outstanding]",
-        MEGABYTE_FORMAT.format(sizeInBytes / (double) (1024 * 1024)), NUMBER_FORMAT.format(passed), NUMBER_FORMAT.format(failed), NUMBER_FORMAT.format(millis),
-        MEGABYTE_FORMAT.format((double) totalSizeInBytes.get() / (double) (1024 * 1024)), NUMBER_FORMAT.format(totalOk), NUMBER_FORMAT.format(totalFailed), NUMBER_FORMAT.format(totalSeconds), NUMBER_FORMAT.format(getTotalOutstanding()));
-  }
-
 }
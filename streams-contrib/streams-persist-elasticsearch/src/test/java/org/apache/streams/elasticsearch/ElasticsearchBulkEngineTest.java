@@ -0,0 +1,232 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.streams.elasticsearch;
+
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.ActionRequest;
+import org.elasticsearch.action.bulk.BulkItemResponse;
+import org.elasticsearch.action.bulk.BulkRequest;
+import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.action.index.IndexRequest;
+import org.elasticsearch.action.index.IndexResponse;
+import org.elasticsearch.common.util.concurrent.EsRejectedExecutionException;
+import org.junit.After;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit Test for
+ * @see org.apache.streams.elasticsearch.ElasticsearchBulkEngine
+ */
+public class ElasticsearchBulkEngineTest {
+
+  private final StubBulkEndpoint endpoint = new StubBulkEndpoint();
+
+  @After
+  public void shutdownEndpoint() {
+    endpoint.shutdown();
+  }
+
+  @Test
+  public void testAllActionsAcknowledged() throws Exception {
+    ElasticsearchBulkEngine engine = new ElasticsearchBulkEngine(null, endpoint, 10, 5L * 1024L * 1024L, 4, 1000, true);
+    int threads = 4;
+    int perThread = 1000;
+    ExecutorService writers = Executors.newFixedThreadPool(threads);
+    try {
+      List<Future<?>> futures = new ArrayList<>();
+      for (int t = 0; t < threads; ++t) {
+        final int offset = t * perThread;
+        futures.add(writers.submit(() -> {
+          for (int i = 0; i < perThread; ++i) {
+            engine.add(indexRequest(offset + i));
+          }
+        }));
+      }
+      for (Future<?> future : futures) {
+        future.get(60, TimeUnit.SECONDS);
+      }
+    } finally {
+      writers.shutdownNow();
+    }
+    engine.flush();
+    assertTrue(engine.awaitCompletion(60000));
+    engine.close();
+
+    assertEquals(threads * perThread, engine.getTotalSent());
+    assertEquals(threads * perThread, engine.getTotalOk());
+    assertEquals(0, engine.getTotalFailed());
+    assertEquals(0, engine.getTotalOutstanding());
+    assertEquals(threads * perThread, endpoint.actionsAcknowledged.get());
+    assertEquals(engine.getBatchesSent(), engine.getBatchesResponded());
+    assertTrue(endpoint.maxInFlight.get() <= 4);
+    assertTrue(engine.getBatchSize() > 10);
+    assertTrue(engine.getConcurrency() > 1);
+  }
+
+  @Test
+  public void testRejectedActionsAreRetried() throws Exception {
+    endpoint.rejectedRequests.set(1);
+    endpoint.rejectedItemRequests.set(2);
+    ElasticsearchBulkEngine engine = new ElasticsearchBulkEngine(null, endpoint, 50, 5L * 1024L * 1024L, 4, 1000, true);
+    for (int i = 0; i < 500; ++i) {
+      engine.add(indexRequest(i));
+    }
+    engine.flush();
+    assertTrue(engine.awaitCompletion(60000));
+    engine.close();
+
+    assertEquals(500, engine.getTotalOk());
+    assertEquals(0, engine.getTotalFailed());
+    assertEquals(500, endpoint.actionsAcknowledged.get());
+    assertEquals(3, engine.getBatchesRejected());
+    assertTrue(engine.getTotalRetried() > 0);
+  }
+
+  @Test
+  public void testControllerIncreasesAdditively() {
+    ElasticsearchBulkEngine.Controller controller = new ElasticsearchBulkEngine.Controller(100, 4, 1000, true);
+    assertEquals(100, controller.getBatchSize());
+    assertEquals(1, controller.getConcurrency());
+    controller.onResponse(10, false);
+    assertEquals(110, controller.getBatchSize());
+    assertEquals(2, controller.getConcurrency());
+    controller.onResponse(10, false);
+    assertEquals(2, controller.getConcurrency());
+    controller.onResponse(10, false);
+    assertEquals(3, controller.getConcurrency());
+    for (int i = 0; i < 1000; ++i) {
+      controller.onResponse(10, false);
+    }
+    assertEquals(1000, controller.getBatchSize());
+    assertEquals(4, controller.getConcurrency());
+  }
+
+  @Test
+  public void testControllerDecreasesMultiplicatively() {
+    ElasticsearchBulkEngine.Controller controller = new ElasticsearchBulkEngine.Controller(100, 8, 1000, true);
+    for (int i = 0; i < 100; ++i) {
+      controller.onResponse(10, false);
+    }
+    assertEquals(8, controller.getConcurrency());
+    int batchSize = controller.getBatchSize();
+    controller.onResponse(10, true);
+    assertEquals(batchSize / 2, controller.getBatchSize());
+    assertEquals(4, controller.getConcurrency());
+    batchSize = controller.getBatchSize();
+    controller.onResponse(5000, false);
+    assertEquals(batchSize - batchSize / 4, controller.getBatchSize());
+    assertEquals(4, controller.getConcurrency());
+    for (int i = 0; i < 100; ++i) {
+      controller.onResponse(10, true);
+    }
+    assertEquals(1, controller.getBatchSize());
+    assertEquals(1, controller.getConcurrency());
+  }
+
+  @Test
+  public void testControllerFixedWhenNotAdaptive() {
+    ElasticsearchBulkEngine.Controller controller = new ElasticsearchBulkEngine.Controller(100, 4, 1000, false);
+    controller.onResponse(10, false);
+    controller.onResponse(10, true);
+    assertEquals(100, controller.getBatchSize());
+    assertEquals(4, controller.getConcurrency());
+  }
+
+  @Test
+  public void testMXBeanRegistration() throws Exception {
+    ElasticsearchBulkEngine engine = new ElasticsearchBulkEngine("test_engine", endpoint, 100, 1024L, 4, 1000, true);
+    MBeanServer mbs = ManagementFactory.getPlatformMBeanServer();
+    ObjectName name = new ObjectName(String.format(ElasticsearchBulkEngine.NAME_TEMPLATE, "test_engine"));
+    assertTrue(mbs.isRegistered(name));
+    assertEquals(100, mbs.getAttribute(name, "BatchSize"));
+    assertEquals(1, mbs.getAttribute(name, "Concurrency"));
+    engine.close();
+    assertFalse(mbs.isRegistered(name));
+  }
+
+  private static ActionRequest<?> indexRequest(int id) {
+    return new IndexRequest("index", "type", Integer.toString(id)).source("{\"id\":" + id + "}");
+  }
+
+  /**
+   * Responds to bulk requests asynchronously after a short delay, rejecting whole requests or every item of a
+   * request while the configured counts last.
+   */
+  private static class StubBulkEndpoint implements ElasticsearchBulkEngine.BulkExecutor {
+
+    private static final long LATENCY_MS = 2;
+
+    private final ScheduledExecutorService responder = Executors.newScheduledThreadPool(4);
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+    private final AtomicInteger actionsAcknowledged = new AtomicInteger();
+    private final AtomicInteger rejectedRequests = new AtomicInteger();
+    private final AtomicInteger rejectedItemRequests = new AtomicInteger();
+
+    @Override
+    public void execute(BulkRequest request, ActionListener<BulkResponse> listener) {
+      int current = inFlight.incrementAndGet();
+      maxInFlight.accumulateAndGet(current, Math::max);
+      responder.schedule(() -> {
+        inFlight.decrementAndGet();
+        if (rejectedRequests.getAndDecrement() > 0) {
+          listener.onFailure(new EsRejectedExecutionException("rejected execution of bulk request"));
+          return;
+        }
+        boolean rejectItems = rejectedItemRequests.getAndDecrement() > 0;
+        List<ActionRequest> requests = request.requests();
+        BulkItemResponse[] items = new BulkItemResponse[requests.size()];
+        for (int i = 0; i < items.length; ++i) {
+          IndexRequest indexRequest = (IndexRequest) requests.get(i);
+          if (rejectItems) {
+            items[i] = new BulkItemResponse(i, "index", new BulkItemResponse.Failure(indexRequest.index(),
+                indexRequest.type(), indexRequest.id(), new EsRejectedExecutionException("rejected execution")));
+          } else {
+            items[i] = new BulkItemResponse(i, "index",
+                new IndexResponse(indexRequest.index(), indexRequest.type(), indexRequest.id(), 1, true));
+            actionsAcknowledged.incrementAndGet();
+          }
+        }
+        listener.onResponse(new BulkResponse(items, LATENCY_MS));
+      }, LATENCY_MS, TimeUnit.MILLISECONDS);
+    }
+
+    private void shutdown() {
+      responder.shutdownNow();
+    }
+  }
+
+}
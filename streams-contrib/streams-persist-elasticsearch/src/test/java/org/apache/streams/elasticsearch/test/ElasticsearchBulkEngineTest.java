@@ -0,0 +1,285 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.streams.elasticsearch.test;
+
+import org.apache.streams.elasticsearch.ElasticsearchBulkEngine;
+import org.apache.streams.jackson.StreamsJacksonMapper;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpServer;
+import org.elasticsearch.ElasticsearchException;
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.ActionRequest;
+import org.elasticsearch.action.bulk.BulkItemResponse;
+import org.elasticsearch.action.bulk.BulkRequest;
+import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.action.index.IndexRequest;
+import org.elasticsearch.action.index.IndexResponse;
+import org.elasticsearch.common.util.concurrent.EsRejectedExecutionException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit Test for
+ * @see org.apache.streams.elasticsearch.ElasticsearchBulkEngine
+ * against a local stub of the _bulk endpoint that rejects work the way a saturated cluster does.
+ */
+public class ElasticsearchBulkEngineTest {
+
+  private static final int DOCUMENTS = 10;
+
+  private final ObjectMapper mapper = StreamsJacksonMapper.getInstance();
+
+  private HttpServer server;
+  private ExecutorService serverExecutor;
+  private ExecutorService clientExecutor;
+  private final AtomicInteger requests = new AtomicInteger();
+  private final List<Integer> actionsPerRequest = new ArrayList<>();
+  private final Set<String> indexed = ConcurrentHashMap.newKeySet();
+
+  /**
+   * Answers request number n (from 0) with HTTP 429 if requestStatus returns 429, otherwise answers each item with
+   * the status itemStatus returns for it.
+   */
+  private volatile StubStatus requestStatus = (request, id) -> 200;
+  private volatile StubStatus itemStatus = (request, id) -> 201;
+
+  private interface StubStatus {
+
+    int status(int request, String id);
+
+  }
+
+  @Before
+  public void startServer() throws Exception {
+    server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+    server.createContext("/_bulk", exchange -> {
+      int request = requests.getAndIncrement();
+      List<JsonNode> actions = new ArrayList<>();
+      try (BufferedReader reader = new BufferedReader(new InputStreamReader(exchange.getRequestBody(), StandardCharsets.UTF_8))) {
+        String line;
+        while ((line = reader.readLine()) != null) {
+          actions.add(mapper.readTree(line).get("index"));
+          // source line
+          reader.readLine();
+        }
+      }
+      synchronized (actionsPerRequest) {
+        actionsPerRequest.add(actions.size());
+      }
+      ObjectNode response = mapper.createObjectNode();
+      int status = requestStatus.status(request, null);
+      if (status == 429) {
+        response.set("error", rejection());
+        response.put("status", status);
+      } else {
+        response.put("took", 1);
+        ArrayNode items = response.putArray("items");
+        for (JsonNode action : actions) {
+          String id = action.get("_id").asText();
+          ObjectNode item = action.deepCopy();
+          int itemStatus = this.itemStatus.status(request, id);
+          item.put("status", itemStatus);
+          if (itemStatus == 429) {
+            item.set("error", rejection());
+          } else if (itemStatus >= 300) {
+            item.set("error", mapper.createObjectNode()
+                .put("type", "mapper_parsing_exception")
+                .put("reason", "failed to parse"));
+          } else {
+            item.put("_version", 1);
+            indexed.add(id);
+          }
+          items.addObject().set("index", item);
+        }
+        response.put("errors", items.findValue("error") != null);
+      }
+      byte[] body = mapper.writeValueAsBytes(response);
+      exchange.sendResponseHeaders(status, body.length);
+      try (OutputStream out = exchange.getResponseBody()) {
+        out.write(body);
+      }
+    });
+    serverExecutor = Executors.newCachedThreadPool();
+    server.setExecutor(serverExecutor);
+    server.start();
+    clientExecutor = Executors.newCachedThreadPool();
+  }
+
+  @After
+  public void stopServer() throws Exception {
+    clientExecutor.shutdownNow();
+    server.stop(0);
+    serverExecutor.shutdownNow();
+  }
+
+  @Test
+  public void testRejectedBulkRequestIsRetried() throws Exception {
+    requestStatus = (request, id) -> request == 0 ? 429 : 200;
+    ElasticsearchBulkEngine engine = new ElasticsearchBulkEngine(null, this::bulk, DOCUMENTS, Long.MAX_VALUE, 1, 1000, false);
+    index(engine, DOCUMENTS);
+    assertTrue(engine.awaitCompletion(10000));
+    engine.close();
+
+    assertEquals(2, requests.get());
+    assertEquals(DOCUMENTS, indexed.size());
+    assertEquals(DOCUMENTS, engine.getTotalOk());
+    assertEquals(0, engine.getTotalFailed());
+    assertEquals(DOCUMENTS, engine.getTotalRetried());
+    assertEquals(1, engine.getBatchesRejected());
+  }
+
+  @Test
+  public void testRejectedItemsAreRetried() throws Exception {
+    // the first request rejects odd ids and fails id 0 for good, which must not be retried
+    itemStatus = (request, id) -> request > 0 ? 201 : id.equals("0") ? 400 : Integer.parseInt(id) % 2 == 1 ? 429 : 201;
+    ElasticsearchBulkEngine engine = new ElasticsearchBulkEngine(null, this::bulk, DOCUMENTS, Long.MAX_VALUE, 1, 1000, false);
+    index(engine, DOCUMENTS);
+    assertTrue(engine.awaitCompletion(10000));
+    engine.close();
+
+    assertEquals(2, requests.get());
+    assertEquals(DOCUMENTS / 2, (int) actionsPerRequest.get(1));
+    assertEquals(DOCUMENTS - 1, indexed.size());
+    assertEquals(DOCUMENTS - 1, engine.getTotalOk());
+    assertEquals(1, engine.getTotalFailed());
+    assertEquals(DOCUMENTS / 2, engine.getTotalRetried());
+    assertEquals(1, engine.getBatchesRejected());
+  }
+
+  @Test
+  public void testPersistentRejectionShrinksAdaptiveBatches() throws Exception {
+    itemStatus = (request, id) -> 429;
+    ElasticsearchBulkEngine engine = new ElasticsearchBulkEngine(null, this::bulk, DOCUMENTS, Long.MAX_VALUE, 4, 1000, true);
+    index(engine, DOCUMENTS);
+    assertTrue(engine.awaitCompletion(10000));
+
+    // the first attempt and three retries, each halving the batch size
+    assertEquals(4, requests.get());
+    assertEquals(0, engine.getTotalOk());
+    assertEquals(DOCUMENTS, engine.getTotalFailed());
+    assertEquals(4, engine.getBatchesRejected());
+    assertEquals(1, engine.getConcurrency());
+    assertEquals(1, engine.getBatchSize());
+
+    // once the cluster accepts work again the batch size recovers
+    itemStatus = (request, id) -> 201;
+    int before = engine.getBatchSize();
+    index(engine, DOCUMENTS);
+    assertTrue(engine.awaitCompletion(10000));
+    engine.close();
+    assertEquals(DOCUMENTS, engine.getTotalOk());
+    assertTrue(engine.getBatchSize() > before);
+  }
+
+  private void index(ElasticsearchBulkEngine engine, int count) {
+    for (int i = 0; i < count; i++) {
+      engine.add(new IndexRequest("index", "type", Integer.toString(i)).source("{\"id\":" + i + "}"));
+    }
+    engine.flush();
+  }
+
+  /**
+   * Sends the bulk request to the stub as ndjson, asynchronously as the transport client does, and translates the
+   * stub's answer into a BulkResponse or failure.
+   */
+  private void bulk(BulkRequest request, ActionListener<BulkResponse> listener) {
+    clientExecutor.execute(() -> {
+      try {
+        StringBuilder body = new StringBuilder();
+        for (ActionRequest action : request.requests()) {
+          IndexRequest index = (IndexRequest) action;
+          ObjectNode metadata = mapper.createObjectNode();
+          metadata.putObject("index")
+              .put("_index", index.index())
+              .put("_type", index.type())
+              .put("_id", index.id());
+          body.append(mapper.writeValueAsString(metadata)).append('\n');
+          body.append(index.source().toUtf8()).append('\n');
+        }
+        HttpURLConnection connection = (HttpURLConnection)
+            new URL("http://localhost:" + server.getAddress().getPort() + "/_bulk").openConnection();
+        connection.setRequestMethod("POST");
+        connection.setDoOutput(true);
+        try (OutputStream out = connection.getOutputStream()) {
+          out.write(body.toString().getBytes(StandardCharsets.UTF_8));
+        }
+        int status = connection.getResponseCode();
+        JsonNode response;
+        try (InputStream in = status >= 300 ? connection.getErrorStream() : connection.getInputStream()) {
+          response = mapper.readTree(in);
+        }
+        if (status == 429) {
+          listener.onFailure(new EsRejectedExecutionException(response.get("error").get("reason").asText()));
+          return;
+        }
+        List<BulkItemResponse> items = new ArrayList<>();
+        for (JsonNode item : response.get("items")) {
+          JsonNode index = item.get("index");
+          String indexName = index.get("_index").asText();
+          String type = index.get("_type").asText();
+          String id = index.get("_id").asText();
+          if (index.has("error")) {
+            String reason = index.get("error").get("reason").asText();
+            Throwable cause = index.get("error").get("type").asText().equals("es_rejected_execution_exception")
+                ? new EsRejectedExecutionException(reason)
+                : new ElasticsearchException(reason);
+            items.add(new BulkItemResponse(items.size(), "index", new BulkItemResponse.Failure(indexName, type, id, cause)));
+          } else {
+            items.add(new BulkItemResponse(items.size(), "index",
+                new IndexResponse(indexName, type, id, index.get("_version").asLong(), true)));
+          }
+        }
+        listener.onResponse(new BulkResponse(items.toArray(new BulkItemResponse[items.size()]), response.get("took").asLong()));
+      } catch (Exception ex) {
+        listener.onFailure(ex);
+      }
+    });
+  }
+
+  private ObjectNode rejection() {
+    return mapper.createObjectNode()
+        .put("type", "es_rejected_execution_exception")
+        .put("reason", "rejected execution of bulk on EsThreadPoolExecutor[bulk, queue capacity = 50]");
+  }
+
+}
@@ -0,0 +1,97 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.apache.streams.hbase;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hbase.HConstants;
+import org.apache.hadoop.hbase.client.Connection;
+import org.apache.hadoop.hbase.client.ConnectionFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * HbaseConnectionPool shares one Connection between the writers in a JVM that write to the same cluster.
+ *
+ * <p></p>
+ * Connections are thread-safe and expensive to create, so writer tasks acquire the cluster's connection and
+ * release it when done; it is closed once the last writer releases it.
+ */
+public class HbaseConnectionPool {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(HbaseConnectionPool.class);
+
+  private static final Map<String, SharedConnection> CONNECTIONS = new HashMap<>();
+
+  private HbaseConnectionPool() {
+  }
+
+  /**
+   * Get the connection to the cluster, creating it if no writer holds it.
+   * @param configuration hbase client configuration
+   * @return shared connection
+   * @throws IOException if the connection can't be created
+   */
+  public static synchronized Connection acquire(Configuration configuration) throws IOException {
+    String key = key(configuration);
+    SharedConnection shared = CONNECTIONS.get(key);
+    if (shared == null || shared.connection.isClosed()) {
+      LOGGER.info("Connecting to {}", key);
+      shared = new SharedConnection(ConnectionFactory.createConnection(configuration));
+      CONNECTIONS.put(key, shared);
+    }
+    shared.references++;
+    return shared.connection;
+  }
+
+  /**
+   * Release a connection obtained from {@link #acquire(Configuration)}, closing it if no other writer holds it.
+   * @param configuration hbase client configuration
+   * @throws IOException if closing the connection fails
+   */
+  public static synchronized void release(Configuration configuration) throws IOException {
+    String key = key(configuration);
+    SharedConnection shared = CONNECTIONS.get(key);
+    if (shared != null && --shared.references <= 0) {
+      CONNECTIONS.remove(key);
+      LOGGER.info("Closing connection to {}", key);
+      shared.connection.close();
+    }
+  }
+
+  private static String key(Configuration configuration) {
+    return configuration.get(HConstants.ZOOKEEPER_QUORUM) + ":"
+        + configuration.get(HConstants.ZOOKEEPER_CLIENT_PORT) + configuration.get(HConstants.ZOOKEEPER_ZNODE_PARENT);
+  }
+
+  private static class SharedConnection {
+
+    private final Connection connection;
+    private int references = 0;
+
+    private SharedConnection(Connection connection) {
+      this.connection = connection;
+    }
+  }
+
+}
@@ -20,43 +20,70 @@ package org.apache.streams.hbase;
 
 import org.apache.streams.config.ComponentConfigurator;
 import org.apache.streams.config.StreamsConfigurator;
+import org.apache.streams.core.DatumStatus;
+import org.apache.streams.core.DatumStatusCountable;
+import org.apache.streams.core.DatumStatusCounter;
 import org.apache.streams.core.StreamsDatum;
 import org.apache.streams.core.StreamsPersistWriter;
 import org.apache.streams.util.GuidUtils;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.hbase.HTableDescriptor;
+import org.apache.hadoop.hbase.TableName;
+import org.apache.hadoop.hbase.client.BufferedMutator;
+import org.apache.hadoop.hbase.client.BufferedMutatorParams;
+import org.apache.hadoop.hbase.client.Connection;
 import org.apache.hadoop.hbase.client.HConnection;
 import org.apache.hadoop.hbase.client.HConnectionManager;
 import org.apache.hadoop.hbase.client.HTable;
 import org.apache.hadoop.hbase.client.HTableInterface;
 import org.apache.hadoop.hbase.client.HTablePool;
 import org.apache.hadoop.hbase.client.Put;
+import org.apache.hadoop.hbase.client.RetriesExhaustedWithDetailsException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.Closeable;
 import java.io.Flushable;
 import java.io.IOException;
+import java.io.Serializable;
 import java.util.Queue;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * HbasePersistWriter writes to hbase.
+ *
+ * <p></p>
+ * With bufferedWrites, puts are collected by a BufferedMutator and sent when writeBufferSize bytes are buffered or
+ * every flushIntervalMs, on a connection shared through {@link HbaseConnectionPool} by every writer task writing
+ * to the cluster.  Puts that fail after the client's retries are counted as failed in the DatumStatusCounter.
  */
-public class HbasePersistWriter implements StreamsPersistWriter, Flushable, Closeable {
+public class HbasePersistWriter
+    implements StreamsPersistWriter, DatumStatusCountable, Flushable, Closeable, Serializable {
 
   public static final String STREAMS_ID = "HbasePersistWriter";
 
   private static final Logger LOGGER = LoggerFactory.getLogger(HbasePersistWriter.class);
 
-  protected HConnection connection;
-  protected HTablePool pool;
-  protected HTableInterface table;
-  protected HTableDescriptor descriptor;
+  protected transient HConnection connection;
+  protected transient HTablePool pool;
+  protected transient HTableInterface table;
+  protected transient HTableDescriptor descriptor;
+
+  protected transient Connection sharedConnection;
+  protected transient BufferedMutator mutator;
+  private transient ScheduledExecutorService flushScheduler;
+
+  private final AtomicLong attempted = new AtomicLong();
+  private final AtomicLong failed = new AtomicLong();
 
   protected volatile Queue<StreamsDatum> persistQueue;
 
@@ -83,7 +110,7 @@ public class HbasePersistWriter implements StreamsPersistWriter, Flushable, Clos
     this.persistQueue = new ConcurrentLinkedQueue<>();
   }
 
-  private synchronized void connectToHbase() {
+  private Configuration hbaseConfiguration() {
 
     // TODO: refactor this to resolve this stuff from typesafe
     Configuration configuration = new Configuration();
@@ -97,6 +124,13 @@ public class HbasePersistWriter implements StreamsPersistWriter, Flushable, Clos
 
     configuration.setInt("timeout", 1000);
 
+    return configuration;
+  }
+
+  private synchronized void connectToHbase() {
+
+    Configuration configuration = hbaseConfiguration();
+
     //pool = new HTablePool(configuration, 10);
     try {
       connection = HConnectionManager.createConnection(configuration);
@@ -131,6 +165,48 @@ public class HbasePersistWriter implements StreamsPersistWriter, Flushable, Clos
     }
   }
 
+  private synchronized void connectBuffered() {
+
+    Configuration configuration = hbaseConfiguration();
+
+    try {
+      sharedConnection = HbaseConnectionPool.acquire(configuration);
+      BufferedMutatorParams params = new BufferedMutatorParams(TableName.valueOf(config.getTable()))
+          .writeBufferSize(config.getWriteBufferSize())
+          .listener(this::onException);
+      mutator = sharedConnection.getBufferedMutator(params);
+    } catch (IOException ex) {
+      LOGGER.error("There was an error connecting to HBase, please check your settings and try again", ex);
+      return;
+    }
+
+    long flushIntervalMs = config.getFlushIntervalMs();
+    if (flushIntervalMs > 0) {
+      BufferedMutator buffered = mutator;
+      flushScheduler = Executors.newSingleThreadScheduledExecutor(
+          new ThreadFactoryBuilder().setNameFormat("hbase-flush-%d").setDaemon(true).build());
+      flushScheduler.scheduleWithFixedDelay(() -> {
+        try {
+          buffered.flush();
+        } catch (IOException ex) {
+          LOGGER.warn("Periodic flush to {} failed", config.getTable(), ex);
+        }
+      }, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    LOGGER.info("Writing to {} through a {} byte buffer", config.getTable(), mutator.getWriteBufferSize());
+  }
+
+  /*
+   * Called with the mutations that failed after the client's retries; they are counted rather than rethrown so
+   * one bad batch doesn't fail every later write.
+   */
+  private void onException(RetriesExhaustedWithDetailsException exception, BufferedMutator mutator) {
+    failed.addAndGet(exception.getNumExceptions());
+    LOGGER.warn("{} mutations to {} failed: {}", exception.getNumExceptions(), config.getTable(),
+        exception.getMessage());
+  }
+
   @Override
   public String getId() {
     return STREAMS_ID;
@@ -139,6 +215,29 @@ public class HbasePersistWriter implements StreamsPersistWriter, Flushable, Clos
   @Override
   public void write(StreamsDatum streamsDatum) {
 
+    attempted.incrementAndGet();
+
+    Put put = preparePut(streamsDatum);
+    if (put == null) {
+      failed.incrementAndGet();
+      return;
+    }
+
+    try {
+      if (mutator != null) {
+        mutator.mutate(put);
+      } else {
+        table.put(put);
+      }
+    } catch (IOException ex) {
+      failed.incrementAndGet();
+      LOGGER.warn("Failure executin put: {}", streamsDatum.getDocument().toString(), ex);
+    }
+
+  }
+
+  private Put preparePut(StreamsDatum streamsDatum) {
+
     ObjectNode node;
     byte[] row;
     if (StringUtils.isNotBlank(streamsDatum.getId())) {
@@ -153,7 +252,7 @@ public class HbasePersistWriter implements StreamsPersistWriter, Flushable, Clos
       } catch (IOException ex) {
         ex.printStackTrace();
         LOGGER.warn("Invalid json: {}", streamsDatum.getDocument().toString());
-        return;
+        return null;
       }
       try {
         byte[] value = node.binaryValue();
@@ -161,7 +260,7 @@ public class HbasePersistWriter implements StreamsPersistWriter, Flushable, Clos
       } catch (IOException ex) {
         ex.printStackTrace();
         LOGGER.warn("Failure adding object: {}", streamsDatum.getDocument().toString());
-        return;
+        return null;
       }
     } else {
       try {
@@ -169,7 +268,7 @@ public class HbasePersistWriter implements StreamsPersistWriter, Flushable, Clos
       } catch (Exception ex) {
         ex.printStackTrace();
         LOGGER.warn("Invalid json: {}", streamsDatum.getDocument().toString());
-        return;
+        return null;
       }
       put.setId(GuidUtils.generateGuid(node.toString()));
       try {
@@ -178,30 +277,61 @@ public class HbasePersistWriter implements StreamsPersistWriter, Flushable, Clos
       } catch (IOException ex) {
         ex.printStackTrace();
         LOGGER.warn("Failure preparing put: {}", streamsDatum.getDocument().toString());
-        return;
+        return null;
       }
 
     }
-    try {
-      table.put(put);
-    } catch (IOException ex) {
-      ex.printStackTrace();
-      LOGGER.warn("Failure executin put: {}", streamsDatum.getDocument().toString());
-    }
-
+    return put;
   }
 
   public void flush() throws IOException {
-    table.flushCommits();
+    if (mutator != null) {
+      mutator.flush();
+    } else {
+      table.flushCommits();
+    }
   }
 
+  /**
+   * Close the table, or stop periodic flushes, send what is still buffered and release the shared connection.
+   * @throws IOException IOException
+   */
   public synchronized void close() throws IOException {
-    table.close();
+    if (mutator != null) {
+      if (flushScheduler != null) {
+        flushScheduler.shutdown();
+      }
+      try {
+        mutator.close();
+      } finally {
+        mutator = null;
+        HbaseConnectionPool.release(hbaseConfiguration());
+      }
+    } else {
+      table.close();
+    }
+  }
+
+  @Override
+  public DatumStatusCounter getDatumStatusCounter() {
+    // buffered puts not yet sent count as successful until they fail
+    DatumStatusCounter counters = new DatumStatusCounter();
+    int attempts = (int) attempted.get();
+    int failures = (int) failed.get();
+    counters.incrementAttempt(attempts);
+    counters.incrementStatus(DatumStatus.SUCCESS, attempts - failures);
+    counters.incrementStatus(DatumStatus.FAIL, failures);
+    return counters;
   }
 
   @Override
   public void prepare(Object configurationObject) {
 
+    if (config.getBufferedWrites()) {
+      connectBuffered();
+      return;
+    }
+
     connectToHbase();
 
     Thread task = new Thread(new HbasePersistWriterTask(this));
@@ -19,6 +19,7 @@
 package org.apache.streams.hbase.test;
 
 import org.apache.streams.config.ComponentConfigurator;
+import org.apache.streams.core.DatumStatusCounter;
 import org.apache.streams.core.StreamsDatum;
 import org.apache.streams.hbase.HbaseConfiguration;
 import org.apache.streams.hbase.HbasePersistWriter;
@@ -40,6 +41,7 @@ import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
 import java.util.List;
 
+import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertTrue;
 
 /**
@@ -93,4 +95,41 @@ public class HbasePersistWriterIT {
 
   }
 
+  @Test(enabled = false)
+  public void testBufferedPersistWriter() throws Exception {
+
+    HbaseConfiguration bufferedConfiguration = MAPPER.convertValue(testConfiguration, HbaseConfiguration.class);
+    bufferedConfiguration.setBufferedWrites(true);
+    bufferedConfiguration.setWriteBufferSize(4096L);
+    bufferedConfiguration.setFlushIntervalMs(100L);
+
+    HbasePersistWriter first = new HbasePersistWriter(bufferedConfiguration);
+    HbasePersistWriter second = new HbasePersistWriter(bufferedConfiguration);
+    first.prepare(bufferedConfiguration);
+    second.prepare(bufferedConfiguration);
+
+    InputStream testActivityFolderStream = HbasePersistWriterIT.class.getClassLoader()
+        .getResourceAsStream("activities");
+    List<String> files = IOUtils.readLines(testActivityFolderStream, StandardCharsets.UTF_8);
+
+    int count = 0;
+    for( String file : files) {
+      InputStream testActivityFileStream = HbasePersistWriterIT.class.getClassLoader()
+          .getResourceAsStream("activities/" + file);
+      Activity activity = MAPPER.readValue(testActivityFileStream, Activity.class);
+      StreamsDatum datum = new StreamsDatum(activity, activity.getVerb());
+      (count++ % 2 == 0 ? first : second).write( datum );
+    }
+
+    first.cleanUp();
+    second.cleanUp();
+
+    DatumStatusCounter counter = first.getDatumStatusCounter();
+    counter.add(second.getDatumStatusCounter());
+    assertEquals(counter.getAttempted(), count);
+    assertEquals(counter.getSuccess(), count);
+    assertEquals(counter.getFail(), 0);
+
+  }
+
 }
@@ -0,0 +1,68 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.streams.hdfs;
+
+import org.apache.hadoop.fs.Path;
+
+/**
+ * A byte range of a file read by a
+ * @see org.apache.streams.hdfs.WebHdfsPersistReaderWorker
+ */
+public class WebHdfsFileSplit {
+
+  private final Path path;
+  private final long start;
+  private final long length;
+  private final boolean compressed;
+
+  /**
+   * WebHdfsFileSplit constructor.
+   * @param path file
+   * @param start offset of the first byte of the split
+   * @param length number of bytes in the split
+   * @param compressed whether the file is gzipped, in which case the split always covers the whole file
+   */
+  public WebHdfsFileSplit(Path path, long start, long length, boolean compressed) {
+    this.path = path;
+    this.start = start;
+    this.length = length;
+    this.compressed = compressed;
+  }
+
+  public Path getPath() {
+    return path;
+  }
+
+  public long getStart() {
+    return start;
+  }
+
+  public long getLength() {
+    return length;
+  }
+
+  public boolean isCompressed() {
+    return compressed;
+  }
+
+  @Override
+  public String toString() {
+    return path.getName() + ":" + start + "+" + length;
+  }
+}
@@ -22,6 +22,7 @@ import org.apache.streams.config.ComponentConfigurator;
 import org.apache.streams.config.StreamsConfiguration;
 import org.apache.streams.config.StreamsConfigurator;
 import org.apache.streams.converter.LineReadWriteUtil;
+import org.apache.streams.core.DatumStatus;
 import org.apache.streams.core.DatumStatusCountable;
 import org.apache.streams.core.DatumStatusCounter;
 import org.apache.streams.core.StreamsDatum;
@@ -49,24 +50,37 @@ import java.math.BigInteger;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.security.PrivilegedExceptionAction;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
 import java.util.List;
 import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedDeque;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
 
 /**
  * WebHdfsPersistReader reads from hdfs.
+ * <p/>
+ * With readerThreads greater than 1, files are read in parallel by
+ * {@link org.apache.streams.hdfs.WebHdfsPersistReaderWorker}s.  Uncompressed files larger than splitSize are
+ * divided into byte ranges read by different workers, unless preserveFileOrder is set, in which case every file is
+ * read start to finish by a single worker.
  */
 public class WebHdfsPersistReader implements StreamsPersistReader, DatumStatusCountable {
 
   public static final String STREAMS_ID = "WebHdfsPersistReader";
 
   private static final Logger LOGGER = LoggerFactory.getLogger(WebHdfsPersistReader.class);
+  private static final long EMPTY_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
 
   protected static final char DELIMITER = '\t';
 
@@ -88,6 +102,10 @@ public class WebHdfsPersistReader implements StreamsPersistReader, DatumStatusCo
   protected DatumStatusCounter countersCurrent = new DatumStatusCounter();
   private Future<?> task;
 
+  protected final AtomicInteger failedLines = new AtomicInteger(0);
+  private volatile List<WebHdfsPersistReaderWorker> workers;
+  private int nextWorker = 0;
+
   /**
    * WebHdfsPersistReader constructor - resolves HdfsReaderConfiguration from JVM 'hdfs'.
    */
@@ -218,17 +236,24 @@ public class WebHdfsPersistReader implements StreamsPersistReader, DatumStatusCo
     }
     streamsConfiguration = StreamsConfigurator.detectConfiguration();
     persistQueue = Queues.synchronizedQueue(new LinkedBlockingQueue<StreamsDatum>(streamsConfiguration.getBatchSize().intValue()));
-    executor = Executors.newSingleThreadExecutor();
+    executor = isParallel()
+        ? Executors.newFixedThreadPool(getReaderThreads())
+        : Executors.newSingleThreadExecutor();
     mapper = StreamsJacksonMapper.getInstance();
   }
 
   @Override
   public void cleanUp() {
-
+    if (isParallel() && executor != null) {
+      executor.shutdownNow();
+    }
   }
 
   @Override
   public StreamsResultSet readAll() {
+    if (isParallel()) {
+      return readAllFromWorkers();
+    }
     WebHdfsPersistReaderTask readerTask = new WebHdfsPersistReaderTask(this);
     Thread readerThread = new Thread(readerTask);
     readerThread.start();
@@ -243,12 +268,20 @@ public class WebHdfsPersistReader implements StreamsPersistReader, DatumStatusCo
   @Override
   public void startStream() {
     LOGGER.debug("startStream");
-    task = executor.submit(new WebHdfsPersistReaderTask(this));
+    if (isParallel()) {
+      startWorkers();
+    } else {
+      task = executor.submit(new WebHdfsPersistReaderTask(this));
+    }
   }
 
   @Override
   public StreamsResultSet readCurrent() {
 
+    if (isParallel()) {
+      return readCurrentFromWorkers();
+    }
+
     StreamsResultSet current;
 
     synchronized ( WebHdfsPersistReader.class ) {
@@ -286,6 +319,18 @@ public class WebHdfsPersistReader implements StreamsPersistReader, DatumStatusCo
 
   @Override
   public boolean isRunning() {
+    if (isParallel()) {
+      List<WebHdfsPersistReaderWorker> current = workers;
+      if (current == null) {
+        return true;
+      }
+      for (WebHdfsPersistReaderWorker worker : current) {
+        if (!worker.isDone()) {
+          return true;
+        }
+      }
+      return false;
+    }
     return task == null || !task.isDone() && !task.isCancelled();
   }
 
@@ -293,4 +338,120 @@ public class WebHdfsPersistReader implements StreamsPersistReader, DatumStatusCo
   public DatumStatusCounter getDatumStatusCounter() {
     return countersTotal;
   }
+
+  private boolean isParallel() {
+    return getReaderThreads() > 1;
+  }
+
+  private int getReaderThreads() {
+    return hdfsConfiguration.getReaderThreads() == null ? 1 : hdfsConfiguration.getReaderThreads().intValue();
+  }
+
+  /**
+   * Divide the files found by prepare into splits.  Gzipped files, files no larger than splitSize and, when
+   * preserveFileOrder is set, all files are read whole.
+   * @return splits
+   */
+  protected List<WebHdfsFileSplit> computeSplits() {
+    List<WebHdfsFileSplit> splits = new ArrayList<>();
+    boolean preserveFileOrder = hdfsConfiguration.getPreserveFileOrder() == null || hdfsConfiguration.getPreserveFileOrder();
+    long splitSize = hdfsConfiguration.getSplitSize() == null ? Long.MAX_VALUE : Math.max(1, hdfsConfiguration.getSplitSize());
+    for ( FileStatus fileStatus : status ) {
+      if ( fileStatus.isFile() && !fileStatus.getPath().getName().startsWith("_")) {
+        boolean compressed = fileStatus.getPath().getName().endsWith(".gz");
+        long length = fileStatus.getLen();
+        if ( compressed || preserveFileOrder || length <= splitSize ) {
+          splits.add(new WebHdfsFileSplit(fileStatus.getPath(), 0, length, compressed));
+        } else {
+          for ( long start = 0; start < length; start += splitSize ) {
+            splits.add(new WebHdfsFileSplit(fileStatus.getPath(), start, Math.min(splitSize, length - start), false));
+          }
+        }
+      }
+    }
+    return splits;
+  }
+
+  /**
+   * Deal the splits, largest first, to whichever worker has the fewest bytes so far, then start the workers.
+   */
+  private synchronized void startWorkers() {
+    int threads = getReaderThreads();
+    List<WebHdfsFileSplit> splits = computeSplits();
+    splits.sort(Comparator.comparingLong(WebHdfsFileSplit::getLength).reversed());
+
+    List<Deque<WebHdfsFileSplit>> deques = new ArrayList<>(threads);
+    long[] assigned = new long[threads];
+    for ( int i = 0; i < threads; ++i ) {
+      deques.add(new ConcurrentLinkedDeque<>());
+    }
+    for ( WebHdfsFileSplit split : splits ) {
+      int least = 0;
+      for ( int i = 1; i < threads; ++i ) {
+        if ( assigned[i] < assigned[least] ) {
+          least = i;
+        }
+      }
+      deques.get(least).addLast(split);
+      assigned[least] += split.getLength();
+    }
+    LOGGER.info("WebHdfsPersistReader: {} splits for {} workers", splits.size(), threads);
+
+    int capacity = Math.max(1, streamsConfiguration.getBatchSize().intValue() / threads);
+    List<WebHdfsPersistReaderWorker> started = new ArrayList<>(threads);
+    for ( int i = 0; i < threads; ++i ) {
+      WebHdfsPersistReaderWorker worker = new WebHdfsPersistReaderWorker(this, i, deques, capacity);
+      started.add(worker);
+      executor.submit(worker);
+    }
+    workers = started;
+  }
+
+  /**
+   * Drain up to a batch of datums from the workers, one worker's queue at a time so each worker's datums stay in
+   * the order it read them, starting from a different worker on each call.
+   * @return current
+   */
+  private StreamsResultSet readCurrentFromWorkers() {
+    Queue<StreamsDatum> batch = new ConcurrentLinkedQueue<>();
+    int drained = 0;
+    List<WebHdfsPersistReaderWorker> current = workers;
+    if (current != null) {
+      int limit = streamsConfiguration.getBatchSize().intValue();
+      for ( int i = 0; i < current.size() && drained < limit; ++i ) {
+        WebHdfsPersistReaderWorker worker = current.get((nextWorker + i) % current.size());
+        StreamsDatum datum;
+        while ( drained < limit && (datum = worker.poll()) != null ) {
+          batch.add(datum);
+          drained++;
+        }
+      }
+      nextWorker = (nextWorker + 1) % current.size();
+    }
+
+    int failed = failedLines.getAndSet(0);
+    DatumStatusCounter counter = new DatumStatusCounter();
+    counter.incrementAttempt(drained + failed);
+    counter.incrementStatus(DatumStatus.SUCCESS, drained);
+    counter.incrementStatus(DatumStatus.FAIL, failed);
+    countersTotal.add(counter);
+
+    StreamsResultSet result = new StreamsResultSet(batch);
+    result.setCounter(counter);
+    return result;
+  }
+
+  private StreamsResultSet readAllFromWorkers() {
+    startWorkers();
+    Queue<StreamsDatum> all = new ConcurrentLinkedQueue<>();
+    while ( isRunning() ) {
+      StreamsResultSet current = readCurrentFromWorkers();
+      if ( current.size() == 0 ) {
+        LockSupport.parkNanos(EMPTY_PARK_NANOS);
+      } else {
+        all.addAll(current.getQueue());
+      }
+    }
+    return new StreamsResultSet(all);
+  }
 }
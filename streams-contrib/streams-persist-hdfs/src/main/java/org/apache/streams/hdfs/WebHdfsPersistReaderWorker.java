@@ -0,0 +1,244 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.streams.hdfs;
+
+import org.apache.streams.core.StreamsDatum;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.hadoop.fs.FSDataInputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.util.Deque;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * WebHdfsPersistReaderWorker reads file splits in parallel with other workers on behalf of
+ * @see org.apache.streams.hdfs.WebHdfsPersistReader
+ * <p/>
+ * Each worker takes splits from the front of its own deque, and once that is empty steals from the back of the
+ * other workers' deques.  Parsed datums are handed off through a per-worker lock-free queue, so the datums of a
+ * split are read out in the order they appear in the file.
+ */
+public class WebHdfsPersistReaderWorker implements Runnable {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(WebHdfsPersistReaderWorker.class);
+
+  private static final int BUFFER_SIZE = 64 * 1024;
+  private static final long FULL_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+
+  private final WebHdfsPersistReader reader;
+  private final int index;
+  private final List<Deque<WebHdfsFileSplit>> splits;
+  private final int capacity;
+
+  private final Queue<StreamsDatum> outbox = new ConcurrentLinkedQueue<>();
+  private final AtomicInteger outboxSize = new AtomicInteger(0);
+  private volatile boolean finished = false;
+
+  /**
+   * WebHdfsPersistReaderWorker constructor.
+   * @param reader reader
+   * @param index index of this worker's deque in splits
+   * @param splits one deque of splits per worker
+   * @param capacity maximum number of datums waiting to be read out of this worker
+   */
+  public WebHdfsPersistReaderWorker(WebHdfsPersistReader reader, int index, List<Deque<WebHdfsFileSplit>> splits, int capacity) {
+    this.reader = reader;
+    this.index = index;
+    this.splits = splits;
+    this.capacity = Math.max(1, capacity);
+  }
+
+  @Override
+  public void run() {
+    try {
+      WebHdfsFileSplit split;
+      while (!Thread.currentThread().isInterrupted() && (split = nextSplit()) != null) {
+        LOGGER.info("Started Processing: {} Encoding: {} Compressed: {}", split, reader.hdfsConfiguration.getEncoding(), split.isCompressed());
+        try {
+          readSplit(split);
+        } catch (IOException ex) {
+          LOGGER.error("Exception Reading " + split, ex);
+        }
+        LOGGER.info("Finished Processing {}", split);
+      }
+    } finally {
+      finished = true;
+    }
+  }
+
+  /**
+   * Take the next datum this worker has read.
+   * @return datum, or null if none is waiting
+   */
+  public StreamsDatum poll() {
+    StreamsDatum datum = outbox.poll();
+    if (datum != null) {
+      outboxSize.decrementAndGet();
+    }
+    return datum;
+  }
+
+  /**
+   * Whether this worker has run out of splits and every datum it read has been taken.
+   * @return true once the worker is done
+   */
+  public boolean isDone() {
+    return finished && outboxSize.get() == 0;
+  }
+
+  private WebHdfsFileSplit nextSplit() {
+    WebHdfsFileSplit split = splits.get(index).pollFirst();
+    for (int i = 1; split == null && i < splits.size(); ++i) {
+      split = splits.get((index + i) % splits.size()).pollLast();
+      if (split != null) {
+        LOGGER.debug("Worker {} stole {}", index, split);
+      }
+    }
+    return split;
+  }
+
+  /**
+   * Reads the lines that start within the split.  A split that does not start at the beginning of its file skips
+   * its first, partial line, which belongs to the previous split, and reads past its end to finish its last line.
+   */
+  private void readSplit(WebHdfsFileSplit split) throws IOException {
+    Charset charset = Charset.forName(reader.hdfsConfiguration.getEncoding());
+    long position = split.getStart();
+    long end = split.isCompressed() ? Long.MAX_VALUE : split.getStart() + split.getLength();
+
+    try (FSDataInputStream fileStream = reader.client.open(split.getPath())) {
+      InputStream inputStream = fileStream;
+      if (split.isCompressed()) {
+        inputStream = new GZIPInputStream(fileStream, BUFFER_SIZE);
+      } else if (position > 0) {
+        fileStream.seek(position);
+      }
+      LineScanner scanner = new LineScanner(inputStream);
+      ByteArrayOutputStream line = new ByteArrayOutputStream();
+
+      if (position > 0) {
+        position += scanner.readLine(line);
+      }
+
+      while (position <= end) {
+        long consumed = scanner.readLine(line);
+        if (consumed == 0) {
+          break;
+        }
+        position += consumed;
+        if (line.size() > 0 && !handleLine(line.toString(charset.name()))) {
+          return;
+        }
+      }
+    }
+  }
+
+  private boolean handleLine(String line) {
+    line = StringUtils.removeEnd(line, "\r");
+    if (StringUtils.isEmpty(line)) {
+      return true;
+    }
+    StreamsDatum entry = null;
+    try {
+      entry = reader.lineReaderUtil.processLine(line);
+    } catch (Exception ex) {
+      LOGGER.warn("WebHdfsPersistReader processLine Exception: {}", ex);
+    }
+    if (entry == null) {
+      LOGGER.warn("processLine failed");
+      reader.failedLines.incrementAndGet();
+      return true;
+    }
+    return offer(entry);
+  }
+
+  private boolean offer(StreamsDatum entry) {
+    while (outboxSize.get() >= capacity) {
+      if (Thread.currentThread().isInterrupted()) {
+        return false;
+      }
+      LockSupport.parkNanos(FULL_PARK_NANOS);
+    }
+    outbox.offer(entry);
+    outboxSize.incrementAndGet();
+    return true;
+  }
+
+  /**
+   * Buffered reader of '\n' terminated lines that reports how many bytes each line took, so splits can stop at a
+   * byte offset.
+   */
+  private static class LineScanner {
+
+    private final InputStream inputStream;
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private int bufferPosition = 0;
+    private int bufferLength = 0;
+
+    LineScanner(InputStream inputStream) {
+      this.inputStream = inputStream;
+    }
+
+    /**
+     * Read the next line into line, without its '\n' terminator.
+     * @return number of bytes consumed, including the terminator, or 0 at the end of the stream
+     */
+    long readLine(ByteArrayOutputStream line) throws IOException {
+      line.reset();
+      long consumed = 0;
+      while (true) {
+        if (bufferPosition == bufferLength) {
+          bufferLength = inputStream.read(buffer);
+          bufferPosition = 0;
+          if (bufferLength <= 0) {
+            bufferLength = 0;
+            break;
+          }
+        }
+        int start = bufferPosition;
+        while (bufferPosition < bufferLength && buffer[bufferPosition] != '\n') {
+          bufferPosition++;
+        }
+        int length = bufferPosition - start;
+        line.write(buffer, start, length);
+        consumed += length;
+        if (bufferPosition < bufferLength) {
+          // consume the terminator
+          bufferPosition++;
+          consumed++;
+          break;
+        }
+      }
+      return consumed;
+    }
+  }
+
+}
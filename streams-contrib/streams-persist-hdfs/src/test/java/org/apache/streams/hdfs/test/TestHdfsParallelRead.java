@@ -0,0 +1,136 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.streams.hdfs.test;
+
+import org.apache.streams.core.StreamsDatum;
+import org.apache.streams.core.StreamsResultSet;
+import org.apache.streams.hdfs.HdfsConfiguration;
+import org.apache.streams.hdfs.HdfsReaderConfiguration;
+import org.apache.streams.hdfs.WebHdfsPersistReader;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Test reading documents with parallel workers from a local file:// filesystem
+ */
+public class TestHdfsParallelRead {
+
+  private static final String ROOT = "target/TestHdfsParallelRead";
+  private static final int PLAIN_FILES = 6;
+  private static final int GZIP_FILES = 3;
+  private static final int LINES_PER_FILE = 500;
+
+  @BeforeClass
+  public static void writeFiles() throws Exception {
+    File input = new File(ROOT, "input");
+    FileUtils.deleteDirectory(input);
+    Assert.assertTrue(input.mkdirs());
+    for (int file = 0; file < PLAIN_FILES + GZIP_FILES; ++file) {
+      boolean gzip = file >= PLAIN_FILES;
+      File path = new File(input, "part-" + file + (gzip ? ".gz" : ""));
+      OutputStream outputStream = new FileOutputStream(path);
+      if (gzip) {
+        outputStream = new GZIPOutputStream(outputStream);
+      }
+      try (Writer writer = new OutputStreamWriter(outputStream, StandardCharsets.UTF_8)) {
+        for (int line = 0; line < LINES_PER_FILE; ++line) {
+          // vary the line length so splits land at arbitrary points within lines
+          writer.write(file + ":" + line + "\t{\"file\":" + file + ",\"line\":" + line + ",\"pad\":\"" + pad(line % 37) + "\"}\n");
+        }
+      }
+    }
+    // files whose names start with _ are skipped
+    FileUtils.writeStringToFile(new File(input, "_SUCCESS"), "", StandardCharsets.UTF_8);
+  }
+
+  @Test
+  public void testParallelSplitRead() throws Exception {
+    WebHdfsPersistReader reader = new WebHdfsPersistReader(readerConfiguration(4, false, 1000));
+    reader.prepare(null);
+    StreamsResultSet resultSet = reader.readAll();
+    reader.cleanUp();
+
+    Set<String> ids = new HashSet<>();
+    for (StreamsDatum datum : resultSet) {
+      Assert.assertTrue("duplicate " + datum.getId(), ids.add(datum.getId()));
+    }
+    Assert.assertEquals((PLAIN_FILES + GZIP_FILES) * LINES_PER_FILE, ids.size());
+    Assert.assertFalse(reader.isRunning());
+  }
+
+  @Test
+  public void testParallelReadPreservesFileOrder() throws Exception {
+    WebHdfsPersistReader reader = new WebHdfsPersistReader(readerConfiguration(3, true, 1000));
+    reader.prepare(null);
+    reader.startStream();
+
+    Map<String, Integer> lastLine = new HashMap<>();
+    int count = 0;
+    while (reader.isRunning()) {
+      for (StreamsDatum datum : reader.readCurrent()) {
+        String[] id = datum.getId().split(":");
+        int line = Integer.parseInt(id[1]);
+        Integer previous = lastLine.put(id[0], line);
+        Assert.assertEquals("out of order in file " + id[0], previous == null ? 0 : previous + 1, line);
+        count++;
+      }
+    }
+    reader.cleanUp();
+
+    Assert.assertEquals((PLAIN_FILES + GZIP_FILES) * LINES_PER_FILE, count);
+    Assert.assertEquals(PLAIN_FILES + GZIP_FILES, lastLine.size());
+  }
+
+  private static HdfsReaderConfiguration readerConfiguration(long threads, boolean preserveFileOrder, long splitSize) {
+    HdfsReaderConfiguration hdfsReaderConfiguration = new HdfsReaderConfiguration();
+    hdfsReaderConfiguration.setScheme(HdfsConfiguration.Scheme.FILE);
+    hdfsReaderConfiguration.setHost("localhost");
+    hdfsReaderConfiguration.setUser("cloudera");
+    hdfsReaderConfiguration.setPath(ROOT);
+    hdfsReaderConfiguration.setReaderPath("input");
+    hdfsReaderConfiguration.setFields(Arrays.asList("ID", "DOC"));
+    hdfsReaderConfiguration.setReaderThreads(threads);
+    hdfsReaderConfiguration.setPreserveFileOrder(preserveFileOrder);
+    hdfsReaderConfiguration.setSplitSize(splitSize);
+    return hdfsReaderConfiguration;
+  }
+
+  private static String pad(int length) {
+    char[] chars = new char[length];
+    Arrays.fill(chars, 'x');
+    return new String(chars);
+  }
+
+}
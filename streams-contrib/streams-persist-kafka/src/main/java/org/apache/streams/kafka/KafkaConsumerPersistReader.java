@@ -0,0 +1,224 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.streams.kafka;
+
+import org.apache.streams.config.ComponentConfigurator;
+import org.apache.streams.config.StreamsConfigurator;
+import org.apache.streams.core.DatumAcknowledgement;
+import org.apache.streams.core.StreamsDatum;
+import org.apache.streams.core.StreamsPersistReader;
+import org.apache.streams.core.StreamsResultSet;
+import org.apache.streams.core.util.DatumUtils;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.joda.time.DateTime;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Serializable;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * KafkaConsumerPersistReader reads documents from kafka with the KafkaConsumer API.
+ *
+ * <p></p>
+ * Several consumer threads share the topic's partitions through the consumer group, one per partition unless
+ * consumerThreads says otherwise.  Offsets are committed by the reader, never automatically.  In the default read
+ * commitMode an offset is committed once it has been read.  In acknowledged commitMode it is committed only after
+ * it and every earlier offset of its partition has been acknowledged, see {@link DatumAcknowledgement}: the local
+ * runtime does so once a writer has written the datum, {@link KafkaProducerPersistWriter} once the broker has
+ * answered.  A partition with maxUnacknowledged datums outstanding is paused until acknowledgements catch up.
+ */
+public class KafkaConsumerPersistReader implements StreamsPersistReader, Serializable {
+
+  public static final String STREAMS_ID = "KafkaConsumerPersistReader";
+
+  public static final String ACKNOWLEDGEMENT_METADATA = DatumAcknowledgement.METADATA_KEY;
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(KafkaConsumerPersistReader.class);
+
+  private static final long POLL_TIMEOUT_MS = 100;
+
+  protected volatile Queue<StreamsDatum> persistQueue;
+
+  private KafkaConfiguration config;
+
+  private final List<KafkaConsumerPersistReaderTask> tasks = new ArrayList<>();
+
+  private ExecutorService executor;
+
+  /**
+   * KafkaConsumerPersistReader constructor - resolves KafkaConfiguration from JVM 'kafka'.
+   */
+  public KafkaConsumerPersistReader() {
+    this(new ComponentConfigurator<>(KafkaConfiguration.class)
+        .detectConfiguration(StreamsConfigurator.getConfig().getConfig("kafka")));
+  }
+
+  /**
+   * KafkaConsumerPersistReader constructor - uses provided KafkaConfiguration.
+   */
+  public KafkaConsumerPersistReader(KafkaConfiguration config) {
+    this.config = config;
+    this.persistQueue = new ConcurrentLinkedQueue<>();
+  }
+
+  public void setConfig(KafkaConfiguration config) {
+    this.config = config;
+  }
+
+  public KafkaConfiguration getConfig() {
+    return config;
+  }
+
+  /**
+   * Acknowledge that a datum read by a KafkaConsumerPersistReader has been durably written, allowing its offset to
+   * be committed.  Does nothing for datums from elsewhere.
+   * @param datum datum
+   */
+  public static void acknowledge(StreamsDatum datum) {
+    DatumUtils.acknowledge(datum);
+  }
+
+  @Override
+  public String getId() {
+    return STREAMS_ID;
+  }
+
+  @Override
+  public void prepare(Object configurationObject) {
+  }
+
+  @Override
+  public void startStream() {
+
+    int threads = config.getConsumerThreads().intValue();
+    if (threads <= 0) {
+      try (Consumer<String, String> consumer = createConsumer()) {
+        threads = Math.max(1, consumer.partitionsFor(config.getTopic()).size());
+      }
+    }
+
+    executor = Executors.newFixedThreadPool(threads,
+        new ThreadFactoryBuilder().setNameFormat("kafka-consumer-%d").setDaemon(true).build());
+
+    for (int i = 0; i < threads; i++) {
+      KafkaConsumerPersistReaderTask task = new KafkaConsumerPersistReaderTask(this, createConsumer());
+      tasks.add(task);
+      executor.submit(task);
+    }
+
+    LOGGER.info("Started {} consumers of {}", threads, config.getTopic());
+  }
+
+  /**
+   * Create a consumer in the reader's group; offsets are only ever committed by the reader.
+   * @return consumer
+   */
+  protected Consumer<String, String> createConsumer() {
+    Properties props = new Properties();
+    props.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, config.getBrokerlist());
+    props.put(ConsumerConfig.GROUP_ID_CONFIG, config.getGroupId());
+    props.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, "false");
+    props.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, config.getAutoOffsetReset().toString());
+    props.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, config.getMaxPollRecords().toString());
+    props.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class.getName());
+    props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class.getName());
+    return new KafkaConsumer<>(props);
+  }
+
+  long getPollTimeoutMs() {
+    return POLL_TIMEOUT_MS;
+  }
+
+  boolean isCommitOnAcknowledge() {
+    return config.getCommitMode() == KafkaConfiguration.CommitMode.ACKNOWLEDGED;
+  }
+
+  StreamsDatum toDatum(String topic, int partition, long offset, long timestamp, String key, String value,
+                       KafkaOffsetTracker.Acknowledgement acknowledgement) {
+    StreamsDatum datum = new StreamsDatum(value, key, new DateTime(timestamp), BigInteger.valueOf(offset));
+    datum.getMetadata().put("topic", topic);
+    datum.getMetadata().put("partition", partition);
+    datum.getMetadata().put("offset", offset);
+    datum.getMetadata().put(ACKNOWLEDGEMENT_METADATA, acknowledgement);
+    return datum;
+  }
+
+  @Override
+  public StreamsResultSet readAll() {
+    return readCurrent();
+  }
+
+  @Override
+  public StreamsResultSet readCurrent() {
+
+    // consumer threads keep adding while this drains, so take datums one at a time rather than copy and clear
+    Queue<StreamsDatum> current = new ConcurrentLinkedQueue<>();
+    StreamsDatum datum;
+    while ((datum = persistQueue.poll()) != null) {
+      current.add(datum);
+    }
+    return new StreamsResultSet(current);
+  }
+
+  @Override
+  public StreamsResultSet readNew(BigInteger bigInteger) {
+    return null;
+  }
+
+  @Override
+  public StreamsResultSet readRange(DateTime dateTime, DateTime dateTime2) {
+    return null;
+  }
+
+  @Override
+  public boolean isRunning() {
+    return executor != null && !executor.isShutdown() && !executor.isTerminated();
+  }
+
+  @Override
+  public void cleanUp() {
+    for (KafkaConsumerPersistReaderTask task : tasks) {
+      task.stop();
+    }
+    if (executor != null) {
+      executor.shutdown();
+      while ( !executor.isTerminated()) {
+        try {
+          executor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException interrupt) {
+          LOGGER.trace("Interrupt", interrupt);
+        }
+      }
+    }
+  }
+}
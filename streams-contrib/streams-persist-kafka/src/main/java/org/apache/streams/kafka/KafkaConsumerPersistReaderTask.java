@@ -0,0 +1,207 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.streams.kafka;
+
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRebalanceListener;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.KafkaException;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.errors.WakeupException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * KafkaConsumerPersistReaderTask polls one KafkaConsumer on behalf of
+ * @see org.apache.streams.kafka.KafkaConsumerPersistReader
+ */
+public class KafkaConsumerPersistReaderTask implements Runnable {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(KafkaConsumerPersistReaderTask.class);
+
+  private final KafkaConsumerPersistReader reader;
+  private final Consumer<String, String> consumer;
+  private final Map<TopicPartition, KafkaOffsetTracker> trackers = new HashMap<>();
+
+  private volatile boolean running = true;
+  private long lastCommitMillis = System.currentTimeMillis();
+  private boolean pauseWarned = false;
+
+  public KafkaConsumerPersistReaderTask(KafkaConsumerPersistReader reader, Consumer<String, String> consumer) {
+    this.reader = reader;
+    this.consumer = consumer;
+  }
+
+  @Override
+  public void run() {
+
+    KafkaConfiguration config = reader.getConfig();
+    long commitIntervalMs = config.getCommitIntervalMs();
+
+    try {
+      consumer.subscribe(Collections.singletonList(config.getTopic()), new RebalanceListener());
+
+      while (running) {
+        ConsumerRecords<String, String> records = consumer.poll(reader.getPollTimeoutMs());
+        for (ConsumerRecord<String, String> record : records) {
+          KafkaOffsetTracker tracker = tracker(new TopicPartition(record.topic(), record.partition()));
+          KafkaOffsetTracker.Acknowledgement acknowledgement = tracker.read(record.offset());
+          if (!reader.isCommitOnAcknowledge()) {
+            acknowledgement.acknowledge();
+          }
+          reader.persistQueue.add(reader.toDatum(record.topic(), record.partition(), record.offset(),
+              record.timestamp(), record.key(), record.value(), acknowledgement));
+        }
+        applyBackpressure(config.getMaxUnacknowledged());
+        if (System.currentTimeMillis() - lastCommitMillis >= commitIntervalMs) {
+          commit(false);
+        }
+      }
+    } catch (WakeupException wakeup) {
+      if (running) {
+        throw wakeup;
+      }
+    } catch (KafkaException ex) {
+      LOGGER.error("Consumer of {} failed", config.getTopic(), ex);
+    } finally {
+      try {
+        commit(true);
+      } catch (KafkaException ex) {
+        LOGGER.warn("Final commit failed", ex);
+      } finally {
+        consumer.close();
+      }
+    }
+  }
+
+  /**
+   * Stop polling; the task commits what has been acknowledged and closes its consumer.
+   */
+  public void stop() {
+    running = false;
+    consumer.wakeup();
+  }
+
+  private KafkaOffsetTracker tracker(TopicPartition partition) {
+    return trackers.computeIfAbsent(partition, KafkaOffsetTracker::new);
+  }
+
+  /*
+   * Pause partitions whose unacknowledged datums exceed the limit, resume them once they drop below half of it.
+   */
+  private void applyBackpressure(long maxUnacknowledged) {
+    List<TopicPartition> pause = new ArrayList<>();
+    List<TopicPartition> resume = new ArrayList<>();
+    Collection<TopicPartition> paused = consumer.paused();
+    for (KafkaOffsetTracker tracker : trackers.values()) {
+      int outstanding = tracker.getOutstanding();
+      boolean isPaused = paused.contains(tracker.getPartition());
+      if (!isPaused && outstanding >= maxUnacknowledged) {
+        pause.add(tracker.getPartition());
+      } else if (isPaused && outstanding < maxUnacknowledged / 2) {
+        resume.add(tracker.getPartition());
+      }
+    }
+    if (!pause.isEmpty()) {
+      consumer.pause(pause);
+      if (!pauseWarned) {
+        LOGGER.warn("Paused {} with {} unacknowledged datums; writers downstream of {} must call "
+            + "KafkaConsumerPersistReader.acknowledge, or commitMode should be read",
+            pause, maxUnacknowledged, KafkaConsumerPersistReader.STREAMS_ID);
+        pauseWarned = true;
+      }
+    }
+    if (!resume.isEmpty()) {
+      consumer.resume(resume);
+    }
+  }
+
+  private Map<TopicPartition, OffsetAndMetadata> uncommittedOffsets() {
+    Map<TopicPartition, OffsetAndMetadata> offsets = new HashMap<>();
+    for (KafkaOffsetTracker tracker : trackers.values()) {
+      long offset = tracker.getUncommittedOffset();
+      if (offset >= 0) {
+        offsets.put(tracker.getPartition(), new OffsetAndMetadata(offset));
+      }
+    }
+    return offsets;
+  }
+
+  private void commit(boolean sync) {
+    lastCommitMillis = System.currentTimeMillis();
+    Map<TopicPartition, OffsetAndMetadata> offsets = uncommittedOffsets();
+    if (offsets.isEmpty()) {
+      return;
+    }
+    if (sync) {
+      consumer.commitSync(offsets);
+      markCommitted(offsets);
+    } else {
+      consumer.commitAsync(offsets, (committed, ex) -> {
+        if (ex != null) {
+          LOGGER.warn("Commit of {} failed", committed, ex);
+        } else {
+          markCommitted(committed);
+        }
+      });
+    }
+  }
+
+  private void markCommitted(Map<TopicPartition, OffsetAndMetadata> offsets) {
+    for (Map.Entry<TopicPartition, OffsetAndMetadata> entry : offsets.entrySet()) {
+      KafkaOffsetTracker tracker = trackers.get(entry.getKey());
+      if (tracker != null) {
+        tracker.markCommitted(entry.getValue().offset());
+      }
+    }
+  }
+
+  private class RebalanceListener implements ConsumerRebalanceListener {
+
+    @Override
+    public void onPartitionsRevoked(Collection<TopicPartition> partitions) {
+      try {
+        commit(true);
+      } catch (KafkaException ex) {
+        LOGGER.warn("Commit before rebalance failed", ex);
+      }
+      for (TopicPartition partition : partitions) {
+        KafkaOffsetTracker tracker = trackers.remove(partition);
+        if (tracker != null) {
+          tracker.revoke();
+        }
+      }
+    }
+
+    @Override
+    public void onPartitionsAssigned(Collection<TopicPartition> partitions) {
+      LOGGER.info("Assigned {}", partitions);
+    }
+  }
+
+}
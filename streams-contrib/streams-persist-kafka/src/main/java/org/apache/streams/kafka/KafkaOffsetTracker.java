@@ -0,0 +1,147 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.streams.kafka;
+
+import org.apache.streams.core.DatumAcknowledgement;
+
+import org.apache.kafka.common.TopicPartition;
+
+import java.io.Serializable;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tracks which offsets of one partition have been read but not yet acknowledged downstream, so the reader only
+ * commits an offset once every datum before it has been acknowledged.
+ *
+ * <p></p>
+ * Offsets are read and committed by the partition's consumer thread; acknowledgements may arrive from any thread and
+ * in any order.
+ */
+public class KafkaOffsetTracker {
+
+  private final TopicPartition partition;
+  private final ConcurrentSkipListSet<Long> outstanding = new ConcurrentSkipListSet<>();
+  private final AtomicInteger outstandingCount = new AtomicInteger();
+  private volatile boolean revoked = false;
+
+  // consumer thread only
+  private long nextOffset = -1;
+  private long committedOffset = -1;
+
+  public KafkaOffsetTracker(TopicPartition partition) {
+    this.partition = partition;
+  }
+
+  public TopicPartition getPartition() {
+    return partition;
+  }
+
+  /**
+   * Record that an offset has been read and handed downstream.
+   * @param offset offset
+   * @return acknowledgement to attach to the datum
+   */
+  public Acknowledgement read(long offset) {
+    if (outstanding.add(offset)) {
+      outstandingCount.incrementAndGet();
+    }
+    nextOffset = offset + 1;
+    return new Acknowledgement(this, offset);
+  }
+
+  private void acknowledge(long offset) {
+    if (!revoked && outstanding.remove(offset)) {
+      outstandingCount.decrementAndGet();
+    }
+  }
+
+  /**
+   * The offset to commit: the oldest unacknowledged offset, or one past the last read when everything is
+   * acknowledged.
+   * @return offset, or -1 if nothing has been read
+   */
+  public long getCommittableOffset() {
+    Long oldest = outstanding.ceiling(Long.MIN_VALUE);
+    return oldest != null ? oldest : nextOffset;
+  }
+
+  /**
+   * The committable offset if it has advanced since the last call to {@link #markCommitted(long)}.
+   * @return offset to commit, or -1 if there is nothing new
+   */
+  public long getUncommittedOffset() {
+    long committable = getCommittableOffset();
+    return committable > committedOffset ? committable : -1;
+  }
+
+  public void markCommitted(long offset) {
+    committedOffset = Math.max(committedOffset, offset);
+  }
+
+  /**
+   * Number of offsets read and not yet acknowledged.
+   * @return outstanding offsets
+   */
+  public int getOutstanding() {
+    return outstandingCount.get();
+  }
+
+  /**
+   * Stop tracking after the partition is reassigned; later acknowledgements are ignored.
+   */
+  public void revoke() {
+    revoked = true;
+    outstanding.clear();
+    outstandingCount.set(0);
+  }
+
+  public boolean isRevoked() {
+    return revoked;
+  }
+
+  /**
+   * Acknowledges one offset; carried in the metadata of the datum read from it.
+   */
+  public static class Acknowledgement implements DatumAcknowledgement, Serializable {
+
+    private final transient KafkaOffsetTracker tracker;
+    private final long offset;
+
+    private Acknowledgement(KafkaOffsetTracker tracker, long offset) {
+      this.tracker = tracker;
+      this.offset = offset;
+    }
+
+    /**
+     * Mark the offset acknowledged. Safe to call more than once; does nothing once the datum has been serialized.
+     */
+    @Override
+    public void acknowledge() {
+      if (tracker != null) {
+        tracker.acknowledge(offset);
+      }
+    }
+
+    public long getOffset() {
+      return offset;
+    }
+  }
+
+}
@@ -0,0 +1,167 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.streams.kafka;
+
+import org.apache.streams.config.ComponentConfigurator;
+import org.apache.streams.config.StreamsConfigurator;
+import org.apache.streams.converter.TypeConverterUtil;
+import org.apache.streams.core.DatumAcknowledgement;
+import org.apache.streams.core.StreamsDatum;
+import org.apache.streams.core.StreamsPersistWriter;
+import org.apache.streams.core.util.DatumUtils;
+import org.apache.streams.util.GuidUtils;
+
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.Producer;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.KafkaException;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Serializable;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * KafkaProducerPersistWriter writes documents to kafka with the KafkaProducer API.
+ *
+ * <p></p>
+ * Sends are asynchronous: the producer batches records per partition for up to lingerMs or batchSize bytes and
+ * compresses each batch with compressionType.  Datums carrying a {@link DatumAcknowledgement} are acknowledged once
+ * the broker has answered, so a reader in acknowledged commitMode can commit their offsets.  Failed sends are
+ * acknowledged too, after being logged and counted, rather than holding back their partition for good.
+ */
+public class KafkaProducerPersistWriter implements StreamsPersistWriter, Serializable {
+
+  public static final String STREAMS_ID = "KafkaProducerPersistWriter";
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(KafkaProducerPersistWriter.class);
+
+  private KafkaConfiguration config;
+
+  private transient Producer<String, String> producer;
+
+  private final AtomicLong totalSent = new AtomicLong();
+  private final AtomicLong totalOk = new AtomicLong();
+  private final AtomicLong totalFailed = new AtomicLong();
+
+  /**
+   * KafkaProducerPersistWriter constructor - resolves KafkaConfiguration from JVM 'kafka'.
+   */
+  public KafkaProducerPersistWriter() {
+    this(new ComponentConfigurator<>(KafkaConfiguration.class)
+        .detectConfiguration(StreamsConfigurator.getConfig().getConfig("kafka")));
+  }
+
+  /**
+   * KafkaProducerPersistWriter constructor - uses provided KafkaConfiguration.
+   */
+  public KafkaProducerPersistWriter(KafkaConfiguration config) {
+    this.config = config;
+  }
+
+  public void setConfig(KafkaConfiguration config) {
+    this.config = config;
+  }
+
+  @Override
+  public String getId() {
+    return STREAMS_ID;
+  }
+
+  @Override
+  public void prepare(Object configurationObject) {
+    Properties props = new Properties();
+    props.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, config.getBrokerlist());
+    props.put(ProducerConfig.ACKS_CONFIG, config.getAcks());
+    props.put(ProducerConfig.LINGER_MS_CONFIG, config.getLingerMs().toString());
+    props.put(ProducerConfig.BATCH_SIZE_CONFIG, config.getBatchSize().toString());
+    props.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, config.getCompressionType().toString());
+    props.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class.getName());
+    props.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, StringSerializer.class.getName());
+    producer = createProducer(props);
+  }
+
+  protected Producer<String, String> createProducer(Properties props) {
+    return new KafkaProducer<>(props);
+  }
+
+  @Override
+  public void write(StreamsDatum entry) {
+
+    // the send completes after write returns, so acknowledge here rather than leave it to the runtime
+    DatumAcknowledgement acknowledgement = DatumUtils.takeAcknowledgement(entry);
+
+    String document = (String) TypeConverterUtil.getInstance().convert(entry.getDocument(), String.class);
+    if (document == null) {
+      LOGGER.warn("Could not convert {} to String", entry.getId());
+      acknowledge(acknowledgement);
+      return;
+    }
+
+    String key = entry.getId() != null ? entry.getId() : GuidUtils.generateGuid(document);
+
+    totalSent.incrementAndGet();
+    try {
+      producer.send(new ProducerRecord<>(config.getTopic(), key, document), (metadata, ex) -> {
+        if (ex != null) {
+          totalFailed.incrementAndGet();
+          LOGGER.warn("Failed to write {} to {}", key, config.getTopic(), ex);
+        } else {
+          totalOk.incrementAndGet();
+        }
+        acknowledge(acknowledgement);
+      });
+    } catch (KafkaException ex) {
+      totalFailed.incrementAndGet();
+      LOGGER.warn("Failed to write {} to {}", key, config.getTopic(), ex);
+      acknowledge(acknowledgement);
+    }
+  }
+
+  private static void acknowledge(DatumAcknowledgement acknowledgement) {
+    if (acknowledgement != null) {
+      acknowledgement.acknowledge();
+    }
+  }
+
+  public long getTotalSent() {
+    return totalSent.get();
+  }
+
+  public long getTotalOk() {
+    return totalOk.get();
+  }
+
+  public long getTotalFailed() {
+    return totalFailed.get();
+  }
+
+  @Override
+  public void cleanUp() {
+    if (producer != null) {
+      producer.flush();
+      producer.close();
+    }
+    LOGGER.info("Wrote {} of {} documents to {}, {} failed",
+        totalOk.get(), totalSent.get(), config.getTopic(), totalFailed.get());
+  }
+}
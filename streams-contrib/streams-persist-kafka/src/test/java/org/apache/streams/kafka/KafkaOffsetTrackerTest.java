@@ -0,0 +1,121 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.streams.kafka;
+
+import org.apache.kafka.common.TopicPartition;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit Test for
+ * @see org.apache.streams.kafka.KafkaOffsetTracker
+ */
+public class KafkaOffsetTrackerTest {
+
+  private final KafkaOffsetTracker tracker = new KafkaOffsetTracker(new TopicPartition("topic", 0));
+
+  @Test
+  public void testNothingRead() {
+    assertEquals(-1, tracker.getCommittableOffset());
+    assertEquals(-1, tracker.getUncommittedOffset());
+    assertEquals(0, tracker.getOutstanding());
+  }
+
+  @Test
+  public void testCommitsOldestUnacknowledged() {
+    List<KafkaOffsetTracker.Acknowledgement> acks = new ArrayList<>();
+    for (long offset = 10; offset < 15; offset++) {
+      acks.add(tracker.read(offset));
+    }
+    assertEquals(5, tracker.getOutstanding());
+    assertEquals(10, tracker.getCommittableOffset());
+
+    acks.get(1).acknowledge();
+    acks.get(3).acknowledge();
+    assertEquals(10, tracker.getCommittableOffset());
+
+    acks.get(0).acknowledge();
+    assertEquals(12, tracker.getCommittableOffset());
+
+    acks.get(2).acknowledge();
+    acks.get(4).acknowledge();
+    assertEquals(15, tracker.getCommittableOffset());
+    assertEquals(0, tracker.getOutstanding());
+  }
+
+  @Test
+  public void testAcknowledgeTwice() {
+    KafkaOffsetTracker.Acknowledgement first = tracker.read(0);
+    tracker.read(1);
+    first.acknowledge();
+    first.acknowledge();
+    assertEquals(1, tracker.getOutstanding());
+    assertEquals(1, tracker.getCommittableOffset());
+  }
+
+  @Test
+  public void testUncommittedOffsetAdvancesOnce() {
+    tracker.read(0).acknowledge();
+    tracker.read(1).acknowledge();
+    assertEquals(2, tracker.getUncommittedOffset());
+    tracker.markCommitted(2);
+    assertEquals(-1, tracker.getUncommittedOffset());
+    tracker.read(2).acknowledge();
+    assertEquals(3, tracker.getUncommittedOffset());
+  }
+
+  @Test
+  public void testConcurrentAcknowledgements() throws Exception {
+    List<KafkaOffsetTracker.Acknowledgement> acks = new ArrayList<>();
+    for (long offset = 0; offset < 10000; offset++) {
+      acks.add(tracker.read(offset));
+    }
+    Collections.shuffle(acks);
+    List<Thread> threads = new ArrayList<>();
+    for (int t = 0; t < 4; t++) {
+      final List<KafkaOffsetTracker.Acknowledgement> slice = acks.subList(t * 2500, (t + 1) * 2500);
+      Thread thread = new Thread(() -> slice.forEach(KafkaOffsetTracker.Acknowledgement::acknowledge));
+      threads.add(thread);
+      thread.start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    assertEquals(0, tracker.getOutstanding());
+    assertEquals(10000, tracker.getCommittableOffset());
+  }
+
+  @Test
+  public void testRevokedIgnoresAcknowledgements() {
+    KafkaOffsetTracker.Acknowledgement ack = tracker.read(0);
+    tracker.read(1);
+    tracker.revoke();
+    ack.acknowledge();
+    assertTrue(tracker.isRevoked());
+    assertEquals(0, tracker.getOutstanding());
+  }
+
+}
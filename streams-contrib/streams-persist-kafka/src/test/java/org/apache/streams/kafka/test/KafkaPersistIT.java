@@ -0,0 +1,137 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.streams.kafka.test;
+
+import org.apache.streams.config.ComponentConfigurator;
+import org.apache.streams.core.StreamsDatum;
+import org.apache.streams.core.util.DatumUtils;
+import org.apache.streams.kafka.KafkaConfiguration;
+import org.apache.streams.kafka.KafkaConsumerPersistReader;
+import org.apache.streams.kafka.KafkaProducerPersistWriter;
+
+import com.google.common.util.concurrent.Uninterruptibles;
+import com.typesafe.config.Config;
+import com.typesafe.config.ConfigFactory;
+import com.typesafe.config.ConfigParseOptions;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test that offsets read by KafkaConsumerPersistReader are only committed once acknowledged.
+ */
+public class KafkaPersistIT {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(KafkaPersistIT.class);
+
+  private static final int COUNT = 100;
+
+  private static final long TIMEOUT_MS = 30000;
+
+  private KafkaConfiguration testConfiguration;
+
+  @BeforeClass
+  public void setup() throws Exception {
+
+    Config reference  = ConfigFactory.load();
+    File conf_file = new File("target/test-classes/KafkaPersistIT.conf");
+    assert(conf_file.exists());
+    Config testResourceConfig  = ConfigFactory.parseFileAnySyntax(conf_file, ConfigParseOptions.defaults().setAllowMissing(false));
+    Config typesafe  = testResourceConfig.withFallback(reference).resolve();
+    testConfiguration = new ComponentConfigurator<>(KafkaConfiguration.class).detectConfiguration(typesafe, "kafka");
+
+  }
+
+  @Test
+  public void testCommitAfterAcknowledge() throws Exception {
+
+    KafkaProducerPersistWriter writer = new KafkaProducerPersistWriter(testConfiguration);
+    writer.prepare(null);
+    for (int i = 0; i < COUNT; i++) {
+      writer.write(new StreamsDatum("document " + i, Integer.toString(i)));
+    }
+    writer.cleanUp();
+    assertEquals(COUNT, writer.getTotalOk());
+
+    KafkaConsumerPersistReader reader = new KafkaConsumerPersistReader(testConfiguration);
+    reader.prepare(null);
+    reader.startStream();
+
+    List<StreamsDatum> read = new ArrayList<>();
+    long deadline = System.currentTimeMillis() + TIMEOUT_MS;
+    while (read.size() < COUNT && System.currentTimeMillis() < deadline) {
+      read.addAll(reader.readCurrent().getQueue());
+      Uninterruptibles.sleepUninterruptibly(100, TimeUnit.MILLISECONDS);
+    }
+    LOGGER.info("Total Read: {}", read.size());
+    assertEquals(COUNT, read.size());
+    read.sort(Comparator.comparing(StreamsDatum::getSequenceid));
+
+    // nothing acknowledged, so nothing past the first offset may be committed
+    Uninterruptibles.sleepUninterruptibly(5 * testConfiguration.getCommitIntervalMs(), TimeUnit.MILLISECONDS);
+    assertTrue(committed() <= 0);
+
+    // out of order: the later half alone must not move the commit
+    for (StreamsDatum datum : read.subList(COUNT / 2, COUNT)) {
+      DatumUtils.acknowledge(datum);
+    }
+    Uninterruptibles.sleepUninterruptibly(5 * testConfiguration.getCommitIntervalMs(), TimeUnit.MILLISECONDS);
+    assertTrue(committed() <= 0);
+
+    for (StreamsDatum datum : read.subList(0, COUNT / 2)) {
+      DatumUtils.acknowledge(datum);
+    }
+    deadline = System.currentTimeMillis() + TIMEOUT_MS;
+    while (committed() < COUNT && System.currentTimeMillis() < deadline) {
+      Uninterruptibles.sleepUninterruptibly(100, TimeUnit.MILLISECONDS);
+    }
+    assertEquals(COUNT, committed());
+
+    reader.cleanUp();
+  }
+
+  private long committed() {
+    Properties props = new Properties();
+    props.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, testConfiguration.getBrokerlist());
+    props.put(ConsumerConfig.GROUP_ID_CONFIG, testConfiguration.getGroupId());
+    props.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, "false");
+    props.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class.getName());
+    props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class.getName());
+    try (KafkaConsumer<String, String> consumer = new KafkaConsumer<>(props)) {
+      OffsetAndMetadata committed = consumer.committed(new TopicPartition(testConfiguration.getTopic(), 0));
+      return committed == null ? -1 : committed.offset();
+    }
+  }
+}
@@ -28,7 +28,10 @@ import org.apache.streams.jackson.StreamsJacksonMapper;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ObjectNode;
-import com.google.common.collect.Queues;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.mongodb.AggregationOptions;
+import com.mongodb.BasicDBObject;
+import com.mongodb.Cursor;
 import com.mongodb.DB;
 import com.mongodb.DBCollection;
 import com.mongodb.DBCursor;
@@ -43,19 +46,28 @@ import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Queue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
-import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 /**
  * MongoPersistReader reads documents from mongo.
+ *
+ * <p></p>
+ * The collection is scanned as scanSplits ranges of _id, scanThreads at a time, each with its own cursor.
  */
 public class MongoPersistReader implements StreamsPersistReader {
 
@@ -63,12 +75,15 @@ public class MongoPersistReader implements StreamsPersistReader {
 
   private static final Logger LOGGER = LoggerFactory.getLogger(MongoPersistReader.class);
 
+  private static final int MAX_QUEUE_SIZE = 10000;
+  private static final int SAMPLES_PER_SPLIT = 10;
+
   protected volatile Queue<StreamsDatum> persistQueue;
 
   private ObjectMapper mapper = StreamsJacksonMapper.getInstance();
-  private volatile AtomicLong lastWrite = new AtomicLong(System.currentTimeMillis());
 
   private ExecutorService executor;
+  private CompletableFuture<Void> scanFuture;
 
   private MongoConfiguration config;
 
@@ -76,9 +91,9 @@ public class MongoPersistReader implements StreamsPersistReader {
   protected DB db;
   protected DBCollection collection;
 
-  protected DBCursor cursor;
-
-  protected final ReadWriteLock lock = new ReentrantReadWriteLock();
+  private final AtomicInteger splitsTotal = new AtomicInteger();
+  private final AtomicInteger splitsCompleted = new AtomicInteger();
+  private final AtomicLong documentsRead = new AtomicLong();
 
   /**
    * KafkaPersistReader constructor - resolves KafkaConfiguration from JVM 'mongo'.
@@ -115,6 +130,9 @@ public class MongoPersistReader implements StreamsPersistReader {
   }
 
   public void stop() {
+    if (executor != null) {
+      executor.shutdownNow();
+    }
   }
 
   @Override
@@ -131,16 +149,11 @@ public class MongoPersistReader implements StreamsPersistReader {
         || collection == null ) {
       throw new RuntimeException("Unable to connect!");
     }
-    cursor = collection.find();
-
-    if ( cursor == null
-        || !cursor.hasNext()) {
-      throw new RuntimeException("Collection not present or empty!");
-    }
 
     persistQueue = constructQueue();
 
-    executor = Executors.newSingleThreadExecutor();
+    executor = Executors.newFixedThreadPool(Math.max(1, config.getScanThreads().intValue()),
+        new ThreadFactoryBuilder().setNameFormat("mongo-reader-%d").setDaemon(true).build());
 
   }
 
@@ -189,70 +202,116 @@ public class MongoPersistReader implements StreamsPersistReader {
 
   @Override
   public StreamsResultSet readAll() {
-
-    try (DBCursor cursor = collection.find()) {
-      while (cursor.hasNext()) {
-        DBObject dbObject = cursor.next();
-        StreamsDatum datum = prepareDatum(dbObject);
-        write(datum);
-      }
+    Queue<StreamsDatum> all = new ConcurrentLinkedQueue<>();
+    try {
+      scan(all::add).get();
+    } catch (InterruptedException ex) {
+      LOGGER.trace("Interrupt", ex);
+      Thread.currentThread().interrupt();
+    } catch (ExecutionException ex) {
+      LOGGER.error("Scan of {} failed", config.getCollection(), ex.getCause());
     }
-
-    return readCurrent();
+    StreamsResultSet current = new StreamsResultSet(all);
+    current.setCounter(new DatumStatusCounter());
+    return current;
   }
 
   @Override
   public void startStream() {
-
     LOGGER.debug("startStream");
-    MongoPersistReaderTask readerTask = new MongoPersistReaderTask(this);
-    Thread readerTaskThread = new Thread(readerTask);
-    Future future = executor.submit(readerTaskThread);
-
-    while ( !future.isDone() && !future.isCancelled()) {
-      try {
-        Thread.sleep(1000);
-      } catch (InterruptedException interrupt) {
-        LOGGER.trace("Interrupt", interrupt);
+    scanFuture = scan(this::write);
+    scanFuture.whenComplete((done, ex) -> {
+      if (ex != null) {
+        LOGGER.error("Scan of {} failed", config.getCollection(), ex);
+      }
+      executor.shutdown();
+    });
+  }
+
+  /*
+   * Scan every split of the collection on the executor, passing each document to the sink.
+   */
+  private CompletableFuture<Void> scan(Consumer<StreamsDatum> sink) {
+    List<MongoScanSplit> splits = MongoScanSplit.fromSplitPoints(getSplitPoints(config.getScanSplits().intValue()));
+    splitsTotal.set(splits.size());
+    splitsCompleted.set(0);
+    LOGGER.info("Scanning {}.{} in {} splits", config.getDb(), config.getCollection(), splits.size());
+
+    CompletableFuture<?>[] tasks = new CompletableFuture<?>[splits.size()];
+    for (int i = 0; i < splits.size(); i++) {
+      tasks[i] = CompletableFuture.runAsync(new MongoPersistReaderTask(this, splits.get(i), sink), executor);
+    }
+    return CompletableFuture.allOf(tasks);
+  }
+
+  /*
+   * _id values dividing the collection into evenly sized splits, estimated from a sorted random sample of _id so
+   * that finding them takes one aggregation however many splits there are.
+   * Range queries only match _id values of the bound's type, so collections whose first and last _id differ
+   * in type are scanned as a single split.
+   */
+  private List<Object> getSplitPoints(int scanSplits) {
+    long count = collection.count();
+    if (scanSplits <= 1 || count < scanSplits) {
+      return new ArrayList<>();
+    }
+    Object first = firstId(1);
+    Object last = firstId(-1);
+    if (first == null || last == null || !sameType(first, last)) {
+      LOGGER.info("{} has _id values of more than one type, scanning as one split", config.getCollection());
+      return new ArrayList<>();
+    }
+    int sampleSize = (int) Math.min(count, (long) scanSplits * SAMPLES_PER_SPLIT);
+    List<DBObject> pipeline = Arrays.asList(
+        new BasicDBObject("$sample", new BasicDBObject("size", sampleSize)),
+        new BasicDBObject("$project", new BasicDBObject("_id", 1)),
+        new BasicDBObject("$sort", new BasicDBObject("_id", 1)));
+    List<Object> sample = new ArrayList<>();
+    try (Cursor ids = collection.aggregate(pipeline,
+        AggregationOptions.builder().outputMode(AggregationOptions.OutputMode.CURSOR).build())) {
+      while (ids.hasNext()) {
+        sample.add(ids.next().get("_id"));
       }
     }
+    return MongoScanSplit.splitPointsFromSample(sample, scanSplits);
+  }
 
-    executor.shutdown();
+  private Object firstId(int order) {
+    BasicDBObject id = new BasicDBObject("_id", 1);
+    try (DBCursor ids = collection.find(new BasicDBObject(), id).sort(new BasicDBObject("_id", order)).limit(1)) {
+      return ids.hasNext() ? ids.next().get("_id") : null;
+    }
+  }
 
+  private static boolean sameType(Object first, Object last) {
+    return first.getClass().equals(last.getClass()) || (first instanceof Number && last instanceof Number);
   }
 
   @Override
   public StreamsResultSet readCurrent() {
 
-    StreamsResultSet current;
-
-    try {
-      lock.writeLock().lock();
-      current = new StreamsResultSet(persistQueue);
-      current.setCounter(new DatumStatusCounter());
-      persistQueue = constructQueue();
-    } finally {
-      lock.writeLock().unlock();
+    Queue<StreamsDatum> current = new ConcurrentLinkedQueue<>();
+    StreamsDatum datum;
+    while (current.size() < MAX_QUEUE_SIZE && (datum = persistQueue.poll()) != null) {
+      current.add(datum);
     }
 
-    return current;
+    StreamsResultSet resultSet = new StreamsResultSet(current);
+    resultSet.setCounter(new DatumStatusCounter());
+    return resultSet;
   }
 
-  //The locking may appear to be counter intuitive but we really don't care if multiple threads offer to the queue
-  //as it is a synchronized queue.  What we do care about is that we don't want to be offering to the current reference
-  //if the queue is being replaced with a new instance
   protected void write(StreamsDatum entry) {
-    boolean success;
-    do {
-      try {
-        lock.readLock().lock();
-        success = persistQueue.offer(entry);
-        Thread.yield();
-      } finally {
-        lock.readLock().unlock();
+    try {
+      if (persistQueue instanceof BlockingQueue) {
+        ((BlockingQueue<StreamsDatum>) persistQueue).put(entry);
+      } else {
+        persistQueue.add(entry);
       }
+    } catch (InterruptedException ex) {
+      LOGGER.trace("Interrupt", ex);
+      Thread.currentThread().interrupt();
     }
-    while (!success);
   }
 
   @Override
@@ -267,34 +326,64 @@ public class MongoPersistReader implements StreamsPersistReader {
 
   @Override
   public boolean isRunning() {
-    return !executor.isTerminated() || !executor.isShutdown();
+    return (scanFuture != null && !scanFuture.isDone()) || (persistQueue != null && !persistQueue.isEmpty());
+  }
+
+  public int getSplitsTotal() {
+    return splitsTotal.get();
+  }
+
+  public int getSplitsCompleted() {
+    return splitsCompleted.get();
+  }
+
+  public long getDocumentsRead() {
+    return documentsRead.get();
   }
 
   private Queue<StreamsDatum> constructQueue() {
-    return Queues.synchronizedQueue(new LinkedBlockingQueue<StreamsDatum>(10000));
+    return new LinkedBlockingQueue<>(MAX_QUEUE_SIZE);
   }
 
-  public class MongoPersistReaderTask implements Runnable {
+  /**
+   * Scans one _id range split with its own cursor.
+   */
+  public static class MongoPersistReaderTask implements Runnable {
 
-    private MongoPersistReader reader;
+    private final MongoPersistReader reader;
+    private final MongoScanSplit split;
+    private final Consumer<StreamsDatum> sink;
 
-    public MongoPersistReaderTask(MongoPersistReader reader) {
+    public MongoPersistReaderTask(MongoPersistReader reader, MongoScanSplit split, Consumer<StreamsDatum> sink) {
       this.reader = reader;
+      this.split = split;
+      this.sink = sink;
     }
 
     @Override
     public void run() {
-
-      try {
-        while (reader.cursor.hasNext()) {
-          DBObject dbObject = reader.cursor.next();
-          StreamsDatum datum = reader.prepareDatum(dbObject);
-          reader.write(datum);
+      long startMillis = System.currentTimeMillis();
+      long documents = 0;
+
+      try (DBCursor cursor = reader.collection.find(split.getQuery())
+          .batchSize(reader.config.getFetchSize().intValue())) {
+        while (cursor.hasNext()) {
+          if (Thread.currentThread().isInterrupted()) {
+            return;
+          }
+          StreamsDatum datum = reader.prepareDatum(cursor.next());
+          if (datum != null) {
+            sink.accept(datum);
+          }
+          documents++;
         }
-      } finally {
-        reader.cursor.close();
       }
 
+      reader.documentsRead.addAndGet(documents);
+      int completed = reader.splitsCompleted.incrementAndGet();
+      LOGGER.info("Split {} of {} {}: {} documents in {} ms, {} documents read",
+          completed, reader.splitsTotal.get(), split, documents, System.currentTimeMillis() - startMillis,
+          reader.documentsRead.get());
     }
 
   }
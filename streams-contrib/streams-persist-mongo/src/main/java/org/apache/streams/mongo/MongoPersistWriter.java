@@ -20,8 +20,8 @@ package org.apache.streams.mongo;
 
 import org.apache.streams.config.ComponentConfigurator;
 import org.apache.streams.config.StreamsConfigurator;
+import org.apache.streams.core.StreamsBatchPersistWriter;
 import org.apache.streams.core.StreamsDatum;
-import org.apache.streams.core.StreamsPersistWriter;
 import org.apache.streams.jackson.StreamsJacksonMapper;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -54,7 +54,7 @@ import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
-public class MongoPersistWriter implements StreamsPersistWriter, Runnable, Flushable, Closeable {
+public class MongoPersistWriter implements StreamsBatchPersistWriter, Runnable, Flushable, Closeable {
 
   public static final String STREAMS_ID = "MongoPersistWriter";
 
@@ -110,6 +110,22 @@ public class MongoPersistWriter implements StreamsPersistWriter, Runnable, Flush
     }
   }
 
+  @Override
+  public void write(List<StreamsDatum> streamsData) {
+
+    List<DBObject> dbObjects = new ArrayList<>(streamsData.size());
+    for (StreamsDatum streamsDatum : streamsData) {
+      DBObject dbObject = prepareObject(streamsDatum);
+      if (dbObject != null) {
+        dbObjects.add(dbObject);
+      }
+    }
+    if (dbObjects.size() > 0) {
+      addToBatch(dbObjects);
+      flushIfNecessary();
+    }
+  }
+
   @Override
   public void flush() throws IOException {
     try {
@@ -205,9 +221,9 @@ public class MongoPersistWriter implements StreamsPersistWriter, Runnable, Flush
 
   protected void flushIfNecessary() {
     long lastLatency = System.currentTimeMillis() - lastWrite.get();
-    //Flush iff the size > 0 AND the size is divisible by 100 or the time between now and the last flush is greater
+    //Flush iff the size > 0 AND the size has reached 100 or the time between now and the last flush is greater
     //than the maximum desired latency
-    if (insertBatch.size() > 0 && (insertBatch.size() % 100 == 0 || lastLatency > MAX_WRITE_LATENCY)) {
+    if (insertBatch.size() > 0 && (insertBatch.size() >= 100 || lastLatency > MAX_WRITE_LATENCY)) {
       try {
         flush();
       } catch (IOException ex) {
@@ -225,6 +241,15 @@ public class MongoPersistWriter implements StreamsPersistWriter, Runnable, Flush
     }
   }
 
+  protected void addToBatch(List<DBObject> dbObjects) {
+    try {
+      lock.readLock().lock();
+      insertBatch.addAll(dbObjects);
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
   protected DBObject prepareObject(StreamsDatum streamsDatum) {
     DBObject dbObject = null;
     if (streamsDatum.getDocument() instanceof String) {
@@ -0,0 +1,115 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.apache.streams.mongo;
+
+import com.mongodb.BasicDBObject;
+import com.mongodb.DBObject;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A range of _id values scanned by one cursor of
+ * @see org.apache.streams.mongo.MongoPersistReader
+ */
+public class MongoScanSplit implements Serializable {
+
+  private final int index;
+  private final Object lower;
+  private final Object upper;
+
+  /**
+   * MongoScanSplit constructor.
+   * @param index position of the split in the scan
+   * @param lower inclusive lower _id, or null for no lower bound
+   * @param upper exclusive upper _id, or null for no upper bound
+   */
+  public MongoScanSplit(int index, Object lower, Object upper) {
+    this.index = index;
+    this.lower = lower;
+    this.upper = upper;
+  }
+
+  /**
+   * Splits covering every _id, divided at the given points.
+   * @param splitPoints ascending _id values
+   * @return one more split than there are points
+   */
+  public static List<MongoScanSplit> fromSplitPoints(List<Object> splitPoints) {
+    List<MongoScanSplit> splits = new ArrayList<>();
+    Object lower = null;
+    for (Object point : splitPoints) {
+      splits.add(new MongoScanSplit(splits.size(), lower, point));
+      lower = point;
+    }
+    splits.add(new MongoScanSplit(splits.size(), lower, null));
+    return splits;
+  }
+
+  /**
+   * Points dividing the _id values a sample was drawn from into evenly sized splits.
+   * @param sample ascending _id values sampled from the collection
+   * @param scanSplits number of splits wanted
+   * @return ascending, distinct points, fewer than scanSplits - 1 if the sample repeats values
+   */
+  public static List<Object> splitPointsFromSample(List<Object> sample, int scanSplits) {
+    List<Object> points = new ArrayList<>();
+    for (int i = 1; i < scanSplits && !sample.isEmpty(); i++) {
+      Object point = sample.get((int) ((long) sample.size() * i / scanSplits));
+      if (points.isEmpty() || !point.equals(points.get(points.size() - 1))) {
+        points.add(point);
+      }
+    }
+    return points;
+  }
+
+  public int getIndex() {
+    return index;
+  }
+
+  public Object getLower() {
+    return lower;
+  }
+
+  public Object getUpper() {
+    return upper;
+  }
+
+  /**
+   * Query selecting the documents in the split.
+   * @return query
+   */
+  public DBObject getQuery() {
+    BasicDBObject range = new BasicDBObject();
+    if (lower != null) {
+      range.append("$gte", lower);
+    }
+    if (upper != null) {
+      range.append("$lt", upper);
+    }
+    return range.isEmpty() ? new BasicDBObject() : new BasicDBObject("_id", range);
+  }
+
+  @Override
+  public String toString() {
+    return "[" + (lower != null ? lower : "") + ", " + (upper != null ? upper : "") + ")";
+  }
+}
@@ -0,0 +1,73 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+
+package org.apache.streams.mongo.test;
+
+import org.apache.streams.mongo.MongoScanSplit;
+
+import com.mongodb.BasicDBObject;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Unit Test for
+ * @see org.apache.streams.mongo.MongoScanSplit
+ */
+public class MongoScanSplitTest {
+
+  @Test
+  public void testNoSplitPoints() {
+    List<MongoScanSplit> splits = MongoScanSplit.fromSplitPoints(Collections.emptyList());
+    assertEquals(1, splits.size());
+    assertEquals(new BasicDBObject(), splits.get(0).getQuery());
+  }
+
+  @Test
+  public void testSplitsCoverEveryId() {
+    List<MongoScanSplit> splits = MongoScanSplit.fromSplitPoints(Arrays.<Object>asList(10, 20));
+    assertEquals(3, splits.size());
+    assertEquals(new BasicDBObject("_id", new BasicDBObject("$lt", 10)), splits.get(0).getQuery());
+    assertEquals(new BasicDBObject("_id", new BasicDBObject("$gte", 10).append("$lt", 20)),
+        splits.get(1).getQuery());
+    assertEquals(new BasicDBObject("_id", new BasicDBObject("$gte", 20)), splits.get(2).getQuery());
+    for (int i = 0; i < splits.size(); i++) {
+      assertEquals(i, splits.get(i).getIndex());
+    }
+  }
+
+  @Test
+  public void testSplitPointsFromSample() {
+    List<Object> sample = new ArrayList<>();
+    for (int i = 0; i < 40; i++) {
+      sample.add(i * 10);
+    }
+    assertEquals(Arrays.<Object>asList(100, 200, 300), MongoScanSplit.splitPointsFromSample(sample, 4));
+    assertEquals(Collections.emptyList(), MongoScanSplit.splitPointsFromSample(Collections.emptyList(), 4));
+    // repeated sample values give fewer, still distinct, points
+    assertEquals(Arrays.<Object>asList(1, 2),
+        MongoScanSplit.splitPointsFromSample(Arrays.<Object>asList(1, 1, 1, 1, 2, 2), 4));
+  }
+
+}
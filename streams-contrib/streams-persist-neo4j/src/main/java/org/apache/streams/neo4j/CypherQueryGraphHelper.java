@@ -37,6 +37,7 @@ import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -68,6 +69,15 @@ public class CypherQueryGraphHelper implements QueryGraphHelper, Serializable {
       "CREATE UNIQUE (s)-[r:`<r_type>` <r_props>]->(d) "+
       "RETURN r";
 
+  public final static String mergeVerticesStatementTemplate = "UNWIND $rows AS row "+
+      "MERGE (v:`<type>` {id: row.id}) "+
+      "SET v <labels>, v = row.props, v.`@timestamp` = timestamp()";
+
+  public final static String mergeEdgesStatementTemplate = "UNWIND $rows AS row "+
+      "MATCH (s:`<s_type>` {id: row.s_id}),(d:`<d_type>` {id: row.d_id}) "+
+      "MERGE (s)-[r:`<r_type>` {id: row.id}]->(d) "+
+      "SET r = row.props";
+
   public Pair<String, Map<String, Object>> getVertexRequest(String streamsId) {
 
     ST getVertex = new ST(getVertexStringIdStatementTemplate);
@@ -237,6 +247,109 @@ public class CypherQueryGraphHelper implements QueryGraphHelper, Serializable {
     return queryPlusParameters;
   }
 
+  /**
+   * mergeVerticesRequest merges many vertices sharing a type and labels in one statement.
+   * Only the type and labels are part of the query text, so the server can reuse its plan across batches.
+   * @param type objectType of every vertex
+   * @param labels labels of every vertex
+   * @param rows rows from {@link #mergeVertexRow(ActivityObject)}
+   * @return pair (query, parameterMap)
+   */
+  public Pair<String, Map<String, Object>> mergeVerticesRequest(String type, List<String> labels, List<Map<String, Object>> rows) {
+
+    ST mergeVertices = new ST(mergeVerticesStatementTemplate);
+    mergeVertices.add("type", type);
+    if ( labels.size() > 0 ) {
+      mergeVertices.add("labels", String.join(" ", labels));
+    }
+    String query = mergeVertices.render();
+
+    Map<String, Object> params = new HashMap<>();
+    params.put("rows", rows);
+
+    LOGGER.debug("mergeVerticesRequest: ({},{} rows)", query, rows.size());
+
+    return new Pair<>(query, params);
+  }
+
+  /**
+   * mergeEdgesRequest merges many edges sharing source type, edge type and destination type in one statement.
+   * @param sourceType objectType of every source vertex
+   * @param edgeType verb of every edge
+   * @param destinationType objectType of every destination vertex
+   * @param rows rows from {@link #actorObjectEdgeRow(Activity)} or {@link #actorTargetEdgeRow(Activity)}
+   * @return pair (query, parameterMap)
+   */
+  public Pair<String, Map<String, Object>> mergeEdgesRequest(String sourceType, String edgeType, String destinationType, List<Map<String, Object>> rows) {
+
+    ST mergeEdges = new ST(mergeEdgesStatementTemplate);
+    mergeEdges.add("s_type", sourceType);
+    mergeEdges.add("r_type", edgeType);
+    mergeEdges.add("d_type", destinationType);
+    String query = mergeEdges.render();
+
+    Map<String, Object> params = new HashMap<>();
+    params.put("rows", rows);
+
+    LOGGER.debug("mergeEdgesRequest: ({},{} rows)", query, rows.size());
+
+    return new Pair<>(query, params);
+  }
+
+  /**
+   * mergeVertexRow.
+   * @param activityObject activityObject
+   * @return row for {@link #mergeVerticesRequest(String, List, List)}
+   */
+  public Map<String, Object> mergeVertexRow(ActivityObject activityObject) {
+
+    Objects.requireNonNull(activityObject.getObjectType());
+
+    ObjectNode object = MAPPER.convertValue(activityObject, ObjectNode.class);
+    Map<String, Object> props = PropertyUtil.getInstance(MAPPER).flattenToMap(object);
+
+    Map<String, Object> row = new HashMap<>();
+    row.put("id", activityObject.getId());
+    row.put("props", props);
+    return row;
+  }
+
+  /**
+   * actorObjectEdgeRow.
+   * @param activity activity
+   * @return row for {@link #mergeEdgesRequest(String, String, String, List)}
+   */
+  public Map<String, Object> actorObjectEdgeRow(Activity activity) {
+
+    ObjectNode object = MAPPER.convertValue(activity, ObjectNode.class);
+    Map<String, Object> props = PropertyUtil.getInstance(MAPPER).flattenToMap(object);
+
+    Map<String, Object> row = new HashMap<>();
+    row.put("s_id", activity.getActor().getId());
+    row.put("d_id", activity.getObject().getId());
+    row.put("id", activity.getId());
+    row.put("props", getActorObjectEdgeProperties(props));
+    return row;
+  }
+
+  /**
+   * actorTargetEdgeRow.
+   * @param activity activity
+   * @return row for {@link #mergeEdgesRequest(String, String, String, List)}
+   */
+  public Map<String, Object> actorTargetEdgeRow(Activity activity) {
+
+    ObjectNode object = MAPPER.convertValue(activity, ObjectNode.class);
+    Map<String, Object> props = PropertyUtil.getInstance(MAPPER).flattenToMap(object);
+
+    Map<String, Object> row = new HashMap<>();
+    row.put("s_id", activity.getActor().getId());
+    row.put("d_id", activity.getTarget().getId());
+    row.put("id", activity.getId());
+    row.put("props", getActorTargetEdgeProperties(props));
+    return row;
+  }
+
   /**
    * getPropertyValueSetter.
    * @param map paramMap
@@ -290,39 +403,49 @@ public class CypherQueryGraphHelper implements QueryGraphHelper, Serializable {
   }
 
   private String getActorObjectEdgePropertyCreater(Map<String, Object> map) {
+    return getEdgePropertyCreater(getActorObjectEdgeProperties(map));
+  }
+
+  private String getActorTargetEdgePropertyCreater(Map<String, Object> map) {
+    return getEdgePropertyCreater(getActorTargetEdgeProperties(map));
+  }
+
+  private String getEdgePropertyCreater(Map<String, Object> properties) {
     StringBuilder builder = new StringBuilder();
     builder.append("{ ");
     List<String> parts = new ArrayList<>();
+    for( Map.Entry<String, Object> entry : properties.entrySet()) {
+      parts.add("`"+entry.getKey() + "`: '" + StringEscapeUtils.escapeJava((String) entry.getValue()) + "'");
+    }
+    builder.append(String.join(", ", parts));
+    builder.append(" }");
+    return builder.toString();
+  }
+
+  private Map<String, Object> getActorObjectEdgeProperties(Map<String, Object> map) {
+    Map<String, Object> properties = new LinkedHashMap<>();
     for( Map.Entry<String, Object> entry : map.entrySet()) {
       if( entry.getValue() instanceof String ) {
-        String propVal = (String) (entry.getValue());
         if( !entry.getKey().contains(".")) {
-          parts.add("`"+entry.getKey() + "`: '" + StringEscapeUtils.escapeJava(propVal) + "'");
+          properties.put(entry.getKey(), entry.getValue());
         }
       }
     }
-    builder.append(String.join(", ", parts));
-    builder.append(" }");
-    return builder.toString();
+    return properties;
   }
 
-  private String getActorTargetEdgePropertyCreater(Map<String, Object> map) {
-    StringBuilder builder = new StringBuilder();
-    builder.append("{ ");
-    List<String> parts = new ArrayList<>();
+  private Map<String, Object> getActorTargetEdgeProperties(Map<String, Object> map) {
+    Map<String, Object> properties = new LinkedHashMap<>();
     for( Map.Entry<String, Object> entry : map.entrySet()) {
       if( entry.getValue() instanceof String ) {
-        String propVal = (String) (entry.getValue());
         if( !entry.getKey().contains(".")) {
-          parts.add("`"+entry.getKey() + "`: '" + StringEscapeUtils.escapeJava(propVal) + "'");
+          properties.put(entry.getKey(), entry.getValue());
         } else if( entry.getKey().startsWith("object.") && !entry.getKey().contains(".id")) {
-          parts.add("`"+entry.getKey().substring("object.".length()) + "`: '" + StringEscapeUtils.escapeJava(propVal) + "'");
+          properties.put(entry.getKey().substring("object.".length()), entry.getValue());
         }
       }
     }
-    builder.append(String.join(", ", parts));
-    builder.append(" }");
-    return builder.toString();
+    return properties;
   }
 
   /**
@@ -0,0 +1,156 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.streams.neo4j;
+
+import org.apache.streams.pojo.json.Activity;
+import org.apache.streams.pojo.json.ActivityObject;
+
+import org.javatuples.Pair;
+import org.javatuples.Triplet;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Collects vertices and edges from many documents and renders them as one parameterized
+ * UNWIND statement per vertex type and per edge type.
+ *
+ * <p></p>
+ * Vertices are keyed by id within their type, so a vertex seen many times in a batch is merged once with its
+ * latest properties.  Vertex statements are always rendered before edge statements so edges can match the
+ * vertices written in the same transaction.  Not thread safe.
+ */
+public class CypherStatementBatch {
+
+  private final CypherQueryGraphHelper helper;
+
+  private final Map<Pair<String, List<String>>, Map<String, Map<String, Object>>> vertices = new LinkedHashMap<>();
+  private final Map<Triplet<String, String, String>, List<Map<String, Object>>> edges = new LinkedHashMap<>();
+
+  private int vertexCount = 0;
+  private int edgeCount = 0;
+  private long oldestMillis = 0;
+
+  public CypherStatementBatch() {
+    this(new CypherQueryGraphHelper());
+  }
+
+  public CypherStatementBatch(CypherQueryGraphHelper helper) {
+    this.helper = helper;
+  }
+
+  /**
+   * addVertex.
+   * @param activityObject activityObject with an id and objectType
+   */
+  public void addVertex(ActivityObject activityObject) {
+    Pair<String, List<String>> key = new Pair<>(activityObject.getObjectType(), CypherQueryGraphHelper.getLabels(activityObject));
+    Map<String, Map<String, Object>> rows = vertices.computeIfAbsent(key, k -> new LinkedHashMap<>());
+    if ( rows.put(activityObject.getId(), helper.mergeVertexRow(activityObject)) == null ) {
+      vertexCount++;
+    }
+    touch();
+  }
+
+  /**
+   * addActorObjectEdge.
+   * @param activity activity with an id, and an actor and object with ids
+   */
+  public void addActorObjectEdge(Activity activity) {
+    addEdge(activity.getActor().getObjectType(), activity.getVerb(), activity.getObject().getObjectType(),
+        helper.actorObjectEdgeRow(activity));
+  }
+
+  /**
+   * addActorTargetEdge.
+   * @param activity activity with an id, and an actor and target with ids
+   */
+  public void addActorTargetEdge(Activity activity) {
+    addEdge(activity.getActor().getObjectType(), activity.getVerb(), activity.getTarget().getObjectType(),
+        helper.actorTargetEdgeRow(activity));
+  }
+
+  private void addEdge(String sourceType, String edgeType, String destinationType, Map<String, Object> row) {
+    edges.computeIfAbsent(new Triplet<>(sourceType, edgeType, destinationType), k -> new ArrayList<>()).add(row);
+    edgeCount++;
+    touch();
+  }
+
+  private void touch() {
+    if ( oldestMillis == 0 ) {
+      oldestMillis = System.currentTimeMillis();
+    }
+  }
+
+  /**
+   * statements.
+   * @return vertex statements followed by edge statements, as (query, parameterMap) pairs
+   */
+  public List<Pair<String, Map<String, Object>>> statements() {
+    List<Pair<String, Map<String, Object>>> statements = new ArrayList<>(vertices.size() + edges.size());
+    for ( Map.Entry<Pair<String, List<String>>, Map<String, Map<String, Object>>> entry : vertices.entrySet() ) {
+      statements.add(helper.mergeVerticesRequest(entry.getKey().getValue0(), entry.getKey().getValue1(),
+          new ArrayList<>(entry.getValue().values())));
+    }
+    for ( Map.Entry<Triplet<String, String, String>, List<Map<String, Object>>> entry : edges.entrySet() ) {
+      Triplet<String, String, String> key = entry.getKey();
+      statements.add(helper.mergeEdgesRequest(key.getValue0(), key.getValue1(), key.getValue2(), entry.getValue()));
+    }
+    return statements;
+  }
+
+  public void clear() {
+    vertices.clear();
+    edges.clear();
+    vertexCount = 0;
+    edgeCount = 0;
+    oldestMillis = 0;
+  }
+
+  /**
+   * size.
+   * @return distinct vertices plus edges collected
+   */
+  public int size() {
+    return vertexCount + edgeCount;
+  }
+
+  public int getVertexCount() {
+    return vertexCount;
+  }
+
+  public int getEdgeCount() {
+    return edgeCount;
+  }
+
+  public boolean isEmpty() {
+    return size() == 0;
+  }
+
+  /**
+   * getOldestMillis.
+   * @return wall clock time the first item was added since the last clear, or 0 when empty
+   */
+  public long getOldestMillis() {
+    return oldestMillis;
+  }
+
+}
@@ -55,7 +55,69 @@ public class Neo4jPersistUtil {
 
     List<Pair<String, Map<String, Object>>> statements = new ArrayList<>();
 
-    String id = entry.getId();
+    Pair<Activity, ActivityObject> parsed = parseDocument(entry);
+    Activity activity = parsed.getValue0();
+    ActivityObject activityObject = parsed.getValue1();
+
+    if ( activityObject != null && !Strings.isNullOrEmpty(activityObject.getId())) {
+
+      statements.add(vertexStatement(activityObject));
+
+    } else if ( activity != null && !Strings.isNullOrEmpty(activity.getId())) {
+
+      statements.addAll(vertexStatements(activity));
+
+      statements.addAll(edgeStatements(activity));
+
+    }
+
+    return statements;
+  }
+
+  /**
+   * Add the vertices and edges of a datum to a batch, under the same rules as {@link #prepareStatements(StreamsDatum)}.
+   * @param entry datum
+   * @param batch batch to add to
+   * @throws Exception if the document can't be converted
+   */
+  public static void batchStatements(StreamsDatum entry, CypherStatementBatch batch) throws Exception {
+
+    Pair<Activity, ActivityObject> parsed = parseDocument(entry);
+    Activity activity = parsed.getValue0();
+    ActivityObject activityObject = parsed.getValue1();
+
+    if ( activityObject != null && !Strings.isNullOrEmpty(activityObject.getId())) {
+
+      batch.addVertex(activityObject);
+
+    } else if ( activity != null && !Strings.isNullOrEmpty(activity.getId())) {
+
+      ActivityObject actor = activity.getActor();
+      ActivityObject object = activity.getObject();
+      ActivityObject target = activity.getTarget();
+
+      if (actor != null && StringUtils.isNotBlank(actor.getId())) {
+        batch.addVertex(actor);
+      }
+      if (object != null && StringUtils.isNotBlank(object.getId())) {
+        batch.addVertex(object);
+      }
+      if (target != null && StringUtils.isNotBlank(target.getId())) {
+        batch.addVertex(target);
+      }
+
+      if (StringUtils.isNotBlank(actor.getId()) && object != null && StringUtils.isNotBlank(object.getId())) {
+        batch.addActorObjectEdge(activity);
+      }
+      if (StringUtils.isNotBlank(actor.getId()) && target != null && StringUtils.isNotBlank(target.getId())) {
+        batch.addActorTargetEdge(activity);
+      }
+
+    }
+  }
+
+  private static Pair<Activity, ActivityObject> parseDocument(StreamsDatum entry) throws Exception {
+
     Activity activity = null;
     ActivityObject activityObject = null;
     Object document = entry.getDocument();
@@ -95,19 +157,7 @@ public class Neo4jPersistUtil {
 
     Preconditions.checkArgument(activity != null ^ activityObject != null);
 
-    if ( activityObject != null && !Strings.isNullOrEmpty(activityObject.getId())) {
-
-      statements.add(vertexStatement(activityObject));
-
-    } else if ( activity != null && !Strings.isNullOrEmpty(activity.getId())) {
-
-      statements.addAll(vertexStatements(activity));
-
-      statements.addAll(edgeStatements(activity));
-
-    }
-
-    return statements;
+    return new Pair<>(activity, activityObject);
   }
 
   public static List<Pair<String, Map<String, Object>>> vertexStatements(Activity activity) {
@@ -20,23 +20,35 @@ package org.apache.streams.neo4j.bolt;
 
 import org.apache.streams.core.StreamsDatum;
 import org.apache.streams.core.StreamsPersistWriter;
+import org.apache.streams.neo4j.CypherStatementBatch;
 import org.apache.streams.neo4j.Neo4jConfiguration;
 import org.apache.streams.neo4j.Neo4jPersistUtil;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 
 import org.javatuples.Pair;
 import org.neo4j.driver.v1.Session;
 import org.neo4j.driver.v1.StatementResult;
 import org.neo4j.driver.v1.Transaction;
+import org.neo4j.driver.v1.summary.ResultSummary;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Created by sblackmon on 12/16/16.
+ *
+ * <p></p>
+ * With batchSize above 1, vertices and edges from many datums are collected into a
+ * {@link org.apache.streams.neo4j.CypherStatementBatch} and written as parameterized UNWIND statements in a
+ * single transaction, once the batch is full or flushIntervalMs after its first item.  Batches reuse one
+ * session; the driver pools the underlying connections.
  */
 public class Neo4jBoltPersistWriter implements StreamsPersistWriter {
 
@@ -48,6 +60,12 @@ public class Neo4jBoltPersistWriter implements StreamsPersistWriter {
 
   private static ObjectMapper mapper;
 
+  private CypherStatementBatch batch;
+  private Session batchSession;
+  private ScheduledExecutorService flushExecutor;
+  private long batchSize;
+  private long flushIntervalMs;
+
   public Neo4jBoltPersistWriter(Neo4jConfiguration config) {
     this.config = config;
 
@@ -61,16 +79,42 @@ public class Neo4jBoltPersistWriter implements StreamsPersistWriter {
   @Override
   public void prepare(Object configurationObject) {
     client = Neo4jBoltClient.getInstance(config);
+    batchSize = config.getBatchSize() != null ? config.getBatchSize() : 1;
+    flushIntervalMs = config.getFlushIntervalMs() != null ? config.getFlushIntervalMs() : 1000;
+    if ( batchSize > 1 ) {
+      batch = new CypherStatementBatch();
+      flushExecutor = Executors.newSingleThreadScheduledExecutor(
+          new ThreadFactoryBuilder().setNameFormat("neo4j-bolt-flush-%d").setDaemon(true).build());
+      long period = Math.max(1, flushIntervalMs / 2);
+      flushExecutor.scheduleWithFixedDelay(this::flushExpired, period, period, TimeUnit.MILLISECONDS);
+    }
   }
 
   @Override
   public void cleanUp() {
-    //
+    if ( flushExecutor != null ) {
+      flushExecutor.shutdownNow();
+      flushExecutor = null;
+    }
+    if ( batch != null ) {
+      synchronized (this) {
+        flush();
+        if ( batchSession != null ) {
+          batchSession.close();
+          batchSession = null;
+        }
+      }
+    }
   }
 
   @Override
   public void write(StreamsDatum entry) {
 
+    if ( batch != null ) {
+      writeBatched(entry);
+      return;
+    }
+
     List<Pair<String, Map<String, Object>>> statements;
     Session session = null;
     try {
@@ -91,5 +135,55 @@ public class Neo4jBoltPersistWriter implements StreamsPersistWriter {
     }
   }
 
+  private synchronized void writeBatched(StreamsDatum entry) {
+    try {
+      Neo4jPersistUtil.batchStatements(entry, batch);
+    } catch( Exception ex ) {
+      LOGGER.error("Exception", ex);
+      return;
+    }
+    if ( batch.size() >= batchSize ) {
+      flush();
+    }
+  }
+
+  private synchronized void flushExpired() {
+    if ( !batch.isEmpty() && System.currentTimeMillis() - batch.getOldestMillis() >= flushIntervalMs ) {
+      flush();
+    }
+  }
+
+  /**
+   * Write everything batched so far in one transaction.
+   */
+  public synchronized void flush() {
+    if ( batch == null || batch.isEmpty() ) {
+      return;
+    }
+    List<Pair<String, Map<String, Object>>> statements = batch.statements();
+    int vertices = batch.getVertexCount();
+    int edges = batch.getEdgeCount();
+    batch.clear();
+
+    try {
+      if ( batchSession == null || !batchSession.isOpen() ) {
+        batchSession = client.client().session();
+      }
+      try ( Transaction transaction = batchSession.beginTransaction() ) {
+        for ( Pair<String, Map<String, Object>> statement : statements ) {
+          ResultSummary summary = transaction.run( statement.getValue0(), statement.getValue1() ).consume();
+          LOGGER.debug("ResultSummary {}", summary.counters());
+        }
+        transaction.success();
+      }
+      LOGGER.debug("Flushed {} vertices and {} edges in {} statements", vertices, edges, statements.size());
+    } catch( Exception ex ) {
+      LOGGER.error("Failed writing batch of {} vertices and {} edges", vertices, edges, ex);
+      if ( batchSession != null ) {
+        batchSession.close();
+        batchSession = null;
+      }
+    }
+  }
 
 }
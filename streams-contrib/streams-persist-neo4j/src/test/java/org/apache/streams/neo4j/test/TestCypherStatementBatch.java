@@ -0,0 +1,122 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.streams.neo4j.test;
+
+import org.apache.streams.core.StreamsDatum;
+import org.apache.streams.neo4j.CypherStatementBatch;
+import org.apache.streams.neo4j.Neo4jPersistUtil;
+import org.apache.streams.pojo.json.Activity;
+import org.apache.streams.pojo.json.ActivityObject;
+
+import org.javatuples.Pair;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * TestCypherStatementBatch tests
+ * @see org.apache.streams.neo4j.CypherStatementBatch
+ */
+public class TestCypherStatementBatch {
+
+  @Test
+  public void batchFollowsTest() throws Exception {
+
+    CypherStatementBatch batch = new CypherStatementBatch();
+    for ( int i = 0; i < 10; i++ ) {
+      Neo4jPersistUtil.batchStatements(new StreamsDatum(follow("user" + (i % 3), "user" + (i + 100))), batch);
+    }
+
+    // 3 distinct followers and 10 distinct followees, one edge per activity
+    assertEquals(13, batch.getVertexCount());
+    assertEquals(10, batch.getEdgeCount());
+    assertTrue(batch.getOldestMillis() > 0);
+
+    List<Pair<String, Map<String, Object>>> statements = batch.statements();
+    assertEquals(2, statements.size());
+
+    Pair<String, Map<String, Object>> vertices = statements.get(0);
+    assertTrue(vertices.getValue0().startsWith("UNWIND $rows AS row MERGE (v:`person`"));
+    assertEquals(13, ((List) vertices.getValue1().get("rows")).size());
+
+    Pair<String, Map<String, Object>> edges = statements.get(1);
+    assertTrue(edges.getValue0().contains("[r:`follow` {id: row.id}]"));
+    assertEquals(10, ((List) edges.getValue1().get("rows")).size());
+
+    // ids travel as parameters, so every batch renders the same query text
+    for ( Pair<String, Map<String, Object>> statement : statements ) {
+      assertFalse(statement.getValue0().contains("user"));
+    }
+
+    batch.clear();
+    assertTrue(batch.isEmpty());
+    assertEquals(0, batch.getOldestMillis());
+    assertTrue(batch.statements().isEmpty());
+  }
+
+  @Test
+  public void batchGroupsByTypeTest() throws Exception {
+
+    CypherStatementBatch batch = new CypherStatementBatch();
+
+    ActivityObject page = new ActivityObject();
+    page.setId("page");
+    page.setObjectType("page");
+    batch.addVertex(page);
+
+    Activity follow = follow("user1", "user2");
+    batch.addVertex(follow.getActor());
+    batch.addVertex(follow.getObject());
+    batch.addActorObjectEdge(follow);
+
+    List<Pair<String, Map<String, Object>>> statements = batch.statements();
+    assertEquals(3, statements.size());
+    assertTrue(statements.get(0).getValue0().contains("(v:`page`"));
+    assertTrue(statements.get(1).getValue0().contains("(v:`person`"));
+    assertTrue(statements.get(2).getValue0().startsWith("UNWIND $rows AS row MATCH (s:`person`"));
+
+    Map<String, Object> row = (Map<String, Object>) ((List) statements.get(2).getValue1().get("rows")).get(0);
+    assertEquals("user1", row.get("s_id"));
+    assertEquals("user2", row.get("d_id"));
+    assertEquals("user1-follow-user2", row.get("id"));
+  }
+
+  private Activity follow(String follower, String followee) {
+
+    ActivityObject actor = new ActivityObject();
+    actor.setId(follower);
+    actor.setObjectType("person");
+
+    ActivityObject object = new ActivityObject();
+    object.setId(followee);
+    object.setObjectType("person");
+
+    Activity activity = new Activity();
+    activity.setId(follower + "-follow-" + followee);
+    activity.setVerb("follow");
+    activity.setActor(actor);
+    activity.setObject(object);
+    return activity;
+  }
+}
@@ -0,0 +1,75 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.streams.urls;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Limits the number of concurrent connections to each host, so a slow host can hold at most
+ * maxConnectionsPerHost resolving threads.
+ */
+public class HostConnectionLimiter {
+
+    private static final Map<Integer, HostConnectionLimiter> SHARED = new ConcurrentHashMap<>();
+
+    private final int maxConnectionsPerHost;
+    private final Map<String, Semaphore> permits = new ConcurrentHashMap<>();
+
+    public HostConnectionLimiter(int maxConnectionsPerHost) {
+        this.maxConnectionsPerHost = maxConnectionsPerHost;
+    }
+
+    /**
+     * Limiter shared by every resolver in this JVM with the same limit.
+     *
+     * @param maxConnectionsPerHost maximum number of concurrent connections to one host
+     * @return HostConnectionLimiter
+     */
+    public static HostConnectionLimiter shared(int maxConnectionsPerHost) {
+        return SHARED.computeIfAbsent(maxConnectionsPerHost, HostConnectionLimiter::new);
+    }
+
+    /**
+     * Wait up to timeoutMs for a connection to host.
+     *
+     * @param host host
+     * @param timeoutMs how long to wait
+     * @return whether a connection was acquired, in which case it must be released
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public boolean acquire(String host, long timeoutMs) throws InterruptedException {
+        return permits(host).tryAcquire(timeoutMs, TimeUnit.MILLISECONDS);
+    }
+
+    public void release(String host) {
+        permits(host).release();
+    }
+
+    public int available(String host) {
+        return permits(host).availablePermits();
+    }
+
+    private Semaphore permits(String host) {
+        return permits.computeIfAbsent(host.toLowerCase(), key -> new Semaphore(maxConnectionsPerHost));
+    }
+
+}
@@ -0,0 +1,85 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.streams.urls;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
+
+/**
+ * Resolution of one url run on an executor, whose future completes even if the executor rejects or drops it.
+ * <p/>
+ * Executors that are shut down with shutdownNow return the resolutions they never ran; pass each to
+ * {@link #abandon(Runnable)} so anyone waiting on them is released.
+ */
+public class LinkResolution implements Runnable {
+
+    private final CompletableFuture<LinkDetails> future;
+    private final Supplier<LinkDetails> resolver;
+
+    private LinkResolution(CompletableFuture<LinkDetails> future, Supplier<LinkDetails> resolver) {
+        this.future = future;
+        this.resolver = resolver;
+    }
+
+    /**
+     * Run a resolution on an executor.
+     *
+     * @param resolver resolves the url
+     * @param executor runs the resolver
+     * @return future LinkDetails, completed exceptionally if the executor rejects the resolution
+     */
+    public static CompletableFuture<LinkDetails> submit(Supplier<LinkDetails> resolver, Executor executor) {
+        CompletableFuture<LinkDetails> future = new CompletableFuture<>();
+        try {
+            executor.execute(new LinkResolution(future, resolver));
+        } catch (RejectedExecutionException ex) {
+            future.completeExceptionally(ex);
+        }
+        return future;
+    }
+
+    /**
+     * Fail a task an executor dropped, if it is a resolution.
+     *
+     * @param dropped task returned by shutdownNow
+     */
+    public static void abandon(Runnable dropped) {
+        if (dropped instanceof LinkResolution) {
+            ((LinkResolution) dropped).future.completeExceptionally(
+                    new CancellationException("Executor shut down before resolving"));
+        }
+    }
+
+    @Override
+    public void run() {
+        try {
+            future.complete(resolver.get());
+        } catch (RuntimeException ex) {
+            future.completeExceptionally(ex);
+        } finally {
+            if (!future.isDone()) {
+                future.completeExceptionally(new IllegalStateException("Resolution did not complete"));
+            }
+        }
+    }
+
+}
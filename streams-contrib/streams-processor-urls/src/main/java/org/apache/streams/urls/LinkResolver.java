@@ -107,6 +107,9 @@ public class LinkResolver implements Serializable {
     private final LinkDetails linkDetails;
     private Collection<String> domainsSensitiveTo = new HashSet<>();
 
+    // limits concurrent connections per host, when set
+    private transient HostConnectionLimiter hostConnectionLimiter;
+
     /**
      * Get the link details
      *
@@ -126,6 +129,18 @@ public class LinkResolver implements Serializable {
         linkDetails.setOriginalURL(originalURL);
     }
 
+    /**
+     * Raw string input of the URL, resolved with at most as many concurrent connections to each host as the
+     * limiter allows. A hop that cannot get a connection within the http timeout fails with ERROR.
+     *
+     * @param originalURL The URL you wish to unwind represented as a string.
+     * @param hostConnectionLimiter limits concurrent connections per host
+     */
+    public LinkResolver(String originalURL, HostConnectionLimiter hostConnectionLimiter) {
+        this(originalURL);
+        this.hostConnectionLimiter = hostConnectionLimiter;
+    }
+
     public void run() {
 
         Objects.requireNonNull(linkDetails.getOriginalURL());
@@ -181,6 +196,9 @@ public class LinkResolver implements Serializable {
 
         HttpURLConnection connection = null;
 
+        // The host we hold a connection permit for (if any)
+        String permittedHost = null;
+
         // Store where the redirected link will go (if there is one)
         String reDirectedLink = null;
 
@@ -203,6 +221,15 @@ public class LinkResolver implements Serializable {
                 // noOp
             }
 
+            if (hostConnectionLimiter != null) {
+                if (!hostConnectionLimiter.acquire(thisURL.getHost(), DEFAULT_HTTP_TIMEOUT)) {
+                    LOGGER.debug("Timed out waiting for a connection to {}", thisURL.getHost());
+                    linkDetails.setLinkStatus(LinkDetails.LinkStatus.ERROR);
+                    return;
+                }
+                permittedHost = thisURL.getHost();
+            }
+
             connection = (HttpURLConnection) new URL(url).openConnection();
 
             // now we are going to pretend that we are a browser...
@@ -330,6 +357,8 @@ public class LinkResolver implements Serializable {
             // if the connection is not null, then we need to disconnect to close any underlying resources
             if (connection != null)
                 connection.disconnect();
+            if (permittedHost != null)
+                hostConnectionLimiter.release(permittedHost);
         }
 
         // If there was a redirection, then we have to keep going
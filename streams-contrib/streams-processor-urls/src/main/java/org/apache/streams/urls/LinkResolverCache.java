@@ -0,0 +1,280 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.streams.urls;
+
+import org.apache.streams.jackson.StreamsJacksonMapper;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+/**
+ * Cache of link resolutions keyed by {@link LinkResolver#normalizeURL(String)}.
+ * <p/>
+ * Resolutions are held in memory in least recently used order, up to maxEntries. Successful resolutions live for
+ * ttlMs, failed ones for failureTtlMs. Concurrent lookups of a url that is being resolved share that resolution.
+ * <p/>
+ * When a store file is given, every resolution is appended to it as a line of json, and the live entries are read
+ * back (and the file compacted) when the cache is created, so resolutions survive restarts.
+ */
+public class LinkResolverCache {
+
+    private final static Logger LOGGER = LoggerFactory.getLogger(LinkResolverCache.class);
+
+    private static final Map<String, LinkResolverCache> SHARED = new ConcurrentHashMap<>();
+
+    private static final ObjectMapper MAPPER = StreamsJacksonMapper.getInstance();
+
+    private final int maxEntries;
+    private final long ttlMs;
+    private final long failureTtlMs;
+    private final LongSupplier clock;
+    private final Path store;
+
+    private final LinkedHashMap<String, Entry> entries;
+    private final ConcurrentHashMap<String, CompletableFuture<LinkDetails>> pending = new ConcurrentHashMap<>();
+
+    private final AtomicLong hits = new AtomicLong(0);
+    private final AtomicLong misses = new AtomicLong(0);
+    private final AtomicLong coalesced = new AtomicLong(0);
+
+    private BufferedWriter storeWriter;
+
+    public LinkResolverCache(int maxEntries, long ttlMs, long failureTtlMs, Path store) {
+        this(maxEntries, ttlMs, failureTtlMs, store, System::currentTimeMillis);
+    }
+
+    LinkResolverCache(int maxEntries, long ttlMs, long failureTtlMs, Path store, LongSupplier clock) {
+        this.maxEntries = maxEntries;
+        this.ttlMs = ttlMs;
+        this.failureTtlMs = failureTtlMs;
+        this.store = store;
+        this.clock = clock;
+        this.entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > LinkResolverCache.this.maxEntries;
+            }
+        };
+        if (store != null) {
+            load();
+        }
+    }
+
+    /**
+     * Cache shared by every processor in this JVM with the same configuration, created on first use.
+     *
+     * @param configuration configuration
+     * @return LinkResolverCache
+     */
+    public static LinkResolverCache shared(LinkResolverConfiguration configuration) {
+        String name = configuration.getCacheSize() + ":" + configuration.getCacheTtlMs() + ":"
+                + configuration.getFailureTtlMs() + ":" + configuration.getCacheFile();
+        return SHARED.computeIfAbsent(name, key -> new LinkResolverCache(
+                configuration.getCacheSize().intValue(),
+                configuration.getCacheTtlMs(),
+                configuration.getFailureTtlMs(),
+                configuration.getCacheFile() != null ? Paths.get(configuration.getCacheFile()) : null));
+    }
+
+    /**
+     * Resolve a url, from the cache, by joining a resolution already in flight, or on the executor.
+     *
+     * @param originalURL url to resolve
+     * @param resolver resolves a url that is neither cached nor in flight
+     * @param executor runs the resolver, see {@link LinkResolution}
+     * @return future LinkDetails
+     */
+    public CompletableFuture<LinkDetails> resolve(String originalURL, Function<String, LinkDetails> resolver, Executor executor) {
+        String key = LinkResolver.normalizeURL(originalURL);
+        LinkDetails cached = get(key);
+        if (cached != null) {
+            hits.incrementAndGet();
+            return CompletableFuture.completedFuture(cached);
+        }
+        CompletableFuture<LinkDetails> future = new CompletableFuture<>();
+        CompletableFuture<LinkDetails> existing = pending.putIfAbsent(key, future);
+        if (existing != null) {
+            coalesced.incrementAndGet();
+            return existing;
+        }
+        misses.incrementAndGet();
+        // however the resolution ends, including rejected or dropped by the executor, later lookups start afresh
+        LinkResolution.submit(() -> {
+            LinkDetails linkDetails = resolver.apply(originalURL);
+            put(key, linkDetails);
+            return linkDetails;
+        }, executor).whenComplete((linkDetails, ex) -> {
+            pending.remove(key, future);
+            if (ex != null) {
+                future.completeExceptionally(ex);
+            } else {
+                future.complete(linkDetails);
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Cached resolution of a normalized url, or null when there is none or it expired.
+     *
+     * @param key normalized url
+     * @return LinkDetails
+     */
+    public synchronized LinkDetails get(String key) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.expiresAt <= clock.getAsLong()) {
+            entries.remove(key);
+            return null;
+        }
+        return entry.linkDetails;
+    }
+
+    /**
+     * Cache the resolution of a normalized url, and append it to the store.
+     *
+     * @param key normalized url
+     * @param linkDetails resolution
+     */
+    public synchronized void put(String key, LinkDetails linkDetails) {
+        long expiresAt = clock.getAsLong()
+                + (linkDetails.getLinkStatus() == LinkDetails.LinkStatus.SUCCESS ? ttlMs : failureTtlMs);
+        entries.put(key, new Entry(linkDetails, expiresAt));
+        if (storeWriter != null) {
+            try {
+                storeWriter.write(record(key, linkDetails, expiresAt));
+                storeWriter.newLine();
+                storeWriter.flush();
+            } catch (IOException ex) {
+                LOGGER.warn("Failed to append to {}, no longer persisting resolutions: {}", store, ex.getMessage());
+                close();
+            }
+        }
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public long getCoalesced() {
+        return coalesced.get();
+    }
+
+    /**
+     * Stop appending to the store.
+     */
+    public synchronized void close() {
+        if (storeWriter != null) {
+            try {
+                storeWriter.close();
+            } catch (IOException ex) {
+                LOGGER.debug("Failed to close {}: {}", store, ex.getMessage());
+            }
+            storeWriter = null;
+        }
+    }
+
+    // read the live entries from the store, then rewrite it with only those and keep it open for appending
+    private void load() {
+        long now = clock.getAsLong();
+        if (Files.exists(store)) {
+            try (BufferedReader reader = Files.newBufferedReader(store, StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    try {
+                        ObjectNode record = MAPPER.readValue(line, ObjectNode.class);
+                        long expiresAt = record.get("expiresAt").asLong();
+                        if (expiresAt > now) {
+                            LinkDetails linkDetails = MAPPER.convertValue(record.get("linkDetails"), LinkDetails.class);
+                            entries.put(record.get("key").asText(), new Entry(linkDetails, expiresAt));
+                        }
+                    } catch (IOException | RuntimeException ex) {
+                        LOGGER.debug("Skipping unreadable line in {}: {}", store, ex.getMessage());
+                    }
+                }
+            } catch (IOException ex) {
+                LOGGER.warn("Failed to read {}: {}", store, ex.getMessage());
+            }
+            LOGGER.info("Loaded {} link resolutions from {}", entries.size(), store);
+        }
+        try {
+            Path compacted = store.resolveSibling(store.getFileName() + ".tmp");
+            try (BufferedWriter writer = Files.newBufferedWriter(compacted, StandardCharsets.UTF_8)) {
+                for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+                    writer.write(record(entry.getKey(), entry.getValue().linkDetails, entry.getValue().expiresAt));
+                    writer.newLine();
+                }
+            }
+            Files.move(compacted, store, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            storeWriter = Files.newBufferedWriter(store, StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+        } catch (IOException ex) {
+            LOGGER.warn("Failed to open {}, not persisting resolutions: {}", store, ex.getMessage());
+        }
+    }
+
+    private String record(String key, LinkDetails linkDetails, long expiresAt) throws IOException {
+        ObjectNode record = MAPPER.createObjectNode();
+        record.put("key", key);
+        record.put("expiresAt", expiresAt);
+        record.set("linkDetails", MAPPER.valueToTree(linkDetails));
+        return MAPPER.writeValueAsString(record);
+    }
+
+    private static class Entry {
+
+        private final LinkDetails linkDetails;
+        private final long expiresAt;
+
+        private Entry(LinkDetails linkDetails, long expiresAt) {
+            this.linkDetails = linkDetails;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+}
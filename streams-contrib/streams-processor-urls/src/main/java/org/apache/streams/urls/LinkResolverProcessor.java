@@ -31,15 +31,41 @@ import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
+/**
+ * Replaces the links of an activity with the urls they resolve to.
+ * <p/>
+ * The links of an activity are resolved concurrently. Resolutions are cached in a {@link LinkResolverCache} shared
+ * by every processor with the same configuration, and concurrent connections to one host are limited by a shared
+ * {@link HostConnectionLimiter}, so a slow shortener holds at most maxConnectionsPerHost resolving threads.
+ */
 public class LinkResolverProcessor implements StreamsProcessor {
 
     private static final String STREAMS_ID = "LinkResolverProcessor";
     private static final Logger LOGGER = LoggerFactory.getLogger(LinkResolverProcessor.class);
     private static ObjectMapper mapper = StreamsJacksonMapper.getInstance();
 
+    private LinkResolverConfiguration configuration;
+
+    private transient LinkResolverCache cache;
+    private transient HostConnectionLimiter hostConnectionLimiter;
+    private transient ExecutorService executor;
+
+    public LinkResolverProcessor() {
+        this(new LinkResolverConfiguration());
+    }
+
+    public LinkResolverProcessor(LinkResolverConfiguration configuration) {
+        this.configuration = configuration;
+    }
+
     @Override
     public String getId() {
         return STREAMS_ID;
@@ -96,16 +122,66 @@ public class LinkResolverProcessor implements StreamsProcessor {
 
     @Override
     public void prepare(Object o) {
-        // noOp
+        if (configuration.getCacheSize() > 0) {
+            cache = LinkResolverCache.shared(configuration);
+        }
+        hostConnectionLimiter = HostConnectionLimiter.shared(configuration.getMaxConnectionsPerHost().intValue());
+        AtomicInteger threadNumber = new AtomicInteger(0);
+        executor = Executors.newFixedThreadPool(configuration.getThreads().intValue(), runnable -> {
+            Thread thread = new Thread(runnable, STREAMS_ID + "-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
     }
 
     @Override
     public void cleanUp() {
-        // noOp
+        if (executor != null) {
+            executor.shutdownNow().forEach(LinkResolution::abandon);
+            executor = null;
+        }
     }
 
 
     protected Set<String> unwind(List<String> inputLinks) {
+        if (executor == null) {
+            return unwindSerially(inputLinks);
+        }
+        List<String> links = new ArrayList<>();
+        List<CompletableFuture<LinkDetails>> resolutions = new ArrayList<>();
+        for (String link : inputLinks) {
+            if (link == null) {
+                continue;
+            }
+            links.add(link);
+            if (cache != null) {
+                resolutions.add(cache.resolve(link, this::resolve, executor));
+            } else {
+                resolutions.add(LinkResolution.submit(() -> resolve(link), executor));
+            }
+        }
+        Set<String> outputLinks = new HashSet<>();
+        long deadline = System.currentTimeMillis() + configuration.getResolveTimeoutMs();
+        for (int i = 0; i < resolutions.size(); i++) {
+            try {
+                long remaining = Math.max(0, deadline - System.currentTimeMillis());
+                outputLinks.add(resolutions.get(i).get(remaining, TimeUnit.MILLISECONDS).getFinalURL());
+            } catch (Exception e) {
+                //if unwindable drop
+                LOGGER.debug("Failed to unwind link : {}", links.get(i));
+                LOGGER.debug("Exception unwinding link : {}", e);
+            }
+        }
+        return outputLinks;
+    }
+
+    protected LinkDetails resolve(String link) {
+        LinkResolver unwinder = new LinkResolver(link, hostConnectionLimiter);
+        unwinder.run();
+        return unwinder.getLinkDetails();
+    }
+
+    private Set<String> unwindSerially(List<String> inputLinks) {
         Set<String> outputLinks = new HashSet<>();
         for (String link : inputLinks) {
             try {
@@ -0,0 +1,182 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.streams.urls;
+
+import org.junit.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit Test for
+ * @see org.apache.streams.urls.LinkResolverCache
+ */
+public class LinkResolverCacheTest {
+
+    @Test
+    public void testConcurrentLookupsShareOneResolution() throws Exception {
+        LinkResolverCache cache = new LinkResolverCache(100, 60000, 1000, null);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger resolutions = new AtomicInteger();
+        Function<String, LinkDetails> resolver = url -> {
+            resolutions.incrementAndGet();
+            try {
+                release.await();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            return details(url, "http://www.example.com/", LinkDetails.LinkStatus.SUCCESS);
+        };
+        try {
+            List<CompletableFuture<LinkDetails>> lookups = new ArrayList<>();
+            for (int i = 0; i < 10; i++) {
+                // normalizeURL drops the protocol, so both spellings share a key
+                lookups.add(cache.resolve(i % 2 == 0 ? "http://t.co/abc" : "https://t.co/abc", resolver, executor));
+            }
+            release.countDown();
+            for (CompletableFuture<LinkDetails> lookup : lookups) {
+                assertEquals("http://www.example.com/", lookup.get().getFinalURL());
+            }
+            assertEquals(1, resolutions.get());
+            assertEquals(1, cache.getMisses());
+            assertEquals(9, cache.getCoalesced());
+
+            assertSame(lookups.get(0).get(), cache.resolve("http://t.co/abc", resolver, executor).get());
+            assertEquals(1, resolutions.get());
+            assertEquals(1, cache.getHits());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testExpiry() {
+        AtomicLong now = new AtomicLong(0);
+        LinkResolverCache cache = new LinkResolverCache(2, 100, 10, null, now::get);
+        cache.put("t.co/ok", details("http://t.co/ok", "http://www.example.com/", LinkDetails.LinkStatus.SUCCESS));
+        cache.put("t.co/bad", details("http://t.co/bad", null, LinkDetails.LinkStatus.NOT_FOUND));
+        now.set(10);
+        assertNotNull(cache.get("t.co/ok"));
+        assertNull(cache.get("t.co/bad"));
+        now.set(100);
+        assertNull(cache.get("t.co/ok"));
+
+        cache.put("a", details("http://a", "http://a/", LinkDetails.LinkStatus.SUCCESS));
+        cache.put("b", details("http://b", "http://b/", LinkDetails.LinkStatus.SUCCESS));
+        cache.get("a");
+        cache.put("c", details("http://c", "http://c/", LinkDetails.LinkStatus.SUCCESS));
+        assertEquals(2, cache.size());
+        assertNull(cache.get("b"));
+    }
+
+    @Test
+    public void testStoreSurvivesRestart() throws Exception {
+        Path store = Files.createTempFile("link-resolutions", ".json");
+        try {
+            LinkResolverCache cache = new LinkResolverCache(100, 60000, 1, store);
+            cache.put("t.co/ok", details("http://t.co/ok", "http://www.example.com/", LinkDetails.LinkStatus.SUCCESS));
+            cache.put("t.co/bad", details("http://t.co/bad", null, LinkDetails.LinkStatus.NOT_FOUND));
+            cache.put("t.co/ok", details("http://t.co/ok", "http://www.example.com/2", LinkDetails.LinkStatus.SUCCESS));
+            cache.close();
+            assertEquals(3, Files.readAllLines(store).size());
+            Thread.sleep(5);
+
+            LinkResolverCache reopened = new LinkResolverCache(100, 60000, 1, store);
+            assertEquals(1, reopened.size());
+            assertEquals("http://www.example.com/2", reopened.get("t.co/ok").getFinalURL());
+            assertNull(reopened.get("t.co/bad"));
+            reopened.close();
+            assertEquals(1, Files.readAllLines(store).size());
+        } finally {
+            Files.deleteIfExists(store);
+        }
+    }
+
+    @Test
+    public void testHostConnectionLimiter() throws Exception {
+        HostConnectionLimiter limiter = new HostConnectionLimiter(2);
+        assertTrue(limiter.acquire("t.co", 0));
+        assertTrue(limiter.acquire("T.CO", 0));
+        assertFalse(limiter.acquire("t.co", 10));
+        assertTrue(limiter.acquire("bit.ly", 0));
+        limiter.release("t.co");
+        assertEquals(1, limiter.available("t.co"));
+        assertTrue(limiter.acquire("t.co", 0));
+    }
+
+    @Test
+    public void testRejectedAndDroppedResolutionsAreNotLeftPending() throws Exception {
+        LinkResolverCache cache = new LinkResolverCache(100, 60000, 1000, null);
+        Function<String, LinkDetails> resolver = url -> details(url, "http://www.example.com/", LinkDetails.LinkStatus.SUCCESS);
+
+        ExecutorService shutDown = Executors.newSingleThreadExecutor();
+        shutDown.shutdown();
+        assertTrue(cache.resolve("http://t.co/abc", resolver, shutDown).isCompletedExceptionally());
+
+        ExecutorService blocked = Executors.newSingleThreadExecutor();
+        CountDownLatch release = new CountDownLatch(1);
+        blocked.execute(() -> {
+            try {
+                release.await();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        CompletableFuture<LinkDetails> dropped = cache.resolve("http://t.co/abc", resolver, blocked);
+        blocked.shutdownNow().forEach(LinkResolution::abandon);
+        assertTrue(dropped.isCompletedExceptionally());
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            CompletableFuture<LinkDetails> lookup = cache.resolve("http://t.co/abc", resolver, executor);
+            assertEquals("http://www.example.com/", lookup.get(10, TimeUnit.SECONDS).getFinalURL());
+            assertEquals(3, cache.getMisses());
+            assertEquals(0, cache.getCoalesced());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static LinkDetails details(String originalURL, String finalURL, LinkDetails.LinkStatus linkStatus) {
+        LinkDetails linkDetails = new LinkDetails();
+        linkDetails.setOriginalURL(originalURL);
+        linkDetails.setFinalURL(finalURL);
+        linkDetails.setLinkStatus(linkStatus);
+        return linkDetails;
+    }
+
+}
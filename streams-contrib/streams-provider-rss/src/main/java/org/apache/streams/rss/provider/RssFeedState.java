@@ -0,0 +1,249 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.streams.rss.provider;
+
+import java.net.URI;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Polling state of a single rss feed, kept between polls by an
+ * {@link org.apache.streams.rss.provider.perpetual.AdaptiveRssFeedScheduler}.
+ *
+ * <p/>
+ * Holds the validators for conditional requests, the ids of recently seen entries, and the poll interval,
+ * which shrinks towards the observed gap between updates when a poll finds new entries and backs off when it does not.
+ * The seen ids are an access-ordered LRU capped at maxSeenEntries; ids still listed in the feed are touched on every
+ * poll, so as long as the cap exceeds the length of the feed only ids that dropped out of it are evicted.
+ */
+public class RssFeedState implements Delayed {
+
+  /**
+   * Outcome of the most recent poll.
+   */
+  public enum Outcome { NONE, NOT_MODIFIED, MODIFIED, FAILED }
+
+  private static final double GAP_WEIGHT = 0.3;
+
+  private final String url;
+  private final String host;
+  private final long minIntervalMillis;
+  private final long maxIntervalMillis;
+  private final Map<String, Boolean> seen;
+
+  private volatile String etag;
+  private volatile String lastModified;
+  private volatile long intervalMillis;
+  private volatile long nextPollAt;
+  private volatile long lastUpdateAt;
+  private volatile long updateGapMillis;
+  private volatile Outcome lastOutcome = Outcome.NONE;
+  private volatile int lastNewEntries;
+  private volatile long lastLagMillis = -1;
+
+  /**
+   * RssFeedState constructor.
+   * @param url feed url
+   * @param initialIntervalMillis first poll interval, clamped to the min and max
+   * @param minIntervalMillis shortest poll interval
+   * @param maxIntervalMillis longest poll interval
+   * @param maxSeenEntries number of entry ids remembered
+   */
+  public RssFeedState(String url, long initialIntervalMillis, long minIntervalMillis, long maxIntervalMillis, final int maxSeenEntries) {
+    this.url = url;
+    this.host = hostOf(url);
+    this.minIntervalMillis = minIntervalMillis;
+    this.maxIntervalMillis = Math.max(minIntervalMillis, maxIntervalMillis);
+    this.intervalMillis = clamp(initialIntervalMillis);
+    this.seen = new LinkedHashMap<String, Boolean>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+        return size() > maxSeenEntries;
+      }
+    };
+  }
+
+  public String getUrl() {
+    return url;
+  }
+
+  public String getHost() {
+    return host;
+  }
+
+  public String getEtag() {
+    return etag;
+  }
+
+  public String getLastModified() {
+    return lastModified;
+  }
+
+  public long getIntervalMillis() {
+    return intervalMillis;
+  }
+
+  public long getNextPollAt() {
+    return nextPollAt;
+  }
+
+  public Outcome getLastOutcome() {
+    return lastOutcome;
+  }
+
+  public int getLastNewEntries() {
+    return lastNewEntries;
+  }
+
+  /**
+   * Time from publication to pickup of the newest entry found by the most recent poll.
+   * @return lag in milliseconds, or -1 if the poll found no dated new entries
+   */
+  public long getLastLagMillis() {
+    return lastLagMillis;
+  }
+
+  /**
+   * Record an entry id.
+   * @param id entry id
+   * @return true if the id was not among the recently seen ids
+   */
+  public boolean markSeen(String id) {
+    synchronized (seen) {
+      return seen.put(id, Boolean.TRUE) == null;
+    }
+  }
+
+  /**
+   * Number of entry ids currently remembered.
+   * @return seen id count
+   */
+  public int seenCount() {
+    synchronized (seen) {
+      return seen.size();
+    }
+  }
+
+  /**
+   * Schedule the next poll one interval after the given time.
+   * @param now time in milliseconds
+   */
+  public void scheduleFrom(long now) {
+    this.nextPollAt = now + intervalMillis;
+  }
+
+  /**
+   * Schedule the next poll at the given time, leaving the interval unchanged.
+   * @param time time in milliseconds
+   */
+  public void scheduleAt(long time) {
+    this.nextPollAt = time;
+  }
+
+  /**
+   * The server answered 304 Not Modified.
+   * @param now time in milliseconds
+   */
+  public void onNotModified(long now) {
+    this.lastOutcome = Outcome.NOT_MODIFIED;
+    this.lastNewEntries = 0;
+    this.lastLagMillis = -1;
+    backOff(now);
+  }
+
+  /**
+   * The server returned the feed.
+   * @param now time in milliseconds
+   * @param etag ETag response header, may be null
+   * @param lastModified Last-Modified response header, may be null
+   * @param newEntries number of entries not seen before
+   * @param lagMillis time from publication to now of the newest new entry, or -1
+   */
+  public void onModified(long now, String etag, String lastModified, int newEntries, long lagMillis) {
+    boolean first = this.lastOutcome == Outcome.NONE;
+    this.etag = etag;
+    this.lastModified = lastModified;
+    this.lastOutcome = Outcome.MODIFIED;
+    this.lastNewEntries = newEntries;
+    this.lastLagMillis = lagMillis;
+    if (first) {
+      // everything is new on the first poll, which says nothing about how often the feed updates
+      lastUpdateAt = now;
+      scheduleFrom(now);
+      return;
+    }
+    if (newEntries == 0) {
+      backOff(now);
+      return;
+    }
+    if (lastUpdateAt > 0) {
+      long gap = now - lastUpdateAt;
+      updateGapMillis = updateGapMillis == 0 ? gap : (long) (GAP_WEIGHT * gap + (1 - GAP_WEIGHT) * updateGapMillis);
+    }
+    lastUpdateAt = now;
+    intervalMillis = clamp(updateGapMillis > 0 ? updateGapMillis / 2 : intervalMillis / 2);
+    scheduleFrom(now);
+  }
+
+  /**
+   * The poll failed.
+   * @param now time in milliseconds
+   */
+  public void onFailure(long now) {
+    this.lastOutcome = Outcome.FAILED;
+    this.lastNewEntries = 0;
+    this.lastLagMillis = -1;
+    intervalMillis = clamp(intervalMillis * 2);
+    scheduleFrom(now);
+  }
+
+  private void backOff(long now) {
+    intervalMillis = clamp(intervalMillis + intervalMillis / 2);
+    scheduleFrom(now);
+  }
+
+  private long clamp(long interval) {
+    return Math.min(maxIntervalMillis, Math.max(minIntervalMillis, interval));
+  }
+
+  private static String hostOf(String url) {
+    try {
+      String host = new URI(url).getHost();
+      return host == null ? url : host.toLowerCase();
+    } catch (Exception ex) {
+      return url;
+    }
+  }
+
+  @Override
+  public long getDelay(TimeUnit unit) {
+    return unit.convert(nextPollAt - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+  }
+
+  @Override
+  public int compareTo(Delayed other) {
+    if (other instanceof RssFeedState) {
+      return Long.compare(nextPollAt, ((RssFeedState) other).nextPollAt);
+    }
+    return Long.compare(getDelay(TimeUnit.MILLISECONDS), other.getDelay(TimeUnit.MILLISECONDS));
+  }
+
+}
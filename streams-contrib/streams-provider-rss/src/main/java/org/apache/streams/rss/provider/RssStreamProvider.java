@@ -26,6 +26,7 @@ import org.apache.streams.core.StreamsProvider;
 import org.apache.streams.core.StreamsResultSet;
 import org.apache.streams.jackson.StreamsJacksonMapper;
 import org.apache.streams.rss.RssStreamConfiguration;
+import org.apache.streams.rss.provider.perpetual.AdaptiveRssFeedScheduler;
 import org.apache.streams.rss.provider.perpetual.RssFeedScheduler;
 import org.apache.streams.util.ComponentUtils;
 
@@ -50,6 +51,7 @@ import java.util.Queue;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
@@ -57,6 +59,10 @@ import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * RSS {@link org.apache.streams.core.StreamsProvider} that provides content from rss feeds in boilerpipe format
+ *
+ * <p/>
+ * In perpetual mode with adaptive set, feeds are polled by an
+ * {@link org.apache.streams.rss.provider.perpetual.AdaptiveRssFeedScheduler}.
  */
 public class RssStreamProvider implements StreamsProvider {
 
@@ -137,7 +143,12 @@ public class RssStreamProvider implements StreamsProvider {
 
   @Override
   public void prepare(Object configurationObject) {
-    this.executor = new ThreadPoolExecutor(1, 4, 15L, TimeUnit.SECONDS, new LinkedBlockingQueue<>());
+    if (isAdaptive()) {
+      // one thread for the scheduler, the rest for polls
+      this.executor = Executors.newFixedThreadPool(this.config.getThreads().intValue() + 1);
+    } else {
+      this.executor = new ThreadPoolExecutor(1, 4, 15L, TimeUnit.SECONDS, new LinkedBlockingQueue<>());
+    }
     this.dataQueue = new LinkedBlockingQueue<>();
     this.scheduler = getScheduler(this.dataQueue);
     this.isComplete = new AtomicBoolean(false);
@@ -146,13 +157,19 @@ public class RssStreamProvider implements StreamsProvider {
 
   @VisibleForTesting
   protected RssFeedScheduler getScheduler(BlockingQueue<StreamsDatum> queue) {
-    if (this.perpetual) {
+    if (isAdaptive()) {
+      return new AdaptiveRssFeedScheduler(this.executor, this.config, queue, STREAMS_ID);
+    } else if (this.perpetual) {
       return new RssFeedScheduler(this.executor, this.config.getFeeds(), queue);
     } else {
       return new RssFeedScheduler(this.executor, this.config.getFeeds(), queue, 0);
     }
   }
 
+  private boolean isAdaptive() {
+    return this.perpetual && Boolean.TRUE.equals(this.config.getAdaptive());
+  }
+
   @Override
   public void cleanUp() {
     this.scheduler.stop();
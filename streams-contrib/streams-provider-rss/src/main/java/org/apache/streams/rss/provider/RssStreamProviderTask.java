@@ -35,7 +35,9 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.net.HttpURLConnection;
 import java.net.URL;
 import java.net.URLConnection;
 import java.util.Collections;
@@ -43,6 +45,7 @@ import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.GZIPInputStream;
 
 /**
  * A {@link java.lang.Runnable} task that queues rss feed data.
@@ -64,6 +67,11 @@ import java.util.concurrent.ConcurrentHashMap;
  * It still is possible to output multiples of the same article.  If multiple tasks executions for the same rss feed overlap
  * in execution time, it possible that the previously seen articles static variable will not have been updated in time.
  *
+ * <p/>
+ * A task built from a {@link org.apache.streams.rss.provider.RssFeedState} instead sends a conditional request using
+ * the ETag and Last-Modified of the previous response, skips parsing when the server answers 304, and checks entries
+ * against the bounded set of seen ids held by the state.
+ *
  */
 public class RssStreamProviderTask implements Runnable {
 
@@ -87,6 +95,9 @@ public class RssStreamProviderTask implements Runnable {
   private SyndEntrySerializer serializer;
   private DateTime publishedSince;
   private boolean perpetual;
+  private RssFeedState state;
+  private int newEntries;
+  private DateTime newestQueued;
 
 
   /**
@@ -142,6 +153,18 @@ public class RssStreamProviderTask implements Runnable {
     this.perpetual = perpetual;
   }
 
+  /**
+   * Conditional mode, polling the feed described by state and recording the outcome in it.
+   * @param queue Queue to push data to
+   * @param state polling state of the feed
+   * @param publishedSince DateTime to filter articles by, will queue articles with published times after this
+   * @param timeOut url connection and read timeout in milliseconds
+   */
+  public RssStreamProviderTask(BlockingQueue<StreamsDatum> queue, RssFeedState state, DateTime publishedSince, int timeOut) {
+    this(queue, state.getUrl(), publishedSince, timeOut, false);
+    this.state = state;
+  }
+
   /**
    * The rss feed url that this task is responsible for reading.
    * @return rss feed url
@@ -152,6 +175,10 @@ public class RssStreamProviderTask implements Runnable {
 
   @Override
   public void run() {
+    if (this.state != null) {
+      pollConditionally();
+      return;
+    }
     try {
       Set<String> batch = queueFeedEntries(new URL(this.rssFeed));
       if (this.perpetual) {
@@ -171,45 +198,104 @@ public class RssStreamProviderTask implements Runnable {
    */
   @VisibleForTesting
   protected Set<String> queueFeedEntries(URL feedUrl) throws IOException, FeedException {
-
-    // ConcurrentHashSet is preferable, but it's only in guava 15+
-    // spark 1.5.0 uses guava 14 so for the moment this is the workaround
-    Set<String> batch = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
     URLConnection connection = feedUrl.openConnection();
     connection.setConnectTimeout(this.timeOut);
-    connection.setConnectTimeout(this.timeOut);
+    connection.setReadTimeout(this.timeOut);
     SyndFeedInput input = new SyndFeedInput();
     SyndFeed feed = input.build(new InputStreamReader(connection.getInputStream()));
+    return queueFeedEntries(feed);
+  }
+
+  /**
+   * Polls the feed of this task's state with a conditional request and records the outcome in the state.
+   */
+  @VisibleForTesting
+  protected void pollConditionally() {
+    HttpURLConnection connection = null;
+    try {
+      URLConnection opened = new URL(this.rssFeed).openConnection();
+      if (!(opened instanceof HttpURLConnection)) {
+        throw new IOException("Conditional polling requires an http url");
+      }
+      connection = (HttpURLConnection) opened;
+      connection.setConnectTimeout(this.timeOut);
+      connection.setReadTimeout(this.timeOut);
+      connection.setRequestProperty("Accept-Encoding", "gzip");
+      if (this.state.getEtag() != null) {
+        connection.setRequestProperty("If-None-Match", this.state.getEtag());
+      }
+      if (this.state.getLastModified() != null) {
+        connection.setRequestProperty("If-Modified-Since", this.state.getLastModified());
+      }
+      int status = connection.getResponseCode();
+      if (status == HttpURLConnection.HTTP_NOT_MODIFIED) {
+        this.state.onNotModified(System.currentTimeMillis());
+        return;
+      }
+      if (status != HttpURLConnection.HTTP_OK) {
+        throw new IOException("Unexpected response " + status);
+      }
+      SyndFeed feed;
+      try (InputStream body = connection.getInputStream()) {
+        InputStream stream = "gzip".equalsIgnoreCase(connection.getContentEncoding()) ? new GZIPInputStream(body) : body;
+        feed = new SyndFeedInput().build(new InputStreamReader(stream));
+      }
+      this.newestQueued = null;
+      int queued = queueFeedEntries(feed).size();
+      long now = System.currentTimeMillis();
+      long lag = this.newestQueued == null ? -1 : Math.max(0, now - this.newestQueued.getMillis());
+      this.state.onModified(now, connection.getHeaderField("ETag"), connection.getHeaderField("Last-Modified"),
+          this.newEntries, lag);
+      LOGGER.debug("Polled rss feed, {}, {} entries, {} new", this.rssFeed, queued, this.newEntries);
+    } catch (IOException | FeedException ex) {
+      LOGGER.warn("Exception while reading rss stream, {} : {}", this.rssFeed, ex);
+      this.state.onFailure(System.currentTimeMillis());
+      if (connection != null) {
+        connection.disconnect();
+      }
+    }
+  }
+
+  /**
+   * Queues the entries of a feed.
+   * @param feed parsed feed
+   * @return set of all article urls that were read from the feed
+   */
+  private Set<String> queueFeedEntries(SyndFeed feed) {
+
+    // ConcurrentHashSet is preferable, but it's only in guava 15+
+    // spark 1.5.0 uses guava 14 so for the moment this is the workaround
+    Set<String> batch = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+    this.newEntries = 0;
     for (Object entryObj : feed.getEntries()) {
       SyndEntry entry = (SyndEntry) entryObj;
       ObjectNode nodeEntry = this.serializer.deserialize(entry);
       nodeEntry.put(RSS_KEY, this.rssFeed);
       String entryId = determineId(nodeEntry);
-      batch.add(entryId);
+      if (entryId != null) {
+        batch.add(entryId);
+      }
       StreamsDatum datum = new StreamsDatum(nodeEntry);
       try {
         JsonNode published = nodeEntry.get(DATE_KEY);
         if (published != null) {
           try {
             DateTime date = RFC3339Utils.parseToUTC(published.asText());
-            if (date.isAfter(this.publishedSince) && (!this.perpetual || !seenBefore(entryId, this.rssFeed))) {
-              this.dataQueue.put(datum);
-              LOGGER.debug("Added entry, {}, to provider queue.", entryId);
+            if (date.isAfter(this.publishedSince) && isNew(entryId)) {
+              queue(datum, entryId, date);
             }
           } catch (InterruptedException ie) {
             Thread.currentThread().interrupt();
           } catch (Exception ex) {
             LOGGER.trace("Failed to parse date from object node, attempting to add node to queue by default.");
-            if (!this.perpetual || !seenBefore(entryId, this.rssFeed)) {
-              this.dataQueue.put(datum);
-              LOGGER.debug("Added entry, {}, to provider queue.", entryId);
+            if (isNew(entryId)) {
+              queue(datum, entryId, null);
             }
           }
         } else {
           LOGGER.debug("No published date present, attempting to add node to queue by default.");
-          if (!this.perpetual || !seenBefore(entryId, this.rssFeed)) {
-            this.dataQueue.put(datum);
-            LOGGER.debug("Added entry, {}, to provider queue.", entryId);
+          if (isNew(entryId)) {
+            queue(datum, entryId, null);
           }
         }
       } catch (InterruptedException ie) {
@@ -220,6 +306,28 @@ public class RssStreamProviderTask implements Runnable {
     return batch;
   }
 
+  private void queue(StreamsDatum datum, String entryId, DateTime published) throws InterruptedException {
+    this.dataQueue.put(datum);
+    LOGGER.debug("Added entry, {}, to provider queue.", entryId);
+    ++this.newEntries;
+    if (published != null && (this.newestQueued == null || published.isAfter(this.newestQueued))) {
+      this.newestQueued = published;
+    }
+  }
+
+  /**
+   * Returns true if the entry should be queued, because this task does not filter previously seen entries or has
+   * not seen this one.
+   * @param id id
+   * @return boolean isNew
+   */
+  private boolean isNew(String id) {
+    if (this.state != null) {
+      return id == null || this.state.markSeen(id);
+    }
+    return !this.perpetual || !seenBefore(id, this.rssFeed);
+  }
+
   /**
    * Returns link to the article to use as the id.
    * @param node node
@@ -0,0 +1,317 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.streams.rss.provider.perpetual;
+
+import org.apache.streams.core.StreamsDatum;
+import org.apache.streams.rss.FeedDetails;
+import org.apache.streams.rss.RssStreamConfiguration;
+import org.apache.streams.rss.provider.RssFeedState;
+import org.apache.streams.rss.provider.RssStreamProviderTask;
+
+import org.joda.time.DateTime;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * AdaptiveRssFeedScheduler polls each feed on its own interval, using conditional requests.
+ *
+ * <p/>
+ * Feeds wait in a delay queue ordered by their next poll time rather than being resubmitted every period.  Each poll
+ * is a {@link org.apache.streams.rss.provider.RssStreamProviderTask} in conditional mode, which reschedules its feed
+ * through the feed's {@link org.apache.streams.rss.provider.RssFeedState}.  At most threads polls run at once, and at
+ * most maxConnectionsPerHost against any one host; a feed whose host is busy is deferred briefly instead of blocking
+ * the scheduler.
+ */
+public class AdaptiveRssFeedScheduler extends RssFeedScheduler implements AdaptiveRssFeedSchedulerMXBean {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(AdaptiveRssFeedScheduler.class);
+
+  public static final String NAME_TEMPLATE = "org.apache.streams.rss.provider.perpetual:type=AdaptiveRssFeedScheduler,name=%s";
+
+  private static final long HOST_BUSY_DELAY_MS = 1000;
+  private static final long POLL_WAIT_MS = 1000;
+
+  private ExecutorService service;
+  private final BlockingQueue<StreamsDatum> dataQueue;
+  private final List<RssFeedState> feeds;
+  private final DelayQueue<RssFeedState> due = new DelayQueue<>();
+  private final Semaphore slots;
+  private final int maxConnectionsPerHost;
+  private final int timeOut;
+  private final DateTime publishedSince;
+  private final Map<String, AtomicInteger> hostInFlight = new ConcurrentHashMap<>();
+  private final AtomicBoolean keepRunning = new AtomicBoolean(true);
+  private final AtomicBoolean complete = new AtomicBoolean(false);
+  private final String name;
+
+  private final AtomicInteger inFlight = new AtomicInteger();
+  private final AtomicLong polls = new AtomicLong();
+  private final AtomicLong notModified = new AtomicLong();
+  private final AtomicLong failures = new AtomicLong();
+  private final AtomicLong entriesQueued = new AtomicLong();
+  private final AtomicLong lagSamples = new AtomicLong();
+  private final AtomicLong lagTotalMs = new AtomicLong();
+  private final AtomicLong startDelayTotalMs = new AtomicLong();
+  private volatile long lastLagMs = -1;
+
+  /**
+   * AdaptiveRssFeedScheduler constructor.
+   * @param service executor running the scheduler and at least threads polls
+   * @param config configuration holding the feeds and adaptive settings
+   * @param dataQueue dataQueue
+   * @param name name to register the MXBean under, or null to skip registration
+   */
+  public AdaptiveRssFeedScheduler(ExecutorService service, RssStreamConfiguration config, BlockingQueue<StreamsDatum> dataQueue, String name) {
+    super(service, config.getFeeds(), dataQueue);
+    this.service = service;
+    this.dataQueue = dataQueue;
+    this.slots = new Semaphore(config.getThreads().intValue());
+    this.maxConnectionsPerHost = config.getMaxConnectionsPerHost().intValue();
+    this.timeOut = config.getTimeOutMillis().intValue();
+    this.publishedSince = new DateTime().minusYears(30);
+    this.name = name;
+    this.feeds = new ArrayList<>();
+    long min = config.getMinPollIntervalMillis();
+    long max = config.getMaxPollIntervalMillis();
+    for (FeedDetails detail : config.getFeeds()) {
+      long initial = detail.getPollIntervalMillis() == null ? min : detail.getPollIntervalMillis();
+      this.feeds.add(new RssFeedState(detail.getUrl(), initial, min, max, config.getMaxSeenEntries().intValue()));
+    }
+  }
+
+  @Override
+  public void stop() {
+    this.keepRunning.set(false);
+  }
+
+  @Override
+  public boolean isComplete() {
+    return this.complete.get();
+  }
+
+  @Override
+  public void run() {
+    this.complete.set(false);
+    registerMXBean();
+    long now = System.currentTimeMillis();
+    for (RssFeedState feed : this.feeds) {
+      feed.scheduleAt(now);
+      this.due.add(feed);
+    }
+    try {
+      while (this.keepRunning.get()) {
+        RssFeedState feed = this.due.poll(POLL_WAIT_MS, TimeUnit.MILLISECONDS);
+        if (feed != null && !dispatch(feed)) {
+          break;
+        }
+      }
+    } catch (InterruptedException ie) {
+      Thread.currentThread().interrupt();
+    } finally {
+      this.service = null;
+      unregisterMXBean();
+      LOGGER.info("{} completed scheduling of feeds.", this.getClass().getName());
+      this.complete.set(true);
+    }
+  }
+
+  /**
+   * Polls every feed once, on the calling thread, ignoring intervals and host limits.
+   */
+  @Override
+  public void scheduleFeeds() {
+    for (RssFeedState feed : this.feeds) {
+      poll(feed, System.currentTimeMillis());
+    }
+  }
+
+  /**
+   * Starts a poll of a due feed, or defers it if its host is busy.
+   * @return false if the executor no longer accepts polls
+   */
+  private boolean dispatch(RssFeedState feed) throws InterruptedException {
+    this.slots.acquire();
+    AtomicInteger host = this.hostInFlight.computeIfAbsent(feed.getHost(), key -> new AtomicInteger());
+    if (host.incrementAndGet() > this.maxConnectionsPerHost) {
+      host.decrementAndGet();
+      this.slots.release();
+      feed.scheduleAt(System.currentTimeMillis() + HOST_BUSY_DELAY_MS);
+      this.due.add(feed);
+      return true;
+    }
+    long dueAt = feed.getNextPollAt();
+    try {
+      this.service.execute(() -> {
+        try {
+          poll(feed, dueAt);
+        } finally {
+          host.decrementAndGet();
+          this.slots.release();
+          this.due.add(feed);
+        }
+      });
+      return true;
+    } catch (RejectedExecutionException ree) {
+      host.decrementAndGet();
+      this.slots.release();
+      LOGGER.warn("Executor rejected poll of rss feed, {}, stopping", feed.getUrl());
+      return false;
+    }
+  }
+
+  private void poll(RssFeedState feed, long dueAt) {
+    this.inFlight.incrementAndGet();
+    this.startDelayTotalMs.addAndGet(Math.max(0, System.currentTimeMillis() - dueAt));
+    try {
+      new RssStreamProviderTask(this.dataQueue, feed, this.publishedSince, this.timeOut).run();
+    } catch (RuntimeException ex) {
+      LOGGER.warn("Exception while polling rss feed, {} : {}", feed.getUrl(), ex);
+      feed.onFailure(System.currentTimeMillis());
+    } finally {
+      this.inFlight.decrementAndGet();
+    }
+    this.polls.incrementAndGet();
+    switch (feed.getLastOutcome()) {
+      case NOT_MODIFIED:
+        this.notModified.incrementAndGet();
+        break;
+      case FAILED:
+        this.failures.incrementAndGet();
+        break;
+      default:
+        this.entriesQueued.addAndGet(feed.getLastNewEntries());
+        long lag = feed.getLastLagMillis();
+        if (lag >= 0) {
+          this.lastLagMs = lag;
+          this.lagTotalMs.addAndGet(lag);
+          this.lagSamples.incrementAndGet();
+        }
+    }
+    LOGGER.trace("Polled rss feed, {}, next poll in {} ms", feed.getUrl(), feed.getIntervalMillis());
+  }
+
+  private void registerMXBean() {
+    if (this.name == null) {
+      return;
+    }
+    try {
+      MBeanServer mbs = ManagementFactory.getPlatformMBeanServer();
+      ObjectName objectName = new ObjectName(String.format(NAME_TEMPLATE, this.name));
+      if (!mbs.isRegistered(objectName)) {
+        mbs.registerMBean(this, objectName);
+      }
+    } catch (Exception ex) {
+      LOGGER.warn("Failed to register MXBean for {}: {}", this.name, ex.getMessage());
+    }
+  }
+
+  private void unregisterMXBean() {
+    if (this.name == null) {
+      return;
+    }
+    try {
+      MBeanServer mbs = ManagementFactory.getPlatformMBeanServer();
+      ObjectName objectName = new ObjectName(String.format(NAME_TEMPLATE, this.name));
+      if (mbs.isRegistered(objectName)) {
+        mbs.unregisterMBean(objectName);
+      }
+    } catch (Exception ex) {
+      LOGGER.warn("Failed to unregister MXBean for {}: {}", this.name, ex.getMessage());
+    }
+  }
+
+  /**
+   * Polling state of each feed, in configuration order.
+   * @return feed states
+   */
+  public List<RssFeedState> getFeedStates() {
+    return this.feeds;
+  }
+
+  @Override
+  public int getFeeds() {
+    return this.feeds.size();
+  }
+
+  @Override
+  public int getInFlight() {
+    return this.inFlight.get();
+  }
+
+  @Override
+  public long getPolls() {
+    return this.polls.get();
+  }
+
+  @Override
+  public long getNotModified() {
+    return this.notModified.get();
+  }
+
+  @Override
+  public long getFailures() {
+    return this.failures.get();
+  }
+
+  @Override
+  public double getNotModifiedRatio() {
+    long total = this.polls.get();
+    return total == 0 ? 0 : (double) this.notModified.get() / total;
+  }
+
+  @Override
+  public long getEntriesQueued() {
+    return this.entriesQueued.get();
+  }
+
+  @Override
+  public long getAverageFeedLagMs() {
+    long samples = this.lagSamples.get();
+    return samples == 0 ? 0 : this.lagTotalMs.get() / samples;
+  }
+
+  @Override
+  public long getLastFeedLagMs() {
+    return this.lastLagMs;
+  }
+
+  @Override
+  public long getAverageStartDelayMs() {
+    long total = this.polls.get();
+    return total == 0 ? 0 : this.startDelayTotalMs.get() / total;
+  }
+
+}
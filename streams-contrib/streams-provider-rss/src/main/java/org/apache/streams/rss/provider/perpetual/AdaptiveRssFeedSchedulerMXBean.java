@@ -0,0 +1,86 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.streams.rss.provider.perpetual;
+
+/**
+ * MXBean exposing the state of an {@link org.apache.streams.rss.provider.perpetual.AdaptiveRssFeedScheduler}.
+ */
+public interface AdaptiveRssFeedSchedulerMXBean {
+
+  /**
+   * Number of feeds being polled.
+   * @return feed count
+   */
+  int getFeeds();
+
+  /**
+   * Number of polls currently running.
+   * @return polls in flight
+   */
+  int getInFlight();
+
+  /**
+   * Number of polls completed, whatever their outcome.
+   * @return completed polls
+   */
+  long getPolls();
+
+  /**
+   * Number of polls answered with 304 Not Modified.
+   * @return not modified polls
+   */
+  long getNotModified();
+
+  /**
+   * Number of polls that failed.
+   * @return failed polls
+   */
+  long getFailures();
+
+  /**
+   * Share of completed polls answered with 304 Not Modified.
+   * @return ratio between 0 and 1
+   */
+  double getNotModifiedRatio();
+
+  /**
+   * Number of entries queued.
+   * @return queued entries
+   */
+  long getEntriesQueued();
+
+  /**
+   * Time from publication to pickup of the newest new entry, averaged over polls that found dated new entries.
+   * @return feed lag in milliseconds
+   */
+  long getAverageFeedLagMs();
+
+  /**
+   * Feed lag of the most recent poll that found dated new entries.
+   * @return feed lag in milliseconds
+   */
+  long getLastFeedLagMs();
+
+  /**
+   * Time polls started after they were due, averaged over all polls.
+   * @return start delay in milliseconds
+   */
+  long getAverageStartDelayMs();
+
+}
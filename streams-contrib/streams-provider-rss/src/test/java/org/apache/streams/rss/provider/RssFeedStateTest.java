@@ -0,0 +1,76 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.streams.rss.provider;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link org.apache.streams.rss.provider.RssFeedState}
+ */
+public class RssFeedStateTest {
+
+  @Test
+  public void testSeenIdsAreCapped() {
+    RssFeedState state = new RssFeedState("http://example.com/feed", 1000, 1000, 8000, 3);
+    Assert.assertTrue(state.markSeen("a"));
+    Assert.assertTrue(state.markSeen("b"));
+    Assert.assertTrue(state.markSeen("c"));
+    Assert.assertFalse(state.markSeen("a"));
+    Assert.assertTrue(state.markSeen("d"));
+    Assert.assertEquals(3, state.seenCount());
+    // b was least recently seen, so it was evicted to make room for d
+    Assert.assertTrue(state.markSeen("b"));
+    Assert.assertFalse(state.markSeen("a"));
+  }
+
+  @Test
+  public void testIntervalBacksOffWhileUnchanged() {
+    RssFeedState state = new RssFeedState("http://example.com/feed", 1000, 1000, 8000, 10);
+    Assert.assertEquals("example.com", state.getHost());
+    state.onModified(0, "\"v1\"", null, 5, -1);
+    Assert.assertEquals(1000, state.getIntervalMillis());
+    Assert.assertEquals(1000, state.getNextPollAt());
+    state.onNotModified(1000);
+    Assert.assertEquals(1500, state.getIntervalMillis());
+    Assert.assertEquals(2500, state.getNextPollAt());
+    state.onModified(2500, "\"v1\"", null, 0, -1);
+    Assert.assertEquals(2250, state.getIntervalMillis());
+    state.onFailure(5000);
+    Assert.assertEquals(4500, state.getIntervalMillis());
+    state.onFailure(10000);
+    state.onFailure(20000);
+    Assert.assertEquals(8000, state.getIntervalMillis());
+    Assert.assertEquals(28000, state.getNextPollAt());
+  }
+
+  @Test
+  public void testIntervalFollowsUpdateGap() {
+    RssFeedState state = new RssFeedState("http://example.com/feed", 8000, 1000, 8000, 10);
+    state.onModified(10000, null, null, 5, -1);
+    Assert.assertEquals(8000, state.getIntervalMillis());
+    state.onModified(14000, null, null, 1, 100);
+    Assert.assertEquals(2000, state.getIntervalMillis());
+    Assert.assertEquals(100, state.getLastLagMillis());
+    Assert.assertEquals(RssFeedState.Outcome.MODIFIED, state.getLastOutcome());
+    state.onModified(16000, null, null, 1, 100);
+    Assert.assertEquals(1700, state.getIntervalMillis());
+  }
+
+}
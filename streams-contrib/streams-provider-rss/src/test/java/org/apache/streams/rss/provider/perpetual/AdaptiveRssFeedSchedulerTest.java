@@ -0,0 +1,183 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.streams.rss.provider.perpetual;
+
+import org.apache.streams.core.StreamsDatum;
+import org.apache.streams.rss.FeedDetails;
+import org.apache.streams.rss.RssStreamConfiguration;
+import org.apache.streams.rss.provider.RssFeedState;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Unit tests for {@link org.apache.streams.rss.provider.perpetual.AdaptiveRssFeedScheduler}
+ */
+public class AdaptiveRssFeedSchedulerTest {
+
+  private HttpServer server;
+  private volatile int version = 1;
+  private final AtomicInteger requests = new AtomicInteger();
+  private final AtomicInteger notModified = new AtomicInteger();
+  private final AtomicInteger inFlight = new AtomicInteger();
+  private final AtomicInteger maxInFlight = new AtomicInteger();
+
+  /**
+   * Serves a feed whose ETag is its version, holding each response briefly so concurrent polls overlap.
+   */
+  @Before
+  public void startServer() throws Exception {
+    server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+    server.createContext("/", exchange -> {
+      requests.incrementAndGet();
+      maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+      try {
+        Thread.sleep(20);
+        String etag = "\"v" + version + "\"";
+        if (etag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+          notModified.incrementAndGet();
+          exchange.sendResponseHeaders(304, -1);
+        } else {
+          byte[] body = feed(version).getBytes(StandardCharsets.UTF_8);
+          exchange.getResponseHeaders().add("ETag", etag);
+          exchange.getResponseHeaders().add("Content-Type", "application/rss+xml");
+          exchange.sendResponseHeaders(200, body.length);
+          exchange.getResponseBody().write(body);
+        }
+      } catch (InterruptedException ie) {
+        Thread.currentThread().interrupt();
+      } finally {
+        inFlight.decrementAndGet();
+        exchange.close();
+      }
+    });
+    server.setExecutor(Executors.newCachedThreadPool());
+    server.start();
+  }
+
+  @After
+  public void stopServer() {
+    server.stop(0);
+  }
+
+  @Test
+  public void testConditionalPolling() {
+    BlockingQueue<StreamsDatum> queue = new LinkedBlockingQueue<>();
+    AdaptiveRssFeedScheduler scheduler = new AdaptiveRssFeedScheduler(null, configuration(1), queue, null);
+
+    scheduler.scheduleFeeds();
+    Assert.assertEquals(3, queue.size());
+    RssFeedState state = scheduler.getFeedStates().get(0);
+    Assert.assertEquals("\"v1\"", state.getEtag());
+
+    scheduler.scheduleFeeds();
+    Assert.assertEquals(3, queue.size());
+    Assert.assertEquals(1, notModified.get());
+    Assert.assertEquals(RssFeedState.Outcome.NOT_MODIFIED, state.getLastOutcome());
+
+    version = 2;
+    queue.clear();
+    scheduler.scheduleFeeds();
+    Assert.assertEquals("Only the new entry should be queued", 1, queue.size());
+    Assert.assertEquals(3, scheduler.getPolls());
+    Assert.assertEquals(1, scheduler.getNotModified());
+    Assert.assertEquals(4, scheduler.getEntriesQueued());
+    Assert.assertEquals(1.0 / 3, scheduler.getNotModifiedRatio(), 0.001);
+    Assert.assertTrue(scheduler.getLastFeedLagMs() >= 60000);
+  }
+
+  @Test
+  public void testPerHostConcurrencyIsBounded() throws Exception {
+    BlockingQueue<StreamsDatum> queue = new LinkedBlockingQueue<>();
+    ExecutorService service = Executors.newFixedThreadPool(9);
+    AdaptiveRssFeedScheduler scheduler = new AdaptiveRssFeedScheduler(service, configuration(12), queue, "test_scheduler");
+    try {
+      service.execute(scheduler);
+      long deadline = System.currentTimeMillis() + 30000;
+      while (scheduler.getPolls() < 12 && System.currentTimeMillis() < deadline) {
+        Thread.sleep(10);
+      }
+      MBeanServer mbs = ManagementFactory.getPlatformMBeanServer();
+      ObjectName name = new ObjectName(String.format(AdaptiveRssFeedScheduler.NAME_TEMPLATE, "test_scheduler"));
+      Assert.assertTrue(mbs.isRegistered(name));
+      Assert.assertEquals(12, mbs.getAttribute(name, "Feeds"));
+      Assert.assertEquals(12L, scheduler.getPolls());
+      Assert.assertEquals(12 * 3, queue.size());
+      Assert.assertEquals(12, requests.get());
+      Assert.assertTrue(maxInFlight.get() <= 2);
+      scheduler.stop();
+      deadline = System.currentTimeMillis() + 30000;
+      while (!scheduler.isComplete() && System.currentTimeMillis() < deadline) {
+        Thread.sleep(10);
+      }
+      Assert.assertTrue(scheduler.isComplete());
+      Assert.assertFalse(mbs.isRegistered(name));
+    } finally {
+      service.shutdownNow();
+      service.awaitTermination(10, TimeUnit.SECONDS);
+    }
+  }
+
+  private RssStreamConfiguration configuration(int feedCount) {
+    List<FeedDetails> feeds = new ArrayList<>();
+    for (int i = 0; i < feedCount; ++i) {
+      FeedDetails fd = new FeedDetails();
+      fd.setUrl("http://localhost:" + server.getAddress().getPort() + "/feed" + i);
+      feeds.add(fd);
+    }
+    RssStreamConfiguration config = new RssStreamConfiguration();
+    config.setFeeds(feeds);
+    config.setAdaptive(true);
+    config.setThreads(8L);
+    config.setMaxConnectionsPerHost(2L);
+    return config;
+  }
+
+  private static String feed(int version) {
+    StringBuilder xml = new StringBuilder("<?xml version=\"1.0\"?><rss version=\"2.0\"><channel><title>test</title>"
+        + "<link>http://example.com</link><description>test</description>");
+    String published = DateTimeFormatter.RFC_1123_DATE_TIME.format(ZonedDateTime.now(ZoneOffset.UTC).minusMinutes(1));
+    for (int i = version + 2; i >= 1; --i) {
+      xml.append("<item><title>item ").append(i).append("</title><link>http://example.com/").append(i)
+          .append("</link><pubDate>").append(published).append("</pubDate></item>");
+    }
+    return xml.append("</channel></rss>").toString();
+  }
+
+}
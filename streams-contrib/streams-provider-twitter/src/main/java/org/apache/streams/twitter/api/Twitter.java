@@ -36,6 +36,7 @@ import org.apache.commons.lang3.StringUtils;
 import org.apache.http.HttpRequestInterceptor;
 import org.apache.http.HttpResponseInterceptor;
 import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.protocol.HttpClientContext;
 import org.apache.http.client.utils.URIBuilder;
 import org.apache.http.impl.client.CloseableHttpClient;
 import org.apache.http.impl.client.HttpClientBuilder;
@@ -90,6 +91,8 @@ public class Twitter implements
 
   private HttpRequestInterceptor oauthInterceptor;
 
+  private final TwitterRateLimits rateLimits = new TwitterRateLimits();
+
   private static Map<String,Object> properties = new HashMap<String,Object>();
 
   static {
@@ -118,6 +121,9 @@ public class Twitter implements
       .addInterceptorFirst(oauthInterceptor)
       .addInterceptorLast((HttpRequestInterceptor) (httpRequest, httpContext) -> LOGGER.debug(httpRequest.getRequestLine().getUri()))
       .addInterceptorLast((HttpResponseInterceptor) (httpResponse, httpContext) -> LOGGER.debug(httpResponse.getStatusLine().toString()))
+      .addInterceptorLast((HttpResponseInterceptor) (httpResponse, httpContext) -> rateLimits.record(
+        TwitterRateLimits.endpoint(HttpClientContext.adapt(httpContext).getRequest().getRequestLine().getUri(), configuration.getVersion()),
+        httpResponse))
       .build();
     this.restClientBuilder = new RestClientBuilder()
       .httpClient(httpclient, true)
@@ -136,7 +142,7 @@ public class Twitter implements
       .retryable(
         configuration.getRetryMax().intValue(),
         configuration.getRetrySleepMs(),
-        new TwitterRetryHandler());
+        new TwitterRetryHandler(!Boolean.FALSE.equals(configuration.getRetryRateLimited())));
     if( configuration.getDebug() ) {
       restClientBuilder = restClientBuilder.debug();
     }
@@ -155,6 +161,14 @@ public class Twitter implements
     }
   }
 
+  /**
+   * Rate limit windows reported by responses to this client.
+   * @return TwitterRateLimits
+   */
+  public TwitterRateLimits getRateLimits() {
+    return rateLimits;
+  }
+
   @Override
   public List<Tweet> userTimeline(StatusesUserTimelineRequest parameters) {
     Statuses restStatuses = restClient.getRemoteableProxy(Statuses.class, TwitterProviderUtil.baseUrl(configuration)+"/statuses");
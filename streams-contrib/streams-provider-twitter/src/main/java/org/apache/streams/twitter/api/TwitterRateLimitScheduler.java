@@ -0,0 +1,431 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.streams.twitter.api;
+
+import org.apache.streams.twitter.TwitterConfiguration;
+import org.apache.streams.twitter.TwitterOAuthConfiguration;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Spreads requests over several sets of credentials according to the rate limit each has left.
+ *
+ * <p/>
+ * Each request names the endpoint it calls and waits in that endpoint's queue.  It is handed to the token with the
+ * most requests left in the endpoint's current window, net of requests already in flight on it.  When no token has
+ * headroom the queue is left alone until the earliest window resets; no thread sleeps.  A request refused with 420
+ * or 429 goes back to the front of its queue rather than being retried in place, so the clients it uses should be
+ * built with retryRateLimited false.
+ *
+ * <p/>
+ * Windows come from the {@link org.apache.streams.twitter.api.TwitterRateLimits} each
+ * {@link org.apache.streams.twitter.api.Twitter} client records from its responses.
+ */
+public class TwitterRateLimitScheduler implements TwitterRateLimitSchedulerMXBean, AutoCloseable {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(TwitterRateLimitScheduler.class);
+
+  public static final String NAME_TEMPLATE = "org.apache.streams.twitter.api:type=TwitterRateLimitScheduler,name=%s";
+
+  private static final int DEFAULT_THREADS = 10;
+  private static final int DEFAULT_ATTEMPTS = 3;
+  private static final long RESET_SLACK_MS = 1000;
+
+  private static final Map<String, TwitterRateLimitScheduler> SHARED = new ConcurrentHashMap<>();
+
+  private final String name;
+  private final List<Token> tokens;
+  private final int maxAttempts;
+  private final ExecutorService workers;
+  private final ScheduledExecutorService timer;
+  private final Map<String, Deque<Pending<?>>> queues = new ConcurrentHashMap<>();
+  private final Set<String> wakeScheduled = ConcurrentHashMap.newKeySet();
+
+  private final AtomicInteger queued = new AtomicInteger();
+  private final AtomicInteger inFlight = new AtomicInteger();
+  private final AtomicLong dispatched = new AtomicLong();
+  private final AtomicLong completed = new AtomicLong();
+  private final AtomicLong failed = new AtomicLong();
+  private final AtomicLong requeued = new AtomicLong();
+  private final AtomicLong deferrals = new AtomicLong();
+
+  /**
+   * Scheduler shared by every provider in the JVM using the same credentials.
+   * @param configuration TwitterConfiguration, whose oauth and tokens are the credentials to spread requests over
+   * @return TwitterRateLimitScheduler
+   * @throws InstantiationException if a client cannot be built
+   */
+  public static TwitterRateLimitScheduler shared(TwitterConfiguration configuration) throws InstantiationException {
+    Map<String, TwitterOAuthConfiguration> credentials = new LinkedHashMap<>();
+    credentials.put(configuration.getOauth().getAccessToken(), configuration.getOauth());
+    if (configuration.getTokens() != null) {
+      for (TwitterOAuthConfiguration token : configuration.getTokens()) {
+        credentials.putIfAbsent(token.getAccessToken(), token);
+      }
+    }
+    String name = Integer.toHexString(credentials.keySet().hashCode());
+    synchronized (SHARED) {
+      TwitterRateLimitScheduler scheduler = SHARED.get(name);
+      if (scheduler == null) {
+        List<Twitter> clients = new ArrayList<>();
+        for (TwitterOAuthConfiguration oauth : credentials.values()) {
+          clients.add(Twitter.getInstance(tokenConfiguration(configuration, oauth)));
+        }
+        int threads = configuration.getThreadsPerProvider() == null
+            ? DEFAULT_THREADS : configuration.getThreadsPerProvider().intValue();
+        int attempts = configuration.getRetryMax() == null
+            ? DEFAULT_ATTEMPTS : configuration.getRetryMax().intValue();
+        scheduler = new TwitterRateLimitScheduler(name, clients, threads, attempts);
+        SHARED.put(name, scheduler);
+      }
+      return scheduler;
+    }
+  }
+
+  /**
+   * Client configuration for one set of credentials, leaving rate limited requests to the scheduler.
+   */
+  private static TwitterConfiguration tokenConfiguration(TwitterConfiguration configuration, TwitterOAuthConfiguration oauth) {
+    return new TwitterConfiguration()
+        .withProtocol(configuration.getProtocol())
+        .withHost(configuration.getHost())
+        .withPort(configuration.getPort())
+        .withVersion(configuration.getVersion())
+        .withDebug(Boolean.TRUE.equals(configuration.getDebug()))
+        .withEndpoint(configuration.getEndpoint())
+        .withEnvironment(configuration.getEnvironment())
+        .withJsonStoreEnabled(configuration.getJsonStoreEnabled())
+        .withOauth(oauth)
+        .withThreadsPerProvider(configuration.getThreadsPerProvider())
+        .withRetrySleepMs(configuration.getRetrySleepMs())
+        .withRetryMax(configuration.getRetryMax())
+        .withRetryRateLimited(false);
+  }
+
+  /**
+   * TwitterRateLimitScheduler constructor.
+   * @param name name to register the MXBean under, or null to skip registration
+   * @param clients one client per set of credentials
+   * @param threads maximum number of requests running at once
+   * @param maxAttempts times a request refused with 420 or 429 is queued before it fails
+   */
+  public TwitterRateLimitScheduler(String name, List<Twitter> clients, int threads, int maxAttempts) {
+    this.name = name;
+    this.maxAttempts = maxAttempts;
+    List<Token> tokens = new ArrayList<>();
+    for (Twitter client : clients) {
+      tokens.add(new Token(client));
+    }
+    this.tokens = Collections.unmodifiableList(tokens);
+    this.workers = Executors.newFixedThreadPool(threads, runnable -> {
+      Thread thread = new Thread(runnable, "twitter-rate-limit-scheduler");
+      thread.setDaemon(true);
+      return thread;
+    });
+    this.timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "twitter-rate-limit-timer");
+      thread.setDaemon(true);
+      return thread;
+    });
+    if (name != null) {
+      try {
+        MBeanServer mbs = ManagementFactory.getPlatformMBeanServer();
+        ObjectName objectName = new ObjectName(String.format(NAME_TEMPLATE, name));
+        if (!mbs.isRegistered(objectName)) {
+          mbs.registerMBean(this, objectName);
+        }
+      } catch (Exception ex) {
+        LOGGER.warn("Failed to register MXBean for {}: {}", name, ex.getMessage());
+      }
+    }
+  }
+
+  /**
+   * Queue a request.
+   * @param endpoint endpoint the request calls, as named by {@link TwitterRateLimits#endpoint(String, String)}
+   * @param call the request, made with whichever client has the most headroom
+   * @param <T> result type
+   * @return future completed with the result of the request
+   */
+  public <T> CompletableFuture<T> submit(String endpoint, Function<Twitter, T> call) {
+    Pending<T> pending = new Pending<>(call);
+    Deque<Pending<?>> queue = queues.computeIfAbsent(endpoint, key -> new ArrayDeque<>());
+    synchronized (queue) {
+      queue.addLast(pending);
+    }
+    queued.incrementAndGet();
+    dispatch(endpoint);
+    return pending.future;
+  }
+
+  /**
+   * Queue a request and wait for its result.
+   * @param endpoint endpoint the request calls, as named by {@link TwitterRateLimits#endpoint(String, String)}
+   * @param call the request, made with whichever client has the most headroom
+   * @param <T> result type
+   * @return result of the request
+   */
+  public <T> T call(String endpoint, Function<Twitter, T> call) {
+    try {
+      return submit(endpoint, call).join();
+    } catch (CompletionException ex) {
+      if (ex.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) ex.getCause();
+      }
+      throw ex;
+    }
+  }
+
+  private void dispatch(String endpoint) {
+    Deque<Pending<?>> queue = queues.get(endpoint);
+    synchronized (queue) {
+      while (!queue.isEmpty()) {
+        long now = System.currentTimeMillis();
+        Token token = choose(endpoint, now);
+        if (token == null) {
+          defer(endpoint, now);
+          return;
+        }
+        Pending<?> pending = queue.pollFirst();
+        queued.decrementAndGet();
+        token.inFlight(endpoint).incrementAndGet();
+        inFlight.incrementAndGet();
+        dispatched.incrementAndGet();
+        try {
+          workers.execute(() -> run(endpoint, token, pending));
+        } catch (RejectedExecutionException ree) {
+          token.inFlight(endpoint).decrementAndGet();
+          inFlight.decrementAndGet();
+          failed.incrementAndGet();
+          pending.future.completeExceptionally(ree);
+        }
+      }
+    }
+  }
+
+  /**
+   * Token with the most requests left in the endpoint's window, or null if none has any.
+   */
+  private Token choose(String endpoint, long now) {
+    Token best = null;
+    int bestHeadroom = 0;
+    for (Token token : tokens) {
+      int headroom = token.client.getRateLimits().window(endpoint).available(now) - token.inFlight(endpoint).get();
+      if (headroom > bestHeadroom) {
+        best = token;
+        bestHeadroom = headroom;
+      }
+    }
+    return best;
+  }
+
+  /**
+   * Dispatch the endpoint's queue again once the earliest exhausted window resets.  If every window with requests
+   * left is only full of requests in flight, their completion dispatches the queue instead.
+   */
+  private void defer(String endpoint, long now) {
+    long wakeAt = Long.MAX_VALUE;
+    for (Token token : tokens) {
+      TwitterRateLimits.Window window = token.client.getRateLimits().window(endpoint);
+      if (window.available(now) <= 0) {
+        wakeAt = Math.min(wakeAt, Math.max(window.getResetAtMillis(), now) + RESET_SLACK_MS);
+      }
+    }
+    if (wakeAt == Long.MAX_VALUE || !wakeScheduled.add(endpoint)) {
+      return;
+    }
+    deferrals.incrementAndGet();
+    LOGGER.debug("Deferring {} requests for {} ms", endpoint, wakeAt - now);
+    try {
+      timer.schedule(() -> {
+        wakeScheduled.remove(endpoint);
+        dispatch(endpoint);
+      }, wakeAt - now, TimeUnit.MILLISECONDS);
+    } catch (RejectedExecutionException ree) {
+      wakeScheduled.remove(endpoint);
+    }
+  }
+
+  private <T> void run(String endpoint, Token token, Pending<T> pending) {
+    long started = System.currentTimeMillis();
+    try {
+      T result = pending.call.apply(token.client);
+      completed.incrementAndGet();
+      pending.future.complete(result);
+    } catch (RuntimeException ex) {
+      TwitterRateLimits.Window window = token.client.getRateLimits().window(endpoint);
+      if (window.getThrottledAtMillis() >= started && ++pending.attempts < maxAttempts) {
+        requeued.incrementAndGet();
+        Deque<Pending<?>> queue = queues.get(endpoint);
+        synchronized (queue) {
+          queue.addFirst(pending);
+        }
+        queued.incrementAndGet();
+      } else {
+        failed.incrementAndGet();
+        pending.future.completeExceptionally(ex);
+      }
+    } finally {
+      token.inFlight(endpoint).decrementAndGet();
+      inFlight.decrementAndGet();
+      dispatch(endpoint);
+    }
+  }
+
+  /**
+   * Stop running requests; queued requests fail.
+   */
+  @Override
+  public void close() {
+    workers.shutdownNow();
+    timer.shutdownNow();
+    for (Deque<Pending<?>> queue : queues.values()) {
+      synchronized (queue) {
+        Pending<?> pending;
+        while ((pending = queue.pollFirst()) != null) {
+          queued.decrementAndGet();
+          pending.future.completeExceptionally(new RejectedExecutionException("scheduler closed"));
+        }
+      }
+    }
+    if (name != null) {
+      SHARED.remove(name, this);
+      try {
+        ManagementFactory.getPlatformMBeanServer().unregisterMBean(new ObjectName(String.format(NAME_TEMPLATE, name)));
+      } catch (Exception ex) {
+        LOGGER.warn("Failed to unregister MXBean for {}: {}", name, ex.getMessage());
+      }
+    }
+  }
+
+  @Override
+  public int getTokens() {
+    return tokens.size();
+  }
+
+  @Override
+  public int getQueued() {
+    return queued.get();
+  }
+
+  @Override
+  public int getInFlight() {
+    return inFlight.get();
+  }
+
+  @Override
+  public long getDispatched() {
+    return dispatched.get();
+  }
+
+  @Override
+  public long getCompleted() {
+    return completed.get();
+  }
+
+  @Override
+  public long getFailed() {
+    return failed.get();
+  }
+
+  @Override
+  public long getRequeued() {
+    return requeued.get();
+  }
+
+  @Override
+  public long getThrottled() {
+    long throttled = 0;
+    for (Token token : tokens) {
+      throttled += token.client.getRateLimits().getThrottled();
+    }
+    return throttled;
+  }
+
+  @Override
+  public long getDeferrals() {
+    return deferrals.get();
+  }
+
+  @Override
+  public double getUtilization() {
+    long now = System.currentTimeMillis();
+    long limit = 0;
+    long used = 0;
+    for (Token token : tokens) {
+      for (TwitterRateLimits.Window window : token.client.getRateLimits().getWindows().values()) {
+        if (window.getLimit() > 0 && window.getResetAtMillis() > now) {
+          limit += window.getLimit();
+          used += window.getLimit() - window.available(now);
+        }
+      }
+    }
+    return limit == 0 ? 0 : (double) used / limit;
+  }
+
+  private static class Token {
+
+    private final Twitter client;
+    private final Map<String, AtomicInteger> inFlight = new ConcurrentHashMap<>();
+
+    private Token(Twitter client) {
+      this.client = client;
+    }
+
+    private AtomicInteger inFlight(String endpoint) {
+      return inFlight.computeIfAbsent(endpoint, key -> new AtomicInteger());
+    }
+  }
+
+  private static class Pending<T> {
+
+    private final Function<Twitter, T> call;
+    private final CompletableFuture<T> future = new CompletableFuture<>();
+    private int attempts;
+
+    private Pending(Function<Twitter, T> call) {
+      this.call = call;
+    }
+  }
+
+}
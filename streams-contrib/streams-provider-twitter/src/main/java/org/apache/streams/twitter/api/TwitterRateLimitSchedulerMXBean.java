@@ -0,0 +1,86 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.streams.twitter.api;
+
+/**
+ * MXBean exposing the state of a {@link org.apache.streams.twitter.api.TwitterRateLimitScheduler}.
+ */
+public interface TwitterRateLimitSchedulerMXBean {
+
+  /**
+   * Number of credentials requests are spread over.
+   * @return token count
+   */
+  int getTokens();
+
+  /**
+   * Number of requests waiting for rate limit headroom.
+   * @return queued requests
+   */
+  int getQueued();
+
+  /**
+   * Number of requests running.
+   * @return requests in flight
+   */
+  int getInFlight();
+
+  /**
+   * Number of requests handed to a token, including requeued attempts.
+   * @return dispatched requests
+   */
+  long getDispatched();
+
+  /**
+   * Number of requests that returned a result.
+   * @return completed requests
+   */
+  long getCompleted();
+
+  /**
+   * Number of requests that failed for good.
+   * @return failed requests
+   */
+  long getFailed();
+
+  /**
+   * Number of requests refused with 420 or 429 and queued again.
+   * @return requeued requests
+   */
+  long getRequeued();
+
+  /**
+   * Number of requests refused with 420 or 429 across all tokens.
+   * @return throttled requests
+   */
+  long getThrottled();
+
+  /**
+   * Number of times an endpoint's queue had to wait for a window to reset.
+   * @return deferrals
+   */
+  long getDeferrals();
+
+  /**
+   * Share of the reported rate limit already used in windows that have not reset yet, across all tokens and endpoints.
+   * @return ratio between 0 and 1
+   */
+  double getUtilization();
+
+}
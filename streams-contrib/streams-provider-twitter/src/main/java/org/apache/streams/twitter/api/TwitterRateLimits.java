@@ -0,0 +1,209 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.streams.twitter.api;
+
+import org.apache.http.Header;
+import org.apache.http.HttpResponse;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * Rate limit windows of one set of credentials, as reported by the x-rate-limit-* headers of twitter responses.
+ *
+ * <p/>
+ * Windows are kept per endpoint, named by the request path without the api version, extension or numeric ids,
+ * e.g. statuses/user_timeline or statuses/retweets/:id.
+ */
+public class TwitterRateLimits {
+
+  public static final String LIMIT_HEADER = "x-rate-limit-limit";
+  public static final String REMAINING_HEADER = "x-rate-limit-remaining";
+  public static final String RESET_HEADER = "x-rate-limit-reset";
+
+  /**
+   * Requests allowed on a window no response has reported yet, enough to probe it without risking a 429.
+   */
+  public static final int UNKNOWN_AVAILABLE = 1;
+
+  private static final long DEFAULT_THROTTLE_MS = TimeUnit.MINUTES.toMillis(1);
+
+  private static final Pattern ID_SEGMENT = Pattern.compile("/\\d+(?=/|$)");
+
+  /**
+   * One rate limit window.
+   */
+  public static class Window {
+
+    private volatile int limit = -1;
+    private volatile int remaining = -1;
+    private volatile long resetAtMillis;
+    private volatile long throttledAtMillis;
+
+    /**
+     * Requests allowed per window.
+     * @return limit, or -1 if not yet reported
+     */
+    public int getLimit() {
+      return limit;
+    }
+
+    /**
+     * Requests left in the current window.
+     * @return remaining requests, or -1 if not yet reported
+     */
+    public int getRemaining() {
+      return remaining;
+    }
+
+    /**
+     * When the current window ends.
+     * @return epoch milliseconds, or 0 if not yet reported
+     */
+    public long getResetAtMillis() {
+      return resetAtMillis;
+    }
+
+    /**
+     * When a request was last refused with 420 or 429.
+     * @return epoch milliseconds, or 0 if never
+     */
+    public long getThrottledAtMillis() {
+      return throttledAtMillis;
+    }
+
+    /**
+     * Requests that can still be made at the given time, assuming a full window once the reset time has passed.
+     * @param now epoch milliseconds
+     * @return available requests
+     */
+    public int available(long now) {
+      if (limit < 0) {
+        return remaining < 0 ? UNKNOWN_AVAILABLE : remaining;
+      }
+      if (resetAtMillis > 0 && now >= resetAtMillis) {
+        return limit;
+      }
+      return remaining;
+    }
+  }
+
+  private final Map<String, Window> windows = new ConcurrentHashMap<>();
+  private final AtomicLong throttled = new AtomicLong();
+
+  /**
+   * Endpoint name of a request uri.
+   * @param uri request uri or path, e.g. https://api.twitter.com/1.1/statuses/retweets/123.json?count=100
+   * @param version api version to strip, e.g. 1.1
+   * @return endpoint name, e.g. statuses/retweets/:id
+   */
+  public static String endpoint(String uri, String version) {
+    String endpoint = uri;
+    int query = endpoint.indexOf('?');
+    if (query >= 0) {
+      endpoint = endpoint.substring(0, query);
+    }
+    int scheme = endpoint.indexOf("://");
+    if (scheme >= 0) {
+      int path = endpoint.indexOf('/', scheme + 3);
+      endpoint = path >= 0 ? endpoint.substring(path) : "";
+    }
+    endpoint = endpoint.startsWith("/") ? endpoint.substring(1) : endpoint;
+    if (version != null && endpoint.startsWith(version + "/")) {
+      endpoint = endpoint.substring(version.length() + 1);
+    }
+    if (endpoint.endsWith(".json")) {
+      endpoint = endpoint.substring(0, endpoint.length() - ".json".length());
+    }
+    return ID_SEGMENT.matcher(endpoint).replaceAll("/:id");
+  }
+
+  /**
+   * Window of an endpoint, created empty if no response has reported it yet.
+   * @param endpoint endpoint name
+   * @return Window
+   */
+  public Window window(String endpoint) {
+    return windows.computeIfAbsent(endpoint, key -> new Window());
+  }
+
+  /**
+   * Windows reported so far.
+   * @return windows by endpoint name
+   */
+  public Map<String, Window> getWindows() {
+    return Collections.unmodifiableMap(windows);
+  }
+
+  /**
+   * Number of requests refused with 420 or 429.
+   * @return throttled requests
+   */
+  public long getThrottled() {
+    return throttled.get();
+  }
+
+  /**
+   * Update the window of an endpoint from a response.
+   * @param endpoint endpoint name
+   * @param response HttpResponse
+   */
+  public void record(String endpoint, HttpResponse response) {
+    Window window = window(endpoint);
+    long now = System.currentTimeMillis();
+    long limit = longHeader(response, LIMIT_HEADER);
+    long remaining = longHeader(response, REMAINING_HEADER);
+    long reset = longHeader(response, RESET_HEADER);
+    if (limit >= 0) {
+      window.limit = (int) limit;
+    }
+    if (reset >= 0) {
+      window.resetAtMillis = TimeUnit.SECONDS.toMillis(reset);
+    }
+    if (remaining >= 0) {
+      window.remaining = (int) remaining;
+    }
+    int status = response.getStatusLine().getStatusCode();
+    if (status == 420 || status == 429) {
+      throttled.incrementAndGet();
+      window.throttledAtMillis = now;
+      window.remaining = 0;
+      if (window.resetAtMillis <= now) {
+        window.resetAtMillis = now + DEFAULT_THROTTLE_MS;
+      }
+    }
+  }
+
+  private static long longHeader(HttpResponse response, String name) {
+    Header header = response.getFirstHeader(name);
+    if (header == null) {
+      return -1;
+    }
+    try {
+      return Long.parseLong(header.getValue().trim());
+    } catch (NumberFormatException ex) {
+      return -1;
+    }
+  }
+
+}
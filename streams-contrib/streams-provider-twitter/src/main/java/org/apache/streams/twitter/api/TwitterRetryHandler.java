@@ -44,6 +44,21 @@ public class TwitterRetryHandler extends RetryOn {
 
   private static final Logger LOGGER = LoggerFactory.getLogger(TwitterRetryHandler.class);
 
+  private final boolean retryRateLimited;
+
+  public TwitterRetryHandler() {
+    this(true);
+  }
+
+  /**
+   * TwitterRetryHandler constructor.
+   * @param retryRateLimited whether to retry requests refused with 420 or 429, false when a
+   *                         {@link org.apache.streams.twitter.api.TwitterRateLimitScheduler} requeues them instead
+   */
+  public TwitterRetryHandler(boolean retryRateLimited) {
+    this.retryRateLimited = retryRateLimited;
+  }
+
   protected boolean onResponse(HttpResponse response) {
     if( response == null ) return false;
     LOGGER.debug(response.toString());
@@ -61,7 +76,7 @@ public class TwitterRetryHandler extends RetryOn {
         return false;
       case 420: // Enhance Your Calm
       case 429: // Too Many Requests
-        return true;
+        return retryRateLimited;
       case 500: // Response.Status.INTERNAL_SERVER_ERROR
       case 502: // Bad Gateway
       case 503: // Response.Status.SERVICE_UNAVAILABLE
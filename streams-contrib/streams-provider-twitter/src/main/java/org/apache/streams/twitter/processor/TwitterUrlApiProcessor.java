@@ -27,10 +27,7 @@ import org.apache.streams.pojo.json.Activity;
 import com.google.common.base.Preconditions;
 
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 /**
  * Class gets a global share count from Twitter API for links on Activity datums.
@@ -67,14 +64,10 @@ public class TwitterUrlApiProcessor extends SimpleHTTPGetProcessor implements St
   }
 
   @Override
-  public List<StreamsDatum> process(StreamsDatum entry) {
+  protected boolean shouldEnrich(StreamsDatum entry) {
     Preconditions.checkArgument(entry.getDocument() instanceof Activity);
     Activity activity = mapper.convertValue(entry.getDocument(), Activity.class);
-    if ( activity.getLinks() != null && activity.getLinks().size() > 0) {
-      return super.process(entry);
-    } else {
-      return Stream.of(entry).collect(Collectors.toList());
-    }
+    return activity.getLinks() != null && activity.getLinks().size() > 0;
   }
 
   @Override
@@ -212,7 +212,8 @@ public class SevenDaySearchProvider implements StreamsProvider, Serializable {
     executor = MoreExecutors.listeningDecorator(
         TwitterUserInformationProvider.newFixedThreadPoolWithQueueSize(
             config.getThreadsPerProvider().intValue(),
-            streamsConfiguration.getQueueSize().intValue()
+            streamsConfiguration.getQueueSize().intValue(),
+            Boolean.TRUE.equals(config.getVirtualThreads())
         )
     );
 
@@ -210,7 +210,8 @@ public class ThirtyDaySearchProvider implements StreamsProvider, Serializable {
     executor = MoreExecutors.listeningDecorator(
         TwitterUserInformationProvider.newFixedThreadPoolWithQueueSize(
             config.getThreadsPerProvider().intValue(),
-            streamsConfiguration.getQueueSize().intValue()
+            streamsConfiguration.getQueueSize().intValue(),
+            Boolean.TRUE.equals(config.getVirtualThreads())
         )
     );
 
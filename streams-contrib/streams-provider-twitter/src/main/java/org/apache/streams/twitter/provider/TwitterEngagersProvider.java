@@ -197,7 +197,8 @@ public class TwitterEngagersProvider extends TwitterTimelineProvider implements
     executor = MoreExecutors.listeningDecorator(
       TwitterUserInformationProvider.newFixedThreadPoolWithQueueSize(
         config.getThreadsPerProvider().intValue(),
-        streamsConfiguration.getQueueSize().intValue()
+        streamsConfiguration.getQueueSize().intValue(),
+        Boolean.TRUE.equals(config.getVirtualThreads())
       )
     );
 
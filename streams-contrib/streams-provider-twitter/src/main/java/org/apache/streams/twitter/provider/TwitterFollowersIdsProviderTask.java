@@ -79,7 +79,9 @@ public class TwitterFollowersIdsProviderTask implements Runnable {
 
     do {
 
-      FollowersIdsResponse response = client.ids(request);
+      FollowersIdsResponse response = provider.scheduler != null
+          ? provider.scheduler.call("followers/ids", twitter -> twitter.ids(request))
+          : client.ids(request);
 
       last_count = response.getIds().size();
 
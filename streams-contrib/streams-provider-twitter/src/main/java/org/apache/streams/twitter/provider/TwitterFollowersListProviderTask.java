@@ -76,7 +76,9 @@ public class TwitterFollowersListProviderTask implements Runnable {
 
     do {
 
-      FollowersListResponse response = client.list(request);
+      FollowersListResponse response = provider.scheduler != null
+          ? provider.scheduler.call("followers/list", twitter -> twitter.list(request))
+          : client.list(request);
 
       last_count = response.getUsers().size();
 
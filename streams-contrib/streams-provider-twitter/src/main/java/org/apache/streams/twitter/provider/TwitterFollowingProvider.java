@@ -35,6 +35,7 @@ import org.apache.streams.twitter.api.FollowingIdsRequest;
 import org.apache.streams.twitter.api.FriendsIdsRequest;
 import org.apache.streams.twitter.api.FriendsListRequest;
 import org.apache.streams.twitter.api.Twitter;
+import org.apache.streams.twitter.api.TwitterRateLimitScheduler;
 import org.apache.streams.twitter.converter.TwitterDateTimeFormat;
 import org.apache.streams.twitter.pojo.User;
 
@@ -88,6 +89,8 @@ public class TwitterFollowingProvider implements StreamsProvider, Serializable {
 
   protected Twitter client;
 
+  protected TwitterRateLimitScheduler scheduler;
+
   protected ListeningExecutorService executor;
 
   private List<ListenableFuture<Object>> futures = new ArrayList<>();
@@ -197,6 +200,14 @@ public class TwitterFollowingProvider implements StreamsProvider, Serializable {
 
     Objects.requireNonNull(client);
 
+    if (Boolean.TRUE.equals(config.getRateLimitScheduler())) {
+      try {
+        scheduler = TwitterRateLimitScheduler.shared(config);
+      } catch (InstantiationException e) {
+        LOGGER.error("InstantiationException", e);
+      }
+    }
+
     try {
       lock.writeLock().lock();
       providerQueue = constructQueue();
@@ -226,7 +237,8 @@ public class TwitterFollowingProvider implements StreamsProvider, Serializable {
     executor = MoreExecutors.listeningDecorator(
         TwitterUserInformationProvider.newFixedThreadPoolWithQueueSize(
             config.getThreadsPerProvider().intValue(),
-            streamsConfiguration.getQueueSize().intValue()
+            streamsConfiguration.getQueueSize().intValue(),
+            Boolean.TRUE.equals(config.getVirtualThreads())
         )
     );
 
@@ -79,7 +79,9 @@ public class TwitterFriendsIdsProviderTask implements Runnable {
 
     do {
 
-      FriendsIdsResponse response = client.ids(request);
+      FriendsIdsResponse response = provider.scheduler != null
+          ? provider.scheduler.call("friends/ids", twitter -> twitter.ids(request))
+          : client.ids(request);
 
       last_count = response.getIds().size();
 
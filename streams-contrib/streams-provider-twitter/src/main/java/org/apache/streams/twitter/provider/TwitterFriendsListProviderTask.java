@@ -77,7 +77,9 @@ public class TwitterFriendsListProviderTask implements Runnable {
 
     do {
 
-      FriendsListResponse response = client.list(request);
+      FriendsListResponse response = provider.scheduler != null
+          ? provider.scheduler.call("friends/list", twitter -> twitter.list(request))
+          : client.list(request);
 
       last_count = response.getUsers().size();
 
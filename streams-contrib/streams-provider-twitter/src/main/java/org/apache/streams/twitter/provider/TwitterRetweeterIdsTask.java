@@ -66,7 +66,9 @@ public class TwitterRetweeterIdsTask implements Runnable {
 
     LOGGER.info("Thread Starting: {}", request.toString());
 
-    RetweeterIdsResponse response = client.retweeterIds(request);
+    RetweeterIdsResponse response = provider.scheduler != null
+        ? provider.scheduler.call("statuses/retweeters/ids", twitter -> twitter.retweeterIds(request))
+        : client.retweeterIds(request);
 
     List<String> userIds = response.getIds();
 
@@ -66,7 +66,9 @@ public class TwitterRetweetsTask implements Runnable {
 
     LOGGER.info("Thread Starting: {}", request.toString());
 
-    List<Tweet> retweets = client.retweets(request);
+    List<Tweet> retweets = provider.scheduler != null
+        ? provider.scheduler.call("statuses/retweets/:id", twitter -> twitter.retweets(request))
+        : client.retweets(request);
 
     for (Tweet retweet : retweets) {
       ComponentUtils.offerUntilSuccess(new StreamsDatum(retweet), provider.providerQueue);
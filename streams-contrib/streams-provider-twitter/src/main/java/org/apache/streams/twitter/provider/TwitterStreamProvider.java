@@ -25,7 +25,8 @@ import org.apache.streams.core.DatumStatus;
 import org.apache.streams.core.DatumStatusCountable;
 import org.apache.streams.core.DatumStatusCounter;
 import org.apache.streams.core.StreamsDatum;
-import org.apache.streams.core.StreamsProvider;
+import org.apache.streams.core.StreamsEmitter;
+import org.apache.streams.core.StreamsPushProvider;
 import org.apache.streams.core.StreamsResultSet;
 import org.apache.streams.jackson.StreamsJacksonMapper;
 import org.apache.streams.twitter.TwitterStreamConfiguration;
@@ -69,7 +70,10 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
 import java.util.Queue;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.LinkedBlockingDeque;
 import java.util.concurrent.LinkedBlockingQueue;
@@ -79,8 +83,12 @@ import java.util.concurrent.atomic.AtomicBoolean;
 /**
  * TwitterStreamProvider wraps a hosebird client and passes received documents
  * to subscribing components.
+ *
+ * <p/>
+ * When started with a {@link StreamsEmitter}, documents are pushed to the stream as soon as they are deserialized,
+ * instead of waiting to be collected by readCurrent().
  */
-public class TwitterStreamProvider implements StreamsProvider, Serializable, DatumStatusCountable {
+public class TwitterStreamProvider implements StreamsPushProvider, Serializable, DatumStatusCountable {
 
   public static final String STREAMS_ID = "TwitterStreamProvider";
 
@@ -153,6 +161,7 @@ public class TwitterStreamProvider implements StreamsProvider, Serializable, Dat
   }
 
   private static final int MAX_BATCH = 1000;
+  private static final long FORWARD_POLL_MS = 100;
 
   private TwitterStreamConfiguration config;
 
@@ -164,7 +173,9 @@ public class TwitterStreamProvider implements StreamsProvider, Serializable, Dat
     this.config = config;
   }
 
-  private volatile Queue<Future<List<StreamsDatum>>> providerQueue;
+  private volatile BlockingQueue<Future<List<StreamsDatum>>> providerQueue;
+  private transient StreamsEmitter emitter;
+  private transient ExecutorService forwarder;
 
   private Authentication auth;
   protected StreamingEndpoint endpoint;
@@ -193,6 +204,42 @@ public class TwitterStreamProvider implements StreamsProvider, Serializable, Dat
     running.set(true);
   }
 
+  @Override
+  public void startStream(StreamsEmitter emitter) {
+    this.emitter = emitter;
+    startStream();
+    this.forwarder = Executors.newSingleThreadExecutor();
+    this.forwarder.submit(this::forwardToEmitter);
+  }
+
+  /**
+   * Passes deserialized documents to the emitter in the order they were received.  While the emitter blocks, the
+   * provider queue fills up, which in turn holds up the hosebird client.
+   */
+  protected void forwardToEmitter() {
+    try {
+      while (emitter.isActive() && (isRunning() || !providerQueue.isEmpty())) {
+        Future<List<StreamsDatum>> future = providerQueue.poll(FORWARD_POLL_MS, TimeUnit.MILLISECONDS);
+        if (future == null) {
+          continue;
+        }
+        try {
+          for (StreamsDatum datum : future.get()) {
+            emitter.emit(datum);
+          }
+        } catch (ExecutionException ex) {
+          LOGGER.warn("Error getting tweet from future");
+        }
+        synchronized (this) {
+          countersTotal.add(countersCurrent);
+          countersCurrent = new DatumStatusCounter();
+        }
+      }
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
   @Override
   public synchronized StreamsResultSet readCurrent() {
 
@@ -315,6 +362,9 @@ public class TwitterStreamProvider implements StreamsProvider, Serializable, Dat
   public void cleanUp() {
     this.client.stop();
     this.processor.cleanUp();
+    if (this.forwarder != null) {
+      ComponentUtils.shutdownExecutor(this.forwarder, 1, 30);
+    }
     this.running.set(false);
   }
 
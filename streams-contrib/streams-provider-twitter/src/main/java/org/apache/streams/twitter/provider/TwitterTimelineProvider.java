@@ -29,6 +29,7 @@ import org.apache.streams.jackson.StreamsJacksonMapper;
 import org.apache.streams.twitter.TwitterTimelineProviderConfiguration;
 import org.apache.streams.twitter.api.StatusesUserTimelineRequest;
 import org.apache.streams.twitter.api.Twitter;
+import org.apache.streams.twitter.api.TwitterRateLimitScheduler;
 import org.apache.streams.twitter.api.UsersLookupRequest;
 import org.apache.streams.twitter.converter.TwitterDateTimeFormat;
 import org.apache.streams.twitter.pojo.User;
@@ -98,6 +99,8 @@ public class TwitterTimelineProvider implements StreamsProvider, Serializable {
   protected int idsCount;
   protected Twitter client;
 
+  protected TwitterRateLimitScheduler scheduler;
+
   protected ListeningExecutorService executor;
 
   protected DateTime start;
@@ -222,6 +225,14 @@ public class TwitterTimelineProvider implements StreamsProvider, Serializable {
 
     Objects.requireNonNull(client);
 
+    if (Boolean.TRUE.equals(config.getRateLimitScheduler())) {
+      try {
+        scheduler = TwitterRateLimitScheduler.shared(config);
+      } catch (InstantiationException e) {
+        LOGGER.error("InstantiationException", e);
+      }
+    }
+
     for (String s : config.getInfo()) {
       if (s != null) {
         String potentialScreenName = s.replaceAll("@", "").trim().toLowerCase();
@@ -239,7 +250,8 @@ public class TwitterTimelineProvider implements StreamsProvider, Serializable {
     executor = MoreExecutors.listeningDecorator(
         TwitterUserInformationProvider.newFixedThreadPoolWithQueueSize(
             config.getThreadsPerProvider().intValue(),
-            streamsConfiguration.getQueueSize().intValue()
+            streamsConfiguration.getQueueSize().intValue(),
+            Boolean.TRUE.equals(config.getVirtualThreads())
         )
     );
 
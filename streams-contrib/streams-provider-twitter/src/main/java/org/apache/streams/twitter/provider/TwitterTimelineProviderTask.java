@@ -70,7 +70,9 @@ public class TwitterTimelineProviderTask implements Runnable {
 
     do {
 
-      List<Tweet> statuses = client.userTimeline(request);
+      List<Tweet> statuses = provider.scheduler != null
+          ? provider.scheduler.call("statuses/user_timeline", twitter -> twitter.userTimeline(request))
+          : client.userTimeline(request);
 
       last_count = statuses.size();
       if( statuses.size() > 0 ) {
@@ -29,10 +29,13 @@ import org.apache.streams.jackson.StreamsJacksonMapper;
 import org.apache.streams.twitter.TwitterFollowingConfiguration;
 import org.apache.streams.twitter.TwitterUserInformationConfiguration;
 import org.apache.streams.twitter.api.Twitter;
+import org.apache.streams.twitter.api.TwitterRateLimitScheduler;
 import org.apache.streams.twitter.api.UsersLookupRequest;
 import org.apache.streams.twitter.converter.TwitterDateTimeFormat;
 import org.apache.streams.twitter.pojo.User;
 import org.apache.streams.util.ComponentUtils;
+import org.apache.streams.util.ThreadPerTaskExecutor;
+import org.apache.streams.util.VirtualThreads;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -105,6 +108,8 @@ public class TwitterUserInformationProvider implements StreamsProvider, Serializ
 
   protected Twitter client;
 
+  protected TwitterRateLimitScheduler scheduler;
+
   protected ListeningExecutorService executor;
 
   protected DateTime start;
@@ -176,9 +181,26 @@ public class TwitterUserInformationProvider implements StreamsProvider, Serializ
 
   // TODO: this should be abstracted out
   public static ExecutorService newFixedThreadPoolWithQueueSize(int numThreads, int queueSize) {
+    return newFixedThreadPoolWithQueueSize(numThreads, queueSize, false);
+  }
+
+  /**
+   * newFixedThreadPoolWithQueueSize, optionally running on virtual threads.  Virtual threads are not pooled: each
+   * task gets its own, with up to numThreads + queueSize running at once, the most the fixed pool would accept.
+   * @param numThreads number of threads
+   * @param queueSize size of the work queue
+   * @param virtual whether to use virtual threads, when supported by the JVM
+   * @return ExecutorService
+   */
+  public static ExecutorService newFixedThreadPoolWithQueueSize(int numThreads, int queueSize, boolean virtual) {
+    if (virtual && VirtualThreads.isSupported()) {
+      return new ThreadPerTaskExecutor(VirtualThreads.newThreadFactory("twitter-provider-"), numThreads + queueSize);
+    }
     return new ThreadPoolExecutor(numThreads, numThreads,
         5000L, TimeUnit.MILLISECONDS,
-        new ArrayBlockingQueue<>(queueSize, true), new ThreadPoolExecutor.CallerRunsPolicy());
+        new ArrayBlockingQueue<>(queueSize, true),
+        VirtualThreads.newThreadFactory(virtual, "twitter-provider-"),
+        new ThreadPoolExecutor.CallerRunsPolicy());
   }
 
   /**
@@ -230,6 +252,14 @@ public class TwitterUserInformationProvider implements StreamsProvider, Serializ
 
     Objects.requireNonNull(client);
 
+    if (Boolean.TRUE.equals(config.getRateLimitScheduler())) {
+      try {
+        scheduler = TwitterRateLimitScheduler.shared(config);
+      } catch (InstantiationException e) {
+        LOGGER.error("InstantiationException", e);
+      }
+    }
+
     try {
       lock.writeLock().lock();
       providerQueue = constructQueue();
@@ -256,7 +286,8 @@ public class TwitterUserInformationProvider implements StreamsProvider, Serializ
     executor = MoreExecutors.listeningDecorator(
         TwitterUserInformationProvider.newFixedThreadPoolWithQueueSize(
             config.getThreadsPerProvider().intValue(),
-            streamsConfiguration.getQueueSize().intValue()
+            streamsConfiguration.getQueueSize().intValue(),
+            Boolean.TRUE.equals(config.getVirtualThreads())
         )
     );
 
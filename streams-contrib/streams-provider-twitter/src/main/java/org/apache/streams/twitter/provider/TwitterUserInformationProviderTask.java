@@ -64,7 +64,9 @@ public class TwitterUserInformationProviderTask implements Runnable {
 
     LOGGER.info("Thread Starting: {}", request.toString());
 
-    List<User> users = client.lookup(request);
+    List<User> users = provider.scheduler != null
+        ? provider.scheduler.call("users/lookup", twitter -> twitter.lookup(request))
+        : client.lookup(request);
 
     for (User user : users) {
       ComponentUtils.offerUntilSuccess(new StreamsDatum(user), provider.providerQueue);
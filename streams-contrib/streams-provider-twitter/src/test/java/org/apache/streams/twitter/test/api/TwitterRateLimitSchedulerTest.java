@@ -0,0 +1,157 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.streams.twitter.test.api;
+
+import org.apache.streams.twitter.TwitterConfiguration;
+import org.apache.streams.twitter.TwitterOAuthConfiguration;
+import org.apache.streams.twitter.api.StatusesUserTimelineRequest;
+import org.apache.streams.twitter.api.Twitter;
+import org.apache.streams.twitter.api.TwitterRateLimitScheduler;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit Tests for {@link org.apache.streams.twitter.api.TwitterRateLimitScheduler}
+ */
+public class TwitterRateLimitSchedulerTest {
+
+  private static final int LIMIT = 3;
+  private static final long WINDOW_MS = 2000;
+  private static final Pattern TOKEN = Pattern.compile("oauth_token=\"([^\"]+)\"");
+
+  private HttpServer server;
+  private final Map<String, AtomicInteger> used = new ConcurrentHashMap<>();
+  private final Map<String, AtomicInteger> served = new ConcurrentHashMap<>();
+  private final AtomicInteger throttled = new AtomicInteger();
+  private volatile long resetAt;
+
+  /**
+   * Serves empty timelines, allowing LIMIT requests per token in each window of WINDOW_MS.
+   */
+  @Before
+  public void startServer() throws Exception {
+    resetAt = System.currentTimeMillis() + WINDOW_MS;
+    server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+    server.createContext("/1.1/statuses/user_timeline.json", exchange -> {
+      Matcher matcher = TOKEN.matcher(String.valueOf(exchange.getRequestHeaders().getFirst("Authorization")));
+      String token = matcher.find() ? matcher.group(1) : "none";
+      int count;
+      long reset;
+      synchronized (this) {
+        if (System.currentTimeMillis() >= resetAt) {
+          resetAt = System.currentTimeMillis() + WINDOW_MS;
+          used.clear();
+        }
+        count = used.computeIfAbsent(token, key -> new AtomicInteger()).incrementAndGet();
+        reset = resetAt;
+      }
+      exchange.getResponseHeaders().add("x-rate-limit-limit", Integer.toString(LIMIT));
+      exchange.getResponseHeaders().add("x-rate-limit-remaining", Integer.toString(Math.max(0, LIMIT - count)));
+      exchange.getResponseHeaders().add("x-rate-limit-reset", Long.toString((reset + 999) / 1000));
+      exchange.getResponseHeaders().add("Content-Type", "application/json");
+      byte[] body;
+      if (count > LIMIT) {
+        throttled.incrementAndGet();
+        body = "{\"errors\":[{\"code\":88,\"message\":\"Rate limit exceeded\"}]}".getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(429, body.length);
+      } else {
+        served.computeIfAbsent(token, key -> new AtomicInteger()).incrementAndGet();
+        body = "[]".getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(200, body.length);
+      }
+      exchange.getResponseBody().write(body);
+      exchange.close();
+    });
+    server.setExecutor(Executors.newCachedThreadPool());
+    server.start();
+  }
+
+  @After
+  public void stopServer() {
+    server.stop(0);
+  }
+
+  @Test
+  public void testRequestsSpreadOverTokensWithinLimits() throws Exception {
+    List<Twitter> clients = new ArrayList<>();
+    clients.add(Twitter.getInstance(configuration("token-a")));
+    clients.add(Twitter.getInstance(configuration("token-b")));
+    TwitterRateLimitScheduler scheduler = new TwitterRateLimitScheduler("test_scheduler", clients, 4, 3);
+    try {
+      int requests = 4 * LIMIT;
+      List<CompletableFuture<Integer>> futures = new ArrayList<>();
+      for (int i = 0; i < requests; ++i) {
+        futures.add(scheduler.submit("statuses/user_timeline",
+            twitter -> twitter.userTimeline(new StatusesUserTimelineRequest().withUserId(1L)).size()));
+      }
+      for (CompletableFuture<Integer> future : futures) {
+        assertEquals(0, (int) future.get(30, TimeUnit.SECONDS));
+      }
+      assertEquals(requests, scheduler.getCompleted());
+      assertEquals(0, scheduler.getFailed());
+      assertEquals(0, throttled.get());
+      assertEquals(0, scheduler.getThrottled());
+      assertTrue(scheduler.getDeferrals() > 0);
+      assertTrue(served.get("token-a").get() > 0);
+      assertTrue(served.get("token-b").get() > 0);
+      assertEquals(requests, served.get("token-a").get() + served.get("token-b").get());
+      assertEquals(0, scheduler.getQueued());
+      assertEquals(0, scheduler.getInFlight());
+    } finally {
+      scheduler.close();
+    }
+  }
+
+  private TwitterConfiguration configuration(String accessToken) {
+    return new TwitterConfiguration()
+        .withProtocol("http")
+        .withHost("localhost")
+        .withPort((long) server.getAddress().getPort())
+        .withVersion("1.1")
+        .withDebug(false)
+        .withRetrySleepMs(10L)
+        .withRetryMax(0L)
+        .withRetryRateLimited(false)
+        .withOauth(new TwitterOAuthConfiguration()
+            .withConsumerKey("key")
+            .withConsumerSecret("secret")
+            .withAccessToken(accessToken)
+            .withAccessTokenSecret("secret"));
+  }
+
+}
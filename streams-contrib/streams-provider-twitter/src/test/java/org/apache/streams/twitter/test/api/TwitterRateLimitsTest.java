@@ -0,0 +1,73 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.streams.twitter.test.api;
+
+import org.apache.streams.twitter.api.TwitterRateLimits;
+
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpVersion;
+import org.apache.http.message.BasicHttpResponse;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit Tests for {@link org.apache.streams.twitter.api.TwitterRateLimits}
+ */
+public class TwitterRateLimitsTest {
+
+  @Test
+  public void testEndpoint() {
+    assertEquals("statuses/user_timeline", TwitterRateLimits.endpoint("/1.1/statuses/user_timeline.json?user_id=1&count=200", "1.1"));
+    assertEquals("statuses/retweets/:id", TwitterRateLimits.endpoint("https://api.twitter.com:443/1.1/statuses/retweets/123456", "1.1"));
+    assertEquals("followers/ids", TwitterRateLimits.endpoint("/1.1/followers/ids.json", "1.1"));
+    assertEquals("users/lookup", TwitterRateLimits.endpoint("users/lookup.json", null));
+  }
+
+  @Test
+  public void testWindowFromHeaders() {
+    TwitterRateLimits limits = new TwitterRateLimits();
+    TwitterRateLimits.Window window = limits.window("statuses/user_timeline");
+    long now = System.currentTimeMillis();
+    assertEquals(TwitterRateLimits.UNKNOWN_AVAILABLE, window.available(now));
+
+    long reset = now / 1000 + 60;
+    limits.record("statuses/user_timeline", response(200, 900, 899, reset));
+    assertEquals(900, window.getLimit());
+    assertEquals(899, window.available(now));
+    assertEquals(reset * 1000, window.getResetAtMillis());
+    // once the window has reset the full limit is available again
+    assertEquals(900, window.available(reset * 1000));
+
+    limits.record("statuses/user_timeline", response(429, 900, 0, reset));
+    assertEquals(0, window.available(now));
+    assertEquals(1, limits.getThrottled());
+    assertTrue(window.getThrottledAtMillis() >= now);
+  }
+
+  private static HttpResponse response(int status, int limit, int remaining, long reset) {
+    HttpResponse response = new BasicHttpResponse(HttpVersion.HTTP_1_1, status, null);
+    response.addHeader(TwitterRateLimits.LIMIT_HEADER, Integer.toString(limit));
+    response.addHeader(TwitterRateLimits.REMAINING_HEADER, Integer.toString(remaining));
+    response.addHeader(TwitterRateLimits.RESET_HEADER, Long.toString(reset));
+    return response;
+  }
+
+}
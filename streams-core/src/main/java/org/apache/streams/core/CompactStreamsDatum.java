@@ -0,0 +1,138 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.streams.core;
+
+import org.joda.time.DateTime;
+
+import java.math.BigInteger;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * StreamsDatum that keeps allocations per datum to a minimum, for high volume streams.
+ * <p/>
+ * The metadata map is only created once it is first asked for, and the timestamp and sequence id are held as
+ * primitive longs, with DateTime and BigInteger created on demand by the usual accessors.  Sequence ids that do
+ * not fit in a long are kept as a BigInteger.
+ * <p/>
+ * The public timestamp, sequenceid and metadata fields of StreamsDatum are not kept up to date, use the accessors.
+ */
+public class CompactStreamsDatum extends StreamsDatum {
+
+  /**
+   * Value of {@link #getTimestampMillis()} and {@link #getSequence()} when not set.
+   */
+  public static final long NOT_SET = Long.MIN_VALUE;
+
+  private long timestampMillis = NOT_SET;
+  private long sequence = NOT_SET;
+
+  public CompactStreamsDatum(Object document) {
+    this(document, null);
+  }
+
+  public CompactStreamsDatum(Object document, String id) {
+    super(document, id, null, null, null);
+  }
+
+  public CompactStreamsDatum(Object document, String id, long timestampMillis) {
+    this(document, id);
+    this.timestampMillis = timestampMillis;
+  }
+
+  public CompactStreamsDatum(Object document, String id, long timestampMillis, long sequence) {
+    this(document, id, timestampMillis);
+    this.sequence = sequence;
+  }
+
+  /**
+   * Event time in epoch millis.
+   * @return timestamp, or {@link #NOT_SET}
+   */
+  public long getTimestampMillis() {
+    return timestampMillis;
+  }
+
+  public void setTimestampMillis(long timestampMillis) {
+    this.timestampMillis = timestampMillis;
+  }
+
+  /**
+   * Sequence id, when it fits in a long.
+   * @return sequence id, or {@link #NOT_SET}
+   */
+  public long getSequence() {
+    return sequence;
+  }
+
+  public void setSequence(long sequence) {
+    this.sequence = sequence;
+    this.sequenceid = null;
+  }
+
+  @Override
+  public DateTime getTimestamp() {
+    return timestampMillis == NOT_SET ? null : new DateTime(timestampMillis);
+  }
+
+  @Override
+  public void setTimestamp(DateTime timestamp) {
+    this.timestampMillis = timestamp == null ? NOT_SET : timestamp.getMillis();
+  }
+
+  @Override
+  public BigInteger getSequenceid() {
+    if (this.sequenceid != null) {
+      return this.sequenceid;
+    }
+    return sequence == NOT_SET ? null : BigInteger.valueOf(sequence);
+  }
+
+  @Override
+  public void setSequenceid(BigInteger sequenceid) {
+    if (sequenceid != null && sequenceid.bitLength() < Long.SIZE && sequenceid.longValue() != NOT_SET) {
+      setSequence(sequenceid.longValue());
+    } else {
+      this.sequence = NOT_SET;
+      this.sequenceid = sequenceid;
+    }
+  }
+
+  @Override
+  public Map<String, Object> getMetadata() {
+    if (this.metadata == null) {
+      this.metadata = new HashMap<>();
+    }
+    return this.metadata;
+  }
+
+  @Override
+  public boolean hasMetadata() {
+    return this.metadata != null && !this.metadata.isEmpty();
+  }
+
+  @Override
+  public StreamsDatum withDocument(Object document, Map<String, Object> metadata) {
+    CompactStreamsDatum datum = new CompactStreamsDatum(document, getRawId(), timestampMillis, sequence);
+    datum.sequenceid = this.sequenceid;
+    datum.metadata = metadata;
+    return datum;
+  }
+
+}
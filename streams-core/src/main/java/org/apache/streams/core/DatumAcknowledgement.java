@@ -0,0 +1,40 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.streams.core;
+
+/**
+ * Callback a reader places in a datum's metadata, under {@link #METADATA_KEY}, to learn when the datum has been
+ * written, for example so it can commit the offset the datum was read from.
+ *
+ * <p></p>
+ * Runtimes acknowledge each datum once a writer has written it without error.  A writer that completes writes
+ * asynchronously removes the acknowledgement with
+ * {@link org.apache.streams.core.util.DatumUtils#takeAcknowledgement(StreamsDatum)} and acknowledges it itself.
+ * Processors must carry the metadata of their inbound datum over to the datums they emit, or it is never acknowledged.
+ */
+public interface DatumAcknowledgement {
+
+  String METADATA_KEY = "acknowledgement";
+
+  /**
+   * Mark the datum written.  Must be safe to call more than once and from any thread.
+   */
+  void acknowledge();
+
+}
@@ -0,0 +1,37 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.streams.core;
+
+import java.util.List;
+
+/**
+ * StreamsPersistWriter that can persist many datums per call.
+ * <p/>
+ * Runtimes that support batching drain up to batchSize datums from the inbound queue and hand them over in a single
+ * call.  Runtimes that do not support batching keep calling {@link #write(StreamsDatum)}.
+ */
+public interface StreamsBatchPersistWriter extends StreamsPersistWriter {
+
+  /**
+   * Persist the StreamsDatums to the corresponding data store.
+   * @param entries to be stored, in the order they were received.
+   */
+  void write( List<StreamsDatum> entries );
+
+}
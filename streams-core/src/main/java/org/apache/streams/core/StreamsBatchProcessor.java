@@ -0,0 +1,40 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.streams.core;
+
+import java.util.List;
+
+/**
+ * StreamsProcessor that can process many datums per call.
+ * <p/>
+ * Runtimes that support batching drain up to batchSize datums from the inbound queue and hand them over in a single
+ * call, so per-datum overhead (locks, round trips, counters) is paid once per batch.  Runtimes that do not support
+ * batching keep calling {@link #process(StreamsDatum)}.
+ */
+public interface StreamsBatchProcessor extends StreamsProcessor {
+
+  /**
+   * Process/Analyze a batch of {@link org.apache.streams.core.StreamsDatum}s and return the the StreamsDatums that
+   * will passed to every down stream operation that reads from this processor.
+   * @param entries StreamsDatums to be processed, in the order they were received
+   * @return resulting StreamDatums from processing. Should never be null or contain null object.  Empty list OK.
+   */
+  List<StreamsDatum> process( List<StreamsDatum> entries );
+
+}
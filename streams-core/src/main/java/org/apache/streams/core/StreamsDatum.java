@@ -138,13 +138,42 @@ public class StreamsDatum implements Serializable {
     this.id = id;
   }
 
+  /**
+   * The id as set, without falling back to the id of an Activity document.
+   */
+  String getRawId() {
+    return id;
+  }
+
+  /**
+   * Whether this datum carries any metadata, without creating the metadata map of datums that create it lazily.
+   * @return true if there is at least one metadata entry
+   */
+  public boolean hasMetadata() {
+    Map<String, Object> metadata = getMetadata();
+    return metadata != null && !metadata.isEmpty();
+  }
+
+  /**
+   * Creates a datum of the same kind as this one, with the same id, timestamp and sequence id.
+   * @param document document of the new datum
+   * @param metadata metadata of the new datum, a new map is used if null
+   * @return new datum
+   */
+  public StreamsDatum withDocument(Object document, Map<String, Object> metadata) {
+    return new StreamsDatum(document, this.id, this.timestamp, this.sequenceid,
+        metadata != null ? metadata : new HashMap<String, Object>());
+  }
+
   @Override
   public boolean equals(Object configurationObject) {
     if (configurationObject instanceof StreamsDatum) {
       StreamsDatum that = (StreamsDatum) configurationObject;
       if (this.document != null && this.document.equals(that.document)) {
-        return (this.timestamp != null ? this.timestamp.equals(that.timestamp) : that.timestamp == null)
-            && (this.sequenceid != null ? this.sequenceid.equals(that.sequenceid) : that.sequenceid == null);
+        DateTime timestamp = this.getTimestamp();
+        BigInteger sequenceid = this.getSequenceid();
+        return (timestamp != null ? timestamp.equals(that.getTimestamp()) : that.getTimestamp() == null)
+            && (sequenceid != null ? sequenceid.equals(that.getSequenceid()) : that.getSequenceid() == null);
       } else {
         return that.document == null && this.document == null;
       }
@@ -156,8 +185,8 @@ public class StreamsDatum implements Serializable {
   @Override
   public String toString() {
     return "StreamsDatum{"
-        + "timestamp=" + timestamp
-        + ", sequenceid=" + sequenceid
+        + "timestamp=" + getTimestamp()
+        + ", sequenceid=" + getSequenceid()
         + ", metadata=" + metadata
         + ", document=" + document
         + ", id='" + id + '\''
@@ -0,0 +1,50 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.streams.core;
+
+/**
+ * Handed to a {@link StreamsPushProvider} by the runtime, passes datums straight into the stream.
+ * <p/>
+ * Downstream queues are bounded, so emitting signals backpressure: {@link #offer(StreamsDatum)} refuses datums
+ * while the stream is full, and {@link #emit(StreamsDatum)} blocks until there is room.
+ */
+public interface StreamsEmitter {
+
+  /**
+   * Pass a datum to the stream without blocking.
+   * @param datum StreamsDatum to emit
+   * @return true if the datum was accepted, false if the stream is full or no longer running
+   */
+  boolean offer(StreamsDatum datum);
+
+  /**
+   * Pass a datum to the stream, waiting until there is room for it.
+   * @param datum StreamsDatum to emit
+   * @return true if the datum was accepted, false if the stream is no longer running
+   * @throws InterruptedException if interrupted while waiting
+   */
+  boolean emit(StreamsDatum datum) throws InterruptedException;
+
+  /**
+   * Flag to indicate whether the stream still accepts datums.
+   * @return true until the stream has been stopped
+   */
+  boolean isActive();
+
+}
@@ -0,0 +1,38 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.streams.core;
+
+/**
+ * StreamsProvider that pushes datums into the stream as they arrive, rather than having them polled through
+ * {@link #readCurrent()}.
+ * <p/>
+ * Runtimes that support pushing call {@link #startStream(StreamsEmitter)} in place of {@link #startStream()}, and
+ * consider the provider finished once {@link #isRunning()} returns false.  Runtimes that do not support pushing
+ * keep calling {@link #startStream()} and {@link #readCurrent()}, so implementations must support both.
+ */
+public interface StreamsPushProvider extends StreamsProvider {
+
+  /**
+   * Start the operation of the stream, passing each datum to the emitter as soon as it is available.  Should not
+   * block; datums are expected to be emitted from the provider's own threads.
+   * @param emitter {@link StreamsEmitter} connected to the stream
+   */
+  void startStream(StreamsEmitter emitter);
+
+}
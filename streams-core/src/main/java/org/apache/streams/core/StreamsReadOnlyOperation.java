@@ -0,0 +1,30 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.streams.core;
+
+/**
+ * Marks a StreamsProcessor or StreamsPersistWriter that never modifies the document of a datum it receives, only
+ * reads it or replaces it with a new one.
+ * <p/>
+ * Runtimes that fan a datum out to several components may hand every branch the same document instance, instead of
+ * a copy each, when all components downstream of the fan-out are read-only.
+ */
+public interface StreamsReadOnlyOperation extends StreamsOperation {
+
+}
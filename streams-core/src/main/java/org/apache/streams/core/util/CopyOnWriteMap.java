@@ -0,0 +1,151 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.streams.core.util;
+
+import java.io.Serializable;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Map that reads through to a shared map until it is first modified, at which point it takes a private copy.
+ * <p/>
+ * Used for the metadata of datums that are fanned out to several downstream components, so that each branch can
+ * add or change metadata without affecting the others, and without copying when no branch does.  Only the top level
+ * is copied; values must be replaced rather than mutated in place.  Until the first modification, the collection
+ * views are read-only.
+ */
+public class CopyOnWriteMap<K, V> implements Map<K, V>, Serializable {
+
+  private Map<K, V> delegate;
+  private boolean copied;
+
+  /**
+   * @param shared map to read through to, must not be modified afterwards
+   */
+  public CopyOnWriteMap(Map<K, V> shared) {
+    if (shared instanceof CopyOnWriteMap && !((CopyOnWriteMap<K, V>) shared).copied) {
+      // share the underlying map rather than stacking views
+      this.delegate = ((CopyOnWriteMap<K, V>) shared).delegate;
+    } else {
+      this.delegate = shared == null ? Collections.<K, V>emptyMap() : shared;
+    }
+    this.copied = false;
+  }
+
+  private Map<K, V> writable() {
+    if (!this.copied) {
+      this.delegate = new HashMap<>(this.delegate);
+      this.copied = true;
+    }
+    return this.delegate;
+  }
+
+  /**
+   * @return true once this map holds a private copy
+   */
+  public boolean isCopied() {
+    return this.copied;
+  }
+
+  @Override
+  public int size() {
+    return this.delegate.size();
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return this.delegate.isEmpty();
+  }
+
+  @Override
+  public boolean containsKey(Object key) {
+    return this.delegate.containsKey(key);
+  }
+
+  @Override
+  public boolean containsValue(Object value) {
+    return this.delegate.containsValue(value);
+  }
+
+  @Override
+  public V get(Object key) {
+    return this.delegate.get(key);
+  }
+
+  @Override
+  public V put(K key, V value) {
+    return writable().put(key, value);
+  }
+
+  @Override
+  public V remove(Object key) {
+    if (!this.copied && !this.delegate.containsKey(key)) {
+      return null;
+    }
+    return writable().remove(key);
+  }
+
+  @Override
+  public void putAll(Map<? extends K, ? extends V> map) {
+    if (!map.isEmpty()) {
+      writable().putAll(map);
+    }
+  }
+
+  @Override
+  public void clear() {
+    this.delegate = new HashMap<>();
+    this.copied = true;
+  }
+
+  @Override
+  public Set<K> keySet() {
+    return this.copied ? this.delegate.keySet() : Collections.unmodifiableSet(this.delegate.keySet());
+  }
+
+  @Override
+  public Collection<V> values() {
+    return this.copied ? this.delegate.values() : Collections.unmodifiableCollection(this.delegate.values());
+  }
+
+  @Override
+  public Set<Entry<K, V>> entrySet() {
+    return this.copied ? this.delegate.entrySet() : Collections.unmodifiableMap(this.delegate).entrySet();
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    return obj == this || this.delegate.equals(obj);
+  }
+
+  @Override
+  public int hashCode() {
+    return this.delegate.hashCode();
+  }
+
+  @Override
+  public String toString() {
+    return this.delegate.toString();
+  }
+
+}
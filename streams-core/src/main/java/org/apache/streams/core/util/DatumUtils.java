@@ -19,6 +19,7 @@
 
 package org.apache.streams.core.util;
 
+import org.apache.streams.core.DatumAcknowledgement;
 import org.apache.streams.core.StreamsDatum;
 import org.apache.streams.core.StreamsOperation;
 
@@ -26,6 +27,8 @@ import org.joda.time.DateTime;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Provides common utilities for managing and manipulating StreamsDatums.
@@ -42,11 +45,13 @@ public class DatumUtils {
    */
   @SuppressWarnings("all")
   public static void addErrorToMetadata(StreamsDatum datum, Throwable throwable, Class<? extends StreamsOperation> operationClass) {
-    if (!datum.getMetadata().containsKey("errors")) {
-      datum.getMetadata().put("errors", new HashMap<String, Throwable>());
+    Map<String, Throwable> errors = new HashMap<>();
+    if (datum.getMetadata().containsKey("errors")) {
+      // copy rather than mutate, the existing map may be shared with other branches of a fan-out
+      errors.putAll((Map)datum.getMetadata().get("errors"));
     }
-    Map<String, Throwable> errors = (Map)datum.getMetadata().get("errors");
     errors.put(operationClass.getCanonicalName(), throwable);
+    datum.getMetadata().put("errors", errors);
   }
 
   public static StreamsDatum cloneDatum(StreamsDatum datum) {
@@ -57,4 +62,128 @@ public class DatumUtils {
     clone.setMetadata(datum.getMetadata() == null ? null : new HashMap<>(datum.getMetadata()));
     return clone;
   }
+
+  /**
+   * Creates a datum for one branch of a fan-out without copying the document.  The document is shared with the
+   * original and every other branch, so it must be treated as read-only: replace it with setDocument rather than
+   * modifying it.  Only use where every downstream operation is a
+   * {@link org.apache.streams.core.StreamsReadOnlyOperation}.  Metadata is copied on first write, see
+   * {@link CopyOnWriteMap}.
+   *
+   * @param datum the datum being fanned out
+   * @return a datum sharing the document of the original
+   */
+  public static StreamsDatum branchDatum(StreamsDatum datum) {
+    return datum.withDocument(datum.getDocument(),
+        datum.hasMetadata() ? new CopyOnWriteMap<>(datum.getMetadata()) : null);
+  }
+
+  /**
+   * The acknowledgement carried by a datum, see {@link DatumAcknowledgement}.
+   *
+   * @param datum datum
+   * @return acknowledgement, or null if the datum has none
+   */
+  public static DatumAcknowledgement getAcknowledgement(StreamsDatum datum) {
+    Map<String, Object> metadata = datum.getMetadata();
+    Object acknowledgement = metadata == null ? null : metadata.get(DatumAcknowledgement.METADATA_KEY);
+    return acknowledgement instanceof DatumAcknowledgement ? (DatumAcknowledgement) acknowledgement : null;
+  }
+
+  /**
+   * Removes the acknowledgement from a datum, so that the writer which takes it becomes responsible for
+   * acknowledging it rather than the runtime.
+   *
+   * @param datum datum
+   * @return acknowledgement, or null if the datum has none
+   */
+  public static DatumAcknowledgement takeAcknowledgement(StreamsDatum datum) {
+    DatumAcknowledgement acknowledgement = getAcknowledgement(datum);
+    if (acknowledgement != null) {
+      datum.getMetadata().remove(DatumAcknowledgement.METADATA_KEY);
+    }
+    return acknowledgement;
+  }
+
+  /**
+   * Places an acknowledgement in a datum's metadata, replacing any it already carries.
+   *
+   * @param datum datum
+   * @param acknowledgement acknowledgement
+   */
+  public static void setAcknowledgement(StreamsDatum datum, DatumAcknowledgement acknowledgement) {
+    if (datum.getMetadata() == null) {
+      datum.setMetadata(new HashMap<>());
+    }
+    datum.getMetadata().put(DatumAcknowledgement.METADATA_KEY, acknowledgement);
+  }
+
+  /**
+   * The metadata of a datum as a writer should store it, without the acknowledgement, which is a callback rather
+   * than data.
+   *
+   * @param datum datum
+   * @return metadata, or null if the datum has none
+   */
+  public static Map<String, Object> getStorableMetadata(StreamsDatum datum) {
+    Map<String, Object> metadata = datum.getMetadata();
+    if (metadata == null || !metadata.containsKey(DatumAcknowledgement.METADATA_KEY)) {
+      return metadata;
+    }
+    Map<String, Object> storable = new HashMap<>(metadata);
+    storable.remove(DatumAcknowledgement.METADATA_KEY);
+    return storable;
+  }
+
+  /**
+   * Acknowledges a datum that has been written.  Does nothing if the datum has no acknowledgement.
+   *
+   * @param datum datum
+   */
+  public static void acknowledge(StreamsDatum datum) {
+    DatumAcknowledgement acknowledgement = getAcknowledgement(datum);
+    if (acknowledgement != null) {
+      acknowledgement.acknowledge();
+    }
+  }
+
+  /**
+   * Splits the acknowledgement of a datum being fanned out, one per branch, and removes it from the datum.  The
+   * original is acknowledged once every branch has been.
+   *
+   * @param datum the datum being fanned out
+   * @param branches number of branches
+   * @return one acknowledgement per branch, or null if the datum has none
+   */
+  public static DatumAcknowledgement[] branchAcknowledgement(StreamsDatum datum, int branches) {
+    DatumAcknowledgement acknowledgement = takeAcknowledgement(datum);
+    if (acknowledgement == null) {
+      return null;
+    }
+    AtomicInteger remaining = new AtomicInteger(branches);
+    DatumAcknowledgement[] branchAcknowledgements = new DatumAcknowledgement[branches];
+    for (int i = 0; i < branches; i++) {
+      branchAcknowledgements[i] = new BranchAcknowledgement(acknowledgement, remaining);
+    }
+    return branchAcknowledgements;
+  }
+
+  private static class BranchAcknowledgement implements DatumAcknowledgement {
+
+    private final DatumAcknowledgement original;
+    private final AtomicInteger remaining;
+    private final AtomicBoolean acknowledged = new AtomicBoolean(false);
+
+    private BranchAcknowledgement(DatumAcknowledgement original, AtomicInteger remaining) {
+      this.original = original;
+      this.remaining = remaining;
+    }
+
+    @Override
+    public void acknowledge() {
+      if (this.acknowledged.compareAndSet(false, true) && this.remaining.decrementAndGet() == 0) {
+        this.original.acknowledge();
+      }
+    }
+  }
 }
@@ -79,6 +79,18 @@ public class StreamsTaskCounterDeserializer extends JsonDeserializer<StreamsTask
             case "MaxTime":
               streamsTaskCounterBroadcast.setMaxTime((long) server.getAttribute(name, attribute.getName()));
               break;
+            case "P50TimeNanos":
+              streamsTaskCounterBroadcast.setP50TimeNanos((long) server.getAttribute(name, attribute.getName()));
+              break;
+            case "P99TimeNanos":
+              streamsTaskCounterBroadcast.setP99TimeNanos((long) server.getAttribute(name, attribute.getName()));
+              break;
+            case "P999TimeNanos":
+              streamsTaskCounterBroadcast.setP999TimeNanos((long) server.getAttribute(name, attribute.getName()));
+              break;
+            case "MaxTimeNanos":
+              streamsTaskCounterBroadcast.setMaxTimeNanos((long) server.getAttribute(name, attribute.getName()));
+              break;
             default:
               break;
           }
@@ -76,6 +76,18 @@ public class ThroughputQueueDeserializer extends JsonDeserializer<ThroughputQueu
             case "Throughput":
               throughputQueueBroadcast.setThroughput((double) server.getAttribute(name, attribute.getName()));
               break;
+            case "P50WaitNanos":
+              throughputQueueBroadcast.setP50WaitNanos((long) server.getAttribute(name, attribute.getName()));
+              break;
+            case "P99WaitNanos":
+              throughputQueueBroadcast.setP99WaitNanos((long) server.getAttribute(name, attribute.getName()));
+              break;
+            case "P999WaitNanos":
+              throughputQueueBroadcast.setP999WaitNanos((long) server.getAttribute(name, attribute.getName()));
+              break;
+            case "MaxWaitNanos":
+              throughputQueueBroadcast.setMaxWaitNanos((long) server.getAttribute(name, attribute.getName()));
+              break;
             default:
               break;
           }
@@ -18,25 +18,32 @@
 
 package org.apache.streams.dropwizard;
 
+import org.apache.streams.config.ComponentConfigurator;
+import org.apache.streams.config.StreamsConfigurator;
 import org.apache.streams.core.StreamsDatum;
-import org.apache.streams.core.StreamsProvider;
+import org.apache.streams.core.StreamsEmitter;
+import org.apache.streams.core.StreamsPushProvider;
 import org.apache.streams.core.StreamsResultSet;
 import org.apache.streams.jackson.StreamsJacksonMapper;
-import org.apache.streams.util.ComponentUtils;
 
+import com.fasterxml.jackson.databind.MappingIterator;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ObjectNode;
-import com.google.common.base.Splitter;
 import org.joda.time.DateTime;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.math.BigInteger;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Queue;
-import java.util.concurrent.ConcurrentLinkedQueue;
-import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
-import java.util.regex.Pattern;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import javax.annotation.Resource;
 import javax.ws.rs.Consumes;
 import javax.ws.rs.POST;
@@ -53,16 +60,42 @@ import javax.ws.rs.core.Response;
  * <p/>
  * Add processors / persistWriters that read from "GenericWebhookResource" to
  * consume data posted to streams.
+ *
+ * <p/>
+ * When the runtime pushes, datums are offered straight to the stream.  Otherwise they wait in a queue of queueSize
+ * datums until the runtime polls.  Either way, a request that cannot place a datum within offerTimeoutMs is answered
+ * with 429 and a Retry-After header, and requests arriving after the stream stopped with 503.
  */
 @Resource
 @Path("/streams/webhooks")
 @Produces(MediaType.APPLICATION_JSON)
 @Consumes(MediaType.APPLICATION_JSON)
-public class GenericWebhookResource implements StreamsProvider {
+public class GenericWebhookResource implements StreamsPushProvider {
 
   public static final String STREAMS_ID = "GenericWebhookResource";
 
+  public static final String NDJSON = "application/x-ndjson";
+
+  private static final int TOO_MANY_REQUESTS = 429;
+
+  private static final long OFFER_RETRY_MS = 1;
+
+  /**
+   * GenericWebhookResource constructor - resolves GenericWebhookConfiguration from JVM 'webhook', if present.
+   */
   public GenericWebhookResource() {
+    this(StreamsConfigurator.getConfig().hasPath("webhook")
+        ? new ComponentConfigurator<>(GenericWebhookConfiguration.class).detectConfiguration("webhook")
+        : new GenericWebhookConfiguration());
+  }
+
+  /**
+   * GenericWebhookResource constructor - uses provided GenericWebhookConfiguration.
+   * @param configuration GenericWebhookConfiguration
+   */
+  public GenericWebhookResource(GenericWebhookConfiguration configuration) {
+    this.configuration = configuration;
+    this.providerQueue = new LinkedBlockingQueue<>(configuration.getQueueSize().intValue());
   }
 
   private static final Logger log = LoggerFactory
@@ -70,11 +103,18 @@ public class GenericWebhookResource implements StreamsProvider {
 
   private static ObjectMapper mapper = StreamsJacksonMapper.getInstance();
 
-  protected Queue<StreamsDatum> providerQueue = new ConcurrentLinkedQueue<>();
+  protected final GenericWebhookConfiguration configuration;
+
+  protected final BlockingQueue<StreamsDatum> providerQueue;
 
-  protected final ReadWriteLock lock = new ReentrantReadWriteLock();
+  protected volatile StreamsEmitter emitter;
 
-  private static Pattern newLinePattern = Pattern.compile("(\\r\\n?|\\n)", Pattern.MULTILINE);
+  // guards the switch from queueing to emitting, so nothing is queued after startStream has drained the queue
+  private final Object handover = new Object();
+
+  private final AtomicLong failed = new AtomicLong();
+
+  protected volatile boolean running = true;
 
   @Override
   public String getId() {
@@ -93,34 +133,23 @@ public class GenericWebhookResource implements StreamsProvider {
                        String body) {
 
     ObjectNode response = mapper.createObjectNode();
-    int responseCode = Response.Status.BAD_REQUEST.getStatusCode();
+    int responseCode;
 
     try {
-      ObjectNode item = mapper.readValue(body, ObjectNode.class);
-
-      StreamsDatum datum = new StreamsDatum(body);
-
-      lock.writeLock().lock();
-      ComponentUtils.offerUntilSuccess(datum, providerQueue);
-      lock.writeLock().unlock();
-
-      Boolean success = true;
-
-      response.put("success", success);
+      mapper.readValue(body, ObjectNode.class);
 
-      responseCode = Response.Status.OK.getStatusCode();
+      responseCode = ingest(new StreamsDatum(body));
 
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      responseCode = Response.Status.SERVICE_UNAVAILABLE.getStatusCode();
     } catch (Exception ex) {
       log.warn(ex.toString(), ex);
 
-      Boolean success = false;
-
-      response.put("success", success);
       responseCode = Response.Status.BAD_REQUEST.getStatusCode();
-
-    } finally {
-      return Response.status(responseCode).entity(response).build();
     }
+
+    return respond(responseCode, response);
   }
 
   /**
@@ -135,46 +164,43 @@ public class GenericWebhookResource implements StreamsProvider {
                                 String body) {
 
     ObjectNode response = mapper.createObjectNode();
-    int responseCode = Response.Status.BAD_REQUEST.getStatusCode();
 
     if (body.equalsIgnoreCase("{}")) {
-
-      Boolean success = true;
-
-      response.put("success", success);
-      responseCode = Response.Status.OK.getStatusCode();
-      return Response.status(responseCode).entity(response).build();
+      return respond(Response.Status.OK.getStatusCode(), response);
     }
 
     try {
-
-      for (String line : Splitter.on(newLinePattern).split(body)) {
-        ObjectNode item = mapper.readValue(line, ObjectNode.class);
-
-        StreamsDatum datum = new StreamsDatum(item);
-
-        lock.writeLock().lock();
-        ComponentUtils.offerUntilSuccess(datum, providerQueue);
-        lock.writeLock().unlock();
-
-      }
-
-      Boolean success = true;
-
-      response.put("success", success);
-      responseCode = Response.Status.OK.getStatusCode();
-
-    } catch (Exception ex) {
+      return ingestAll(mapper.readerFor(ObjectNode.class).readValues(body), response);
+    } catch (IOException ex) {
       log.warn(ex.toString(), ex);
+      return respond(Response.Status.BAD_REQUEST.getStatusCode(), response);
+    }
 
-      Boolean success = false;
+  }
 
-      response.put("success", success);
-      responseCode = Response.Status.BAD_REQUEST.getStatusCode();
+  /**
+   * push newline delimited json datums into a stream, parsing them as the body arrives.
+   *
+   * <p/>
+   * The body is never held in memory as a whole.  If the stream stays full, the response is 429 with a Retry-After
+   * header, and reports in 'accepted' how many datums were taken so the rest can be sent again.
+   * @param headers HttpHeaders
+   * @param body InputStream of json datums separated by newlines
+   * @return Response
+   */
+  @POST
+  @Path("ndjson")
+  @Consumes({MediaType.APPLICATION_JSON, NDJSON, MediaType.TEXT_PLAIN})
+  public Response ndjson(@Context HttpHeaders headers,
+                         InputStream body) {
 
-    } finally {
-      return Response.status(responseCode).entity(response).build();
+    ObjectNode response = mapper.createObjectNode();
 
+    try {
+      return ingestAll(mapper.readerFor(ObjectNode.class).readValues(body), response);
+    } catch (IOException ex) {
+      log.warn(ex.toString(), ex);
+      return respond(Response.Status.BAD_REQUEST.getStatusCode(), response);
     }
 
   }
@@ -191,16 +217,10 @@ public class GenericWebhookResource implements StreamsProvider {
                             String body) {
 
     ObjectNode response = mapper.createObjectNode();
-    int responseCode = Response.Status.BAD_REQUEST.getStatusCode();
+    int responseCode = Response.Status.OK.getStatusCode();
 
     if (body.equalsIgnoreCase("{}")) {
-
-      Boolean success = true;
-
-      response.put("success", success);
-      responseCode = Response.Status.OK.getStatusCode();
-
-      return Response.status(responseCode).entity(response).build();
+      return respond(responseCode, response);
     }
 
     try {
@@ -208,30 +228,101 @@ public class GenericWebhookResource implements StreamsProvider {
       GenericWebhookData objectWrapper = mapper.readValue(body, GenericWebhookData.class);
 
       for ( ObjectNode item : objectWrapper.getData()) {
+        responseCode = ingest(new StreamsDatum(item));
+        if (responseCode != Response.Status.OK.getStatusCode()) {
+          break;
+        }
+      }
 
-        StreamsDatum datum = new StreamsDatum(item);
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      responseCode = Response.Status.SERVICE_UNAVAILABLE.getStatusCode();
+    } catch (Exception ex) {
+      log.warn(ex.toString(), ex);
 
-        lock.writeLock().lock();
-        ComponentUtils.offerUntilSuccess(datum, providerQueue);
-        lock.writeLock().unlock();
-      }
+      responseCode = Response.Status.BAD_REQUEST.getStatusCode();
+    }
 
-      Boolean success = true;
+    return respond(responseCode, response);
 
-      response.put("success", success);
-      responseCode = Response.Status.OK.getStatusCode();
+  }
 
+  /**
+   * Pass each parsed item to the stream, stopping at the first one that is refused or cannot be parsed.
+   */
+  private Response ingestAll(MappingIterator<ObjectNode> items, ObjectNode response) {
+    int responseCode = Response.Status.OK.getStatusCode();
+    long accepted = 0;
+    try {
+      while (items.hasNextValue()) {
+        responseCode = ingest(new StreamsDatum(items.nextValue()));
+        if (responseCode != Response.Status.OK.getStatusCode()) {
+          break;
+        }
+        accepted++;
+      }
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      responseCode = Response.Status.SERVICE_UNAVAILABLE.getStatusCode();
     } catch (Exception ex) {
       log.warn(ex.toString(), ex);
-
-      Boolean success = false;
-
-      response.put("success", success);
       responseCode = Response.Status.BAD_REQUEST.getStatusCode();
     } finally {
-      return Response.status(responseCode).entity(response).build();
+      try {
+        items.close();
+      } catch (IOException ex) {
+        log.trace("IOException", ex);
+      }
+    }
+    response.put("accepted", accepted);
+    return respond(responseCode, response);
+  }
+
+  /**
+   * Place a datum in the stream, waiting up to offerTimeoutMs for room.
+   * @param datum StreamsDatum
+   * @return 200 if placed, 429 if the stream stayed full, 503 if it has stopped
+   * @throws InterruptedException if interrupted while waiting
+   */
+  protected int ingest(StreamsDatum datum) throws InterruptedException {
+    if (!running) {
+      return Response.Status.SERVICE_UNAVAILABLE.getStatusCode();
+    }
+    long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(configuration.getOfferTimeoutMs());
+    while (true) {
+      StreamsEmitter current = this.emitter;
+      if (current != null) {
+        if (current.offer(datum)) {
+          return Response.Status.OK.getStatusCode();
+        }
+        if (!current.isActive()) {
+          return Response.Status.SERVICE_UNAVAILABLE.getStatusCode();
+        }
+      } else {
+        synchronized (handover) {
+          if (this.emitter == null && providerQueue.offer(datum)) {
+            return Response.Status.OK.getStatusCode();
+          }
+        }
+        if (this.emitter != null) {
+          // startStream has taken over, offer to the emitter instead
+          continue;
+        }
+      }
+      if (System.nanoTime() - deadline >= 0) {
+        return TOO_MANY_REQUESTS;
+      }
+      Thread.sleep(OFFER_RETRY_MS);
     }
+  }
 
+  private Response respond(int responseCode, ObjectNode response) {
+    response.put("success", responseCode == Response.Status.OK.getStatusCode());
+    Response.ResponseBuilder builder = Response.status(responseCode).entity(response);
+    if (responseCode == TOO_MANY_REQUESTS || responseCode == Response.Status.SERVICE_UNAVAILABLE.getStatusCode()) {
+      builder.header("Retry-After", configuration.getRetryAfterSeconds());
+    }
+    return builder.build();
   }
 
   @Override
@@ -239,16 +330,67 @@ public class GenericWebhookResource implements StreamsProvider {
   }
 
   @Override
-  public StreamsResultSet readCurrent() {
+  public void startStream(StreamsEmitter emitter) {
+    // take over anything queued before the runtime started pushing, but emit it outside the lock so requests
+    // arriving meanwhile go to the emitter instead of waiting for the backlog to drain
+    List<StreamsDatum> queued = new ArrayList<>();
+    synchronized (handover) {
+      providerQueue.drainTo(queued);
+      this.emitter = emitter;
+    }
+    int emitted = 0;
+    try {
+      while (emitted < queued.size() && emitter.emit(queued.get(emitted))) {
+        emitted++;
+      }
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+    }
+    if (emitted < queued.size()) {
+      requeue(emitter, queued.subList(emitted, queued.size()));
+    }
+  }
 
-    StreamsResultSet current;
+  /**
+   * Put back datums the emitter did not take.  If the emitter has stopped, requests are queued again, so the
+   * datums are delivered by a later readCurrent or startStream.
+   */
+  private void requeue(StreamsEmitter emitter, List<StreamsDatum> undelivered) {
+    synchronized (handover) {
+      if (this.emitter == emitter && !emitter.isActive()) {
+        this.emitter = null;
+      }
+      // nothing is queued while an emitter is installed, so everything that was drained fits back in
+      int failed = 0;
+      for (StreamsDatum datum : undelivered) {
+        boolean delivered = this.emitter != null && emitter.offer(datum);
+        if (!delivered && !providerQueue.offer(datum)) {
+          failed++;
+        }
+      }
+      this.failed.addAndGet(failed);
+      if (failed > 0) {
+        log.error("Failed to deliver {} queued datums: the stream stopped and the queue is full", failed);
+      } else {
+        log.warn("Stream stopped before {} queued datums could be emitted, queued them again", undelivered.size());
+      }
+    }
+  }
 
-    lock.writeLock().lock();
-    current = new StreamsResultSet(new ConcurrentLinkedQueue<>(providerQueue));
-    providerQueue.clear();
-    lock.writeLock().unlock();
+  /**
+   * Number of accepted datums that could not be delivered to the stream.
+   * @return failed datums
+   */
+  public long getFailed() {
+    return failed.get();
+  }
 
-    return current;
+  @Override
+  public StreamsResultSet readCurrent() {
+
+    Queue<StreamsDatum> batch = new ArrayDeque<>();
+    providerQueue.drainTo(batch);
+    return new StreamsResultSet(batch);
 
   }
 
@@ -264,7 +406,7 @@ public class GenericWebhookResource implements StreamsProvider {
 
   @Override
   public boolean isRunning() {
-    return true;
+    return running;
   }
 
   @Override
@@ -274,7 +416,7 @@ public class GenericWebhookResource implements StreamsProvider {
 
   @Override
   public void cleanUp() {
-
+    running = false;
   }
 
-}
\ No newline at end of file
+}
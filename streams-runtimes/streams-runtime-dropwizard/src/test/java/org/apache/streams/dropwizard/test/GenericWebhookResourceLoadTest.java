@@ -0,0 +1,304 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.streams.dropwizard.test;
+
+import org.apache.streams.core.StreamsDatum;
+import org.apache.streams.core.StreamsEmitter;
+import org.apache.streams.dropwizard.GenericWebhookConfiguration;
+import org.apache.streams.dropwizard.GenericWebhookResource;
+import org.apache.streams.jackson.StreamsJacksonMapper;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.jersey.api.client.ClientResponse;
+import io.dropwizard.testing.junit.ResourceTestRule;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.ClassRule;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import javax.ws.rs.core.Response;
+
+/**
+ * Load test for the ndjson endpoint of {@link: org.apache.streams.dropwizard.GenericWebhookResource}
+ */
+public class GenericWebhookResourceLoadTest {
+
+  private static ObjectMapper mapper = StreamsJacksonMapper.getInstance();
+
+  private static final int QUEUE_SIZE = 100;
+
+  private static final GenericWebhookResource genericWebhookResource = new GenericWebhookResource(
+      new GenericWebhookConfiguration()
+          .withQueueSize((long) QUEUE_SIZE)
+          .withOfferTimeoutMs(20L)
+          .withRetryAfterSeconds(2L));
+
+  @ClassRule
+  public static final ResourceTestRule resources = ResourceTestRule.builder()
+      .addResource(genericWebhookResource)
+      .build();
+
+  @Before
+  public void drain() {
+    genericWebhookResource.readCurrent();
+  }
+
+  @Test
+  public void testConcurrentPostsAreAllRead() throws Exception {
+    int clients = 4;
+    int requests = 25;
+    int perRequest = 50;
+    AtomicBoolean posting = new AtomicBoolean(true);
+    ExecutorService executor = Executors.newFixedThreadPool(clients + 1);
+    try {
+      Future<Set<Integer>> consumer = executor.submit(() -> {
+        Set<Integer> read = new HashSet<>();
+        while (posting.get() || read.size() < clients * requests * perRequest) {
+          for (StreamsDatum datum : genericWebhookResource.readCurrent()) {
+            Assert.assertTrue(read.add(((JsonNode) datum.getDocument()).get("id").asInt()));
+          }
+          Thread.sleep(5);
+        }
+        return read;
+      });
+      List<Future<Integer>> producers = new ArrayList<>();
+      for (int c = 0; c < clients; ++c) {
+        final int offset = c * requests * perRequest;
+        producers.add(executor.submit(() -> {
+          int rejected = 0;
+          for (int r = 0; r < requests; ++r) {
+            int next = offset + r * perRequest;
+            int end = next + perRequest;
+            while (next < end) {
+              ClientResponse response = post(lines(next, end));
+              JsonNode entity = mapper.readTree(response.getEntity(String.class));
+              next += entity.get("accepted").asInt();
+              if (response.getStatus() == 429) {
+                rejected++;
+              } else {
+                Assert.assertEquals(200, response.getStatus());
+              }
+            }
+          }
+          return rejected;
+        }));
+      }
+      for (Future<Integer> producer : producers) {
+        producer.get(60, TimeUnit.SECONDS);
+      }
+      posting.set(false);
+      Assert.assertEquals(clients * requests * perRequest, consumer.get(60, TimeUnit.SECONDS).size());
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void testSaturatedQueueAnswersTooManyRequests() throws Exception {
+    ClientResponse response = post(lines(0, QUEUE_SIZE + 10));
+    Assert.assertEquals(429, response.getStatus());
+    Assert.assertEquals("2", response.getHeaders().getFirst("Retry-After"));
+    JsonNode entity = mapper.readTree(response.getEntity(String.class));
+    Assert.assertFalse(entity.get("success").asBoolean());
+    Assert.assertEquals(QUEUE_SIZE, entity.get("accepted").asInt());
+    Assert.assertEquals(QUEUE_SIZE, genericWebhookResource.readCurrent().size());
+
+    response = post(lines(QUEUE_SIZE, QUEUE_SIZE + 10));
+    Assert.assertEquals(200, response.getStatus());
+    Assert.assertEquals(10, genericWebhookResource.readCurrent().size());
+  }
+
+  @Test
+  public void testMalformedLineIsRejected() throws Exception {
+    ClientResponse response = post("{\"id\":0}\nnotvalid\n{\"id\":1}\n");
+    Assert.assertEquals(400, response.getStatus());
+    Assert.assertEquals(1, mapper.readTree(response.getEntity(String.class)).get("accepted").asInt());
+  }
+
+  @Test
+  public void testHandoverToEmitterLosesNothing() throws Exception {
+    GenericWebhookResource resource = new GenericWebhookResource(
+        new GenericWebhookConfiguration()
+            .withQueueSize(1000L)
+            .withOfferTimeoutMs(1000L)
+            .withRetryAfterSeconds(2L));
+    int clients = 4;
+    int perClient = 2000;
+    Set<Integer> emitted = ConcurrentHashMap.newKeySet();
+    StreamsEmitter emitter = new StreamsEmitter() {
+      @Override
+      public boolean offer(StreamsDatum datum) {
+        return emitted.add(((JsonNode) datum.getDocument()).get("id").asInt());
+      }
+
+      @Override
+      public boolean emit(StreamsDatum datum) {
+        return offer(datum);
+      }
+
+      @Override
+      public boolean isActive() {
+        return true;
+      }
+    };
+    ExecutorService executor = Executors.newFixedThreadPool(clients);
+    try {
+      List<Future<?>> producers = new ArrayList<>();
+      for (int c = 0; c < clients; ++c) {
+        final int offset = c * perClient;
+        producers.add(executor.submit(() -> {
+          for (int id = offset; id < offset + perClient; ++id) {
+            Response response = resource.ndjson(null,
+                new ByteArrayInputStream(lines(id, id + 1).getBytes(StandardCharsets.UTF_8)));
+            Assert.assertEquals(200, response.getStatus());
+          }
+        }));
+      }
+      Thread.sleep(10);
+      resource.startStream(emitter);
+      for (Future<?> producer : producers) {
+        producer.get(60, TimeUnit.SECONDS);
+      }
+      Assert.assertEquals(clients * perClient, emitted.size());
+      Assert.assertEquals(0, resource.readCurrent().size());
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void testBacklogIsEmittedWithoutBlockingRequests() throws Exception {
+    GenericWebhookResource resource = new GenericWebhookResource(
+        new GenericWebhookConfiguration()
+            .withQueueSize(10L)
+            .withOfferTimeoutMs(1000L)
+            .withRetryAfterSeconds(2L));
+    Assert.assertEquals(200, resource.ndjson(null, new ByteArrayInputStream(lines(0, 5).getBytes(StandardCharsets.UTF_8))).getStatus());
+    CountDownLatch emitting = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    Set<Integer> emitted = ConcurrentHashMap.newKeySet();
+    StreamsEmitter emitter = new StreamsEmitter() {
+      @Override
+      public boolean offer(StreamsDatum datum) {
+        return emitted.add(((JsonNode) datum.getDocument()).get("id").asInt());
+      }
+
+      @Override
+      public boolean emit(StreamsDatum datum) throws InterruptedException {
+        emitting.countDown();
+        release.await();
+        return offer(datum);
+      }
+
+      @Override
+      public boolean isActive() {
+        return true;
+      }
+    };
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      Future<?> handover = executor.submit(() -> resource.startStream(emitter));
+      Assert.assertTrue(emitting.await(10, TimeUnit.SECONDS));
+      // startStream is blocked emitting the backlog, a new request must not wait for it
+      Response response = resource.ndjson(null, new ByteArrayInputStream(lines(5, 6).getBytes(StandardCharsets.UTF_8)));
+      Assert.assertEquals(200, response.getStatus());
+      Assert.assertTrue(emitted.contains(5));
+      release.countDown();
+      handover.get(10, TimeUnit.SECONDS);
+      Assert.assertEquals(6, emitted.size());
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void testUndeliveredBacklogIsQueuedAgain() throws Exception {
+    GenericWebhookResource resource = new GenericWebhookResource(
+        new GenericWebhookConfiguration()
+            .withQueueSize(10L)
+            .withOfferTimeoutMs(20L)
+            .withRetryAfterSeconds(2L));
+    Assert.assertEquals(200, resource.ndjson(null, new ByteArrayInputStream(lines(0, 10).getBytes(StandardCharsets.UTF_8))).getStatus());
+    AtomicBoolean active = new AtomicBoolean(true);
+    List<Integer> emitted = new ArrayList<>();
+    resource.startStream(new StreamsEmitter() {
+      @Override
+      public boolean offer(StreamsDatum datum) {
+        if (!active.get()) {
+          return false;
+        }
+        emitted.add(((JsonNode) datum.getDocument()).get("id").asInt());
+        // the stream stops after three datums
+        active.set(emitted.size() < 3);
+        return true;
+      }
+
+      @Override
+      public boolean emit(StreamsDatum datum) {
+        return offer(datum);
+      }
+
+      @Override
+      public boolean isActive() {
+        return active.get();
+      }
+    });
+    Assert.assertEquals(3, emitted.size());
+    Assert.assertEquals(0, resource.getFailed());
+    List<Integer> queued = new ArrayList<>();
+    for (StreamsDatum datum : resource.readCurrent().getQueue()) {
+      queued.add(((JsonNode) datum.getDocument()).get("id").asInt());
+    }
+    Assert.assertEquals(Arrays.asList(3, 4, 5, 6, 7, 8, 9), queued);
+    // requests are queued again rather than refused by the stopped emitter
+    Assert.assertEquals(200, resource.ndjson(null, new ByteArrayInputStream(lines(10, 11).getBytes(StandardCharsets.UTF_8))).getStatus());
+    Assert.assertEquals(1, resource.readCurrent().size());
+  }
+
+  private static ClientResponse post(String body) {
+    return resources.client()
+        .resource("/streams/webhooks/ndjson")
+        .type(GenericWebhookResource.NDJSON)
+        .post(ClientResponse.class, body);
+  }
+
+  private static String lines(int start, int end) {
+    StringBuilder body = new StringBuilder();
+    for (int id = start; id < end; ++id) {
+      body.append("{\"id\":").append(id).append("}\n");
+    }
+    return body.toString();
+  }
+
+}
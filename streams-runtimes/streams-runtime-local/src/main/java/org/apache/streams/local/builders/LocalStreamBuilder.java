@@ -22,6 +22,7 @@ import org.apache.streams.config.StreamsConfiguration;
 import org.apache.streams.config.StreamsConfigurator;
 import org.apache.streams.core.DatumStatusCountable;
 import org.apache.streams.core.StreamBuilder;
+import org.apache.streams.core.StreamsDatum;
 import org.apache.streams.core.StreamsPersistWriter;
 import org.apache.streams.core.StreamsProcessor;
 import org.apache.streams.core.StreamsProvider;
@@ -29,14 +30,16 @@ import org.apache.streams.jackson.StreamsJacksonMapper;
 import org.apache.streams.local.LocalRuntimeConfiguration;
 import org.apache.streams.local.counters.StreamsTaskCounter;
 import org.apache.streams.local.executors.ShutdownStreamOnUnhandleThrowableThreadPoolExecutor;
+import org.apache.streams.local.executors.ShutdownStreamOnUnhandledThrowableThreadPerTaskExecutor;
 import org.apache.streams.local.monitoring.MonitoringConfiguration;
 import org.apache.streams.local.queues.ThroughputQueue;
-import org.apache.streams.local.tasks.BaseStreamsTask;
+import org.apache.streams.local.queues.WaitStrategy;
 import org.apache.streams.local.tasks.LocalStreamProcessMonitorThread;
 import org.apache.streams.local.tasks.StatusCounterMonitorThread;
 import org.apache.streams.local.tasks.StreamsProviderTask;
 import org.apache.streams.local.tasks.StreamsTask;
 import org.apache.streams.monitoring.tasks.BroadcastMonitorThread;
+import org.apache.streams.util.VirtualThreads;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.util.concurrent.Uninterruptibles;
@@ -49,20 +52,28 @@ import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 /**
  * {@link org.apache.streams.local.builders.LocalStreamBuilder} implementation to run a data processing stream in a single
  * JVM across many threads.  Depending on your data stream, the JVM heap may need to be set to a high value. Default
  * implementation uses unbound {@link java.util.concurrent.ConcurrentLinkedQueue} to connect stream components.
+ * Setting queueType to 'ring' connects components with bounded, lock-free
+ * {@link org.apache.streams.local.queues.RingBufferQueue}s instead.  Setting taskThreads to 'virtual' runs each task
+ * on a virtual thread when the JVM supports them.
  */
 public class LocalStreamBuilder implements StreamBuilder {
 
   private static final Logger LOGGER = org.slf4j.LoggerFactory.getLogger(LocalStreamBuilder.class);
   private static final int DEFAULT_QUEUE_SIZE = 500;
+  private static final long DEFAULT_SHUTDOWN_CHECK_INTERVAL_MS = 1000;
+  private static final long DEFAULT_STALL_TIMEOUT_MS = 300000;
 
   public static final String TIMEOUT_KEY = "TIMEOUT";
   public static final String BROADCAST_KEY = "broadcastURI";
@@ -81,6 +92,7 @@ public class LocalStreamBuilder implements StreamBuilder {
   private int monitorTasks;
   private LocalStreamProcessMonitorThread monitorThread;
   private Map<String, List<StreamsTask>> tasks;
+  private List<StreamsTaskCounter> counters;
   private Thread shutdownHook;
   private BroadcastMonitorThread broadcastMonitor;
   private int maxQueueCapacity;
@@ -150,6 +162,7 @@ public class LocalStreamBuilder implements StreamBuilder {
     this.totalTasks = 0;
     this.monitorTasks = 0;
     this.futures = new HashMap<>();
+    this.counters = new LinkedList<>();
   }
 
   public void prepare() {
@@ -222,7 +235,7 @@ public class LocalStreamBuilder implements StreamBuilder {
   @Override
   public StreamBuilder addStreamsProcessor(String id, StreamsProcessor processor, int numTasks, String... inBoundIds) {
     validateId(id);
-    StreamComponent comp = new StreamComponent(id, processor, new ThroughputQueue<>(this.maxQueueCapacity, id, streamIdentifier, startedAt.getMillis()), numTasks, streamConfig);
+    StreamComponent comp = new StreamComponent(id, processor, createInBoundQueue(id), numTasks, streamConfig);
     this.components.put(id, comp);
     connectToOtherComponents(inBoundIds, comp);
     this.totalTasks += numTasks;
@@ -234,7 +247,7 @@ public class LocalStreamBuilder implements StreamBuilder {
   @Override
   public StreamBuilder addStreamsPersistWriter(String id, StreamsPersistWriter writer, int numTasks, String... inBoundIds) {
     validateId(id);
-    StreamComponent comp = new StreamComponent(id, writer, new ThroughputQueue<>(this.maxQueueCapacity, id, streamIdentifier, startedAt.getMillis()), numTasks, streamConfig);
+    StreamComponent comp = new StreamComponent(id, writer, createInBoundQueue(id), numTasks, streamConfig);
     this.components.put(id, comp);
     connectToOtherComponents(inBoundIds, comp);
     this.totalTasks += numTasks;
@@ -250,8 +263,7 @@ public class LocalStreamBuilder implements StreamBuilder {
   public void start() {
     prepare();
     attachShutdownHandler();
-    boolean isRunning = true;
-    this.executor = new ShutdownStreamOnUnhandleThrowableThreadPoolExecutor(this.totalTasks, this);
+    this.executor = createTaskExecutor();
     this.monitor = Executors.newCachedThreadPool();
     Map<String, StreamsProviderTask> provTasks = new HashMap<>();
     tasks = new HashMap<>();
@@ -265,38 +277,88 @@ public class LocalStreamBuilder implements StreamBuilder {
       setupComponentTasks(tasks);
       setupProviderTasks(provTasks);
       LOGGER.info("Started stream with {} components", tasks.size());
-      while(isRunning) {
-        Uninterruptibles.sleepUninterruptibly(streamConfig.getShutdownCheckDelay(), TimeUnit.MILLISECONDS);
-        isRunning = false;
-        for(StreamsProviderTask task : provTasks.values()) {
-          isRunning = isRunning || task.isRunning();
-        }
-        for(StreamComponent task: components.values()) {
-          boolean tasksRunning = false;
-          for(StreamsTask t : task.getStreamsTasks()) {
-            if(t instanceof BaseStreamsTask) {
-              tasksRunning = tasksRunning || t.isRunning();
-            }
-          }
-          isRunning = isRunning || (tasksRunning && task.getInBoundQueue().size() > 0);
-        }
-        if(isRunning) {
-          Uninterruptibles.sleepUninterruptibly(streamConfig.getShutdownCheckInterval(), TimeUnit.MILLISECONDS);
-        }
+      // Each component completes once its upstream components have completed and its tasks have drained their
+      // inbound queue, so the stream is complete once every component is.
+      List<CompletableFuture<Void>> completions = new LinkedList<>();
+      for(StreamComponent comp : this.providers.values()) {
+        completions.add(comp.getCompletion());
+      }
+      for(StreamComponent comp : this.components.values()) {
+        completions.add(comp.getCompletion());
+      }
+      if(awaitCompletion(CompletableFuture.allOf(completions.toArray(new CompletableFuture[completions.size()])))) {
+        LOGGER.info("Components are no longer running");
+      } else {
+        forcedShutDown = true;
       }
-      LOGGER.info("Components are no longer running or timed out");
     } catch (Exception e){
       LOGGER.warn("Runtime exception.  Beginning shutdown");
       forcedShutDown = true;
     } finally{
-      LOGGER.info("Stream has completed, pausing @ {}", System.currentTimeMillis());
-      Uninterruptibles.sleepUninterruptibly(streamConfig.getShutdownPauseMs(), TimeUnit.MILLISECONDS);
+      if(forcedShutDown) {
+        LOGGER.info("Stream has completed, pausing @ {}", System.currentTimeMillis());
+        Uninterruptibles.sleepUninterruptibly(streamConfig.getShutdownPauseMs(), TimeUnit.MILLISECONDS);
+      }
       LOGGER.info("Stream has completed, shutting down @ {}", System.currentTimeMillis());
       stopInternal(forcedShutDown);
     }
 
   }
 
+  /**
+   * Waits for the stream to complete, checking every shutdownCheckInterval that it is still making progress.  A stream
+   * is stalled when datums are still pending, either queued between components or because every provider has
+   * finished, yet no task has received or emitted anything for stallTimeoutMs.  An idle perpetual stream is not stalled.
+   * @param completion completes once every component has
+   * @return true if the stream completed, false if it stalled
+   */
+  private boolean awaitCompletion(CompletableFuture<Void> completion) throws InterruptedException, ExecutionException {
+    long interval = streamConfig.getShutdownCheckInterval() != null ? streamConfig.getShutdownCheckInterval() : DEFAULT_SHUTDOWN_CHECK_INTERVAL_MS;
+    long stallTimeout = streamConfig.getStallTimeoutMs() != null ? streamConfig.getStallTimeoutMs() : DEFAULT_STALL_TIMEOUT_MS;
+    long lastProgress = -1;
+    long lastProgressAt = System.currentTimeMillis();
+    while(true) {
+      try {
+        completion.get(interval, TimeUnit.MILLISECONDS);
+        return true;
+      } catch (TimeoutException te) {
+        long progress = getProgress();
+        long now = System.currentTimeMillis();
+        if(progress != lastProgress || !hasPendingDatums()) {
+          lastProgress = progress;
+          lastProgressAt = now;
+        } else if(stallTimeout > 0 && now - lastProgressAt >= stallTimeout) {
+          LOGGER.warn("Stream has made no progress in {}ms with datums still pending.  Forcing shutdown", now - lastProgressAt);
+          return false;
+        }
+      }
+    }
+  }
+
+  private long getProgress() {
+    long progress = 0;
+    for(StreamsTaskCounter counter : this.counters) {
+      progress += counter.getNumReceived() + counter.getNumEmitted() + counter.getNumUnhandledErrors();
+    }
+    return progress;
+  }
+
+  private boolean hasPendingDatums() {
+    boolean providersFinished = true;
+    for(StreamComponent prov : this.providers.values()) {
+      providersFinished = providersFinished && prov.getCompletion().isDone();
+    }
+    if(providersFinished) {
+      return true;
+    }
+    for(StreamComponent comp : this.components.values()) {
+      if(comp.hasQueuedDatums()) {
+        return true;
+      }
+    }
+    return false;
+  }
+
   private void attachShutdownHandler() {
     LOGGER.debug("Attaching shutdown handler");
     Runtime.getRuntime().addShutdownHook(shutdownHook);
@@ -338,6 +400,7 @@ public class LocalStreamBuilder implements StreamBuilder {
     if (this.monitorThread != null) {
       this.monitorThread.shutdown();
     }
+    this.broadcastMonitor.shutdown();
     this.executor.shutdown();
     //complete stream shut down gracfully
     for(StreamComponent prov : this.providers.values()) {
@@ -348,10 +411,9 @@ public class LocalStreamBuilder implements StreamBuilder {
       this.executor.shutdownNow();
       this.executor.awaitTermination(streamConfig.getExecutorShutdownWaitMs(), TimeUnit.MILLISECONDS);
     }
-    if(!this.monitor.awaitTermination(streamConfig.getMonitorShutdownWaitMs(), TimeUnit.MILLISECONDS)) { // all threads should have terminated already.
-      this.monitor.shutdownNow();
-      this.monitor.awaitTermination(streamConfig.getMonitorShutdownWaitMs(), TimeUnit.MILLISECONDS);
-    }
+    // monitors only sleep between reports, interrupt them rather than waiting out the interval
+    this.monitor.shutdownNow();
+    this.monitor.awaitTermination(streamConfig.getMonitorShutdownWaitMs(), TimeUnit.MILLISECONDS);
   }
 
   protected void setupProviderTasks(Map<String, StreamsProviderTask> provTasks) {
@@ -360,7 +422,8 @@ public class LocalStreamBuilder implements StreamBuilder {
       task.setStreamConfig(this.streamConfig);
       StreamsTaskCounter counter = new StreamsTaskCounter(prov.getId(), streamIdentifier, startedAt.getMillis());
       task.setStreamsTaskCounter(counter);
-      this.executor.submit(task);
+      this.counters.add(counter);
+      this.futures.put(task, this.executor.submit(trackCompletion(prov, task)));
       provTasks.put(prov.getId(), (StreamsProviderTask) task);
       if(this.useDeprecatedMonitors && prov.isOperationCountable() ) {
         this.monitor.submit(new StatusCounterMonitorThread((DatumStatusCountable) prov.getOperation(), 10));
@@ -374,11 +437,12 @@ public class LocalStreamBuilder implements StreamBuilder {
       int tasks = comp.getNumTasks();
       List<StreamsTask> compTasks = new LinkedList<>();
       StreamsTaskCounter counter = new StreamsTaskCounter(comp.getId(), streamIdentifier, startedAt.getMillis());
+      this.counters.add(counter);
       for(int i=0; i < tasks; ++i) {
         StreamsTask task = comp.createConnectedTask(getTimeout());
         task.setStreamsTaskCounter(counter);
         task.setStreamConfig(this.streamConfig);
-        this.futures.put(task, this.executor.submit(task));
+        this.futures.put(task, this.executor.submit(trackCompletion(comp, task)));
         compTasks.add(task);
         if(this.useDeprecatedMonitors &&  comp.isOperationCountable() ) {
           this.monitor.submit(new StatusCounterMonitorThread((DatumStatusCountable) comp.getOperation(), 10));
@@ -387,9 +451,28 @@ public class LocalStreamBuilder implements StreamBuilder {
         this.monitor.submit(broadcastMonitor);
       }
       streamsTasks.put(comp.getId(), compTasks);
+      if(comp.getUpStreamComponents().isEmpty()) {
+        comp.signalEndOfStream();
+      }
     }
   }
 
+  /**
+   * Wraps a task so that its component is notified when the task finishes, however it finishes.
+   * @param comp component the task belongs to
+   * @param task task to run
+   * @return Runnable to submit to the executor
+   */
+  private Runnable trackCompletion(StreamComponent comp, StreamsTask task) {
+    return () -> {
+      try {
+        task.run();
+      } finally {
+        comp.taskFinished();
+      }
+    };
+  }
+
   /**
    * Shutsdown the running tasks in sudo depth first search kind of way. Checks that the upstream components have
    * finished running before shutting down. Waits till inbound queue is empty to shutdown.
@@ -417,15 +500,13 @@ public class LocalStreamBuilder implements StreamBuilder {
             this.futures.get(task).cancel(true); // no data to process, interrupt block queue
           }
         }
-        for(StreamsTask task : tasks) {
-          int count = 0;
-          while(count < streamConfig.getTaskTimeoutMs() / 1000 && task.isRunning()) {
-            Uninterruptibles.sleepUninterruptibly(1, TimeUnit.SECONDS);
-            count++;
-          }
-
-          if(task.isRunning()) {
-            LOGGER.warn("Task {} failed to terminate in allotted timeframe", task.toString());
+        try {
+          comp.getCompletion().get(streamConfig.getTaskTimeoutMs(), TimeUnit.MILLISECONDS);
+        } catch (ExecutionException | TimeoutException ex) {
+          for(StreamsTask task : tasks) {
+            if(task.isRunning()) {
+              LOGGER.warn("Task {} failed to terminate in allotted timeframe", task.toString());
+            }
           }
         }
       }
@@ -455,6 +536,13 @@ public class LocalStreamBuilder implements StreamBuilder {
       LOGGER.error("Exception while trying to shutdown Stream: {}", e);
       forceShutdown(tasks);
     } finally {
+      // tasks that never ran will not report completion, release anything still waiting on the stream
+      for(StreamComponent comp : this.providers.values()) {
+        comp.getCompletion().complete(null);
+      }
+      for(StreamComponent comp : this.components.values()) {
+        comp.getCompletion().complete(null);
+      }
       try {
         if(!systemExiting) {
           detachShutdownHandler();
@@ -483,6 +571,44 @@ public class LocalStreamBuilder implements StreamBuilder {
     }
   }
 
+  /**
+   * Creates the inbound queue for a processor or writer, backed by the implementation selected with queueType.
+   * Ring buffer queues are always bounded, falling back to queueSize when no capacity was given.
+   * @param id component id the queue is registered under
+   * @return inbound queue for the component
+   */
+  private ThroughputQueue<StreamsDatum> createInBoundQueue(String id) {
+    if (LocalRuntimeConfiguration.QueueType.RING.equals(streamConfig.getQueueType())) {
+      int capacity = this.maxQueueCapacity;
+      if (capacity < 1) {
+        capacity = streamConfig.getQueueSize() != null && streamConfig.getQueueSize() > 0
+            ? streamConfig.getQueueSize().intValue()
+            : DEFAULT_QUEUE_SIZE;
+      }
+      WaitStrategy waitStrategy = streamConfig.getQueueWaitStrategy() != null
+          ? WaitStrategy.valueOf(streamConfig.getQueueWaitStrategy().name())
+          : WaitStrategy.PARK;
+      return new ThroughputQueue<>(capacity, id, streamIdentifier, startedAt.getMillis(), waitStrategy);
+    }
+    return new ThroughputQueue<>(this.maxQueueCapacity, id, streamIdentifier, startedAt.getMillis());
+  }
+
+  /**
+   * Creates the task executor, selected with taskThreads.  Virtual threads make blocking tasks cheap, so components
+   * doing blocking I/O can be given many more tasks than there are cores; each task gets its own virtual thread
+   * rather than a slot in a fixed pool.
+   * @return ExecutorService running the stream's tasks
+   */
+  private ExecutorService createTaskExecutor() {
+    boolean virtual = LocalRuntimeConfiguration.TaskThreads.VIRTUAL.equals(streamConfig.getTaskThreads());
+    if(virtual && VirtualThreads.isSupported()) {
+      return new ShutdownStreamOnUnhandledThrowableThreadPerTaskExecutor(
+          VirtualThreads.newThreadFactory(streamIdentifier + "-task-"), this);
+    }
+    return new ShutdownStreamOnUnhandleThrowableThreadPoolExecutor(this.totalTasks,
+        VirtualThreads.newThreadFactory(virtual, streamIdentifier + "-task-"), this);
+  }
+
   private void validateId(String id) {
     if(this.providers.containsKey(id) || this.components.containsKey(id)) {
       throw new InvalidStreamException("Duplicate id. "+id+" is already assigned to another component");
@@ -25,6 +25,9 @@ import org.apache.streams.core.StreamsOperation;
 import org.apache.streams.core.StreamsPersistWriter;
 import org.apache.streams.core.StreamsProcessor;
 import org.apache.streams.core.StreamsProvider;
+import org.apache.streams.core.StreamsReadOnlyOperation;
+import org.apache.streams.local.LocalRuntimeConfiguration;
+import org.apache.streams.local.tasks.BaseStreamsTask;
 import org.apache.streams.local.tasks.StreamsPersistWriterTask;
 import org.apache.streams.local.tasks.StreamsProcessorTask;
 import org.apache.streams.local.tasks.StreamsProviderTask;
@@ -32,6 +35,8 @@ import org.apache.streams.local.tasks.StreamsTask;
 import org.apache.streams.util.SerializationUtil;
 
 import org.joda.time.DateTime;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.io.Serializable;
 import java.math.BigInteger;
@@ -43,6 +48,9 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Stores the implementations of {@link org.apache.streams.core.StreamsOperation}, the StreamsOperations it is connected
@@ -50,8 +58,11 @@ import java.util.concurrent.BlockingQueue;
  */
 public class StreamComponent implements Serializable {
 
+  private static final Logger LOGGER = LoggerFactory.getLogger(StreamComponent.class);
+
   private static final int START = 1;
   private static final int END = 2;
+  private static final long DEFAULT_SHUTDOWN_CHECK_INTERVAL_MS = 1000;
 
   private String id;
   private Set<StreamComponent> inBound;
@@ -69,6 +80,10 @@ public class StreamComponent implements Serializable {
 
   private StreamsConfiguration streamConfig;
 
+  private transient CompletableFuture<Void> completion;
+  private AtomicInteger runningTasks;
+  private AtomicInteger runningUpStream;
+
   /**
    *
    * @param id
@@ -111,6 +126,7 @@ public class StreamComponent implements Serializable {
     this.provider = provider;
     this.sequence = sequence;
     this.streamConfig = streamConfig;
+    initializePrivateVariables();
   }
 
   /**
@@ -149,6 +165,9 @@ public class StreamComponent implements Serializable {
     this.inBound = new HashSet<>();
     this.outBound = new HashMap<>();
     this.tasks = new ArrayList<>();
+    this.completion = new CompletableFuture<>();
+    this.runningTasks = new AtomicInteger(this.numTasks);
+    this.runningUpStream = new AtomicInteger(0);
   }
 
   /**
@@ -165,7 +184,9 @@ public class StreamComponent implements Serializable {
    * @param component that supplies data through the inbound queue
    */
   public void addInboundQueue(StreamComponent component) {
-    this.inBound.add(component);
+    if(this.inBound.add(component)) {
+      this.runningUpStream.incrementAndGet();
+    }
   }
 
   /**
@@ -258,6 +279,12 @@ public class StreamComponent implements Serializable {
       throw new InvalidStreamException("Underlying StreamComponoent was NULL.");
     }
 
+    if(task instanceof BaseStreamsTask && this.outBound.size() > 1 && isShareRequested() && !isReadOnlyDownStream()) {
+      LOGGER.warn("Cloning datums fanned out by {}: fanOutMode is 'share' but not every downstream component is a StreamsReadOnlyOperation",
+          this.id);
+      ((BaseStreamsTask) task).setShareOnFanOut(false);
+    }
+
     if(task != null) {
       tasks.add(task);
     }
@@ -265,10 +292,117 @@ public class StreamComponent implements Serializable {
     return task;
   }
 
+  private boolean isShareRequested() {
+    return this.streamConfig instanceof LocalRuntimeConfiguration
+        && LocalRuntimeConfiguration.FanOutMode.SHARE.equals(((LocalRuntimeConfiguration) this.streamConfig).getFanOutMode());
+  }
+
+  /**
+   * Whether every component downstream of this one, directly or through others, is declared a
+   * {@link StreamsReadOnlyOperation}, so that datums fanned out by this component may share one document.
+   * @return true if no downstream component may modify a document
+   */
+  public boolean isReadOnlyDownStream() {
+    List<StreamComponent> pending = new ArrayList<>(getDownStreamComponents());
+    Set<StreamComponent> visited = new HashSet<>();
+    while(!pending.isEmpty()) {
+      StreamComponent component = pending.remove(pending.size() - 1);
+      if(!visited.add(component)) {
+        continue;
+      }
+      if(!(component.getOperation() instanceof StreamsReadOnlyOperation)) {
+        return false;
+      }
+      pending.addAll(component.getDownStreamComponents());
+    }
+    return true;
+  }
+
   public List<StreamsTask> getStreamsTasks() {
     return this.tasks;
   }
 
+  /**
+   * Completes once every task of this component has finished running.
+   * @return completion of this component
+   */
+  public CompletableFuture<Void> getCompletion() {
+    return this.completion;
+  }
+
+  /**
+   * Called by the runtime whenever one of this component's tasks finishes running.  Once the last task has finished,
+   * notifies the downstream components and completes {@link #getCompletion()}.
+   */
+  public void taskFinished() {
+    if(this.runningTasks.decrementAndGet() == 0) {
+      for(StreamComponent child : getDownStreamComponents()) {
+        child.upStreamFinished();
+      }
+      this.completion.complete(null);
+    }
+  }
+
+  /**
+   * Called when an upstream component has finished.  Once all have, nothing more will be added to the inbound queue,
+   * so this component's tasks are told to finish as soon as they have drained it.
+   */
+  public void upStreamFinished() {
+    if(this.runningUpStream.decrementAndGet() == 0) {
+      signalEndOfStream();
+    }
+  }
+
+  /**
+   * Queues one {@link org.apache.streams.local.tasks.BaseStreamsTask#END_OF_STREAM} marker per task behind any
+   * remaining datums in the inbound queue.  Waits on a full queue only while this component's tasks are still running
+   * to drain it, re-checking every shutdownCheckInterval.
+   */
+  public void signalEndOfStream() {
+    if(this.inQueue == null) {
+      return;
+    }
+    long interval = getShutdownCheckInterval();
+    try {
+      int signalled = 0;
+      while(signalled < this.numTasks) {
+        if(this.inQueue.offer(BaseStreamsTask.END_OF_STREAM, interval, TimeUnit.MILLISECONDS)) {
+          ++signalled;
+        } else if(!isRunning()) {
+          // nothing is left to drain a full queue, waiting any longer would hang the upstream task
+          LOGGER.warn("Tasks of {} are no longer running, abandoning end of stream signal with {} datums queued", this.id, this.inQueue.size());
+          return;
+        }
+      }
+    } catch (InterruptedException ie) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * Whether any task of this component has yet to finish.  Tasks count as running from the moment the component is
+   * created, so this is true before they are started.
+   * @return true if some task has not finished
+   */
+  public boolean isRunning() {
+    return this.runningTasks.get() > 0;
+  }
+
+  /**
+   * Whether datums are waiting in the inbound queue of this component.
+   * @return true if the inbound queue is not empty
+   */
+  public boolean hasQueuedDatums() {
+    return this.inQueue != null && !this.inQueue.isEmpty();
+  }
+
+  private long getShutdownCheckInterval() {
+    if(this.streamConfig == null || this.streamConfig.getShutdownCheckInterval() == null) {
+      return DEFAULT_SHUTDOWN_CHECK_INTERVAL_MS;
+    }
+    return this.streamConfig.getShutdownCheckInterval();
+  }
+
   /**
    * The unique of this component
    * @return
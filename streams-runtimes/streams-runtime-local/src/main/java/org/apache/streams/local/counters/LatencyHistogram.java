@@ -0,0 +1,224 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.streams.local.counters;
+
+import net.jcip.annotations.ThreadSafe;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free histogram of latencies in nanoseconds, in the style of HdrHistogram.
+ * <p/>
+ * Values are counted in log-linear buckets: exact below 64ns, and within 1/32 (about 3%) of the recorded value above
+ * that, up to one hour.  Larger values are counted as one hour.  Recording threads are spread over several stripes of
+ * buckets so that they do not contend on the same counters, and never block.
+ * <p/>
+ * Snapshots are taken either over everything recorded so far, or over the most recent interval.  An interval is
+ * rolled over when an interval snapshot is requested and the current interval has lasted at least intervalMs, so any
+ * number of readers see the same interval.
+ */
+@ThreadSafe
+public class LatencyHistogram {
+
+  public static final long DEFAULT_INTERVAL_MS = 10000;
+
+  private static final int SUB_BUCKET_BITS = 6;
+  private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+  private static final int SUB_BUCKET_HALF_COUNT = SUB_BUCKET_COUNT >> 1;
+  private static final long MAX_TRACKABLE_VALUE = TimeUnit.HOURS.toNanos(1);
+  private static final int BUCKET_COUNT = bucketIndex(MAX_TRACKABLE_VALUE) + 1;
+  private static final int MAX_STRIPES = 8;
+
+  private final AtomicLongArray[] stripes;
+  private final int stripeMask;
+  private final LongAdder totalNanos = new LongAdder();
+  private final AtomicLong maxNanos = new AtomicLong();
+  private final AtomicLong intervalMaxNanos = new AtomicLong();
+  private final long intervalNanos;
+
+  private long[] intervalStartCounts = new long[BUCKET_COUNT];
+  private long intervalStartTotal;
+  private long intervalStartedAt = System.nanoTime();
+  private Snapshot lastInterval = new Snapshot(new long[BUCKET_COUNT], 0, 0);
+
+  public LatencyHistogram() {
+    this(DEFAULT_INTERVAL_MS);
+  }
+
+  /**
+   * @param intervalMs minimum length of the interval covered by {@link #getIntervalSnapshot()}
+   */
+  public LatencyHistogram(long intervalMs) {
+    int stripeCount = 1;
+    while (stripeCount < Math.min(Runtime.getRuntime().availableProcessors(), MAX_STRIPES)) {
+      stripeCount <<= 1;
+    }
+    this.stripes = new AtomicLongArray[stripeCount];
+    for (int i = 0; i < stripeCount; ++i) {
+      this.stripes[i] = new AtomicLongArray(BUCKET_COUNT);
+    }
+    this.stripeMask = stripeCount - 1;
+    this.intervalNanos = TimeUnit.MILLISECONDS.toNanos(intervalMs);
+  }
+
+  /**
+   * Record a latency.
+   * @param nanos latency in nanoseconds, negative values are counted as 0
+   */
+  public void record(long nanos) {
+    long value = Math.min(Math.max(nanos, 0), MAX_TRACKABLE_VALUE);
+    this.stripes[(int) Thread.currentThread().getId() & this.stripeMask].incrementAndGet(bucketIndex(value));
+    this.totalNanos.add(value);
+    updateMax(this.maxNanos, value);
+    updateMax(this.intervalMaxNanos, value);
+  }
+
+  /**
+   * Everything recorded since this histogram was created.
+   * @return snapshot
+   */
+  public Snapshot getSnapshot() {
+    return new Snapshot(sumStripes(), this.totalNanos.sum(), this.maxNanos.get());
+  }
+
+  /**
+   * The most recently completed interval, rolling over to a new interval if the current one has lasted long enough.
+   * @return snapshot of the last completed interval
+   */
+  public synchronized Snapshot getIntervalSnapshot() {
+    long now = System.nanoTime();
+    if (now - this.intervalStartedAt >= this.intervalNanos) {
+      long[] counts = sumStripes();
+      long total = this.totalNanos.sum();
+      long[] delta = new long[BUCKET_COUNT];
+      for (int i = 0; i < BUCKET_COUNT; ++i) {
+        delta[i] = counts[i] - this.intervalStartCounts[i];
+      }
+      this.lastInterval = new Snapshot(delta, total - this.intervalStartTotal, this.intervalMaxNanos.getAndSet(0));
+      this.intervalStartCounts = counts;
+      this.intervalStartTotal = total;
+      this.intervalStartedAt = now;
+    }
+    return this.lastInterval;
+  }
+
+  private long[] sumStripes() {
+    long[] counts = new long[BUCKET_COUNT];
+    for (AtomicLongArray stripe : this.stripes) {
+      for (int i = 0; i < BUCKET_COUNT; ++i) {
+        counts[i] += stripe.get(i);
+      }
+    }
+    return counts;
+  }
+
+  private static void updateMax(AtomicLong max, long value) {
+    long current;
+    while (value > (current = max.get())) {
+      if (max.compareAndSet(current, value)) {
+        return;
+      }
+    }
+  }
+
+  static int bucketIndex(long value) {
+    if (value < SUB_BUCKET_COUNT) {
+      return (int) value;
+    }
+    int shift = (63 - Long.numberOfLeadingZeros(value)) - (SUB_BUCKET_BITS - 1);
+    int subBucket = (int) (value >>> shift);
+    return SUB_BUCKET_COUNT + (shift - 1) * SUB_BUCKET_HALF_COUNT + (subBucket - SUB_BUCKET_HALF_COUNT);
+  }
+
+  static long highestEquivalentValue(int index) {
+    if (index < SUB_BUCKET_COUNT) {
+      return index;
+    }
+    int offset = index - SUB_BUCKET_COUNT;
+    int shift = offset / SUB_BUCKET_HALF_COUNT + 1;
+    long subBucket = offset % SUB_BUCKET_HALF_COUNT + SUB_BUCKET_HALF_COUNT;
+    return ((subBucket + 1) << shift) - 1;
+  }
+
+  /**
+   * Immutable view of the latencies recorded over a period.
+   */
+  public static class Snapshot {
+
+    private final long[] counts;
+    private final long count;
+    private final long totalNanos;
+    private final long maxNanos;
+
+    Snapshot(long[] counts, long totalNanos, long maxNanos) {
+      long count = 0;
+      for (long bucket : counts) {
+        count += bucket;
+      }
+      this.counts = counts;
+      this.count = count;
+      this.totalNanos = totalNanos;
+      this.maxNanos = maxNanos;
+    }
+
+    /**
+     * @return number of latencies recorded
+     */
+    public long getCount() {
+      return this.count;
+    }
+
+    /**
+     * @return mean latency in nanoseconds, 0 if nothing was recorded
+     */
+    public double getMean() {
+      return this.count == 0 ? 0.0 : (double) this.totalNanos / this.count;
+    }
+
+    /**
+     * @return largest latency in nanoseconds, 0 if nothing was recorded
+     */
+    public long getMax() {
+      return this.maxNanos;
+    }
+
+    /**
+     * Latency at or below which the given percentage of recorded latencies fall, within the precision of the buckets.
+     * @param percentile between 0 and 100, e.g. 99.9
+     * @return latency in nanoseconds, 0 if nothing was recorded
+     */
+    public long getValueAtPercentile(double percentile) {
+      if (this.count == 0) {
+        return 0;
+      }
+      long target = Math.max(1, (long) Math.ceil(Math.min(percentile, 100.0) / 100.0 * this.count));
+      long seen = 0;
+      for (int i = 0; i < this.counts.length; ++i) {
+        seen += this.counts[i];
+        if (seen >= target) {
+          return Math.min(highestEquivalentValue(i), this.maxNanos);
+        }
+      }
+      return this.maxNanos;
+    }
+  }
+
+}
@@ -20,11 +20,11 @@ package org.apache.streams.local.counters;
 import org.apache.streams.local.builders.LocalStreamBuilder;
 import org.apache.streams.util.ComponentUtils;
 
-import net.jcip.annotations.GuardedBy;
 import net.jcip.annotations.ThreadSafe;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 
 /**
@@ -35,13 +35,12 @@ public class StreamsTaskCounter implements StreamsTaskCounterMXBean {
 
   public static final String NAME_TEMPLATE = "org.apache.streams.local:type=StreamsTaskCounter,name=%s,identifier=%s,startedAt=%s";
   private static final Logger LOGGER = LoggerFactory.getLogger(StreamsTaskCounter.class);
+  private static final double NANOS_PER_MILLI = 1000000.0;
 
   private AtomicLong emitted;
   private AtomicLong received;
   private AtomicLong errors;
-  private AtomicLong totalTime;
-  @GuardedBy("this")
-  private volatile long maxTime;
+  private LatencyHistogram times;
 
   /**
    *
@@ -59,8 +58,7 @@ public class StreamsTaskCounter implements StreamsTaskCounterMXBean {
     this.emitted = new AtomicLong(0);
     this.received = new AtomicLong(0);
     this.errors = new AtomicLong(0);
-    this.totalTime = new AtomicLong(0);
-    this.maxTime = -1;
+    this.times = new LatencyHistogram();
     ComponentUtils.registerLocalMBean(String.format(NAME_TEMPLATE, id, streamId, startedAt), this);
   }
 
@@ -114,12 +112,15 @@ public class StreamsTaskCounter implements StreamsTaskCounterMXBean {
    * @param processTime
    */
   public void addTime(long processTime) {
-    synchronized (this) {
-      if(processTime > this.maxTime) {
-        this.maxTime = processTime;
-      }
-    }
-    this.totalTime.addAndGet(processTime);
+    addTimeNanos(TimeUnit.MILLISECONDS.toNanos(processTime));
+  }
+
+  /**
+   * Add the time it takes to process a single datum, or a batch of datums, in nanoseconds
+   * @param processTimeNanos
+   */
+  public void addTimeNanos(long processTimeNanos) {
+    this.times.record(processTimeNanos);
   }
 
   @Override
@@ -149,17 +150,48 @@ public class StreamsTaskCounter implements StreamsTaskCounterMXBean {
   public double getAvgTime() {
     long rec = this.received.get();
     long emit = this.emitted.get();
+    LatencyHistogram.Snapshot snapshot = this.times.getSnapshot();
+    double totalTime = snapshot.getMean() * snapshot.getCount() / NANOS_PER_MILLI;
     if(rec == 0 && emit == 0 ) {
       return 0.0;
     } else if( rec == 0) { //provider instance
-      return this.totalTime.get() / (double) emit;
+      return totalTime / (double) emit;
     } else {
-      return this.totalTime.get() / ((double) this.received.get() - this.errors.get());
+      return totalTime / ((double) this.received.get() - this.errors.get());
     }
   }
 
   @Override
   public long getMaxTime() {
-    return this.maxTime;
+    LatencyHistogram.Snapshot snapshot = this.times.getSnapshot();
+    return snapshot.getCount() == 0 ? -1 : TimeUnit.NANOSECONDS.toMillis(snapshot.getMax());
+  }
+
+  @Override
+  public long getP50TimeNanos() {
+    return this.times.getIntervalSnapshot().getValueAtPercentile(50.0);
+  }
+
+  @Override
+  public long getP99TimeNanos() {
+    return this.times.getIntervalSnapshot().getValueAtPercentile(99.0);
+  }
+
+  @Override
+  public long getP999TimeNanos() {
+    return this.times.getIntervalSnapshot().getValueAtPercentile(99.9);
+  }
+
+  @Override
+  public long getMaxTimeNanos() {
+    return this.times.getIntervalSnapshot().getMax();
+  }
+
+  /**
+   * Processing times recorded by this counter.
+   * @return histogram of processing times in nanoseconds
+   */
+  public LatencyHistogram getTimes() {
+    return this.times;
   }
 }
@@ -60,4 +60,32 @@ public interface StreamsTaskCounterMXBean {
    */
   public long getMaxTime();
 
+  /**
+   * Returns the median time in nanoseconds it took the task to readCurrent, process, or write, over the most recent
+   * interval.
+   * @return
+   */
+  public long getP50TimeNanos();
+
+  /**
+   * Returns the 99th percentile of the time in nanoseconds it took the task to readCurrent, process, or write, over
+   * the most recent interval.
+   * @return
+   */
+  public long getP99TimeNanos();
+
+  /**
+   * Returns the 99.9th percentile of the time in nanoseconds it took the task to readCurrent, process, or write, over
+   * the most recent interval.
+   * @return
+   */
+  public long getP999TimeNanos();
+
+  /**
+   * Returns the max time in nanoseconds it took the task to readCurrent, process, or write, over the most recent
+   * interval.
+   * @return
+   */
+  public long getMaxTimeNanos();
+
 }
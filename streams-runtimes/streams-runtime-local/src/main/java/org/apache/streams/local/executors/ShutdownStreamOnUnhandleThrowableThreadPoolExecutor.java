@@ -24,6 +24,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 
@@ -49,6 +50,18 @@ public class ShutdownStreamOnUnhandleThrowableThreadPoolExecutor extends ThreadP
     this.isStoped = false;
   }
 
+  /**
+   * Creates a fixed size thread pool where corePoolSize & maximumPoolSize equal numThreads with an unbounded queue.
+   * @param numThreads number of threads in pool
+   * @param threadFactory factory for the pool's threads, e.g. one creating virtual threads
+   * @param streamBuilder streambuilder to call {@link org.apache.streams.core.StreamBuilder#stop()} on upon receiving an unhandled throwable
+   */
+  public ShutdownStreamOnUnhandleThrowableThreadPoolExecutor(int numThreads, ThreadFactory threadFactory, LocalStreamBuilder streamBuilder) {
+    super(numThreads, numThreads, 1, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), threadFactory);
+    this.streamBuilder = streamBuilder;
+    this.isStoped = false;
+  }
+
   @Override
   protected void afterExecute(Runnable r, Throwable t) {
     if(t != null) {
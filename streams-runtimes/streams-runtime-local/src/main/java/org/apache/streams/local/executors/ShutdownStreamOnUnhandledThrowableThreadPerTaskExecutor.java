@@ -0,0 +1,67 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.streams.local.executors;
+
+import org.apache.streams.local.builders.LocalStreamBuilder;
+import org.apache.streams.util.ThreadPerTaskExecutor;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * A {@link ThreadPerTaskExecutor} that will shutdown a stream upon a thread ending execution due to an unhandled
+ * throwable.  Used instead of {@link ShutdownStreamOnUnhandleThrowableThreadPoolExecutor} when tasks run on virtual
+ * threads.
+ */
+public class ShutdownStreamOnUnhandledThrowableThreadPerTaskExecutor extends ThreadPerTaskExecutor {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(ShutdownStreamOnUnhandledThrowableThreadPerTaskExecutor.class);
+
+  private LocalStreamBuilder streamBuilder;
+  private volatile boolean isStoped;
+
+  /**
+   * Creates an executor starting a new thread for every task, with no limit on how many run at once.
+   * @param threadFactory factory for the task threads, e.g. one creating virtual threads
+   * @param streamBuilder streambuilder to call {@link org.apache.streams.core.StreamBuilder#stop()} on upon receiving an unhandled throwable
+   */
+  public ShutdownStreamOnUnhandledThrowableThreadPerTaskExecutor(ThreadFactory threadFactory, LocalStreamBuilder streamBuilder) {
+    super(threadFactory, 0);
+    this.streamBuilder = streamBuilder;
+    this.isStoped = false;
+  }
+
+  @Override
+  protected void afterExecute(Runnable r, Throwable t) {
+    if(t != null) {
+      LOGGER.error("Runnable, {}, exited with an unhandled throwable! : {}", r.getClass(), t);
+      LOGGER.error("Attempting to shut down stream.");
+      synchronized (this) {
+        if (!this.isStoped) {
+          this.isStoped = true;
+          this.streamBuilder.stop();
+        }
+      }
+    } else {
+      LOGGER.trace("Runnable, {}, finished executing.", r.getClass());
+    }
+  }
+}
@@ -0,0 +1,323 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.streams.local.queues;
+
+import org.apache.commons.lang.NotImplementedException;
+
+import java.util.AbstractQueue;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.LongConsumer;
+
+/**
+ * A bounded, lock-free, multi-producer multi-consumer {@link java.util.concurrent.BlockingQueue} backed by a
+ * preallocated ring of slots.
+ * <p/>
+ * Each slot carries a sequence number that tells producers and consumers whether the slot is free or holds a
+ * published element, so hand-off only needs a single CAS on the producer or consumer cursor.  The cursors are padded
+ * to avoid false sharing between producers and consumers.  Blocking calls wait according to the supplied
+ * {@link org.apache.streams.local.queues.WaitStrategy}.  Capacity is rounded up to the next power of two.
+ * <p/>
+ * When constructed with a removal listener the queue also records the time each element was enqueued in the slot
+ * itself, and reports how long each removed element waited, so no per-element wrapper has to be allocated.
+ * <p/>
+ * !!! Warning !!!
+ * Only the necessary methods for the local streams runtime are implemented.  All other methods throw a
+ * {@link org.apache.commons.lang.NotImplementedException}.
+ */
+public class RingBufferQueue<E> extends AbstractQueue<E> implements BlockingQueue<E> {
+
+  private final int capacity;
+  private final int mask;
+  private final Object[] elements;
+  private final long[] enqueuedAt;
+  private final AtomicLongArray sequences;
+  private final PaddedAtomicLong producerCursor = new PaddedAtomicLong();
+  private final PaddedAtomicLong consumerCursor = new PaddedAtomicLong();
+  private final WaitStrategy waitStrategy;
+  private final LongConsumer removalListener;
+
+  /**
+   * Creates a queue that holds at least {@code capacity} elements.
+   * @param capacity minimum number of slots, must be greater than 0
+   * @param waitStrategy how blocking calls wait for space or data
+   */
+  public RingBufferQueue(int capacity, WaitStrategy waitStrategy) {
+    this(capacity, waitStrategy, null);
+  }
+
+  /**
+   * Creates a queue that holds at least {@code capacity} elements and reports how long each removed element waited.
+   * @param capacity minimum number of slots, must be greater than 0
+   * @param waitStrategy how blocking calls wait for space or data
+   * @param removalListener receives the time in nanoseconds each removed element spent on the queue, may be null
+   */
+  public RingBufferQueue(int capacity, WaitStrategy waitStrategy, LongConsumer removalListener) {
+    if (capacity < 1) {
+      throw new IllegalArgumentException("RingBufferQueue requires a capacity greater than 0 : " + capacity);
+    }
+    Objects.requireNonNull(waitStrategy);
+    int size = 1;
+    while (size < capacity) {
+      size <<= 1;
+    }
+    this.capacity = size;
+    this.mask = size - 1;
+    this.elements = new Object[size];
+    this.enqueuedAt = removalListener == null ? null : new long[size];
+    this.sequences = new AtomicLongArray(size);
+    for (int i = 0; i < size; ++i) {
+      this.sequences.set(i, i);
+    }
+    this.waitStrategy = waitStrategy;
+    this.removalListener = removalListener;
+  }
+
+  @Override
+  public boolean offer(E e) {
+    Objects.requireNonNull(e);
+    while (true) {
+      long position = this.producerCursor.get();
+      int index = (int) position & this.mask;
+      long difference = this.sequences.get(index) - position;
+      if (difference == 0) {
+        if (this.producerCursor.compareAndSet(position, position + 1)) {
+          this.elements[index] = e;
+          if (this.enqueuedAt != null) {
+            this.enqueuedAt[index] = System.nanoTime();
+          }
+          this.sequences.lazySet(index, position + 1);
+          return true;
+        }
+      } else if (difference < 0) {
+        return false;
+      }
+    }
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public E poll() {
+    while (true) {
+      long position = this.consumerCursor.get();
+      int index = (int) position & this.mask;
+      long difference = this.sequences.get(index) - (position + 1);
+      if (difference == 0) {
+        if (this.consumerCursor.compareAndSet(position, position + 1)) {
+          E element = (E) this.elements[index];
+          this.elements[index] = null;
+          long queuedTime = this.enqueuedAt != null ? this.enqueuedAt[index] : 0;
+          this.sequences.lazySet(index, position + this.capacity);
+          if (this.removalListener != null) {
+            this.removalListener.accept(System.nanoTime() - queuedTime);
+          }
+          return element;
+        }
+      } else if (difference < 0) {
+        return null;
+      }
+    }
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public E peek() {
+    long position = this.consumerCursor.get();
+    int index = (int) position & this.mask;
+    if (this.sequences.get(index) == position + 1) {
+      return (E) this.elements[index];
+    }
+    return null;
+  }
+
+  /**
+   * Time in nanoseconds the element at the head of the queue has been waiting.
+   * @return wait of the head element, or 0 if the queue is empty or enqueue times are not recorded
+   */
+  public long getHeadWaitNanos() {
+    if (this.enqueuedAt == null) {
+      return 0;
+    }
+    long position = this.consumerCursor.get();
+    int index = (int) position & this.mask;
+    if (this.sequences.get(index) == position + 1) {
+      return System.nanoTime() - this.enqueuedAt[index];
+    }
+    return 0;
+  }
+
+  @Override
+  public void put(E e) throws InterruptedException {
+    int attempt = 0;
+    while (!offer(e)) {
+      checkInterrupt();
+      this.waitStrategy.idle(attempt++);
+    }
+  }
+
+  @Override
+  public boolean offer(E e, long timeout, TimeUnit unit) throws InterruptedException {
+    long deadline = System.nanoTime() + unit.toNanos(timeout);
+    int attempt = 0;
+    while (!offer(e)) {
+      checkInterrupt();
+      if (System.nanoTime() - deadline >= 0) {
+        return false;
+      }
+      this.waitStrategy.idle(attempt++);
+    }
+    return true;
+  }
+
+  @Override
+  public E take() throws InterruptedException {
+    int attempt = 0;
+    E element;
+    while ((element = poll()) == null) {
+      checkInterrupt();
+      this.waitStrategy.idle(attempt++);
+    }
+    return element;
+  }
+
+  @Override
+  public E poll(long timeout, TimeUnit unit) throws InterruptedException {
+    long deadline = System.nanoTime() + unit.toNanos(timeout);
+    int attempt = 0;
+    E element;
+    while ((element = poll()) == null) {
+      checkInterrupt();
+      if (System.nanoTime() - deadline >= 0) {
+        return null;
+      }
+      this.waitStrategy.idle(attempt++);
+    }
+    return element;
+  }
+
+  @Override
+  public int size() {
+    long consumer = this.consumerCursor.get();
+    long producer = this.producerCursor.get();
+    long size = producer - consumer;
+    if (size < 0) {
+      return 0;
+    }
+    return (int) Math.min(size, this.capacity);
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return size() == 0;
+  }
+
+  @Override
+  public int remainingCapacity() {
+    return this.capacity - size();
+  }
+
+  /**
+   * Number of slots in the ring.
+   * @return capacity of the queue
+   */
+  public int capacity() {
+    return this.capacity;
+  }
+
+  @Override
+  public boolean contains(Object o) {
+    if (o == null) {
+      return false;
+    }
+    long producer = this.producerCursor.get();
+    for (long position = this.consumerCursor.get(); position < producer; ++position) {
+      if (o.equals(this.elements[(int) position & this.mask])) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  @Override
+  public int drainTo(Collection<? super E> c) {
+    return drainTo(c, Integer.MAX_VALUE);
+  }
+
+  @Override
+  public int drainTo(Collection<? super E> c, int maxElements) {
+    Objects.requireNonNull(c);
+    if (c == this) {
+      throw new IllegalArgumentException();
+    }
+    int drained = 0;
+    E element;
+    while (drained < maxElements && (element = poll()) != null) {
+      c.add(element);
+      ++drained;
+    }
+    return drained;
+  }
+
+  @Override
+  public boolean remove(Object o) {
+    throw new NotImplementedException();
+  }
+
+  @Override
+  public Iterator<E> iterator() {
+    throw new NotImplementedException();
+  }
+
+  @Override
+  public void clear() {
+    while (poll() != null) {
+      //drain
+    }
+  }
+
+  private static void checkInterrupt() throws InterruptedException {
+    if (Thread.interrupted()) {
+      throw new InterruptedException();
+    }
+  }
+
+  /**
+   * {@link java.util.concurrent.atomic.AtomicLong} padded out to a cache line so that the producer and consumer
+   * cursors do not share one.
+   */
+  @SuppressWarnings("unused")
+  private static class PaddedAtomicLong extends AtomicLong {
+
+    public volatile long p1;
+    public volatile long p2;
+    public volatile long p3;
+    public volatile long p4;
+    public volatile long p5;
+    public volatile long p6 = 7L;
+
+    public long sumPaddingToPreventOptimisation() {
+      return p1 + p2 + p3 + p4 + p5 + p6;
+    }
+  }
+
+}
@@ -18,20 +18,21 @@
 package org.apache.streams.local.queues;
 
 import org.apache.streams.local.builders.LocalStreamBuilder;
+import org.apache.streams.local.counters.LatencyHistogram;
 
 import org.apache.commons.lang.NotImplementedException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Iterator;
+import java.util.List;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
-import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
 import javax.management.InstanceAlreadyExistsException;
 import javax.management.MBeanRegistrationException;
 import javax.management.MBeanServer;
@@ -44,6 +45,10 @@ import javax.management.ObjectName;
  * data flows through the queue.  Is also a {@code MBean} so the flow statistics can be viewed through
  * JMX. Registration of the bean happens whenever a constructor receives a non-null id.
  * <p/>
+ * By default elements are held in a {@link java.util.concurrent.LinkedBlockingQueue}.  When constructed with a
+ * {@link org.apache.streams.local.queues.WaitStrategy} the queue is instead backed by a bounded, lock-free
+ * {@link org.apache.streams.local.queues.RingBufferQueue}, which tracks queue time in its preallocated slots.
+ * <p/>
  * !!! Warning !!!
  * Only the necessary methods for the local streams runtime are implemented.  All other methods throw a
  * {@link org.apache.commons.lang.NotImplementedException}.
@@ -53,15 +58,15 @@ public class ThroughputQueue<E> implements BlockingQueue<E>, ThroughputQueueMXBe
   public static final String NAME_TEMPLATE = "org.apache.streams.local:type=ThroughputQueue,name=%s,identifier=%s,startedAt=%s";
 
   private static final Logger LOGGER = LoggerFactory.getLogger(ThroughputQueue.class);
+  private static final double NANOS_PER_MILLI = 1000000.0;
 
   private BlockingQueue<ThroughputElement<E>> underlyingQueue;
+  private RingBufferQueue<E> ringBuffer;
   private AtomicLong elementsAdded;
   private AtomicLong elementsRemoved;
   private AtomicLong startTime;
-  private AtomicLong totalQueueTime;
-  private long maxQueuedTime;
+  private LatencyHistogram queueTimes;
   private volatile boolean active;
-  private ReadWriteLock maxQueueTimeLock;
 
   /**
    * Creates an unbounded, unregistered {@code ThroughputQueue}
@@ -134,7 +139,21 @@ public class ThroughputQueue<E> implements BlockingQueue<E>, ThroughputQueueMXBe
    * @param id      unique id for this queue to be registered with. if id == NULL then not registered
    */
   public ThroughputQueue(int maxSize, String id, String streamIdentifier, long startedAt) {
-    if (maxSize < 1) {
+    this(maxSize, id, streamIdentifier, startedAt, null);
+  }
+
+  /**
+   * Creates a bounded, registered {@code ThroughputQueue}, optionally backed by a
+   * {@link org.apache.streams.local.queues.RingBufferQueue}.
+   *
+   * @param maxSize maximum capacity of queue, if maxSize < 1 then unbounded. Must be at least 1 when waitStrategy is set
+   * @param id      unique id for this queue to be registered with. if id == NULL then not registered
+   * @param waitStrategy if not null, use a ring buffer that waits with this strategy instead of a LinkedBlockingQueue
+   */
+  public ThroughputQueue(int maxSize, String id, String streamIdentifier, long startedAt, WaitStrategy waitStrategy) {
+    if (waitStrategy != null) {
+      this.ringBuffer = new RingBufferQueue<>(maxSize, waitStrategy, this::internalRemoveElement);
+    } else if (maxSize < 1) {
       this.underlyingQueue = new LinkedBlockingQueue<>();
     } else {
       this.underlyingQueue = new LinkedBlockingQueue<>(maxSize);
@@ -143,9 +162,7 @@ public class ThroughputQueue<E> implements BlockingQueue<E>, ThroughputQueueMXBe
     this.elementsRemoved = new AtomicLong(0);
     this.startTime = new AtomicLong(-1);
     this.active = false;
-    this.maxQueuedTime = 0;
-    this.maxQueueTimeLock = new ReentrantReadWriteLock();
-    this.totalQueueTime = new AtomicLong(0);
+    this.queueTimes = new LatencyHistogram();
     if (id != null) {
       try {
         ObjectName name = new ObjectName(String.format(NAME_TEMPLATE, id, streamIdentifier, startedAt));
@@ -160,7 +177,7 @@ public class ThroughputQueue<E> implements BlockingQueue<E>, ThroughputQueueMXBe
 
   @Override
   public boolean add(E e) {
-    if (this.underlyingQueue.add(new ThroughputElement<E>(e))) {
+    if (this.ringBuffer != null ? this.ringBuffer.add(e) : this.underlyingQueue.add(new ThroughputElement<E>(e))) {
       internalAddElement();
       return true;
     }
@@ -169,7 +186,7 @@ public class ThroughputQueue<E> implements BlockingQueue<E>, ThroughputQueueMXBe
 
   @Override
   public boolean offer(E e) {
-    if (this.underlyingQueue.offer(new ThroughputElement<E>(e))) {
+    if (this.ringBuffer != null ? this.ringBuffer.offer(e) : this.underlyingQueue.offer(new ThroughputElement<E>(e))) {
       internalAddElement();
       return true;
     }
@@ -178,13 +195,17 @@ public class ThroughputQueue<E> implements BlockingQueue<E>, ThroughputQueueMXBe
 
   @Override
   public void put(E e) throws InterruptedException {
-    this.underlyingQueue.put(new ThroughputElement<E>(e));
+    if (this.ringBuffer != null) {
+      this.ringBuffer.put(e);
+    } else {
+      this.underlyingQueue.put(new ThroughputElement<E>(e));
+    }
     internalAddElement();
   }
 
   @Override
   public boolean offer(E e, long timeout, TimeUnit unit) throws InterruptedException {
-    if (this.underlyingQueue.offer(new ThroughputElement<E>(e), timeout, unit)) {
+    if (this.ringBuffer != null ? this.ringBuffer.offer(e, timeout, unit) : this.underlyingQueue.offer(new ThroughputElement<E>(e), timeout, unit)) {
       internalAddElement();
       return true;
     }
@@ -193,6 +214,9 @@ public class ThroughputQueue<E> implements BlockingQueue<E>, ThroughputQueueMXBe
 
   @Override
   public E take() throws InterruptedException {
+    if (this.ringBuffer != null) {
+      return this.ringBuffer.take();
+    }
     ThroughputElement<E> e = this.underlyingQueue.take();
     internalRemoveElement(e);
     return e.getElement();
@@ -200,6 +224,9 @@ public class ThroughputQueue<E> implements BlockingQueue<E>, ThroughputQueueMXBe
 
   @Override
   public E poll(long timeout, TimeUnit unit) throws InterruptedException {
+    if (this.ringBuffer != null) {
+      return this.ringBuffer.poll(timeout, unit);
+    }
     ThroughputElement<E> e = this.underlyingQueue.poll(timeout, unit);
     if(e != null) {
       internalRemoveElement(e);
@@ -210,11 +237,17 @@ public class ThroughputQueue<E> implements BlockingQueue<E>, ThroughputQueueMXBe
 
   @Override
   public int remainingCapacity() {
+    if (this.ringBuffer != null) {
+      return this.ringBuffer.remainingCapacity();
+    }
     return this.underlyingQueue.remainingCapacity();
   }
 
   @Override
   public boolean remove(Object o) {
+    if (this.ringBuffer != null) {
+      return this.ringBuffer.remove(o);
+    }
     try {
       return this.underlyingQueue.remove(new ThroughputElement<E>((E) o));
     } catch (ClassCastException cce) {
@@ -224,6 +257,9 @@ public class ThroughputQueue<E> implements BlockingQueue<E>, ThroughputQueueMXBe
 
   @Override
   public boolean contains(Object o) {
+    if (this.ringBuffer != null) {
+      return this.ringBuffer.contains(o);
+    }
     try {
       return this.underlyingQueue.contains(new ThroughputElement<E>((E) o));
     } catch (ClassCastException cce) {
@@ -233,16 +269,31 @@ public class ThroughputQueue<E> implements BlockingQueue<E>, ThroughputQueueMXBe
 
   @Override
   public int drainTo(Collection<? super E> c) {
-    throw new NotImplementedException();
+    return drainTo(c, Integer.MAX_VALUE);
   }
 
   @Override
   public int drainTo(Collection<? super E> c, int maxElements) {
-    throw new NotImplementedException();
+    if (this.ringBuffer != null) {
+      return this.ringBuffer.drainTo(c, maxElements);
+    }
+    if (maxElements <= 0) {
+      return 0;
+    }
+    List<ThroughputElement<E>> drained = new ArrayList<>(Math.min(maxElements, this.underlyingQueue.size()));
+    int count = this.underlyingQueue.drainTo(drained, maxElements);
+    for (ThroughputElement<E> e : drained) {
+      internalRemoveElement(e);
+      c.add(e.getElement());
+    }
+    return count;
   }
 
   @Override
   public E remove() {
+    if (this.ringBuffer != null) {
+      return this.ringBuffer.remove();
+    }
     ThroughputElement<E> e = this.underlyingQueue.remove();
     if(e != null) {
       internalRemoveElement(e);
@@ -253,6 +304,9 @@ public class ThroughputQueue<E> implements BlockingQueue<E>, ThroughputQueueMXBe
 
   @Override
   public E poll() {
+    if (this.ringBuffer != null) {
+      return this.ringBuffer.poll();
+    }
     ThroughputElement<E> e = this.underlyingQueue.poll();
     if(e != null) {
       internalRemoveElement(e);
@@ -268,6 +322,9 @@ public class ThroughputQueue<E> implements BlockingQueue<E>, ThroughputQueueMXBe
 
   @Override
   public E peek() {
+    if (this.ringBuffer != null) {
+      return this.ringBuffer.peek();
+    }
     ThroughputElement<E> e = this.underlyingQueue.peek();
     if( e != null) {
       return e.getElement();
@@ -277,11 +334,17 @@ public class ThroughputQueue<E> implements BlockingQueue<E>, ThroughputQueueMXBe
 
   @Override
   public int size() {
+    if (this.ringBuffer != null) {
+      return this.ringBuffer.size();
+    }
     return this.underlyingQueue.size();
   }
 
   @Override
   public boolean isEmpty() {
+    if (this.ringBuffer != null) {
+      return this.ringBuffer.isEmpty();
+    }
     return this.underlyingQueue.isEmpty();
   }
 
@@ -341,30 +404,46 @@ public class ThroughputQueue<E> implements BlockingQueue<E>, ThroughputQueueMXBe
   public double getAvgWait() {
     if (this.elementsRemoved.get() == 0) {
       if (this.getCurrentSize() > 0) {
-        return this.underlyingQueue.peek().getWaited();
+        return getHeadWaitNanos() / NANOS_PER_MILLI;
       } else {
         return 0.0;
       }
     } else {
-      return (double) this.totalQueueTime.get() / (double) this.elementsRemoved.get();
+      return this.queueTimes.getSnapshot().getMean() / NANOS_PER_MILLI;
     }
   }
 
   @Override
   public long getMaxWait() {
-    ThroughputElement<E> e = this.underlyingQueue.peek();
-    long max = -1;
-    try {
-      this.maxQueueTimeLock.readLock().lock();
-      if (e != null && e.getWaited() > this.maxQueuedTime) {
-        max = e.getWaited();
-      } else {
-        max = this.maxQueuedTime;
-      }
-    } finally {
-      this.maxQueueTimeLock.readLock().unlock();
-    }
-    return max;
+    return TimeUnit.NANOSECONDS.toMillis(Math.max(getHeadWaitNanos(), this.queueTimes.getSnapshot().getMax()));
+  }
+
+  @Override
+  public long getP50WaitNanos() {
+    return this.queueTimes.getIntervalSnapshot().getValueAtPercentile(50.0);
+  }
+
+  @Override
+  public long getP99WaitNanos() {
+    return this.queueTimes.getIntervalSnapshot().getValueAtPercentile(99.0);
+  }
+
+  @Override
+  public long getP999WaitNanos() {
+    return this.queueTimes.getIntervalSnapshot().getValueAtPercentile(99.9);
+  }
+
+  @Override
+  public long getMaxWaitNanos() {
+    return this.queueTimes.getIntervalSnapshot().getMax();
+  }
+
+  /**
+   * Time spent on the queue by removed elements.
+   * @return histogram of queue times in nanoseconds
+   */
+  public LatencyHistogram getQueueTimes() {
+    return this.queueTimes;
   }
 
   @Override
@@ -385,15 +464,29 @@ public class ThroughputQueue<E> implements BlockingQueue<E>, ThroughputQueueMXBe
     return 0.0;
   }
 
+  /**
+   * Time the element at the head of the queue has been waiting
+   * @return wait time in nanoseconds, 0 if the queue is empty
+   */
+  private long getHeadWaitNanos() {
+    if (this.ringBuffer != null) {
+      return this.ringBuffer.getHeadWaitNanos();
+    }
+    ThroughputElement<E> e = this.underlyingQueue.peek();
+    return e != null ? e.getWaited() : 0;
+  }
+
   /**
    * Handles updating the stats whenever elements are added to the queue
    */
   private void internalAddElement() {
     this.elementsAdded.incrementAndGet();
-    synchronized (this) {
-      if (!this.active) {
-        this.startTime.set(System.currentTimeMillis());
-        this.active = true;
+    if (!this.active) {
+      synchronized (this) {
+        if (!this.active) {
+          this.startTime.set(System.currentTimeMillis());
+          this.active = true;
+        }
       }
     }
   }
@@ -404,29 +497,19 @@ public class ThroughputQueue<E> implements BlockingQueue<E>, ThroughputQueueMXBe
    */
   private void internalRemoveElement(ThroughputElement<E> e) {
     if(e != null) {
-      this.elementsRemoved.incrementAndGet();
-      Long queueTime = e.getWaited();
-      this.totalQueueTime.addAndGet(queueTime);
-      boolean unlocked = false;
-      try {
-        this.maxQueueTimeLock.readLock().lock();
-        if (this.maxQueuedTime < queueTime) {
-          this.maxQueueTimeLock.readLock().unlock();
-          unlocked = true;
-          try {
-            this.maxQueueTimeLock.writeLock().lock();
-            this.maxQueuedTime = queueTime;
-          } finally {
-            this.maxQueueTimeLock.writeLock().unlock();
-          }
-        }
-      } finally {
-        if (!unlocked)
-          this.maxQueueTimeLock.readLock().unlock();
-      }
+      internalRemoveElement(e.getWaited());
     }
   }
 
+  /**
+   * Handle updating the stats whenever elements are removed from the queue
+   * @param queueTimeNanos time in nanoseconds the removed element spent on the queue
+   */
+  private void internalRemoveElement(long queueTimeNanos) {
+    this.elementsRemoved.incrementAndGet();
+    this.queueTimes.record(queueTimeNanos);
+  }
+
 
   /**
    * Element wrapper to measure time waiting on the queue
@@ -440,17 +523,17 @@ public class ThroughputQueue<E> implements BlockingQueue<E>, ThroughputQueueMXBe
 
     protected ThroughputElement(E element) {
       this.element = element;
-      this.queuedTime = System.currentTimeMillis();
+      this.queuedTime = System.nanoTime();
     }
 
     /**
      * Get the time this element has been waiting on the queue.
      * current time - time element was queued
      *
-     * @return time this element has been waiting on the queue in milliseconds
+     * @return time this element has been waiting on the queue in nanoseconds
      */
     public long getWaited() {
-      return System.currentTimeMillis() - this.queuedTime;
+      return System.nanoTime() - this.queuedTime;
     }
 
     /**
@@ -60,5 +60,30 @@ public interface ThroughputQueueMXBean {
    */
   public double getThroughput();
 
+  /**
+   * Get the median time in nanoseconds items removed during the most recent interval spent on the queue.
+   * @return median queue time in nanoseconds
+   */
+  public long getP50WaitNanos();
+
+  /**
+   * Get the 99th percentile of the time in nanoseconds items removed during the most recent interval spent on
+   * the queue.
+   * @return 99th percentile queue time in nanoseconds
+   */
+  public long getP99WaitNanos();
+
+  /**
+   * Get the 99.9th percentile of the time in nanoseconds items removed during the most recent interval spent on
+   * the queue.
+   * @return 99.9th percentile queue time in nanoseconds
+   */
+  public long getP999WaitNanos();
+
+  /**
+   * Get the maximum time in nanoseconds an item removed during the most recent interval spent on the queue.
+   * @return maximum queue time in nanoseconds
+   */
+  public long getMaxWaitNanos();
 
 }
@@ -0,0 +1,67 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.streams.local.queues;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Strategy used by {@link org.apache.streams.local.queues.RingBufferQueue} while a blocking call waits for a slot
+ * or an element to become available.
+ * <p/>
+ * SPIN burns a core but has the lowest hand-off latency, YIELD gives the core back to the scheduler between attempts,
+ * and PARK backs off to short sleeps so that idle pipelines do not consume cpu.  SPIN should only be used when the
+ * stream has no more task threads than available cores.
+ */
+public enum WaitStrategy {
+
+  SPIN,
+  YIELD,
+  PARK;
+
+  private static final int SPIN_TRIES = 100;
+  private static final int YIELD_TRIES = 200;
+  private static final long MIN_PARK_NANOS = 1000L;
+  private static final long MAX_PARK_NANOS = 1000000L;
+
+  /**
+   * Wait before the next attempt.
+   * @param attempt number of failed attempts so far for the current call, starting at 0
+   */
+  public void idle(int attempt) {
+    switch (this) {
+      case SPIN:
+        break;
+      case YIELD:
+        if (attempt >= SPIN_TRIES) {
+          Thread.yield();
+        }
+        break;
+      case PARK:
+        if (attempt >= YIELD_TRIES) {
+          int shift = Math.min(attempt - YIELD_TRIES, 10);
+          LockSupport.parkNanos(Math.min(MIN_PARK_NANOS << shift, MAX_PARK_NANOS));
+        } else if (attempt >= SPIN_TRIES) {
+          Thread.yield();
+        }
+        break;
+      default:
+        throw new IllegalStateException("Unknown wait strategy " + this);
+    }
+  }
+
+}
@@ -20,8 +20,11 @@ package org.apache.streams.local.tasks;
 
 import org.apache.streams.config.StreamsConfiguration;
 import org.apache.streams.config.StreamsConfigurator;
+import org.apache.streams.core.DatumAcknowledgement;
 import org.apache.streams.core.StreamsDatum;
+import org.apache.streams.core.util.DatumUtils;
 import org.apache.streams.jackson.StreamsJacksonMapper;
+import org.apache.streams.local.LocalRuntimeConfiguration;
 import org.apache.streams.pojo.json.Activity;
 import org.apache.streams.util.SerializationUtil;
 
@@ -33,7 +36,6 @@ import org.slf4j.LoggerFactory;
 
 import java.io.Serializable;
 import java.util.ArrayList;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Queue;
@@ -47,10 +49,18 @@ public abstract class BaseStreamsTask implements StreamsTask {
 
   private static final Logger LOGGER = LoggerFactory.getLogger(BaseStreamsTask.class);
 
+  /**
+   * Marker queued by the runtime, after all upstream components have finished, to tell each task reading a queue that
+   * no more datums will arrive.  Compared by identity and never passed to a component.
+   */
+  public static final StreamsDatum END_OF_STREAM = new StreamsDatum("END_OF_STREAM");
+
   private List<BlockingQueue<StreamsDatum>> inQueues = new ArrayList<>();
-  private List<BlockingQueue<StreamsDatum>> outQueues = new LinkedList<>();
+  private List<BlockingQueue<StreamsDatum>> outQueues = new ArrayList<>();
   private int inIndex = 0;
   private ObjectMapper mapper;
+  private boolean shareOnFanOut;
+  private volatile boolean endOfStream;
   protected StreamsConfiguration streamConfig;
 
   public BaseStreamsTask(StreamsConfiguration config) {
@@ -61,9 +71,29 @@ public abstract class BaseStreamsTask implements StreamsTask {
     } else {
       this.streamConfig = StreamsConfigurator.detectConfiguration();
     }
+    this.shareOnFanOut = this.streamConfig instanceof LocalRuntimeConfiguration
+        && LocalRuntimeConfiguration.FanOutMode.SHARE.equals(((LocalRuntimeConfiguration) this.streamConfig).getFanOutMode());
     setStartedAt();
   }
 
+  /**
+   * Whether datums fanned out to several outgoing queues share one document, see
+   * {@link #addToOutgoingQueue(StreamsDatum)}.  Defaults to true when the stream's fanOutMode is 'share'.
+   * @return true if fanned out datums share their document
+   */
+  public boolean isShareOnFanOut() {
+    return this.shareOnFanOut;
+  }
+
+  /**
+   * Overrides the stream's fanOutMode for this task, for example to clone when a downstream component may modify
+   * documents.
+   * @param shareOnFanOut true to share documents between fanned out datums, false to clone them
+   */
+  public void setShareOnFanOut(boolean shareOnFanOut) {
+    this.shareOnFanOut = shareOnFanOut;
+  }
+
   @Override
   public void addInputQueue(BlockingQueue<StreamsDatum> inputQueue) {
     this.inQueues.add(inputQueue);
@@ -102,8 +132,10 @@ public abstract class BaseStreamsTask implements StreamsTask {
   }
 
   /**
-   * Adds a StreamDatum to the outgoing queues.  If there are multiple queues, it uses serialization to create
-   * clones of the datum and adds a new clone to each queue.
+   * Adds a StreamDatum to the outgoing queues.  If there are multiple queues, each queue receives its own copy of
+   * the datum: a deep clone, or when {@link #isShareOnFanOut()}, a branch sharing the same document with
+   * copy-on-write metadata.  Each copy carries its own share of the datum's {@link DatumAcknowledgement}, which is
+   * acknowledged once every copy has been.
    * @param datum
    */
   protected void addToOutgoingQueue(StreamsDatum datum) throws InterruptedException{
@@ -111,18 +143,132 @@ public abstract class BaseStreamsTask implements StreamsTask {
       outQueues.get(0).put(datum);
     }
     else {
-      List<BlockingQueue<StreamsDatum>> toOutput = new LinkedList<>(this.outQueues);
-      while(!toOutput.isEmpty()) {
-        for (BlockingQueue<StreamsDatum> queue : toOutput) {
-          StreamsDatum newDatum = cloneStreamsDatum(datum);
-          if (newDatum != null) {
-            if (queue.offer(newDatum, 500, TimeUnit.MILLISECONDS)) {
-              toOutput.remove(queue);
-            }
+      // taken off before cloning, serialization would lose the reader's callback
+      DatumAcknowledgement[] acknowledgements = DatumUtils.branchAcknowledgement(datum, this.outQueues.size());
+      int branch = 0;
+      for (BlockingQueue<StreamsDatum> queue : this.outQueues) {
+        StreamsDatum newDatum = this.shareOnFanOut ? DatumUtils.branchDatum(datum) : cloneStreamsDatum(datum);
+        DatumAcknowledgement acknowledgement = acknowledgements == null ? null : acknowledgements[branch++];
+        if (newDatum != null) {
+          if (acknowledgement != null) {
+            DatumUtils.setAcknowledgement(newDatum, acknowledgement);
+          }
+          queue.put(newDatum);
+        } else if (acknowledgement != null) {
+          // the failed clone has been logged, don't let it hold back the other branches
+          acknowledgement.acknowledge();
+        }
+      }
+    }
+  }
+
+  /**
+   * Adds a StreamsDatum to the outgoing queues, unless one of them is full.  A queue shared with other producers may
+   * still fill up in between the check and the put, in which case this blocks briefly like
+   * {@link #addToOutgoingQueue(StreamsDatum)}.
+   * @param datum
+   * @return true if the datum was added, false if an outgoing queue was full
+   */
+  protected boolean offerToOutgoingQueue(StreamsDatum datum) throws InterruptedException {
+    for (BlockingQueue<StreamsDatum> queue : this.outQueues) {
+      if (queue.remainingCapacity() <= 0) {
+        return false;
+      }
+    }
+    addToOutgoingQueue(datum);
+    return true;
+  }
+
+  /**
+   * Removes a batch of StreamsDatums from a queue.  Blocks up to the given timeout for the first datum, then drains
+   * whatever else is already queued.  If lingerMs is positive and the batch is not yet full, keeps waiting up to
+   * lingerMs for more datums to arrive.  {@link #END_OF_STREAM} markers are not added to the batch, see
+   * {@link #receivedEndOfStream()}.
+   * @param queue queue to remove datums from
+   * @param batch list the removed datums are appended to
+   * @param maxBatchSize max number of datums to remove
+   * @param lingerMs max time in milliseconds to wait for a partial batch to fill
+   * @param timeout how long to wait for the first datum
+   * @param unit unit of timeout
+   * @return number of datums removed, 0 if the timeout elapsed before any datum was available
+   * @throws InterruptedException
+   */
+  protected int drainBatch(BlockingQueue<StreamsDatum> queue, List<StreamsDatum> batch, int maxBatchSize, long lingerMs,
+                           long timeout, TimeUnit unit) throws InterruptedException {
+    StreamsDatum first = queue.poll(timeout, unit);
+    if(first == null) {
+      return 0;
+    }
+    int start = batch.size();
+    batch.add(first);
+    if(first != END_OF_STREAM && maxBatchSize > 1) {
+      int count = 1 + queue.drainTo(batch, maxBatchSize - 1);
+      if(lingerMs > 0) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(lingerMs);
+        long remaining;
+        while(count < maxBatchSize && batch.get(batch.size() - 1) != END_OF_STREAM
+            && (remaining = deadline - System.nanoTime()) > 0) {
+          StreamsDatum next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+          if(next == null) {
+            break;
           }
+          batch.add(next);
+          count += 1 + queue.drainTo(batch, maxBatchSize - count - 1);
         }
       }
     }
+    removeEndOfStream(queue, batch);
+    return batch.size() - start;
+  }
+
+  /**
+   * End of stream markers are queued after all data from upstream components, one per task reading the queue, so
+   * they can only appear at the end of a batch.  Each task keeps one and puts back any others it drained.
+   */
+  private void removeEndOfStream(BlockingQueue<StreamsDatum> queue, List<StreamsDatum> batch) throws InterruptedException {
+    int markers = 0;
+    while(!batch.isEmpty() && batch.get(batch.size() - 1) == END_OF_STREAM) {
+      batch.remove(batch.size() - 1);
+      ++markers;
+    }
+    if(markers > 0) {
+      this.endOfStream = true;
+      for(int i = 1; i < markers; ++i) {
+        queue.put(END_OF_STREAM);
+      }
+    }
+  }
+
+  /**
+   * Whether this task has removed an {@link #END_OF_STREAM} marker from its inbound queue, meaning all upstream
+   * components have finished and every datum for this task has been received.
+   * @return true once the end of the stream has been reached
+   */
+  public boolean receivedEndOfStream() {
+    return this.endOfStream;
+  }
+
+  /**
+   * Max number of datums handed to a batch-based processor or writer per call.
+   * @param config stream config
+   * @return configured batchSize, at least 1
+   */
+  protected int getMaxBatchSize(StreamsConfiguration config) {
+    Long batchSize = config.getBatchSize();
+    if(batchSize == null || batchSize < 1) {
+      return 1;
+    }
+    return (int) Math.min(batchSize, Integer.MAX_VALUE);
+  }
+
+  /**
+   * Max time to wait for a partial batch to fill.
+   * @param config stream config
+   * @return configured batchLingerMs, 0 if not set
+   */
+  protected long getBatchLingerMs(StreamsConfiguration config) {
+    Long lingerMs = config.getBatchLingerMs();
+    return lingerMs == null ? 0 : Math.max(lingerMs, 0);
   }
 
   @Override
@@ -158,13 +304,12 @@ public abstract class BaseStreamsTask implements StreamsTask {
     try {
 
       if(datum.document instanceof ObjectNode) {
-        return copyMetaData(datum, new StreamsDatum(((ObjectNode) datum.document).deepCopy(), datum.timestamp, datum.sequenceid));
+        return copyMetaData(datum, datum.withDocument(((ObjectNode) datum.document).deepCopy(), null));
       }
       else if(datum.document instanceof Activity) {
 
-        return copyMetaData(datum, new StreamsDatum(this.mapper.readValue(this.mapper.writeValueAsString(datum.document), Activity.class),
-            datum.timestamp,
-            datum.sequenceid));
+        return copyMetaData(datum, datum.withDocument(this.mapper.readValue(this.mapper.writeValueAsString(datum.document), Activity.class),
+            null));
       }
 //            else if(this.mapper.canSerialize(datum.document.getClass())){
 //                return new StreamsDatum(this.mapper.readValue(this.mapper.writeValueAsString(datum.document), datum.document.getClass()),
@@ -191,6 +336,9 @@ public abstract class BaseStreamsTask implements StreamsTask {
   }
 
   private StreamsDatum copyMetaData(StreamsDatum copyFrom, StreamsDatum copyTo) {
+    if(!copyFrom.hasMetadata()) {
+      return copyTo;
+    }
     Map<String, Object> fromMeta = copyFrom.getMetadata();
     Map<String, Object> toMeta = copyTo.getMetadata();
     for(String key : fromMeta.keySet()) {
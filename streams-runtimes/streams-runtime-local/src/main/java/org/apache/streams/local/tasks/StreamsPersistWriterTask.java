@@ -22,6 +22,7 @@ import org.apache.streams.config.StreamsConfiguration;
 import org.apache.streams.core.DatumStatus;
 import org.apache.streams.core.DatumStatusCountable;
 import org.apache.streams.core.DatumStatusCounter;
+import org.apache.streams.core.StreamsBatchPersistWriter;
 import org.apache.streams.core.StreamsDatum;
 import org.apache.streams.core.StreamsPersistWriter;
 import org.apache.streams.core.util.DatumUtils;
@@ -31,6 +32,7 @@ import com.google.common.util.concurrent.Uninterruptibles;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.UUID;
@@ -110,11 +112,15 @@ public class StreamsPersistWriterTask extends BaseStreamsTask implements DatumSt
       if(this.counter == null) {
         this.counter = new StreamsTaskCounter(this.writer.getClass().getName()+ UUID.randomUUID().toString(), getStreamIdentifier(), getStartedAt());
       }
+      StreamsBatchPersistWriter batchWriter = this.writer instanceof StreamsBatchPersistWriter ? (StreamsBatchPersistWriter) this.writer : null;
+      int maxBatchSize = batchWriter != null ? getMaxBatchSize(this.streamConfig) : 1;
+      long lingerMs = batchWriter != null ? getBatchLingerMs(this.streamConfig) : 0;
+      List<StreamsDatum> batch = new ArrayList<>(maxBatchSize);
       while(this.keepRunning.get()) {
-        StreamsDatum datum = null;
+        batch.clear();
         try {
           this.blocked.set(true);
-          datum = this.inQueue.poll(5, TimeUnit.SECONDS);
+          drainBatch(this.inQueue, batch, maxBatchSize, lingerMs, 5, TimeUnit.SECONDS);
         } catch (InterruptedException ie) {
           LOGGER.debug("Received InterruptedException. Shutting down and re-applying interrupt status.");
           this.keepRunning.set(false);
@@ -125,29 +131,46 @@ public class StreamsPersistWriterTask extends BaseStreamsTask implements DatumSt
         } finally {
           this.blocked.set(false);
         }
-        if(datum != null) {
-          this.counter.incrementReceivedCount();
-          try {
-            long startTime = System.currentTimeMillis();
-            this.writer.write(datum);
-            this.counter.addTime(System.currentTimeMillis() - startTime);
-            statusCounter.incrementStatus(DatumStatus.SUCCESS);
-          } catch (Exception e) {
-            LOGGER.error("Error writing to persist writer {}", this.writer.getClass().getSimpleName(), e);
-            this.keepRunning.set(false); // why do we shutdown on a failed write ?
-            statusCounter.incrementStatus(DatumStatus.FAIL);
+        if(receivedEndOfStream()) {
+          LOGGER.debug("Received end of stream at writer : {}", this.writer.getClass().getName());
+          this.keepRunning.set(false);
+        }
+        if(batch.isEmpty()) { //datums should never be null
+          LOGGER.trace("Received null StreamsDatum @ writer : {}", this.writer.getClass().getName());
+          continue;
+        }
+        this.counter.incrementReceivedCount(batch.size());
+        try {
+          long startTime = System.nanoTime();
+          if(batchWriter != null) {
+            batchWriter.write(batch);
+          } else {
+            this.writer.write(batch.get(0));
+          }
+          this.counter.addTimeNanos(System.nanoTime() - startTime);
+          statusCounter.incrementStatus(DatumStatus.SUCCESS, batch.size());
+          for(StreamsDatum datum : batch) {
+            DatumUtils.acknowledge(datum);
+          }
+        } catch (Exception e) {
+          LOGGER.error("Error writing to persist writer {}", this.writer.getClass().getSimpleName(), e);
+          this.keepRunning.set(false); // why do we shutdown on a failed write ?
+          statusCounter.incrementStatus(DatumStatus.FAIL, batch.size());
+          for(StreamsDatum datum : batch) {
             DatumUtils.addErrorToMetadata(datum, e, this.writer.getClass());
-            this.counter.incrementErrorCount();
           }
-        } else { //datums should never be null
-          LOGGER.trace("Received null StreamsDatum @ writer : {}", this.writer.getClass().getName());
+          this.counter.incrementErrorCount(batch.size());
         }
       }
-      Uninterruptibles.sleepUninterruptibly(streamConfig.getBatchFrequencyMs(), TimeUnit.MILLISECONDS);
+      if(!receivedEndOfStream()) {
+        Uninterruptibles.sleepUninterruptibly(streamConfig.getBatchFrequencyMs(), TimeUnit.MILLISECONDS);
+      }
     } catch(Throwable e) {
       LOGGER.error("Caught Throwable in Persist Writer {} : {}", this.writer.getClass().getSimpleName(), e);
     } finally {
-      Uninterruptibles.sleepUninterruptibly(streamConfig.getBatchFrequencyMs(), TimeUnit.MILLISECONDS);
+      if(!receivedEndOfStream()) {
+        Uninterruptibles.sleepUninterruptibly(streamConfig.getBatchFrequencyMs(), TimeUnit.MILLISECONDS);
+      }
       this.writer.cleanUp();
       this.isRunning.set(false);
     }
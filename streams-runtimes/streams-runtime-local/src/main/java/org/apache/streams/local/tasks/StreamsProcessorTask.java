@@ -23,6 +23,7 @@ import org.apache.streams.config.StreamsConfigurator;
 import org.apache.streams.core.DatumStatus;
 import org.apache.streams.core.DatumStatusCountable;
 import org.apache.streams.core.DatumStatusCounter;
+import org.apache.streams.core.StreamsBatchProcessor;
 import org.apache.streams.core.StreamsDatum;
 import org.apache.streams.core.StreamsProcessor;
 import org.apache.streams.core.util.DatumUtils;
@@ -31,6 +32,7 @@ import org.apache.streams.local.counters.StreamsTaskCounter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.UUID;
@@ -114,11 +116,15 @@ public class StreamsProcessorTask extends BaseStreamsTask implements DatumStatus
       if(this.counter == null) {
         this.counter = new StreamsTaskCounter(this.processor.getClass().getName()+ UUID.randomUUID().toString(), getStreamIdentifier(), getStartedAt());
       }
+      StreamsBatchProcessor batchProcessor = this.processor instanceof StreamsBatchProcessor ? (StreamsBatchProcessor) this.processor : null;
+      int maxBatchSize = batchProcessor != null ? getMaxBatchSize(this.streamConfig) : 1;
+      long lingerMs = batchProcessor != null ? getBatchLingerMs(this.streamConfig) : 0;
+      List<StreamsDatum> batch = new ArrayList<>(maxBatchSize);
       while(this.keepRunning.get()) {
-        StreamsDatum datum = null;
+        batch.clear();
         try {
           this.blocked.set(true);
-          datum = this.inQueue.poll(streamConfig.getBatchFrequencyMs(), TimeUnit.MILLISECONDS);
+          drainBatch(this.inQueue, batch, maxBatchSize, lingerMs, streamConfig.getBatchFrequencyMs(), TimeUnit.MILLISECONDS);
         } catch (InterruptedException ie) {
           LOGGER.debug("Received InteruptedException, shutting down and re-applying interrupt status.");
           this.keepRunning.set(false);
@@ -129,32 +135,16 @@ public class StreamsProcessorTask extends BaseStreamsTask implements DatumStatus
         } finally {
           this.blocked.set(false);
         }
-        if(datum != null) {
-          this.counter.incrementReceivedCount();
-          try {
-            long startTime = System.currentTimeMillis();
-            List<StreamsDatum> output = this.processor.process(datum);
-            this.counter.addTime(System.currentTimeMillis() - startTime);
-            if(output != null) {
-              for(StreamsDatum outDatum : output) {
-                super.addToOutgoingQueue(outDatum);
-                this.counter.incrementEmittedCount();
-                statusCounter.incrementStatus(DatumStatus.SUCCESS);
-              }
-            }
-          } catch (InterruptedException ie) {
-            LOGGER.warn("Received InterruptedException, shutting down and re-applying interrupt status.");
-            this.keepRunning.set(false);
-            Thread.currentThread().interrupt();
-          } catch (Throwable t) {
-            this.counter.incrementErrorCount();
-            LOGGER.warn("Caught Throwable in processor, {} : {}", this.processor.getClass().getName(), t);
-            statusCounter.incrementStatus(DatumStatus.FAIL);
-            //Add the error to the metadata, but keep processing
-            DatumUtils.addErrorToMetadata(datum, t, this.processor.getClass());
-          }
-        } else {
+        if(batch.isEmpty()) {
           LOGGER.trace("Removed NULL datum from queue at processor : {}", this.processor.getClass().getName());
+        } else if(batchProcessor != null) {
+          processBatch(batchProcessor, batch);
+        } else {
+          processDatum(batch.get(0));
+        }
+        if(receivedEndOfStream()) {
+          LOGGER.debug("Received end of stream at processor : {}", this.processor.getClass().getName());
+          this.keepRunning.set(false);
         }
       }
     } catch(Throwable e) {
@@ -165,6 +155,58 @@ public class StreamsProcessorTask extends BaseStreamsTask implements DatumStatus
     }
   }
 
+  private void processDatum(StreamsDatum datum) {
+    this.counter.incrementReceivedCount();
+    try {
+      long startTime = System.nanoTime();
+      List<StreamsDatum> output = this.processor.process(datum);
+      this.counter.addTimeNanos(System.nanoTime() - startTime);
+      emit(output);
+    } catch (InterruptedException ie) {
+      LOGGER.warn("Received InterruptedException, shutting down and re-applying interrupt status.");
+      this.keepRunning.set(false);
+      Thread.currentThread().interrupt();
+    } catch (Throwable t) {
+      this.counter.incrementErrorCount();
+      LOGGER.warn("Caught Throwable in processor, {} : {}", this.processor.getClass().getName(), t);
+      statusCounter.incrementStatus(DatumStatus.FAIL);
+      //Add the error to the metadata, but keep processing
+      DatumUtils.addErrorToMetadata(datum, t, this.processor.getClass());
+    }
+  }
+
+  private void processBatch(StreamsBatchProcessor batchProcessor, List<StreamsDatum> batch) {
+    this.counter.incrementReceivedCount(batch.size());
+    try {
+      long startTime = System.nanoTime();
+      List<StreamsDatum> output = batchProcessor.process(batch);
+      this.counter.addTimeNanos(System.nanoTime() - startTime);
+      emit(output);
+    } catch (InterruptedException ie) {
+      LOGGER.warn("Received InterruptedException, shutting down and re-applying interrupt status.");
+      this.keepRunning.set(false);
+      Thread.currentThread().interrupt();
+    } catch (Throwable t) {
+      this.counter.incrementErrorCount(batch.size());
+      LOGGER.warn("Caught Throwable in processor, {} : {}", this.processor.getClass().getName(), t);
+      statusCounter.incrementStatus(DatumStatus.FAIL, batch.size());
+      //Add the error to the metadata, but keep processing
+      for(StreamsDatum datum : batch) {
+        DatumUtils.addErrorToMetadata(datum, t, this.processor.getClass());
+      }
+    }
+  }
+
+  private void emit(List<StreamsDatum> output) throws InterruptedException {
+    if(output != null) {
+      for(StreamsDatum outDatum : output) {
+        super.addToOutgoingQueue(outDatum);
+        this.counter.incrementEmittedCount();
+        statusCounter.incrementStatus(DatumStatus.SUCCESS);
+      }
+    }
+  }
+
   @Override
   public List<BlockingQueue<StreamsDatum>> getInputQueues() {
     List<BlockingQueue<StreamsDatum>> queues = new LinkedList<BlockingQueue<StreamsDatum>>();
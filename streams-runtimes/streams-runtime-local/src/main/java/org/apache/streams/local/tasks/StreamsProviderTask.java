@@ -23,7 +23,9 @@ import org.apache.streams.core.DatumStatus;
 import org.apache.streams.core.DatumStatusCountable;
 import org.apache.streams.core.DatumStatusCounter;
 import org.apache.streams.core.StreamsDatum;
+import org.apache.streams.core.StreamsEmitter;
 import org.apache.streams.core.StreamsProvider;
+import org.apache.streams.core.StreamsPushProvider;
 import org.apache.streams.core.StreamsResultSet;
 import org.apache.streams.core.util.DatumUtils;
 import org.apache.streams.local.counters.StreamsTaskCounter;
@@ -37,6 +39,7 @@ import java.math.BigInteger;
 import java.util.Queue;
 import java.util.UUID;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 
@@ -60,11 +63,14 @@ public class StreamsProviderTask extends BaseStreamsTask implements DatumStatusC
 
   private static final int START = 0;
   private static final int END = 1;
+  private static final long PUSH_CHECK_INTERVAL_MS = 100;
 
   private StreamsProvider provider;
   private final AtomicBoolean keepRunning = new AtomicBoolean(true);
   private final AtomicBoolean flushing = new AtomicBoolean(false);
   private final AtomicBoolean started = new AtomicBoolean(false);
+  private final CountDownLatch stopped = new CountDownLatch(1);
+  private volatile long lastEmitted;
   private Type type;
   private BigInteger sequence;
   private DateTime[] dateRange;
@@ -140,6 +146,7 @@ public class StreamsProviderTask extends BaseStreamsTask implements DatumStatusC
   public void stopTask() {
     LOGGER.debug("Stopping Provider Task for {}", this.provider.getClass().getSimpleName());
     this.keepRunning.set(false);
+    this.stopped.countDown();
   }
 
   @Override
@@ -165,13 +172,17 @@ public class StreamsProviderTask extends BaseStreamsTask implements DatumStatusC
       }
       switch(this.type) {
         case PERPETUAL: {
+          if(this.provider instanceof StreamsPushProvider) {
+            runPushProvider((StreamsPushProvider) this.provider);
+            break;
+          }
           provider.startStream();
           this.started.set(true);
           while(this.isRunning()) {
             try {
-              long startTime = System.currentTimeMillis();
+              long startTime = System.nanoTime();
               resultSet = provider.readCurrent();
-              this.counter.addTime(System.currentTimeMillis() - startTime);
+              this.counter.addTimeNanos(System.nanoTime() - startTime);
               if( resultSet.size() == 0 )
                 zeros++;
               else {
@@ -189,7 +200,6 @@ public class StreamsProviderTask extends BaseStreamsTask implements DatumStatusC
               this.keepRunning.set(false);
             }
           }
-          Uninterruptibles.sleepUninterruptibly(sleepTime, TimeUnit.MILLISECONDS);
         }
         break;
         case READ_CURRENT:
@@ -212,7 +222,6 @@ public class StreamsProviderTask extends BaseStreamsTask implements DatumStatusC
     } catch(Throwable e) {
       LOGGER.error("Caught Throwable in Provider {}", this.provider.getClass().getSimpleName(), e);
     }  finally {
-      Uninterruptibles.sleepUninterruptibly(sleepTime, TimeUnit.MILLISECONDS);
       LOGGER.debug("Complete Provider Task execution for {}", this.provider.getClass().getSimpleName());
       this.provider.cleanUp();
       //Setting started to 'true' here will allow the isRunning() method to return false in the event of an exception
@@ -231,6 +240,24 @@ public class StreamsProviderTask extends BaseStreamsTask implements DatumStatusC
     return !this.started.get() || this.flushing.get() || (this.provider.isRunning() && this.keepRunning.get());
   }
 
+  /**
+   * Lets a {@link org.apache.streams.core.StreamsPushProvider} emit directly to the outbound queues, then waits for it
+   * to finish.  Like the polling loop, gives up once nothing has been emitted for longer than the provider timeout.
+   * @param pushProvider provider to start
+   * @throws InterruptedException
+   */
+  private void runPushProvider(StreamsPushProvider pushProvider) throws InterruptedException {
+    this.lastEmitted = System.currentTimeMillis();
+    pushProvider.startStream(new ProviderTaskEmitter());
+    this.started.set(true);
+    while(this.isRunning()) {
+      this.stopped.await(Math.min(sleepTime, PUSH_CHECK_INTERVAL_MS), TimeUnit.MILLISECONDS);
+      if(timeout >= 0 && System.currentTimeMillis() - this.lastEmitted > timeout) {
+        this.keepRunning.set(false);
+      }
+    }
+  }
+
   public void flushResults(StreamsResultSet resultSet) {
     Queue<StreamsDatum> queue = resultSet.getQueue();
     this.flushing.set(true);
@@ -259,5 +286,66 @@ public class StreamsProviderTask extends BaseStreamsTask implements DatumStatusC
     this.counter = counter;
   }
 
+  /**
+   * {@link org.apache.streams.core.StreamsEmitter} handed to push providers, writes to the outbound queues of this
+   * task.
+   */
+  private class ProviderTaskEmitter implements StreamsEmitter {
+
+    @Override
+    public boolean offer(StreamsDatum datum) {
+      if(!isActive()) {
+        return false;
+      }
+      try {
+        if(!offerToOutgoingQueue(datum)) {
+          return false;
+        }
+      } catch (InterruptedException ie) {
+        Thread.currentThread().interrupt();
+        return false;
+      } catch (Exception e) {
+        failed(datum, e);
+        return false;
+      }
+      emitted();
+      return true;
+    }
+
+    @Override
+    public boolean emit(StreamsDatum datum) throws InterruptedException {
+      if(!isActive()) {
+        return false;
+      }
+      try {
+        addToOutgoingQueue(datum);
+      } catch (InterruptedException ie) {
+        throw ie;
+      } catch (Exception e) {
+        failed(datum, e);
+        return false;
+      }
+      emitted();
+      return true;
+    }
+
+    @Override
+    public boolean isActive() {
+      return keepRunning.get();
+    }
+
+    private void emitted() {
+      lastEmitted = System.currentTimeMillis();
+      counter.incrementEmittedCount();
+      statusCounter.incrementStatus(DatumStatus.SUCCESS);
+    }
+
+    private void failed(StreamsDatum datum, Exception e) {
+      counter.incrementErrorCount();
+      statusCounter.incrementStatus(DatumStatus.FAIL);
+      DatumUtils.addErrorToMetadata(datum, e, provider.getClass());
+    }
+  }
+
 
 }
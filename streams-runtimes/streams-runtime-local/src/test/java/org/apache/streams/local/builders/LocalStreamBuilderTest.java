@@ -22,8 +22,10 @@ import org.apache.streams.core.StreamBuilder;
 import org.apache.streams.core.StreamsDatum;
 import org.apache.streams.core.StreamsPersistWriter;
 import org.apache.streams.core.StreamsProcessor;
+import org.apache.streams.local.LocalRuntimeConfiguration;
 import org.apache.streams.local.counters.StreamsTaskCounter;
 import org.apache.streams.local.queues.ThroughputQueue;
+import org.apache.streams.local.tasks.BaseStreamsTask;
 import org.apache.streams.local.test.processors.PassthroughDatumCounterProcessor;
 import org.apache.streams.local.test.processors.SlowProcessor;
 import org.apache.streams.local.test.providers.EmptyResultSetProvider;
@@ -54,6 +56,7 @@ import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import javax.management.InstanceNotFoundException;
@@ -280,6 +283,39 @@ public class LocalStreamBuilderTest extends RandomizedTest {
     }
   }
 
+  @Test
+  public void testShareOnlyWithReadOnlyDownStream() {
+    LocalRuntimeConfiguration config = new LocalRuntimeConfiguration();
+    config.setFanOutMode(LocalRuntimeConfiguration.FanOutMode.SHARE);
+    StreamComponent prov = new StreamComponent("prov1", new NumericMessageProvider(1), false, config);
+    StreamComponent proc1 = new StreamComponent("proc1", new PassthroughDatumCounterProcessor("proc1"), new LinkedBlockingQueue<>(), 1, config);
+    StreamComponent proc2 = new StreamComponent("proc2", new PassthroughDatumCounterProcessor("proc2"), new LinkedBlockingQueue<>(), 1, config);
+    prov.addOutBoundQueue(proc1, proc1.getInBoundQueue());
+    prov.addOutBoundQueue(proc2, proc2.getInBoundQueue());
+    Assert.assertTrue(prov.isReadOnlyDownStream());
+    Assert.assertTrue(((BaseStreamsTask) prov.createConnectedTask(0)).isShareOnFanOut());
+
+    StreamComponent writer = new StreamComponent("w1", new SystemOutWriter(), new LinkedBlockingQueue<>(), 1, config);
+    proc2.addOutBoundQueue(writer, writer.getInBoundQueue());
+    Assert.assertFalse(prov.isReadOnlyDownStream());
+    Assert.assertFalse(((BaseStreamsTask) prov.createConnectedTask(0)).isShareOnFanOut());
+  }
+
+  @Test(timeout = 10000)
+  public void testEndOfStreamSignalAbandonedWhenTasksFinished() {
+    LocalRuntimeConfiguration config = new LocalRuntimeConfiguration();
+    config.setShutdownCheckInterval(10L);
+    LinkedBlockingQueue<StreamsDatum> full = new LinkedBlockingQueue<>(1);
+    full.add(new StreamsDatum(1));
+    StreamComponent writer = new StreamComponent("w1", new SystemOutWriter(), full, 1, config);
+    Assert.assertTrue(writer.isRunning());
+    writer.taskFinished();
+    Assert.assertFalse(writer.isRunning());
+    writer.signalEndOfStream();
+    Assert.assertEquals(1, full.size());
+    Assert.assertTrue(writer.getCompletion().isDone());
+  }
+
   @Test
   public void testSlowProcessorBranch() {
     try {
@@ -325,6 +361,25 @@ public class LocalStreamBuilderTest extends RandomizedTest {
     }
   }
 
+  @Test
+  public void testBoundedStreamCompletesPromptly() {
+    try {
+      int numDatums = randomIntBetween(1, 1000);
+      long start = System.currentTimeMillis();
+      StreamBuilder builder = new LocalStreamBuilder();
+      builder.newReadCurrentStream("prov1", new NumericMessageProvider(numDatums))
+          .addStreamsProcessor("proc1", new PassthroughDatumCounterProcessor("proc1"), randomIntBetween(1, 4), "prov1")
+          .addStreamsPersistWriter("w1", new DatumCounterWriter("writer"), randomIntBetween(1, 4), "proc1");
+      builder.start();
+      long end = System.currentTimeMillis();
+      Assert.assertEquals(numDatums, DatumCounterWriter.COUNTS.get("writer").get());
+      //the end of stream marker completes every component once the writer drains, rather than after the shutdown delays
+      Assert.assertThat((int) (end - start), is(lessThanOrEqualTo(4000)));
+    } finally {
+      removeRegisteredMBeans("prov1", "proc1", "w1");
+    }
+  }
+
   @Ignore
   @Test
   public void ensureShutdownWithBlockedQueue() throws InterruptedException {
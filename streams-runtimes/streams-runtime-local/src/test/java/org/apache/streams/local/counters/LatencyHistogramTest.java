@@ -0,0 +1,126 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.streams.local.counters;
+
+import com.carrotsearch.randomizedtesting.RandomizedTest;
+import com.carrotsearch.randomizedtesting.annotations.Repeat;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Unit tests for {@link org.apache.streams.local.counters.LatencyHistogram}
+ */
+public class LatencyHistogramTest extends RandomizedTest {
+
+  /**
+   * Test that every value falls in a bucket whose upper bound is within the histogram's precision.
+   */
+  @Test
+  @Repeat(iterations = 3)
+  public void testBucketPrecision() {
+    for (int i = 0; i < 10000; ++i) {
+      long value = randomLongBetween(0, TimeUnit.HOURS.toNanos(1));
+      long upper = LatencyHistogram.highestEquivalentValue(LatencyHistogram.bucketIndex(value));
+      Assert.assertTrue(upper >= value);
+      Assert.assertTrue(upper - value <= value / 16);
+    }
+  }
+
+  /**
+   * Test that count, mean, max and percentiles match the recorded values.
+   */
+  @Test
+  @Repeat(iterations = 3)
+  public void testSnapshot() {
+    LatencyHistogram histogram = new LatencyHistogram();
+    int count = randomIntBetween(1, 10000);
+    long[] values = new long[count];
+    long total = 0;
+    for (int i = 0; i < count; ++i) {
+      values[i] = randomLongBetween(1, TimeUnit.SECONDS.toNanos(1));
+      total += values[i];
+      histogram.record(values[i]);
+    }
+    Arrays.sort(values);
+    LatencyHistogram.Snapshot snapshot = histogram.getSnapshot();
+    Assert.assertEquals(count, snapshot.getCount());
+    Assert.assertEquals((double) total / count, snapshot.getMean(), 1.0);
+    Assert.assertEquals(values[count - 1], snapshot.getMax());
+    long median = values[(int) Math.ceil(count * 0.5) - 1];
+    long p50 = snapshot.getValueAtPercentile(50.0);
+    Assert.assertTrue(p50 >= median && p50 - median <= median / 16);
+    Assert.assertTrue(snapshot.getValueAtPercentile(100.0) >= values[count - 1]);
+  }
+
+  /**
+   * Test that interval snapshots only cover values recorded since the previous interval.
+   */
+  @Test
+  public void testIntervalSnapshot() {
+    LatencyHistogram histogram = new LatencyHistogram(0);
+    histogram.record(TimeUnit.MILLISECONDS.toNanos(5));
+    LatencyHistogram.Snapshot first = histogram.getIntervalSnapshot();
+    Assert.assertEquals(1, first.getCount());
+    Assert.assertEquals(TimeUnit.MILLISECONDS.toNanos(5), first.getMax());
+    histogram.record(100);
+    histogram.record(200);
+    LatencyHistogram.Snapshot second = histogram.getIntervalSnapshot();
+    Assert.assertEquals(2, second.getCount());
+    Assert.assertEquals(200, second.getMax());
+    Assert.assertEquals(0, histogram.getIntervalSnapshot().getCount());
+    Assert.assertEquals(3, histogram.getSnapshot().getCount());
+  }
+
+  /**
+   * Test that concurrent recording does not lose values.
+   * @throws Exception
+   */
+  @Test
+  public void testConcurrentRecording() throws Exception {
+    final LatencyHistogram histogram = new LatencyHistogram();
+    final int threads = randomIntBetween(2, 8);
+    final int perThread = randomIntBetween(1, 100000);
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    try {
+      List<Future<?>> futures = new ArrayList<>();
+      for (int t = 0; t < threads; ++t) {
+        futures.add(executor.submit(() -> {
+          for (int i = 0; i < perThread; ++i) {
+            histogram.record(i);
+          }
+        }));
+      }
+      for (Future<?> future : futures) {
+        future.get(60, TimeUnit.SECONDS);
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+    Assert.assertEquals((long) threads * perThread, histogram.getSnapshot().getCount());
+    Assert.assertEquals(perThread - 1, histogram.getSnapshot().getMax());
+  }
+
+}
@@ -0,0 +1,183 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.streams.local.queues;
+
+import org.apache.streams.util.ComponentUtils;
+
+import com.carrotsearch.randomizedtesting.RandomizedTest;
+import com.carrotsearch.randomizedtesting.annotations.Repeat;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Unit tests for {@link org.apache.streams.local.queues.RingBufferQueue} and ring buffer backed
+ * {@link org.apache.streams.local.queues.ThroughputQueue}s.
+ */
+public class RingBufferQueueTest extends RandomizedTest {
+
+  @After
+  public void removeLocalMBeans() {
+    try {
+      ComponentUtils.removeAllMBeansOfDomain("org.apache.streams.local");
+    } catch (Exception e) {
+      //No op.  proceed to next test
+    }
+  }
+
+  /**
+   * Test that capacity is rounded to a power of two and offers fail once the ring is full.
+   */
+  @Test
+  public void testBoundedOfferAndPoll() {
+    RingBufferQueue<Integer> queue = new RingBufferQueue<>(5, WaitStrategy.SPIN);
+    Assert.assertEquals(8, queue.capacity());
+    for (int i = 0; i < 8; ++i) {
+      Assert.assertTrue(queue.offer(i));
+    }
+    Assert.assertFalse(queue.offer(8));
+    Assert.assertEquals(8, queue.size());
+    Assert.assertEquals(0, queue.remainingCapacity());
+    Assert.assertEquals(0, queue.peek().intValue());
+    for (int i = 0; i < 8; ++i) {
+      Assert.assertEquals(i, queue.poll().intValue());
+    }
+    Assert.assertNull(queue.poll());
+    Assert.assertTrue(queue.isEmpty());
+  }
+
+  /**
+   * Test that timed calls give up once the timeout elapses.
+   * @throws Exception
+   */
+  @Test
+  public void testTimedCallsExpire() throws Exception {
+    RingBufferQueue<Integer> queue = new RingBufferQueue<>(1, WaitStrategy.PARK);
+    Assert.assertNull(queue.poll(10, TimeUnit.MILLISECONDS));
+    Assert.assertTrue(queue.offer(1, 10, TimeUnit.MILLISECONDS));
+    Assert.assertFalse(queue.offer(2, 10, TimeUnit.MILLISECONDS));
+  }
+
+  /**
+   * Test that a blocked take responds to interruption, which the local runtime relies on during shutdown.
+   * @throws Exception
+   */
+  @Test
+  public void testTakeIsInterruptible() throws Exception {
+    RingBufferQueue<Integer> queue = new RingBufferQueue<>(4, WaitStrategy.PARK);
+    CountDownLatch interrupted = new CountDownLatch(1);
+    Thread consumer = new Thread(() -> {
+      try {
+        queue.take();
+      } catch (InterruptedException ie) {
+        interrupted.countDown();
+      }
+    });
+    consumer.start();
+    consumer.interrupt();
+    Assert.assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+  }
+
+  /**
+   * Test that multiple producers and consumers hand off every element exactly once.
+   * @throws Exception
+   */
+  @Test
+  @Repeat(iterations = 3)
+  public void testMultipleProducersAndConsumers() throws Exception {
+    //SPIN is excluded, as producers and consumers may outnumber the available cores
+    final WaitStrategy waitStrategy = randomFrom(new WaitStrategy[] {WaitStrategy.YIELD, WaitStrategy.PARK});
+    final RingBufferQueue<Integer> queue = new RingBufferQueue<>(randomIntBetween(1, 64), waitStrategy);
+    final int producers = randomIntBetween(1, 4);
+    final int consumers = randomIntBetween(1, 4);
+    final int perProducer = randomIntBetween(1, 5000);
+    final int total = producers * perProducer;
+    final ConcurrentHashMap<Integer, Boolean> seen = new ConcurrentHashMap<>();
+    final AtomicInteger taken = new AtomicInteger();
+    ExecutorService executor = Executors.newFixedThreadPool(producers + consumers);
+    try {
+      for (int p = 0; p < producers; ++p) {
+        final int offset = p * perProducer;
+        executor.submit(() -> {
+          for (int i = 0; i < perProducer; ++i) {
+            queue.put(offset + i);
+          }
+          return null;
+        });
+      }
+      List<Future<?>> consumerFutures = new ArrayList<>();
+      for (int c = 0; c < consumers; ++c) {
+        consumerFutures.add(executor.submit(() -> {
+          while (taken.get() < total) {
+            Integer element = queue.poll(10, TimeUnit.MILLISECONDS);
+            if (element != null) {
+              Assert.assertNull(seen.put(element, Boolean.TRUE));
+              taken.incrementAndGet();
+            }
+          }
+          return null;
+        }));
+      }
+      for (Future<?> future : consumerFutures) {
+        future.get(60, TimeUnit.SECONDS);
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+    Assert.assertEquals(total, seen.size());
+    Assert.assertTrue(queue.isEmpty());
+  }
+
+  /**
+   * Test that a ring buffer backed ThroughputQueue reports the same measurements as the linked implementation.
+   * @throws Exception
+   */
+  @Test
+  public void testThroughputQueueMeasurements() throws Exception {
+    ThroughputQueue<Integer> queue = new ThroughputQueue<>(100, null, "test_stream", -1, WaitStrategy.YIELD);
+    int putCount = randomIntBetween(1, 100);
+    for (int i = 0; i < putCount; ++i) {
+      queue.put(i);
+    }
+    Assert.assertEquals(putCount, queue.size());
+    Assert.assertEquals(queue.size(), queue.getCurrentSize());
+    safeSleep(100); //ensure measurable wait time
+    Assert.assertTrue(0 < queue.getMaxWait());
+    int takeCount = randomIntBetween(1, putCount);
+    for (int i = 0; i < takeCount; ++i) {
+      Assert.assertEquals(i, queue.take().intValue());
+    }
+    Assert.assertEquals(putCount - takeCount, queue.size());
+    Assert.assertEquals(putCount, queue.getAdded());
+    Assert.assertEquals(takeCount, queue.getRemoved());
+    Assert.assertTrue(0.0 < queue.getAvgWait());
+    Assert.assertTrue(0 < queue.getMaxWait());
+    Assert.assertTrue(0.0 < queue.getThroughput());
+  }
+
+}
@@ -18,10 +18,16 @@
 
 package org.apache.streams.local.tasks;
 
+import org.apache.streams.config.StreamsConfiguration;
+import org.apache.streams.config.StreamsConfigurator;
 import org.apache.streams.core.StreamsDatum;
+import org.apache.streams.core.util.DatumUtils;
+import org.apache.streams.local.LocalRuntimeConfiguration;
 import org.apache.streams.local.counters.StreamsTaskCounter;
 import org.apache.streams.local.test.processors.PassthroughDatumCounterProcessor;
 import org.apache.streams.local.test.providers.NumericMessageProvider;
+import org.apache.streams.local.test.providers.NumericMessagePushProvider;
+import org.apache.streams.local.test.writer.BatchDatumCounterWriter;
 import org.apache.streams.local.test.writer.DatumCounterWriter;
 import org.apache.streams.util.ComponentUtils;
 
@@ -29,15 +35,21 @@ import com.google.common.util.concurrent.Uninterruptibles;
 import org.junit.After;
 import org.junit.Test;
 
+import java.util.Collections;
+import java.util.Map;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
@@ -95,6 +107,36 @@ public class BasicTasksTest {
     }
   }
 
+  @Test
+  public void testPushProviderTask() {
+    int numMessages = 1000;
+    NumericMessagePushProvider provider = new NumericMessagePushProvider(numMessages);
+    StreamsProviderTask task = new StreamsProviderTask(provider, true, null);
+    //smaller than numMessages, so the provider has to wait on the consumer
+    BlockingQueue<StreamsDatum> outQueue = new LinkedBlockingQueue<>(10);
+    task.addOutputQueue(outQueue);
+    ExecutorService service = Executors.newFixedThreadPool(1);
+    service.submit(task);
+    int received = 0;
+    try {
+      while(received < numMessages) {
+        StreamsDatum datum = outQueue.poll(5, TimeUnit.SECONDS);
+        assertNotNull("Push provider task failed to output "+numMessages+" in a timely fashion.", datum);
+        assertEquals(received, datum.getDocument());
+        ++received;
+      }
+      service.shutdown();
+      if(!service.awaitTermination(10, TimeUnit.SECONDS)){
+        service.shutdownNow();
+        fail("Service did not terminate.");
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    assertTrue(provider.wasPushed());
+    assertFalse(task.isRunning());
+  }
+
   @Test
   public void testProcessorTask() {
     int numMessages = 100;
@@ -144,6 +186,10 @@ public class BasicTasksTest {
     task.setStreamsTaskCounter(counter);
     BlockingQueue<StreamsDatum> outQueue = new LinkedBlockingQueue<>();
     BlockingQueue<StreamsDatum> inQueue = createInputQueue(numMessages);
+    AtomicInteger acknowledged = new AtomicInteger();
+    for(StreamsDatum datum : inQueue) {
+      DatumUtils.setAcknowledgement(datum, acknowledged::incrementAndGet);
+    }
 
     Exception exp = null;
     try {
@@ -176,12 +222,53 @@ public class BasicTasksTest {
       fail("Test Interrupted.");
     }
     assertEquals(numMessages, writer.getDatumsCounted());
+    assertEquals(numMessages, acknowledged.get());
     assertEquals(numMessages, counter.getNumReceived());
     assertEquals(0, counter.getNumEmitted());
     assertEquals(0, counter.getNumUnhandledErrors());
     assertEquals(0.0, counter.getErrorRate(), 0.0);
   }
 
+  @Test
+  public void testBatchWriterTask() {
+    int numMessages = 100;
+    StreamsConfiguration config = StreamsConfigurator.detectConfiguration();
+    config.setBatchSize(10L);
+    config.setBatchFrequencyMs(500L);
+    BatchDatumCounterWriter writer = new BatchDatumCounterWriter();
+    StreamsPersistWriterTask task = new StreamsPersistWriterTask(writer, config);
+    StreamsTaskCounter counter = new StreamsTaskCounter(MBEAN_ID, null, -1);
+    task.setStreamsTaskCounter(counter);
+    BlockingQueue<StreamsDatum> inQueue = createInputQueue(numMessages);
+    task.addInputQueue(inQueue);
+    ExecutorService service = Executors.newFixedThreadPool(1);
+    service.submit(task);
+    int attempts = 0;
+    while(inQueue.size() != 0 ) {
+      Uninterruptibles.sleepUninterruptibly(500, TimeUnit.MILLISECONDS);
+      ++attempts;
+      if(attempts == 10) {
+        fail("Writer task failed to write "+numMessages+" in a timely fashion.");
+      }
+    }
+    task.stopTask();
+    service.shutdown();
+    try {
+      if(!service.awaitTermination(15, TimeUnit.SECONDS)){
+        service.shutdownNow();
+        fail("Service did not terminate.");
+      }
+      assertTrue("Task should have completed running in allotted time.", service.isTerminated());
+    } catch (InterruptedException e) {
+      fail("Test Interrupted.");
+    }
+    assertEquals(numMessages, writer.getDatumsCounted());
+    assertEquals(numMessages / 10, writer.getBatchesCounted());
+    assertEquals(10, writer.getMaxBatchSize());
+    assertEquals(numMessages, counter.getNumReceived());
+    assertEquals(0, counter.getNumUnhandledErrors());
+  }
+
   @Test
   public void testMergeTask() {
     int numMessages = 100;
@@ -298,6 +385,94 @@ public class BasicTasksTest {
     assertNotEquals(datum1, datum2);
   }
 
+  @Test
+  public void testBranchingShared() {
+    int numMessages = 1;
+    LocalRuntimeConfiguration config = new LocalRuntimeConfiguration();
+    config.setBatchFrequencyMs(500L);
+    config.setFanOutMode(LocalRuntimeConfiguration.FanOutMode.SHARE);
+    PassthroughDatumCounterProcessor processor = new PassthroughDatumCounterProcessor("");
+    StreamsProcessorTask task = new StreamsProcessorTask(processor, config);
+    BlockingQueue<StreamsDatum> outQueue1 = new LinkedBlockingQueue<>();
+    BlockingQueue<StreamsDatum> outQueue2 = new LinkedBlockingQueue<>();
+    BlockingQueue<StreamsDatum> inQueue = createInputQueue(numMessages);
+    inQueue.peek().getMetadata().put("origin", "input");
+    task.addOutputQueue(outQueue1);
+    task.addOutputQueue(outQueue2);
+    task.addInputQueue(inQueue);
+    ExecutorService service = Executors.newFixedThreadPool(1);
+    service.submit(task);
+    int attempts = 0;
+    while(inQueue.size() != 0 ) {
+      Uninterruptibles.sleepUninterruptibly(500, TimeUnit.MILLISECONDS);
+      ++attempts;
+      if(attempts == 10) {
+        assertEquals("Processor task failed to output "+(numMessages)+" in a timely fashion.", 0, inQueue.size());
+      }
+    }
+    task.stopTask();
+
+    service.shutdown();
+    try {
+      if(!service.awaitTermination(5, TimeUnit.SECONDS)){
+        service.shutdownNow();
+        fail("Service did not terminate.");
+      }
+      assertTrue("Task should have completed running in allotted time.", service.isTerminated());
+    } catch (InterruptedException e) {
+      fail("Test Interrupted.");
+    }
+    assertEquals(numMessages, outQueue1.size());
+    assertEquals(numMessages, outQueue2.size());
+    StreamsDatum datum1 = outQueue1.poll();
+    StreamsDatum datum2 = outQueue2.poll();
+    assertNotNull(datum1);
+    assertNotSame(datum1, datum2);
+    assertSame(datum1.getDocument(), datum2.getDocument());
+    assertEquals("input", datum1.getMetadata().get("origin"));
+    datum1.getMetadata().put("origin", "branch1");
+    assertEquals("input", datum2.getMetadata().get("origin"));
+    datum1.setDocument("a");
+    assertNotEquals(datum1, datum2);
+  }
+
+  @Test
+  public void testBranchingAcknowledgement() throws Exception {
+    StreamsProcessorTask task = new StreamsProcessorTask(new PassthroughDatumCounterProcessor(""));
+    BlockingQueue<StreamsDatum> outQueue1 = new LinkedBlockingQueue<>();
+    BlockingQueue<StreamsDatum> outQueue2 = new LinkedBlockingQueue<>();
+    task.addOutputQueue(outQueue1);
+    task.addOutputQueue(outQueue2);
+    AtomicInteger acknowledged = new AtomicInteger();
+    StreamsDatum datum = new StreamsDatum(1);
+    DatumUtils.setAcknowledgement(datum, acknowledged::incrementAndGet);
+    task.addToOutgoingQueue(datum);
+
+    StreamsDatum datum1 = outQueue1.poll();
+    StreamsDatum datum2 = outQueue2.poll();
+    assertNotNull(datum1);
+    assertNotNull(datum2);
+    DatumUtils.acknowledge(datum1);
+    DatumUtils.acknowledge(datum1);
+    assertEquals(0, acknowledged.get());
+    DatumUtils.acknowledge(datum2);
+    assertEquals(1, acknowledged.get());
+  }
+
+  @Test
+  public void testStorableMetadataLeavesOutAcknowledgement() throws Exception {
+    AtomicInteger acknowledged = new AtomicInteger();
+    StreamsDatum datum = new StreamsDatum(1);
+    datum.getMetadata().put("origin", "input");
+    DatumUtils.setAcknowledgement(datum, acknowledged::incrementAndGet);
+
+    Map<String, Object> storable = DatumUtils.getStorableMetadata(datum);
+    assertEquals(Collections.singletonMap("origin", "input"), storable);
+    assertNotNull(DatumUtils.getAcknowledgement(datum));
+    DatumUtils.acknowledge(datum);
+    assertEquals(1, acknowledged.get());
+  }
+
   private BlockingQueue<StreamsDatum> createInputQueue(int numDatums) {
     BlockingQueue<StreamsDatum> queue = new LinkedBlockingQueue<>();
     for(int i=0; i < numDatums; ++i) {
@@ -20,6 +20,7 @@ package org.apache.streams.local.test.processors;
 
 import org.apache.streams.core.StreamsDatum;
 import org.apache.streams.core.StreamsProcessor;
+import org.apache.streams.core.StreamsReadOnlyOperation;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -35,7 +36,7 @@ import java.util.concurrent.atomic.AtomicLong;
 /**
  *
  */
-public class PassthroughDatumCounterProcessor implements StreamsProcessor {
+public class PassthroughDatumCounterProcessor implements StreamsProcessor, StreamsReadOnlyOperation {
 
   private final static Logger LOGGER = LoggerFactory.getLogger(PassthroughDatumCounterProcessor.class);
 
@@ -0,0 +1,116 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.streams.local.test.providers;
+
+import org.apache.streams.core.StreamsDatum;
+import org.apache.streams.core.StreamsEmitter;
+import org.apache.streams.core.StreamsPushProvider;
+import org.apache.streams.core.StreamsResultSet;
+
+import org.joda.time.DateTime;
+
+import java.math.BigInteger;
+import java.util.Queue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * Test StreamsPushProvider that emits StreamsDatums numbered from 0 to numMessages from its own thread.
+ */
+public class NumericMessagePushProvider implements StreamsPushProvider {
+
+  @Override
+  public String getId() {
+    return "NumericMessagePushProvider";
+  }
+
+  private int numMessages;
+  private Thread pusher;
+  private volatile boolean complete = false;
+  private volatile boolean pushed = false;
+
+  public NumericMessagePushProvider(int numMessages) {
+    this.numMessages = numMessages;
+  }
+
+  /**
+   * Whether the datums were emitted through {@link #startStream(StreamsEmitter)}.
+   * @return true if the runtime pushed
+   */
+  public boolean wasPushed() {
+    return this.pushed;
+  }
+
+  @Override
+  public void startStream(StreamsEmitter emitter) {
+    this.pushed = true;
+    this.pusher = new Thread(() -> {
+      try {
+        for (int i = 0; i < numMessages && emitter.isActive(); ++i) {
+          emitter.emit(new StreamsDatum(i));
+        }
+      } catch (InterruptedException ie) {
+        Thread.currentThread().interrupt();
+      } finally {
+        this.complete = true;
+      }
+    });
+    this.pusher.start();
+  }
+
+  @Override
+  public void startStream() {
+  }
+
+  @Override
+  public StreamsResultSet readCurrent() {
+    StreamsResultSet resultSet = readRange(null, null);
+    this.complete = true;
+    return resultSet;
+  }
+
+  @Override
+  public StreamsResultSet readNew(BigInteger sequence) {
+    return readRange(null, null);
+  }
+
+  @Override
+  public StreamsResultSet readRange(DateTime start, DateTime end) {
+    Queue<StreamsDatum> datums = new LinkedBlockingQueue<>();
+    for (int i = 0; i < numMessages; i++) {
+      datums.add(new StreamsDatum(i));
+    }
+    return new StreamsResultSet(datums);
+  }
+
+  @Override
+  public boolean isRunning() {
+    return !this.complete;
+  }
+
+  @Override
+  public void prepare(Object configurationObject) {
+  }
+
+  @Override
+  public void cleanUp() {
+    if (this.pusher != null) {
+      this.pusher.interrupt();
+    }
+  }
+}
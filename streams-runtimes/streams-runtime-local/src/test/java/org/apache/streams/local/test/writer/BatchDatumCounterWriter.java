@@ -0,0 +1,73 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.streams.local.test.writer;
+
+import org.apache.streams.core.StreamsBatchPersistWriter;
+import org.apache.streams.core.StreamsDatum;
+
+import java.util.List;
+
+/**
+ * Counts datums and the batches they were delivered in.
+ */
+public class BatchDatumCounterWriter implements StreamsBatchPersistWriter {
+
+  private int datums = 0;
+  private int batches = 0;
+  private int maxBatchSize = 0;
+
+  @Override
+  public String getId() {
+    return "BatchDatumCounterWriter";
+  }
+
+  @Override
+  public void write(StreamsDatum entry) {
+    ++this.datums;
+  }
+
+  @Override
+  public void write(List<StreamsDatum> entries) {
+    this.datums += entries.size();
+    ++this.batches;
+    this.maxBatchSize = Math.max(this.maxBatchSize, entries.size());
+  }
+
+  @Override
+  public void prepare(Object configurationObject) {
+
+  }
+
+  @Override
+  public void cleanUp() {
+
+  }
+
+  public int getDatumsCounted() {
+    return this.datums;
+  }
+
+  public int getBatchesCounted() {
+    return this.batches;
+  }
+
+  public int getMaxBatchSize() {
+    return this.maxBatchSize;
+  }
+}
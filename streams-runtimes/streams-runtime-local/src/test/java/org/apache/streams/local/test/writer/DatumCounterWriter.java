@@ -20,6 +20,7 @@ package org.apache.streams.local.test.writer;
 
 import org.apache.streams.core.StreamsDatum;
 import org.apache.streams.core.StreamsPersistWriter;
+import org.apache.streams.core.StreamsReadOnlyOperation;
 
 import java.util.Collections;
 import java.util.HashSet;
@@ -33,7 +34,7 @@ import java.util.concurrent.atomic.AtomicLong;
 /**
  *
  */
-public class DatumCounterWriter implements StreamsPersistWriter{
+public class DatumCounterWriter implements StreamsPersistWriter, StreamsReadOnlyOperation {
 
   @Override
   public String getId() {
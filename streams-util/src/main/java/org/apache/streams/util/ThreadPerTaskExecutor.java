@@ -0,0 +1,160 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.streams.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ExecutorService that starts a new thread for every task instead of keeping a pool, meant for virtual threads, which
+ * are cheap to create and should not be pooled.
+ * <p/>
+ * At most maxConcurrent tasks run at once; execute blocks until one finishes rather than queueing more.  Nothing is
+ * ever queued, so {@link #shutdownNow()} interrupts the running tasks and returns an empty list.
+ */
+public class ThreadPerTaskExecutor extends AbstractExecutorService {
+
+  private final ThreadFactory threadFactory;
+  private final Semaphore permits;
+  private final Set<Thread> running = ConcurrentHashMap.newKeySet();
+  private final Object termination = new Object();
+  private volatile boolean shutdown = false;
+
+  /**
+   * @param threadFactory creates one thread per task, e.g. {@link VirtualThreads#newThreadFactory(String)}
+   * @param maxConcurrent most tasks running at once, unbounded if not positive
+   */
+  public ThreadPerTaskExecutor(ThreadFactory threadFactory, int maxConcurrent) {
+    this.threadFactory = threadFactory;
+    this.permits = maxConcurrent > 0 ? new Semaphore(maxConcurrent, true) : null;
+  }
+
+  @Override
+  public void execute(Runnable command) {
+    if (shutdown) {
+      throw new RejectedExecutionException("Executor has been shut down");
+    }
+    if (permits != null) {
+      try {
+        permits.acquire();
+      } catch (InterruptedException ex) {
+        Thread.currentThread().interrupt();
+        throw new RejectedExecutionException("Interrupted waiting for a running task to finish", ex);
+      }
+    }
+    Thread thread = threadFactory.newThread(() -> {
+      Throwable thrown = null;
+      try {
+        command.run();
+      } catch (RuntimeException | Error ex) {
+        thrown = ex;
+        throw ex;
+      } finally {
+        try {
+          afterExecute(command, thrown);
+        } finally {
+          finished(Thread.currentThread());
+        }
+      }
+    });
+    running.add(thread);
+    try {
+      thread.start();
+    } catch (RuntimeException | Error ex) {
+      finished(thread);
+      throw new RejectedExecutionException("Unable to start a thread", ex);
+    }
+  }
+
+  /**
+   * Called in the task's thread once it has finished, like {@link java.util.concurrent.ThreadPoolExecutor}'s hook.
+   * @param runnable the task
+   * @param thrown the exception that ended it, or null if it completed normally
+   */
+  protected void afterExecute(Runnable runnable, Throwable thrown) {
+  }
+
+  private void finished(Thread thread) {
+    running.remove(thread);
+    if (permits != null) {
+      permits.release();
+    }
+    synchronized (termination) {
+      termination.notifyAll();
+    }
+  }
+
+  /**
+   * Number of tasks currently running.
+   * @return running tasks
+   */
+  public int getActiveCount() {
+    return running.size();
+  }
+
+  @Override
+  public void shutdown() {
+    shutdown = true;
+    synchronized (termination) {
+      termination.notifyAll();
+    }
+  }
+
+  @Override
+  public List<Runnable> shutdownNow() {
+    shutdown();
+    for (Thread thread : running) {
+      thread.interrupt();
+    }
+    return new ArrayList<>();
+  }
+
+  @Override
+  public boolean isShutdown() {
+    return shutdown;
+  }
+
+  @Override
+  public boolean isTerminated() {
+    return shutdown && running.isEmpty();
+  }
+
+  @Override
+  public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+    long deadline = System.nanoTime() + unit.toNanos(timeout);
+    synchronized (termination) {
+      while (!isTerminated()) {
+        long remaining = deadline - System.nanoTime();
+        if (remaining <= 0) {
+          return false;
+        }
+        TimeUnit.NANOSECONDS.timedWait(termination, remaining);
+      }
+    }
+    return true;
+  }
+
+}
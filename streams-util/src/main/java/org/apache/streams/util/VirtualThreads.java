@@ -0,0 +1,88 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.streams.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * VirtualThreads creates ThreadFactories for virtual threads when the JVM supports them (Java 21+).
+ * <p/>
+ * Streams is built for Java 8, so the virtual thread API is looked up reflectively.  On older JVMs the factories
+ * fall back to platform threads, so callers can request virtual threads unconditionally.
+ */
+public class VirtualThreads {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(VirtualThreads.class);
+
+  private static final Method OF_VIRTUAL = findOfVirtual();
+
+  private static Method findOfVirtual() {
+    try {
+      return Thread.class.getMethod("ofVirtual");
+    } catch (NoSuchMethodException ex) {
+      return null;
+    }
+  }
+
+  /**
+   * whether this JVM supports virtual threads.
+   * @return true on Java 21+
+   */
+  public static boolean isSupported() {
+    return OF_VIRTUAL != null;
+  }
+
+  /**
+   * ThreadFactory creating virtual threads named prefix0, prefix1, ...
+   * Falls back to {@link java.util.concurrent.Executors#defaultThreadFactory()} when virtual threads are not supported.
+   * @param prefix thread name prefix
+   * @return ThreadFactory
+   */
+  public static ThreadFactory newThreadFactory(String prefix) {
+    if (OF_VIRTUAL != null) {
+      try {
+        Object builder = OF_VIRTUAL.invoke(null);
+        Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+        builder = builderClass.getMethod("name", String.class, long.class).invoke(builder, prefix, 0L);
+        return (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+      } catch (ReflectiveOperationException ex) {
+        LOGGER.warn("Unable to create virtual thread factory, using platform threads: {}", ex.getMessage());
+      }
+    } else {
+      LOGGER.warn("Virtual threads require Java 21+, using platform threads");
+    }
+    return Executors.defaultThreadFactory();
+  }
+
+  /**
+   * ThreadFactory creating virtual threads if requested and supported, otherwise platform threads.
+   * @param virtual whether virtual threads were requested
+   * @param prefix thread name prefix for virtual threads
+   * @return ThreadFactory
+   */
+  public static ThreadFactory newThreadFactory(boolean virtual, String prefix) {
+    return virtual ? newThreadFactory(prefix) : Executors.defaultThreadFactory();
+  }
+
+}
@@ -0,0 +1,97 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.streams.util.test;
+
+import org.apache.streams.util.ThreadPerTaskExecutor;
+import org.apache.streams.util.VirtualThreads;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Unit Test for ThreadPerTaskExecutor.
+ */
+public class ThreadPerTaskExecutorTest {
+
+  @Test
+  public void testConcurrencyIsBounded() throws Exception {
+    ThreadPerTaskExecutor executor = new ThreadPerTaskExecutor(VirtualThreads.newThreadFactory(true, "test-"), 3);
+    AtomicInteger running = new AtomicInteger();
+    AtomicInteger maxRunning = new AtomicInteger();
+    CountDownLatch done = new CountDownLatch(20);
+    for (int i = 0; i < 20; i++) {
+      executor.execute(() -> {
+        maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+        try {
+          Thread.sleep(10);
+        } catch (InterruptedException ex) {
+          Thread.currentThread().interrupt();
+        }
+        running.decrementAndGet();
+        done.countDown();
+      });
+    }
+    Assert.assertTrue(done.await(10, TimeUnit.SECONDS));
+    Assert.assertTrue(maxRunning.get() <= 3);
+    executor.shutdown();
+    Assert.assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+    Assert.assertTrue(executor.isTerminated());
+  }
+
+  @Test
+  public void testShutdown() throws Exception {
+    AtomicReference<Throwable> thrown = new AtomicReference<>();
+    ThreadPerTaskExecutor executor = new ThreadPerTaskExecutor(VirtualThreads.newThreadFactory(true, "test-"), 0) {
+      @Override
+      protected void afterExecute(Runnable runnable, Throwable ex) {
+        if (ex != null) {
+          thrown.set(ex);
+        }
+      }
+    };
+    CountDownLatch started = new CountDownLatch(1);
+    executor.execute(() -> {
+      started.countDown();
+      try {
+        Thread.sleep(60000);
+      } catch (InterruptedException ex) {
+        throw new IllegalStateException("interrupted");
+      }
+    });
+    Assert.assertTrue(started.await(5, TimeUnit.SECONDS));
+    executor.shutdown();
+    Assert.assertFalse(executor.awaitTermination(50, TimeUnit.MILLISECONDS));
+    try {
+      executor.execute(() -> { });
+      Assert.fail("Accepted a task after shutdown");
+    } catch (RejectedExecutionException expected) {
+      // expected
+    }
+    Assert.assertTrue(executor.shutdownNow().isEmpty());
+    Assert.assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+    Assert.assertTrue(thrown.get() instanceof IllegalStateException);
+  }
+
+}
@@ -0,0 +1,55 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.streams.util.test;
+
+import org.apache.streams.util.VirtualThreads;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Unit Test for VirtualThreads.
+ */
+public class VirtualThreadsTest {
+
+  @Test
+  public void testFactoryRunsOnAnyJvm() throws Exception {
+    for (boolean virtual : new boolean[] {false, true}) {
+      ThreadFactory factory = VirtualThreads.newThreadFactory(virtual, "test-");
+      CountDownLatch ran = new CountDownLatch(1);
+      Thread thread = factory.newThread(ran::countDown);
+      thread.start();
+      Assert.assertTrue(ran.await(5, TimeUnit.SECONDS));
+      thread.join();
+    }
+  }
+
+  @Test
+  public void testVirtualThreadsAreNamed() {
+    if (VirtualThreads.isSupported()) {
+      Thread thread = VirtualThreads.newThreadFactory("test-").newThread(() -> { });
+      Assert.assertEquals("test-0", thread.getName());
+    }
+  }
+
+}
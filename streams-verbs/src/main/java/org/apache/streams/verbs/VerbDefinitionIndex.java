@@ -0,0 +1,283 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.streams.verbs;
+
+import org.apache.streams.pojo.json.Activity;
+import org.apache.streams.pojo.json.ActivityObject;
+import org.apache.streams.util.SerializationUtil;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
+
+/**
+ * Immutable index of a set of VerbDefinitions, precompiled for matching activities.
+ *
+ * <p></p>
+ * The ObjectCombinations of each verb are numbered, and for each of actor, object, target and provider the index
+ * holds a bit mask of the combinations an activity can match: one per object type named in a combination, one for
+ * any other type (the wildcard bucket), and one for activities without that object.  Matching an activity is a
+ * hash lookup for its verb, one for each object type, and an AND of four masks.  The order of matching
+ * combinations from most to least specific is precomputed for each of the 16 ways an activity can have or lack
+ * its four objects.
+ */
+public class VerbDefinitionIndex {
+
+  private static final int ACTOR = 0;
+  private static final int OBJECT = 1;
+  private static final int TARGET = 2;
+  private static final int PROVIDER = 3;
+
+  private static final String WILDCARD = "*";
+
+  private final Map<String, VerbEntry> verbs = new HashMap<>();
+
+  /**
+   * Index the VerbDefinitions, in their iteration order.
+   * @param verbDefinitions verbDefinitions
+   */
+  public VerbDefinitionIndex(Collection<VerbDefinition> verbDefinitions) {
+    Map<String, List<VerbDefinition>> byVerb = new HashMap<>();
+    if (verbDefinitions != null) {
+      for (VerbDefinition verbDefinition : verbDefinitions) {
+        if (verbDefinition.getValue() != null) {
+          byVerb.computeIfAbsent(verbDefinition.getValue(), verb -> new ArrayList<>()).add(verbDefinition);
+        }
+      }
+    }
+    for (Map.Entry<String, List<VerbDefinition>> entry : byVerb.entrySet()) {
+      verbs.put(entry.getKey(), new VerbEntry(entry.getValue()));
+    }
+  }
+
+  /**
+   * whether this Activity matches any indexed VerbDefinition.
+   * @param activity Activity
+   * @return true or false
+   */
+  public boolean matches(Activity activity) {
+    VerbEntry entry = activity.getVerb() != null ? verbs.get(activity.getVerb()) : null;
+    if (entry == null) {
+      return false;
+    }
+    long[] actor = entry.masks[ACTOR].get(activity.getActor());
+    long[] object = entry.masks[OBJECT].get(activity.getObject());
+    long[] target = entry.masks[TARGET].get(activity.getTarget());
+    long[] provider = entry.masks[PROVIDER].get(activity.getProvider());
+    for (int word = 0; word < actor.length; word++) {
+      if ((actor[word] & object[word] & target[word] & provider[word]) != 0) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * return all matching ObjectCombinations for an Activity, most specific first.
+   * @param activity Activity
+   * @return List of ObjectCombination
+   */
+  public List<ObjectCombination> matchingObjectCombinations(Activity activity) {
+    VerbEntry entry = activity.getVerb() != null ? verbs.get(activity.getVerb()) : null;
+    if (entry == null) {
+      return new ArrayList<>();
+    }
+    long[] actor = entry.masks[ACTOR].get(activity.getActor());
+    long[] object = entry.masks[OBJECT].get(activity.getObject());
+    long[] target = entry.masks[TARGET].get(activity.getTarget());
+    long[] provider = entry.masks[PROVIDER].get(activity.getProvider());
+
+    List<ObjectCombination> results = new ArrayList<>();
+    for (int combination : entry.specificOrders[presence(activity)]) {
+      if (isSet(combination, actor, object, target, provider)) {
+        results.add(entry.combinations[combination]);
+      }
+    }
+    return results;
+  }
+
+  /**
+   * return copies of the VerbDefinitions an Activity matches, holding only the ObjectCombinations it matches.
+   * @param activity Activity
+   * @return Set of VerbDefinition
+   */
+  public Set<VerbDefinition> matchingVerbDefinitions(Activity activity) {
+    Set<VerbDefinition> matches = Collections.newSetFromMap(new ConcurrentHashMap<VerbDefinition, Boolean>());
+    VerbEntry entry = activity.getVerb() != null ? verbs.get(activity.getVerb()) : null;
+    if (entry == null) {
+      return matches;
+    }
+    long[] actor = entry.masks[ACTOR].get(activity.getActor());
+    long[] object = entry.masks[OBJECT].get(activity.getObject());
+    long[] target = entry.masks[TARGET].get(activity.getTarget());
+    long[] provider = entry.masks[PROVIDER].get(activity.getProvider());
+
+    for (int definition = 0; definition < entry.definitions.length; definition++) {
+      int start = entry.definitionStarts[definition];
+      int end = entry.definitionStarts[definition + 1];
+      VerbDefinition verbDefinitionCopy = null;
+      List<ObjectCombination> matching = null;
+      for (int combination = start; combination < end; combination++) {
+        if (isSet(combination, actor, object, target, provider)) {
+          if (verbDefinitionCopy == null) {
+            verbDefinitionCopy = SerializationUtil.cloneBySerialization(entry.definitions[definition]);
+            matching = new ArrayList<>();
+          }
+          matching.add(verbDefinitionCopy.getObjects().get(combination - start));
+        }
+      }
+      if (verbDefinitionCopy != null) {
+        verbDefinitionCopy.setObjects(matching);
+        matches.add(verbDefinitionCopy);
+      }
+    }
+    return matches;
+  }
+
+  private static boolean isSet(int combination, long[] actor, long[] object, long[] target, long[] provider) {
+    int word = combination >>> 6;
+    long bit = 1L << combination;
+    return (actor[word] & object[word] & target[word] & provider[word] & bit) != 0;
+  }
+
+  private static int presence(Activity activity) {
+    return (activity.getActor() != null ? 1 << ACTOR : 0)
+        | (activity.getObject() != null ? 1 << OBJECT : 0)
+        | (activity.getTarget() != null ? 1 << TARGET : 0)
+        | (activity.getProvider() != null ? 1 << PROVIDER : 0);
+  }
+
+  /**
+   * The ObjectCombinations of every VerbDefinition with one verb.
+   */
+  private static class VerbEntry {
+
+    private final VerbDefinition[] definitions;
+    private final int[] definitionStarts;
+    private final ObjectCombination[] combinations;
+    private final Masks[] masks = new Masks[4];
+    private final int[][] specificOrders = new int[16][];
+
+    private VerbEntry(List<VerbDefinition> verbDefinitions) {
+      definitions = verbDefinitions.toArray(new VerbDefinition[verbDefinitions.size()]);
+      definitionStarts = new int[definitions.length + 1];
+      List<ObjectCombination> all = new ArrayList<>();
+      for (int definition = 0; definition < definitions.length; definition++) {
+        definitionStarts[definition] = all.size();
+        if (definitions[definition].getObjects() != null) {
+          all.addAll(definitions[definition].getObjects());
+        }
+      }
+      definitionStarts[definitions.length] = all.size();
+      combinations = all.toArray(new ObjectCombination[all.size()]);
+
+      String[][] patterns = new String[4][combinations.length];
+      boolean[][] required = new boolean[4][combinations.length];
+      for (int combination = 0; combination < combinations.length; combination++) {
+        ObjectCombination criteria = combinations[combination];
+        patterns[ACTOR][combination] = criteria.getActor();
+        patterns[OBJECT][combination] = criteria.getObject();
+        patterns[TARGET][combination] = criteria.getTarget();
+        patterns[PROVIDER][combination] = criteria.getProvider();
+        required[ACTOR][combination] = Boolean.TRUE.equals(criteria.getActorRequired());
+        required[OBJECT][combination] = Boolean.TRUE.equals(criteria.getObjectRequired());
+        required[TARGET][combination] = Boolean.TRUE.equals(criteria.getTargetRequired());
+        required[PROVIDER][combination] = Boolean.TRUE.equals(criteria.getProviderRequired());
+      }
+      for (int dimension = 0; dimension < 4; dimension++) {
+        masks[dimension] = new Masks(patterns[dimension], required[dimension]);
+      }
+
+      // ObjectCombinationSpecificOrdering: most object types matched first, then actor, object, target, provider
+      for (int presence = 0; presence < 16; presence++) {
+        int[] keys = new int[combinations.length];
+        for (int combination = 0; combination < combinations.length; combination++) {
+          int matched = 0;
+          for (int dimension = 0; dimension < 4; dimension++) {
+            if ((presence & (1 << dimension)) != 0 && isSpecific(patterns[dimension][combination])) {
+              matched |= 1 << (3 - dimension);
+            }
+          }
+          keys[combination] = (Integer.bitCount(matched) << 4) | matched;
+        }
+        specificOrders[presence] = IntStream.range(0, combinations.length).boxed()
+            .sorted(Comparator.comparingInt((Integer combination) -> keys[combination]).reversed())
+            .mapToInt(Integer::intValue)
+            .toArray();
+      }
+    }
+  }
+
+  /**
+   * Masks of the combinations matching one of actor, object, target or provider.
+   */
+  private static class Masks {
+
+    private final Map<String, long[]> typed = new HashMap<>();
+    private final long[] untyped;
+    private final long[] absent;
+
+    private Masks(String[] patterns, boolean[] required) {
+      int words = Math.max(1, (patterns.length + 63) >>> 6);
+      untyped = new long[words];
+      absent = new long[words];
+      for (int combination = 0; combination < patterns.length; combination++) {
+        if (!isSpecific(patterns[combination])) {
+          set(untyped, combination);
+        }
+        if (!required[combination]) {
+          set(absent, combination);
+        }
+      }
+      for (int combination = 0; combination < patterns.length; combination++) {
+        if (isSpecific(patterns[combination])) {
+          set(typed.computeIfAbsent(patterns[combination], type -> untyped.clone()), combination);
+        }
+      }
+    }
+
+    private long[] get(ActivityObject activityObject) {
+      if (activityObject == null) {
+        return absent;
+      }
+      String objectType = activityObject.getObjectType();
+      if (objectType == null) {
+        return untyped;
+      }
+      long[] mask = typed.get(objectType);
+      return mask != null ? mask : untyped;
+    }
+
+    private static void set(long[] mask, int combination) {
+      mask[combination >>> 6] |= 1L << combination;
+    }
+  }
+
+  private static boolean isSpecific(String pattern) {
+    return !WILDCARD.equals(pattern);
+  }
+
+}
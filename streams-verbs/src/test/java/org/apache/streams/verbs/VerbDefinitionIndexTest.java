@@ -0,0 +1,163 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.streams.verbs;
+
+import org.apache.streams.pojo.json.Activity;
+import org.apache.streams.pojo.json.ActivityObject;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Tests for {$link: org.apache.streams.verbs.VerbDefinitionIndex}.
+ */
+public class VerbDefinitionIndexTest {
+
+  private static final String[] PATTERNS = new String[] {"*", "page", "person", "task", "group"};
+  private static final String[] TYPES = new String[] {null, "page", "person", "task", "group", "application"};
+
+  private final Random random = new Random(42);
+
+  /**
+   * Test that the index matches exactly the ObjectCombinations VerbDefinitionResolver.filter accepts,
+   * with more combinations than fit in one mask word.
+   */
+  @Test
+  public void testMatchesFilter() {
+    Set<VerbDefinition> definitions = new HashSet<>();
+    definitions.add(randomDefinition("post", 100));
+    definitions.add(randomDefinition("post", 30));
+    definitions.add(randomDefinition("share", 10));
+    VerbDefinitionIndex index = new VerbDefinitionIndex(definitions);
+
+    for (int i = 0; i < 2000; i++) {
+      Activity activity = randomActivity(i % 10 == 0 ? "follow" : i % 2 == 0 ? "post" : "share");
+
+      List<ObjectCombination> expected = new ArrayList<>();
+      for (VerbDefinition definition : definitions) {
+        if (definition.getValue().equals(activity.getVerb())) {
+          expected.addAll(definition.getObjects().stream()
+              .filter(criteria -> VerbDefinitionResolver.filter(activity, criteria))
+              .collect(Collectors.toList()));
+        }
+      }
+      List<ObjectCombination> actual = index.matchingObjectCombinations(activity);
+
+      assert index.matches(activity) == VerbDefinitionMatchUtil.match(activity, definitions);
+      assert index.matches(activity) == !expected.isEmpty();
+      assert actual.size() == expected.size();
+      assert new HashSet<>(actual).equals(new HashSet<>(expected));
+      assert index.matchingVerbDefinitions(activity).stream().mapToInt(definition -> definition.getObjects().size()).sum()
+          == expected.size();
+    }
+  }
+
+  /**
+   * Test that matching ObjectCombinations come back most specific first.
+   */
+  @Test
+  public void testSpecificOrdering() {
+    Set<VerbDefinition> definitions = new HashSet<>();
+    definitions.add(randomDefinition("post", 200));
+    VerbDefinitionIndex index = new VerbDefinitionIndex(definitions);
+
+    for (int i = 0; i < 500; i++) {
+      Activity activity = randomActivity("post");
+      int previous = Integer.MAX_VALUE;
+      for (ObjectCombination criteria : index.matchingObjectCombinations(activity)) {
+        int specific = specificity(activity, criteria);
+        assert specific <= previous;
+        previous = specific;
+      }
+    }
+  }
+
+  /**
+   * Test that activities without a verb or definitions match nothing.
+   */
+  @Test
+  public void testEmpty() {
+    VerbDefinitionIndex index = new VerbDefinitionIndex(null);
+    assert !index.matches(randomActivity("post"));
+    assert index.matchingObjectCombinations(randomActivity("post")).size() == 0;
+    assert index.matchingVerbDefinitions(randomActivity("post")).size() == 0;
+    Set<VerbDefinition> definitions = new HashSet<>();
+    definitions.add(randomDefinition("post", 10));
+    assert !new VerbDefinitionIndex(definitions).matches(randomActivity(null));
+  }
+
+  private int specificity(Activity activity, ObjectCombination criteria) {
+    int actor = activity.getActor() != null && !criteria.getActor().equals("*") ? 1 : 0;
+    int object = activity.getObject() != null && !criteria.getObject().equals("*") ? 1 : 0;
+    int target = activity.getTarget() != null && !criteria.getTarget().equals("*") ? 1 : 0;
+    int provider = activity.getProvider() != null && !criteria.getProvider().equals("*") ? 1 : 0;
+    return ((actor + object + target + provider) << 4) | (actor << 3) | (object << 2) | (target << 1) | provider;
+  }
+
+  private VerbDefinition randomDefinition(String verb, int combinations) {
+    VerbDefinition definition = new VerbDefinition();
+    definition.setId(verb + combinations);
+    definition.setValue(verb);
+    List<ObjectCombination> objects = new ArrayList<>();
+    for (int i = 0; i < combinations; i++) {
+      ObjectCombination criteria = new ObjectCombination();
+      criteria.setActor(randomPattern());
+      criteria.setActorRequired(random.nextBoolean());
+      criteria.setObject(randomPattern());
+      criteria.setObjectRequired(random.nextBoolean());
+      criteria.setTarget(randomPattern());
+      criteria.setTargetRequired(random.nextBoolean());
+      criteria.setProvider(randomPattern());
+      criteria.setProviderRequired(random.nextBoolean());
+      objects.add(criteria);
+    }
+    definition.setObjects(objects);
+    return definition;
+  }
+
+  private String randomPattern() {
+    return random.nextInt(3) == 0 ? PATTERNS[0] : PATTERNS[random.nextInt(PATTERNS.length)];
+  }
+
+  private Activity randomActivity(String verb) {
+    Activity activity = new Activity();
+    activity.setVerb(verb);
+    activity.setActor(randomObject());
+    activity.setObject(randomObject());
+    activity.setTarget(randomObject());
+    activity.setProvider(randomObject());
+    return activity;
+  }
+
+  private ActivityObject randomObject() {
+    if (random.nextInt(4) == 0) {
+      return null;
+    }
+    ActivityObject activityObject = new ActivityObject();
+    activityObject.setObjectType(TYPES[random.nextInt(TYPES.length)]);
+    return activityObject;
+  }
+
+}